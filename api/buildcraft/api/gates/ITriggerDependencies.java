@@ -0,0 +1,25 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.api.gates;
+
+/**
+ * This interface can be implemented by triggers to tell gates what their
+ * state depends on. Gates then only evaluate them again after one of these
+ * may have changed. Triggers that do not implement it are evaluated on every
+ * tick.
+ */
+public interface ITriggerDependencies {
+
+	/**
+	 * Returns everything the state of this trigger depends on. This must not
+	 * change over time.
+	 */
+	TriggerDependency[] getDependencies();
+
+}
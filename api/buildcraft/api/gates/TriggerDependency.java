@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.api.gates;
+
+/**
+ * What the state of a trigger can depend on. See ITriggerDependencies.
+ */
+public enum TriggerDependency {
+
+	/**
+	 * The redstone input of the block holding the gate.
+	 */
+	REDSTONE,
+
+	/**
+	 * The signal of the wires of the pipe holding the gate.
+	 */
+	WIRE,
+
+	/**
+	 * The state of the pipe holding the gate and of the tiles next to it,
+	 * such as their inventories, tanks or energy. Not all tiles tell their
+	 * neighbors when this changes, so gates also check it every few ticks.
+	 */
+	NEIGHBOR,
+
+	/**
+	 * The state of the expansions of the gate, such as timers.
+	 */
+	EXPANSION;
+
+	public static final TriggerDependency[] VALUES = values();
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.api.mj;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.Level;
+
+import buildcraft.api.core.BCLog;
+
+/**
+ * Reads and writes the double field holding the energy of a battery.
+ *
+ * One accessor is built per field, the first time a battery on that field is
+ * created, and is then shared by all batteries on that field. It goes through
+ * method handles bound to the field, see MjHandles, and through reflection on
+ * runtimes without java.lang.invoke.
+ */
+public abstract class BatteryAccessor {
+
+	private static final Map<Field, BatteryAccessor> accessors = new HashMap<Field, BatteryAccessor>();
+
+	private static boolean handlesAvailable = true;
+
+	BatteryAccessor() {
+	}
+
+	/**
+	 * Returns the accessor of a double field.
+	 */
+	public static synchronized BatteryAccessor get(Field field) {
+		BatteryAccessor accessor = accessors.get(field);
+
+		if (accessor == null) {
+			accessor = create(field);
+			accessors.put(field, accessor);
+		}
+
+		return accessor;
+	}
+
+	/**
+	 * Returns a new accessor of a double field going through reflection,
+	 * whatever the runtime supports. Meant for comparisons with the accessor
+	 * returned by get.
+	 */
+	public static BatteryAccessor reflective(Field field) {
+		return new ReflectiveAccessor(field);
+	}
+
+	private static BatteryAccessor create(Field field) {
+		if (handlesAvailable) {
+			try {
+				return MjHandles.accessor(field);
+			} catch (LinkageError e) {
+				handlesAvailable = false;
+			} catch (IllegalAccessException e) {
+				BCLog.logger.log(Level.WARN, "can't bind energy field " + field, e);
+			}
+		}
+
+		return new ReflectiveAccessor(field);
+	}
+
+	public abstract double getDouble(Object obj);
+
+	public abstract void setDouble(Object obj, double value);
+
+	private static final class ReflectiveAccessor extends BatteryAccessor {
+
+		private final Field field;
+
+		public ReflectiveAccessor(Field field) {
+			this.field = field;
+			this.field.setAccessible(true);
+		}
+
+		@Override
+		public double getDouble(Object obj) {
+			try {
+				return field.getDouble(obj);
+			} catch (IllegalAccessException e) {
+				BCLog.logger.log(Level.WARN, "can't get energy stored", e);
+				return 0;
+			}
+		}
+
+		@Override
+		public void setDouble(Object obj, double value) {
+			try {
+				field.setDouble(obj, value);
+			} catch (IllegalAccessException e) {
+				BCLog.logger.log(Level.WARN, "can't set energy stored", e);
+				throw new RuntimeException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.api.mj;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Creates the batteries of one registered kind. The no-arg constructor of the
+ * kind is looked up once, then called through a method handle, or through
+ * reflection on runtimes without java.lang.invoke.
+ */
+abstract class BatteryFactory {
+
+	private static boolean handlesAvailable = true;
+
+	static BatteryFactory of(Class<? extends IBatteryObject> clazz) throws NoSuchMethodException, IllegalAccessException {
+		Constructor<? extends IBatteryObject> constructor = clazz.getDeclaredConstructor();
+		constructor.setAccessible(true);
+
+		if (handlesAvailable) {
+			try {
+				return MjHandles.factory(constructor);
+			} catch (LinkageError e) {
+				handlesAvailable = false;
+			}
+		}
+
+		return new ReflectiveFactory(constructor);
+	}
+
+	abstract IBatteryObject create() throws Exception;
+
+	private static final class ReflectiveFactory extends BatteryFactory {
+
+		private final Constructor<? extends IBatteryObject> constructor;
+
+		public ReflectiveFactory(Constructor<? extends IBatteryObject> constructor) {
+			this.constructor = constructor;
+		}
+
+		@Override
+		IBatteryObject create() throws Exception {
+			return constructor.newInstance();
+		}
+	}
+}
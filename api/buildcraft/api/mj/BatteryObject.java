@@ -10,36 +10,41 @@ package buildcraft.api.mj;
 
 import java.lang.reflect.Field;
 
-import org.apache.logging.log4j.Level;
-
-import buildcraft.api.core.BCLog;
 import buildcraft.api.core.JavaTools;
 
 /**
  * A battery object is a wrapper around a battery field in an object. This
  * battery field is of type double, and is the only piece of data specific to
  * this object. Others are class-wide.
+ *
+ * The field is read and written through a BatteryAccessor, and the values of
+ * the MjBattery annotation are copied when it is set, since calls on an
+ * annotation go through a dynamic proxy.
+ *
+ * With FixedPointEnergy enabled, energy is added and removed in whole
+ * micro-MJ.
  */
 public class BatteryObject implements IBatteryIOObject, MjReconfigurator.IConfigurableBatteryObject {
 	protected Field energyStored;
 	protected Object obj;
 	protected MjBattery batteryData;
+	protected BatteryAccessor accessor;
+
+	private double maxCapacity;
+	private double minimumConsumption;
+	private double maxReceivedPerCycle;
+	private double maxSendedPerCycle;
+	private IOMode mode;
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public double getEnergyRequested() {
-		if (!batteryData.mode().canReceive) {
+		if (!mode.canReceive) {
 			return 0;
 		}
-		try {
-			return JavaTools.bounds(batteryData.maxCapacity() - energyStored.getDouble(obj),
-					batteryData.minimumConsumption(), batteryData.maxReceivedPerCycle());
-		} catch (IllegalAccessException e) {
-			BCLog.logger.log(Level.WARN, "can't get energy requested", e);
-		}
-		return 0;
+		return FixedPointEnergy.quantize(JavaTools.bounds(maxCapacity - accessor.getDouble(obj), minimumConsumption, maxReceivedPerCycle));
 	}
 
 	/**
@@ -55,19 +60,38 @@ public class BatteryObject implements IBatteryIOObject, MjReconfigurator.IConfig
 	 */
 	@Override
 	public double addEnergy(double mj, boolean ignoreCycleLimit) {
-		try {
-			double contained = energyStored.getDouble(obj);
-			double maxAccepted = batteryData.maxCapacity() - contained + batteryData.minimumConsumption();
-			if (!ignoreCycleLimit && maxAccepted > batteryData.maxReceivedPerCycle()) {
-				maxAccepted = batteryData.maxReceivedPerCycle();
-			}
-			double used = Math.min(maxAccepted, mj);
-			if (used > 0) {
-				energyStored.setDouble(obj, Math.min(contained + used, batteryData.maxCapacity()));
-				return used;
-			}
-		} catch (IllegalAccessException e) {
-			BCLog.logger.log(Level.WARN, "can't add energy", e);
+		if (FixedPointEnergy.enabled) {
+			return addEnergyFixed(mj, ignoreCycleLimit);
+		}
+
+		double contained = accessor.getDouble(obj);
+		double maxAccepted = maxCapacity - contained + minimumConsumption;
+		if (!ignoreCycleLimit && maxAccepted > maxReceivedPerCycle) {
+			maxAccepted = maxReceivedPerCycle;
+		}
+		double used = Math.min(maxAccepted, mj);
+		if (used > 0) {
+			accessor.setDouble(obj, Math.min(contained + used, maxCapacity));
+			return used;
+		}
+		return 0;
+	}
+
+	private double addEnergyFixed(double mj, boolean ignoreCycleLimit) {
+		long contained = FixedPointEnergy.toMicro(accessor.getDouble(obj));
+		long capacity = FixedPointEnergy.toMicro(maxCapacity);
+		long maxAccepted = capacity - contained + FixedPointEnergy.toMicro(minimumConsumption);
+		long maxReceived = FixedPointEnergy.toMicro(maxReceivedPerCycle);
+		if (!ignoreCycleLimit && maxAccepted > maxReceived) {
+			maxAccepted = maxReceived;
+		}
+		long used = Math.min(maxAccepted, FixedPointEnergy.toMicro(mj));
+		if (used > 0) {
+			// The minimum consumption may let more in than fits, only what
+			// was stored is reported as used.
+			long stored = Math.min(contained + used, capacity);
+			accessor.setDouble(obj, FixedPointEnergy.toMj(stored));
+			return FixedPointEnergy.toMj(Math.max(0, stored - contained));
 		}
 		return 0;
 	}
@@ -79,19 +103,34 @@ public class BatteryObject implements IBatteryIOObject, MjReconfigurator.IConfig
 
 	@Override
 	public double extractEnergy(double mj, boolean ignoreCycleLimit) {
-		try {
-			double contained = energyStored.getDouble(obj);
-			double maxExtracted = contained;
-			if (!ignoreCycleLimit && maxExtracted > batteryData.maxSendedPerCycle()) {
-				maxExtracted = batteryData.maxSendedPerCycle();
-			}
-			double used = Math.min(maxExtracted, mj);
-			if (used > 0) {
-				energyStored.setDouble(obj, Math.max(contained - used, 0));
-				return used;
-			}
-		} catch (IllegalAccessException e) {
-			BCLog.logger.log(Level.WARN, "can't extract energy", e);
+		if (FixedPointEnergy.enabled) {
+			return extractEnergyFixed(mj, ignoreCycleLimit);
+		}
+
+		double contained = accessor.getDouble(obj);
+		double maxExtracted = contained;
+		if (!ignoreCycleLimit && maxExtracted > maxSendedPerCycle) {
+			maxExtracted = maxSendedPerCycle;
+		}
+		double used = Math.min(maxExtracted, mj);
+		if (used > 0) {
+			accessor.setDouble(obj, Math.max(contained - used, 0));
+			return used;
+		}
+		return 0;
+	}
+
+	private double extractEnergyFixed(double mj, boolean ignoreCycleLimit) {
+		long contained = FixedPointEnergy.toMicro(accessor.getDouble(obj));
+		long maxExtracted = contained;
+		long maxSended = FixedPointEnergy.toMicro(maxSendedPerCycle);
+		if (!ignoreCycleLimit && maxExtracted > maxSended) {
+			maxExtracted = maxSended;
+		}
+		long used = Math.min(maxExtracted, FixedPointEnergy.toMicro(mj));
+		if (used > 0) {
+			accessor.setDouble(obj, FixedPointEnergy.toMj(contained - used));
+			return FixedPointEnergy.toMj(used);
 		}
 		return 0;
 	}
@@ -101,12 +140,7 @@ public class BatteryObject implements IBatteryIOObject, MjReconfigurator.IConfig
 	 */
 	@Override
 	public double getEnergyStored() {
-		try {
-			return energyStored.getDouble(obj);
-		} catch (IllegalAccessException e) {
-			BCLog.logger.log(Level.WARN, "can't get return energy stored", e);
-			return 0;
-		}
+		return accessor.getDouble(obj);
 	}
 
 	/**
@@ -114,12 +148,7 @@ public class BatteryObject implements IBatteryIOObject, MjReconfigurator.IConfig
 	 */
 	@Override
 	public void setEnergyStored(double mj) {
-		try {
-			energyStored.setDouble(obj, mj);
-		} catch (IllegalAccessException e) {
-			BCLog.logger.log(Level.WARN, "can't set energy stored", e);
-			throw new RuntimeException(e);
-		}
+		accessor.setDouble(obj, FixedPointEnergy.quantize(mj));
 	}
 
 	/**
@@ -127,7 +156,7 @@ public class BatteryObject implements IBatteryIOObject, MjReconfigurator.IConfig
 	 */
 	@Override
 	public double maxCapacity() {
-		return batteryData.maxCapacity();
+		return maxCapacity;
 	}
 
 	/**
@@ -135,7 +164,7 @@ public class BatteryObject implements IBatteryIOObject, MjReconfigurator.IConfig
 	 */
 	@Override
 	public double minimumConsumption() {
-		return batteryData.minimumConsumption();
+		return minimumConsumption;
 	}
 
 	/**
@@ -143,7 +172,7 @@ public class BatteryObject implements IBatteryIOObject, MjReconfigurator.IConfig
 	 */
 	@Override
 	public double maxReceivedPerCycle() {
-		return batteryData.maxReceivedPerCycle();
+		return maxReceivedPerCycle;
 	}
 
 	@Override
@@ -155,32 +184,33 @@ public class BatteryObject implements IBatteryIOObject, MjReconfigurator.IConfig
 	public void init(Object object, Field storedField, MjBattery battery) {
 		this.obj = object;
 		this.energyStored = storedField;
-		this.batteryData = battery;
+		this.accessor = BatteryAccessor.get(storedField);
+		setMjBattery(battery);
 	}
 
 	@Override
 	public double maxSendedPerCycle() {
-		return batteryData.maxSendedPerCycle();
+		return maxSendedPerCycle;
 	}
 
 	@Override
 	public IOMode mode() {
-		return batteryData.mode();
+		return mode;
 	}
 
 	@Override
 	public boolean canSend() {
-		return batteryData.mode().canSend;
+		return mode.canSend;
 	}
 
 	@Override
 	public boolean canReceive() {
-		return batteryData.mode().canReceive;
+		return mode.canReceive;
 	}
 
 	@Override
 	public boolean isActive() {
-		return batteryData.mode().active;
+		return mode.active;
 	}
 
 	@Override
@@ -196,5 +226,10 @@ public class BatteryObject implements IBatteryIOObject, MjReconfigurator.IConfig
 	@Override
 	public void setMjBattery(MjBattery battery) {
 		batteryData = battery;
+		maxCapacity = battery.maxCapacity();
+		minimumConsumption = battery.minimumConsumption();
+		maxReceivedPerCycle = battery.maxReceivedPerCycle();
+		maxSendedPerCycle = battery.maxSendedPerCycle();
+		mode = battery.mode();
 	}
-}
\ No newline at end of file
+}
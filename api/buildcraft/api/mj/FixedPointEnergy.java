@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.api.mj;
+
+/**
+ * Optional fixed-point accounting of MJ.
+ *
+ * When enabled, batteries, power handlers and power pipes count energy in
+ * whole micro-MJ, held in longs while they compute. Energy is still stored in
+ * double fields, since MjBattery fields, NBT and the pipe arrays are doubles,
+ * but only values written by toMj: below MAX_EXACT_MICRO, toMicro gives back
+ * the exact long such a double was made from, so the stored double is a
+ * lossless copy of the long and repeated operations cannot drift. Amounts
+ * added and removed are then exactly the amounts stored fields change by, and
+ * nothing smaller than a micro-MJ can remain in a battery. When disabled, all
+ * methods leave values untouched.
+ */
+public final class FixedPointEnergy {
+
+	public static final long MICRO_PER_MJ = 1000000L;
+
+	/**
+	 * The largest amount, in micro-MJ, that goes through toMj and toMicro
+	 * unchanged. That is about a billion MJ.
+	 */
+	public static final long MAX_EXACT_MICRO = 1L << 50;
+
+	/**
+	 * Set from the power.fixedPoint option of the main configuration.
+	 */
+	public static boolean enabled = false;
+
+	private FixedPointEnergy() {
+	}
+
+	public static long toMicro(double mj) {
+		return Math.round(mj * MICRO_PER_MJ);
+	}
+
+	public static double toMj(long micro) {
+		return (double) micro / MICRO_PER_MJ;
+	}
+
+	/**
+	 * Rounds an amount to the nearest micro-MJ if fixed-point accounting is
+	 * enabled.
+	 */
+	public static double quantize(double mj) {
+		if (!enabled) {
+			return mj;
+		}
+
+		return toMj(toMicro(mj));
+	}
+
+	/**
+	 * Adds value to a rolling average. With fixed-point accounting, averages
+	 * that decayed below a micro-MJ drop to zero instead of staying as
+	 * residues forever.
+	 */
+	public static double average(double average, double value, double numerator, double denominator) {
+		double result = (average * numerator + value) * denominator;
+
+		if (enabled && Math.abs(result) * MICRO_PER_MJ < 1) {
+			return 0;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Shares total in proportion to the positive weights, writing the share
+	 * of each weight in shares. With fixed-point accounting, the shares are
+	 * whole micro-MJ and add up to total exactly: what rounding leaves over
+	 * goes to the largest weight.
+	 */
+	public static void split(double total, double[] weights, double[] shares) {
+		double sum = 0;
+		int largest = -1;
+
+		for (int i = 0; i < weights.length; ++i) {
+			if (weights[i] > 0) {
+				sum += weights[i];
+
+				if (largest == -1 || weights[i] > weights[largest]) {
+					largest = i;
+				}
+			}
+		}
+
+		if (sum <= 0 || total <= 0) {
+			for (int i = 0; i < shares.length; ++i) {
+				shares[i] = 0;
+			}
+
+			return;
+		}
+
+		if (!enabled) {
+			for (int i = 0; i < weights.length; ++i) {
+				shares[i] = weights[i] > 0 ? weights[i] / sum * total : 0;
+			}
+
+			return;
+		}
+
+		long totalMicro = toMicro(total);
+		long given = 0;
+		long largestShare = 0;
+
+		for (int i = 0; i < weights.length; ++i) {
+			if (weights[i] > 0) {
+				long share = (long) Math.floor(weights[i] / sum * totalMicro);
+
+				if (i == largest) {
+					largestShare = share;
+				}
+
+				shares[i] = toMj(share);
+				given += share;
+			} else {
+				shares[i] = 0;
+			}
+		}
+
+		shares[largest] = toMj(largestShare + totalMicro - given);
+	}
+}
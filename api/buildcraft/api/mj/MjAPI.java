@@ -38,9 +38,11 @@ public final class MjAPI {
 	public static final String DEFAULT_POWER_FRAMEWORK = "buildcraft.kinesis";
 	private static Map<BatteryHolder, BatteryField> mjBatteryFields = new HashMap<BatteryHolder, BatteryField>();
 	private static Map<String, Class<? extends IBatteryObject>> mjBatteryKinds = new HashMap<String, Class<? extends IBatteryObject>>();
+	private static Map<String, BatteryFactory> mjBatteryFactories = new HashMap<String, BatteryFactory>();
 	private static final BatteryField invalidBatteryField = new BatteryField();
 	private static final MjReconfigurator reconfigurator = new MjReconfigurator();
 	private static final Map<Object, BatteryCache> mjBatteryCache = new WeakHashMap<Object, BatteryCache>();
+	private static int cacheGeneration = 0;
 
 	/**
 	 * Deactivate constructor
@@ -135,14 +137,17 @@ public final class MjAPI {
 		} else if (!mjBatteryKinds.containsKey(kind)) {
 			return null;
 		} else if (f.kind == BatteryKind.Value) {
+			BatteryFactory factory = mjBatteryFactories.get(kind);
+
+			if (factory == null) {
+				return null;
+			}
+
 			try {
-				IBatteryObject obj = mjBatteryKinds.get(kind).newInstance();
+				IBatteryObject obj = factory.create();
 				obj.init(o, f.field, f.battery);
 				return obj;
-			} catch (InstantiationException e) {
-				BCLog.logger.log(Level.WARN, "can't instantiate class for energy kind \"" + kind + "\"");
-				return null;
-			} catch (IllegalAccessException e) {
+			} catch (Exception e) {
 				BCLog.logger.log(Level.WARN, "can't instantiate class for energy kind \"" + kind + "\"");
 				return null;
 			}
@@ -191,6 +196,14 @@ public final class MjAPI {
 	public static void registerMJBatteryKind(String kind, Class<? extends IBatteryObject> clazz) {
 		if (!mjBatteryKinds.containsKey(kind)) {
 			mjBatteryKinds.put(kind, clazz);
+
+			try {
+				mjBatteryFactories.put(kind, BatteryFactory.of(clazz));
+			} catch (NoSuchMethodException e) {
+				BCLog.logger.log(Level.WARN, "energy kind \"" + kind + "\" has no no-arg constructor");
+			} catch (IllegalAccessException e) {
+				BCLog.logger.log(Level.WARN, "can't access the constructor of energy kind \"" + kind + "\"");
+			}
 		} else {
 			BCLog.logger.log(Level.WARN,
 					"energy kind \"" + kind + "\" already registered with " + clazz.getCanonicalName());
@@ -311,6 +324,7 @@ public final class MjAPI {
 	 */
 	public static void resetBatteriesCache(TileEntity tile) {
 		mjBatteryCache.remove(tile);
+		cacheGeneration++;
 	}
 
 	/**
@@ -320,6 +334,16 @@ public final class MjAPI {
 		for (BatteryCache cache : mjBatteryCache.values()) {
 			cache.reset(battery);
 		}
+		cacheGeneration++;
+	}
+
+	/**
+	 * Returns a number that changes every time battery caches are reset.
+	 * Callers holding on to batteries obtained from {@link #getMjBattery}
+	 * should look them up again when it changes.
+	 */
+	public static int getCacheGeneration() {
+		return cacheGeneration;
 	}
 
 	private enum BatteryKind {
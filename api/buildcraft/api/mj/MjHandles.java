@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.api.mj;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+
+/**
+ * The method handle implementations of BatteryAccessor and BatteryFactory.
+ * Everything using java.lang.invoke is kept in this class, so that a runtime
+ * without it only fails to link this class, and the callers fall back to
+ * reflection.
+ */
+final class MjHandles {
+
+	private static final MethodType GETTER = MethodType.methodType(double.class, Object.class);
+	private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, double.class);
+	private static final MethodType CONSTRUCTOR = MethodType.methodType(IBatteryObject.class);
+
+	private MjHandles() {
+	}
+
+	static BatteryAccessor accessor(Field field) throws IllegalAccessException {
+		field.setAccessible(true);
+
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+		return new HandleAccessor(lookup.unreflectGetter(field).asType(GETTER),
+				lookup.unreflectSetter(field).asType(SETTER));
+	}
+
+	static BatteryFactory factory(Constructor<? extends IBatteryObject> constructor) throws IllegalAccessException {
+		return new HandleFactory(MethodHandles.lookup().unreflectConstructor(constructor).asType(CONSTRUCTOR));
+	}
+
+	private static final class HandleAccessor extends BatteryAccessor {
+
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+
+		public HandleAccessor(MethodHandle getter, MethodHandle setter) {
+			this.getter = getter;
+			this.setter = setter;
+		}
+
+		@Override
+		public double getDouble(Object obj) {
+			try {
+				return (double) getter.invokeExact(obj);
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new RuntimeException(t);
+			}
+		}
+
+		@Override
+		public void setDouble(Object obj, double value) {
+			try {
+				setter.invokeExact(obj, value);
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new RuntimeException(t);
+			}
+		}
+	}
+
+	private static final class HandleFactory extends BatteryFactory {
+
+		private final MethodHandle constructor;
+
+		public HandleFactory(MethodHandle constructor) {
+			this.constructor = constructor;
+		}
+
+		@Override
+		IBatteryObject create() throws Exception {
+			try {
+				return (IBatteryObject) constructor.invokeExact();
+			} catch (Exception e) {
+				throw e;
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new RuntimeException(t);
+			}
+		}
+	}
+}
@@ -107,10 +107,19 @@ public class MjReconfigurator {
 		return configurableMjBattery;
 	}
 
+	/**
+	 * Battery objects may keep copies of the battery parameters, hand them the
+	 * battery again once it has been changed.
+	 */
+	private void apply(IBatteryObject batteryObject, ConfigurableMjBattery battery) {
+		((IConfigurableBatteryObject) batteryObject).setMjBattery(battery);
+	}
+
 	public void maxCapacity(IBatteryObject batteryObject, double maxCapacity) {
 		ConfigurableMjBattery battery = obtainConfigurableBattery(batteryObject);
 		if (battery != null) {
 			battery.maxCapacity = maxCapacity;
+			apply(batteryObject, battery);
 		}
 	}
 
@@ -118,6 +127,7 @@ public class MjReconfigurator {
 		ConfigurableMjBattery battery = obtainConfigurableBattery(batteryObject);
 		if (battery != null) {
 			battery.maxReceivedPerCycle = maxReceivedPerCycle;
+			apply(batteryObject, battery);
 		}
 	}
 
@@ -125,6 +135,7 @@ public class MjReconfigurator {
 		ConfigurableMjBattery battery = obtainConfigurableBattery(batteryObject);
 		if (battery != null) {
 			battery.maxSendedPerCycle = maxSendedPerCycle;
+			apply(batteryObject, battery);
 		}
 	}
 
@@ -132,6 +143,7 @@ public class MjReconfigurator {
 		ConfigurableMjBattery battery = obtainConfigurableBattery(batteryObject);
 		if (battery != null) {
 			battery.minimumConsumption = minimumConsumption;
+			apply(batteryObject, battery);
 		}
 	}
 
@@ -171,6 +183,7 @@ public class MjReconfigurator {
 		ConfigurableMjBattery battery = obtainConfigurableBattery(batteryObject);
 		if (battery != null) {
 			battery.mode = mode;
+			apply(batteryObject, battery);
 		}
 	}
 
@@ -178,6 +191,7 @@ public class MjReconfigurator {
 		ConfigurableMjBattery battery = obtainConfigurableBattery(batteryObject);
 		if (battery != null) {
 			battery.cacheable = cacheable;
+			apply(batteryObject, battery);
 		}
 	}
 }
@@ -14,6 +14,7 @@ import net.minecraftforge.common.util.ForgeDirection;
 
 import buildcraft.api.core.SafeTimeTracker;
 import buildcraft.api.mj.BatteryObject;
+import buildcraft.api.mj.FixedPointEnergy;
 import buildcraft.api.mj.IBatteryObject;
 import buildcraft.api.mj.IBatteryProvider;
 import buildcraft.api.mj.IOMode;
@@ -32,6 +33,9 @@ import buildcraft.api.mj.MjBattery;
  * receive power from other Engines.
  * <p/>
  * See TileRefinery for a simple example of a power using machine.
+ * <p/>
+ * With FixedPointEnergy enabled, perdition, taxes and usage are rounded to
+ * whole micro-MJ, and rolling averages drop to zero once below a micro-MJ.
  *
  * @see IPowerReceptor
  * @see IPowerEmitter
@@ -290,13 +294,14 @@ public final class PowerHandler implements IBatteryProvider {
 	private void applyPerdition() {
 		double energyStored = getEnergyStored();
 		if (perditionTracker.markTimeIfDelay(receptor.getWorld()) && energyStored > 0) {
-			double newEnergy = getPerdition().applyPerdition(this, energyStored, perditionTracker.durationOfLastDelay());
+			double newEnergy = FixedPointEnergy.quantize(getPerdition().applyPerdition(this, energyStored, perditionTracker.durationOfLastDelay()));
 			if (newEnergy != energyStored) {
 				battery.setEnergyStored(energyStored = newEnergy);
 			}
 			validateEnergy();
 
-			averageLostPower = (averageLostPower * ROLLING_AVERAGE_NUMERATOR + (getEnergyStored() - energyStored)) * ROLLING_AVERAGE_DENOMINATOR;
+			averageLostPower = FixedPointEnergy.average(averageLostPower, getEnergyStored() - energyStored,
+					ROLLING_AVERAGE_NUMERATOR, ROLLING_AVERAGE_DENOMINATOR);
 		}
 	}
 
@@ -335,6 +340,10 @@ public final class PowerHandler implements IBatteryProvider {
 	public double useEnergy(double min, double max, boolean doUse) {
 		applyPerdition();
 
+		if (FixedPointEnergy.enabled) {
+			return useEnergyFixed(min, max, doUse);
+		}
+
 		double result = 0;
 
 		double energyStored = getEnergyStored();
@@ -364,6 +373,31 @@ public final class PowerHandler implements IBatteryProvider {
 		return result;
 	}
 
+	private double useEnergyFixed(double min, double max, boolean doUse) {
+		long result = 0;
+
+		long energyStored = FixedPointEnergy.toMicro(getEnergyStored());
+		long microMax = FixedPointEnergy.toMicro(max);
+		if (energyStored >= FixedPointEnergy.toMicro(min)) {
+			result = Math.min(energyStored, microMax);
+			if (doUse) {
+				energyStored -= result;
+			}
+		}
+		if (doUse) {
+			battery.setEnergyStored(FixedPointEnergy.toMj(energyStored));
+		}
+
+		validateEnergy();
+
+		if (doUse) {
+			averageUsedPower = FixedPointEnergy.average(averageUsedPower, FixedPointEnergy.toMj(result),
+					ROLLING_AVERAGE_NUMERATOR, ROLLING_AVERAGE_DENOMINATOR);
+		}
+
+		return FixedPointEnergy.toMj(result);
+	}
+
 	public void readFromNBT(NBTTagCompound data) {
 		readFromNBT(data, "powerProvider");
 	}
@@ -457,7 +491,7 @@ public final class PowerHandler implements IBatteryProvider {
 
 			updateSources(from);
 
-			used -= used * getPerdition().getTaxPercent();
+			used = FixedPointEnergy.quantize(used - used * getPerdition().getTaxPercent());
 
 			used = addEnergy(used);
 
@@ -467,7 +501,8 @@ public final class PowerHandler implements IBatteryProvider {
 				used = Math.min(quantity, getMaxEnergyReceived());
 			}
 
-			averageReceivedPower = (averageReceivedPower * ROLLING_AVERAGE_NUMERATOR + used) * ROLLING_AVERAGE_DENOMINATOR;
+			averageReceivedPower = FixedPointEnergy.average(averageReceivedPower, used,
+					ROLLING_AVERAGE_NUMERATOR, ROLLING_AVERAGE_DENOMINATOR);
 
 			return used;
 		}
@@ -496,7 +531,7 @@ public final class PowerHandler implements IBatteryProvider {
 	}
 
 	private void validateEnergy() {
-		double energyStored = getEnergyStored();
+		double energyStored = FixedPointEnergy.quantize(getEnergyStored());
 		double maxEnergyStored = getMaxEnergyStored();
 		if (energyStored < 0) {
 			energyStored = 0;
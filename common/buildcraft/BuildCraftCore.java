@@ -67,6 +67,7 @@ import buildcraft.api.core.JavaTools;
 import buildcraft.api.gates.IAction;
 import buildcraft.api.gates.ITrigger;
 import buildcraft.api.gates.StatementManager;
+import buildcraft.api.mj.FixedPointEnergy;
 import buildcraft.api.recipes.BuildcraftRecipeRegistry;
 import buildcraft.core.BlockSpring;
 import buildcraft.core.BuildCraftConfiguration;
@@ -83,6 +84,7 @@ import buildcraft.core.ItemWrench;
 import buildcraft.core.SpringPopulate;
 import buildcraft.core.TickHandlerCore;
 import buildcraft.core.Version;
+import buildcraft.core.inventory.SummaryCache;
 import buildcraft.core.network.BuildCraftChannelHandler;
 import buildcraft.core.network.EntityIds;
 import buildcraft.core.network.NetworkIdRegistry;
@@ -113,6 +115,8 @@ import buildcraft.core.triggers.TriggerInventoryLevel;
 import buildcraft.core.triggers.TriggerMachine;
 import buildcraft.core.triggers.TriggerRedstoneInput;
 import buildcraft.core.utils.CraftingHandler;
+import buildcraft.core.utils.DormancyStats;
+import buildcraft.core.utils.PathFindingPool;
 import buildcraft.core.utils.WorldPropertyIsDirt;
 import buildcraft.core.utils.WorldPropertyIsFarmland;
 import buildcraft.core.utils.WorldPropertyIsHarvestable;
@@ -142,6 +146,8 @@ public class BuildCraftCore extends BuildCraftMod {
 	public static int itemLifespan = 1200;
 	public static int updateFactor = 10;
 	public static long longUpdateFactor = 40;
+	public static boolean dormantPowerTiles = true;
+	public static boolean deltaTileUpdates = true;
 	public static BuildCraftConfiguration mainConfiguration;
 
 	// TODO: This doesn't seem used anymore. Remove if it's the case.
@@ -297,6 +303,26 @@ public class BuildCraftCore extends BuildCraftMod {
 			longFactor.comment = "delay between full client sync packets, increasing it saves bandwidth, decreasing makes for better client syncronization.";
 			longUpdateFactor = longFactor.getInt(40);
 
+			Property deltaProp = BuildCraftCore.mainConfiguration.get(Configuration.CATEGORY_GENERAL, "network.deltaTileUpdates", deltaTileUpdates);
+			deltaProp.comment = "if true, machine updates only carry the fields that changed since the previous update";
+			deltaTileUpdates = deltaProp.getBoolean(deltaTileUpdates);
+
+			Property dormantProp = BuildCraftCore.mainConfiguration.get(Configuration.CATEGORY_GENERAL, "power.dormantTiles", dormantPowerTiles);
+			dormantProp.comment = "set to false to keep idle power pipes and engines updating every tick";
+			dormantPowerTiles = dormantProp.getBoolean(dormantPowerTiles);
+
+			Property fixedPointProp = BuildCraftCore.mainConfiguration.get(Configuration.CATEGORY_GENERAL, "power.fixedPoint", FixedPointEnergy.enabled);
+			fixedPointProp.comment = "set to true to count energy in whole micro-MJ, so that no rounding residue is ever left in machines and pipes";
+			FixedPointEnergy.enabled = fixedPointProp.getBoolean(FixedPointEnergy.enabled);
+
+			Property pathThreadsProp = BuildCraftCore.mainConfiguration.get(Configuration.CATEGORY_GENERAL, "robots.pathFindingThreads", PathFindingPool.threadCount);
+			pathThreadsProp.comment = "number of threads shared by all robot path searches";
+			PathFindingPool.threadCount = Math.max(1, pathThreadsProp.getInt(PathFindingPool.threadCount));
+
+			Property pathSectionsProp = BuildCraftCore.mainConfiguration.get(Configuration.CATEGORY_GENERAL, "robots.pathSectionsPerTick", PathFindingPool.sectionsPerTick);
+			pathSectionsProp.comment = "chunk sections of 16x16x16 blocks read per tick and per world for robot path searches, lower it to spend less time per tick";
+			PathFindingPool.sectionsPerTick = Math.max(1, pathSectionsProp.getInt(PathFindingPool.sectionsPerTick));
+
 			wrenchItem = (new ItemWrench()).setUnlocalizedName("wrenchItem");
 			CoreProxy.proxy.registerItem(wrenchItem);
 
@@ -684,6 +710,10 @@ public class BuildCraftCore extends BuildCraftMod {
 		BuildCraftAPI.isFarmlandProperty.clear();
 		BuildCraftAPI.isShoveled.clear();
 		BuildCraftAPI.isDirtProperty.clear();
+
+		PathFindingPool.unloadWorld(unload.world);
+		SummaryCache.unloadWorld(unload.world);
+		DormancyStats.unloadWorld(unload.world);
 	}
 
 	@Mod.EventHandler
@@ -9,44 +9,114 @@
 package buildcraft;
 
 import java.util.EnumMap;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
 
 import org.apache.logging.log4j.Level;
 
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.network.Packet;
+import net.minecraft.server.management.PlayerManager;
 import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
 
 import cpw.mods.fml.common.network.FMLEmbeddedChannel;
 import cpw.mods.fml.common.network.FMLOutboundHandler;
 import cpw.mods.fml.common.network.FMLOutboundHandler.OutboundTarget;
+import cpw.mods.fml.common.network.NetworkRegistry;
+import cpw.mods.fml.common.network.internal.FMLProxyPacket;
 import cpw.mods.fml.relauncher.Side;
 
 import buildcraft.api.core.BCLog;
+import buildcraft.core.network.BuildCraftChannelHandler;
 import buildcraft.core.network.BuildCraftPacket;
 
 public class BuildCraftMod {
 	public EnumMap<Side, FMLEmbeddedChannel> channels;
 
+	/**
+	 * Sends a packet to the players watching the chunk at x, z. maxDistance
+	 * is not used anymore: players only get updates of the chunks they see.
+	 */
 	public void sendToPlayers(Packet packet, World world, int x, int y, int z, int maxDistance) {
 		try {
-			channels.get(Side.SERVER).attr(FMLOutboundHandler.FML_MESSAGETARGET)
-					.set(FMLOutboundHandler.OutboundTarget.ALL);
-			channels.get(Side.SERVER).writeOutbound(packet);
+			if (!(world instanceof WorldServer)) {
+				return;
+			}
+
+			PlayerManager manager = ((WorldServer) world).getPlayerManager();
+
+			for (Object o : world.playerEntities) {
+				EntityPlayerMP player = (EntityPlayerMP) o;
+
+				if (manager.isPlayerWatchingChunk(player, x >> 4, z >> 4)) {
+					player.playerNetServerHandler.sendPacket(packet);
+				}
+			}
 		} catch (Throwable t) {
 			BCLog.logger.log(Level.WARN, "sentToPlayers crash", t);
 		}
 	}
 
+	/**
+	 * Sends a packet to the players watching the chunk at x, z. The packet
+	 * is encoded once, whatever the number of players. maxDistance is not
+	 * used anymore: players only get updates of the chunks they see.
+	 */
 	public void sendToPlayers(BuildCraftPacket packet, World world, int x, int y, int z, int maxDistance) {
 		try {
-			channels.get(Side.SERVER).attr(FMLOutboundHandler.FML_MESSAGETARGET)
-					.set(FMLOutboundHandler.OutboundTarget.ALL);
-			channels.get(Side.SERVER).writeOutbound(packet);
+			if (!(world instanceof WorldServer)) {
+				return;
+			}
+
+			PlayerManager manager = ((WorldServer) world).getPlayerManager();
+			ByteBuf encoded = null;
+
+			for (Object o : world.playerEntities) {
+				EntityPlayerMP player = (EntityPlayerMP) o;
+
+				if (manager.isPlayerWatchingChunk(player, x >> 4, z >> 4)) {
+					if (encoded == null) {
+						encoded = BuildCraftChannelHandler.encode(packet);
+					}
+
+					sendEncoded(player, encoded);
+				}
+			}
+		} catch (Throwable t) {
+			BCLog.logger.log(Level.WARN, "sentToPlayers crash", t);
+		}
+	}
+
+	/**
+	 * Sends a packet to all the given players, encoding it once.
+	 */
+	public void sendToPlayers(BuildCraftPacket packet, List<?> players) {
+		try {
+			ByteBuf encoded = null;
+
+			for (Object o : players) {
+				if (encoded == null) {
+					encoded = BuildCraftChannelHandler.encode(packet);
+				}
+
+				sendEncoded((EntityPlayerMP) o, encoded);
+			}
 		} catch (Throwable t) {
 			BCLog.logger.log(Level.WARN, "sentToPlayers crash", t);
 		}
 	}
 
+	private void sendEncoded(EntityPlayerMP player, ByteBuf encoded) {
+		String channel = channels.get(Side.SERVER).attr(NetworkRegistry.FML_CHANNEL).get();
+
+		// Each player reads its own view of the shared bytes.
+		player.playerNetServerHandler.sendPacket(new FMLProxyPacket(encoded.duplicate(), channel));
+		BuildCraftChannelHandler.countSent(encoded);
+	}
+
 	public void sendToPlayer(EntityPlayer entityplayer, BuildCraftPacket packet) {
 		try {
 			channels.get(Side.SERVER).attr(FMLOutboundHandler.FML_MESSAGETARGET)
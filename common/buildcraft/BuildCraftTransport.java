@@ -18,6 +18,7 @@ import net.minecraft.item.ItemBlock;
 import net.minecraft.item.ItemStack;
 import net.minecraft.world.World;
 
+import cpw.mods.fml.common.FMLCommonHandler;
 import cpw.mods.fml.common.Mod;
 import cpw.mods.fml.common.event.FMLInitializationEvent;
 import cpw.mods.fml.common.event.FMLInterModComms;
@@ -27,6 +28,7 @@ import cpw.mods.fml.common.event.FMLPreInitializationEvent;
 import cpw.mods.fml.common.network.NetworkRegistry;
 import cpw.mods.fml.common.registry.GameRegistry;
 
+import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.common.config.Configuration;
 import net.minecraftforge.common.config.Property;
 import net.minecraftforge.common.util.ForgeDirection;
@@ -68,6 +70,7 @@ import buildcraft.transport.Pipe;
 import buildcraft.transport.PipeIconProvider;
 import buildcraft.transport.PipeTriggerProvider;
 import buildcraft.transport.TileFilteredBuffer;
+import buildcraft.transport.TickHandlerTransport;
 import buildcraft.transport.TileGenericPipe;
 import buildcraft.transport.TransportProxy;
 import buildcraft.transport.WireIconProvider;
@@ -178,6 +181,16 @@ public class BuildCraftTransport extends BuildCraftMod {
 	public static Item pipePowerDiamond;
 
 	public static int groupItemsTrigger;
+	public static boolean batchedItemTransit;
+	public static boolean batchTravelerPackets;
+	public static boolean batchFluidUpdates;
+	public static boolean predictItemMovement;
+	public static boolean powerNetworks;
+	public static boolean fluidNetworks;
+	public static boolean legacyGatePolling;
+	public static int gateNeighborRefreshTicks;
+	public static boolean mergeItemsOnInjection;
+	public static int insertionCacheTicks;
 	public static String[] facadeBlacklist;
 
 	public static ITrigger[] triggerPipe = new ITrigger[PipeContents.values().length];
@@ -340,6 +353,46 @@ public class BuildCraftTransport extends BuildCraftMod {
 			groupItemsTriggerProp.comment = "when reaching this amount of objects in a pipes, items will be automatically grouped";
 			groupItemsTrigger = groupItemsTriggerProp.getInt();
 
+			Property mergeItemsOnInjectionProp = BuildCraftCore.mainConfiguration.get(Configuration.CATEGORY_GENERAL, "pipes.mergeItemsOnInjection", false);
+			mergeItemsOnInjectionProp.comment = "if true, items entering a pipe are merged right away into a similar item already in it";
+			mergeItemsOnInjection = mergeItemsOnInjectionProp.getBoolean(false);
+
+			Property batchedItemTransitProp = BuildCraftCore.mainConfiguration.get(Configuration.CATEGORY_GENERAL, "pipes.batchedItemTransit", false);
+			batchedItemTransitProp.comment = "if true, items in pipes are moved by one pass per world tick instead of by each pipe";
+			batchedItemTransit = batchedItemTransitProp.getBoolean(false);
+
+			Property insertionCacheTicksProp = BuildCraftCore.mainConfiguration.get(Configuration.CATEGORY_GENERAL, "pipes.insertionCacheTicks", 10);
+			insertionCacheTicksProp.comment = "how many ticks item pipes remember whether an adjacent inventory accepts an item, 0 to disable";
+			insertionCacheTicks = insertionCacheTicksProp.getInt();
+
+			Property batchTravelerPacketsProp = BuildCraftCore.mainConfiguration.get(Configuration.CATEGORY_GENERAL, "pipes.batchTravelerPackets", true);
+			batchTravelerPacketsProp.comment = "if true, item movement updates are sent once per tick per player, only for the chunks that player sees";
+			batchTravelerPackets = batchTravelerPacketsProp.getBoolean(true);
+
+			Property batchFluidUpdatesProp = BuildCraftCore.mainConfiguration.get(Configuration.CATEGORY_GENERAL, "pipes.batchFluidUpdates", true);
+			batchFluidUpdatesProp.comment = "if true, fluid pipe updates are sent once per tick per player, grouped by chunk, only for the chunks that player sees";
+			batchFluidUpdates = batchFluidUpdatesProp.getBoolean(true);
+
+			Property predictItemMovementProp = BuildCraftCore.mainConfiguration.get(Configuration.CATEGORY_GENERAL, "pipes.predictItemMovement", false);
+			predictItemMovementProp.comment = "if true, clients move items in pipes on their own and only receive routing decisions, requires pipes.batchTravelerPackets";
+			predictItemMovement = predictItemMovementProp.getBoolean(false);
+
+			Property powerNetworksProp = BuildCraftCore.mainConfiguration.get(Configuration.CATEGORY_GENERAL, "pipes.powerNetworks", false);
+			powerNetworksProp.comment = "if true, energy moves through connected power pipes as one network per tick instead of one pipe per tick";
+			powerNetworks = powerNetworksProp.getBoolean(false);
+
+			Property fluidNetworksProp = BuildCraftCore.mainConfiguration.get(Configuration.CATEGORY_GENERAL, "pipes.fluidNetworks", false);
+			fluidNetworksProp.comment = "if true, fluids move through connected fluid pipes as one network per tick instead of one pipe section per tick";
+			fluidNetworks = fluidNetworksProp.getBoolean(false);
+
+			Property legacyGatePollingProp = BuildCraftCore.mainConfiguration.get(Configuration.CATEGORY_GENERAL, "gates.legacyPolling", false);
+			legacyGatePollingProp.comment = "if true, gates evaluate all their triggers on every tick, instead of only when something they depend on changed";
+			legacyGatePolling = legacyGatePollingProp.getBoolean(false);
+
+			Property gateNeighborRefreshTicksProp = BuildCraftCore.mainConfiguration.get(Configuration.CATEGORY_GENERAL, "gates.neighborRefreshTicks", 10);
+			gateNeighborRefreshTicksProp.comment = "how many ticks gates wait at most before checking again triggers on adjacent inventories, tanks, energy and machines, which do not always tell when they change; inventories above and below a pipe are checked every tick";
+			gateNeighborRefreshTicks = gateNeighborRefreshTicksProp.getInt();
+
 			Property facadeBlacklistProp = BuildCraftCore.mainConfiguration.get(Configuration.CATEGORY_GENERAL, "facade.blacklist", new String[] {
 					Block.blockRegistry.getNameForObject(Blocks.bedrock),
 					Block.blockRegistry.getNameForObject(Blocks.command_block),
@@ -482,6 +535,10 @@ public class BuildCraftTransport extends BuildCraftMod {
 
 		TransportProxy.proxy.registerTileEntities();
 
+		TickHandlerTransport tickHandler = new TickHandlerTransport();
+		FMLCommonHandler.instance().bus().register(tickHandler);
+		MinecraftForge.EVENT_BUS.register(tickHandler);
+
 		SchematicRegistry.registerSchematicBlock(genericPipeBlock, SchematicPipe.class);
 
 		new BptPipeIron(pipeItemsIron);
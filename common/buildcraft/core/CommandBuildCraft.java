@@ -14,9 +14,34 @@ import net.minecraft.command.CommandBase;
 import net.minecraft.command.ICommand;
 import net.minecraft.command.ICommandSender;
 import net.minecraft.command.WrongUsageException;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.ChatComponentText;
+import net.minecraft.world.WorldServer;
 
+import buildcraft.BuildCraftTransport;
+import buildcraft.core.inventory.SummaryCache;
+import buildcraft.core.network.BuildCraftChannelHandler;
+import buildcraft.core.network.TileUpdateStats;
 import buildcraft.core.proxy.CoreProxy;
+import buildcraft.core.utils.DormancyStats;
+import buildcraft.core.utils.PathFindingPool;
+import buildcraft.core.utils.WorldSnapshot;
+import buildcraft.transport.GateStats;
+import buildcraft.transport.InsertionCapabilityCache;
+import buildcraft.transport.Pipe;
+import buildcraft.transport.PipeEventDispatcher;
+import buildcraft.transport.PipeFluidSolver;
+import buildcraft.transport.PipePowerSolver;
+import buildcraft.transport.PipeTransportFluids;
+import buildcraft.transport.PipeTransportItems;
+import buildcraft.transport.PipeTransportPower;
+import buildcraft.transport.PipeWireSolver;
+import buildcraft.transport.TileGenericPipe;
+import buildcraft.transport.TravelingItem;
+import buildcraft.transport.TravelingItem.TravelingItemCache;
+import buildcraft.transport.network.FluidPacketBatcher;
+import buildcraft.transport.network.TravelerPacketBatcher;
+import buildcraft.transport.pipes.events.PipeEventItem;
 
 public class CommandBuildCraft extends CommandBase {
 
@@ -56,10 +81,46 @@ public class CommandBuildCraft extends CommandBase {
 		if (arguments[0].matches("version")) {
 			commandVersion(sender, arguments);
 			return;
+		} else if (arguments[0].matches("pipeevents")) {
+			commandPipeEvents(sender, arguments);
+			return;
+		} else if (arguments[0].matches("pipestats")) {
+			commandPipeStats(sender, arguments);
+			return;
+		} else if (arguments[0].matches("wirestats")) {
+			commandWireStats(sender, arguments);
+			return;
+		} else if (arguments[0].matches("powerstats")) {
+			commandPowerStats(sender, arguments);
+			return;
+		} else if (arguments[0].matches("fluidstats")) {
+			commandFluidStats(sender, arguments);
+			return;
+		} else if (arguments[0].matches("tilestats")) {
+			commandTileStats(sender, arguments);
+			return;
+		} else if (arguments[0].matches("netstats")) {
+			commandNetStats(sender, arguments);
+			return;
+		} else if (arguments[0].matches("gatestats")) {
+			commandGateStats(sender, arguments);
+			return;
+		} else if (arguments[0].matches("pathstats")) {
+			commandPathStats(sender, arguments);
+			return;
 		} else if (arguments[0].matches("help")) {
 			sender.addChatMessage(new ChatComponentText("Format: '" + this.getCommandName() + " <command> <arguments>'"));
 			sender.addChatMessage(new ChatComponentText("Available commands:"));
 			sender.addChatMessage(new ChatComponentText("- version : Version information."));
+			sender.addChatMessage(new ChatComponentText("- pipeevents [reset] : Pipe event rates per pipe class."));
+			sender.addChatMessage(new ChatComponentText("- pipestats : Items traveling in pipes, per world."));
+			sender.addChatMessage(new ChatComponentText("- wirestats : Pipe wire signal solver statistics."));
+			sender.addChatMessage(new ChatComponentText("- powerstats : Power pipe and engine statistics."));
+			sender.addChatMessage(new ChatComponentText("- fluidstats : Fluid pipe network and update statistics."));
+			sender.addChatMessage(new ChatComponentText("- tilestats [reset] : Machine update bandwidth per tile class."));
+			sender.addChatMessage(new ChatComponentText("- netstats : Packets and bytes per packet type."));
+			sender.addChatMessage(new ChatComponentText("- gatestats : Gate trigger evaluations and inventory summaries."));
+			sender.addChatMessage(new ChatComponentText("- pathstats : Robot path finding jobs and captured sections."));
 			return;
 		}
 
@@ -78,4 +139,170 @@ public class CommandBuildCraft extends CommandBase {
 		// }
 	}
 
+	private void commandPipeEvents(ICommandSender sender, String[] arguments) {
+		if (arguments.length > 1 && arguments[1].matches("reset")) {
+			PipeEventDispatcher.resetStats();
+			sender.addChatMessage(new ChatComponentText("Pipe event counters reset."));
+			return;
+		}
+
+		double seconds = PipeEventDispatcher.getStatsSeconds();
+
+		for (PipeEventDispatcher dispatcher : PipeEventDispatcher.getDispatchers()) {
+			long total = dispatcher.getTotalEventCount();
+
+			if (total == 0) {
+				continue;
+			}
+
+			StringBuilder line = new StringBuilder();
+			line.append(String.format("%s: %.1f/s", dispatcher.getPipeClass().getSimpleName(), total / seconds));
+
+			for (int id = 0; id < PipeEventItem.EVENT_TYPES.length; ++id) {
+				long count = dispatcher.getEventCount(id);
+
+				if (count > 0) {
+					line.append(String.format(" %s=%.1f", PipeEventItem.EVENT_TYPES[id].getSimpleName(), count / seconds));
+				}
+			}
+
+			sender.addChatMessage(new ChatComponentText(line.toString()));
+		}
+	}
+
+	private void commandPipeStats(ICommandSender sender, String[] arguments) {
+		for (WorldServer world : MinecraftServer.getServer().worldServers) {
+			int pipes = 0;
+			int stacks = 0;
+			int items = 0;
+
+			for (Object tile : world.loadedTileEntityList) {
+				if (tile instanceof TileGenericPipe) {
+					Pipe<?> pipe = ((TileGenericPipe) tile).pipe;
+
+					if (pipe != null && pipe.transport instanceof PipeTransportItems) {
+						PipeTransportItems transport = (PipeTransportItems) pipe.transport;
+						pipes++;
+						stacks += transport.getNumberOfStacks();
+						items += transport.getNumberOfItems();
+					}
+				}
+			}
+
+			sender.addChatMessage(new ChatComponentText(String.format("%s: %d item pipes, %d stacks, %d items",
+					world.provider.getDimensionName(), pipes, stacks, items)));
+		}
+
+		sender.addChatMessage(new ChatComponentText(String.format("Insertion cache: %d hits, %d misses",
+				InsertionCapabilityCache.getHits(), InsertionCapabilityCache.getMisses())));
+		sender.addChatMessage(new ChatComponentText(String.format("Traveler updates: %d queued, %d batch packets, %d bytes",
+				TravelerPacketBatcher.getUpdatesQueued(), TravelerPacketBatcher.getPacketsSent(), TravelerPacketBatcher.getBytesSent())));
+		sender.addChatMessage(new ChatComponentText(String.format("Traveler stacks: %d sent, %d reused",
+				TravelerPacketBatcher.getStacksDefined(), TravelerPacketBatcher.getStacksReused())));
+
+		TravelingItemCache cache = TravelingItem.serverCache;
+		sender.addChatMessage(new ChatComponentText(String.format("Traveler ids: %d cached, %d live, %d free, %d reclaimed, %d allocated at most",
+				cache.size(), cache.getLiveCount(), cache.getFreeIdCount(), cache.getReclaimedIdCount(), cache.getIdHighWater())));
+	}
+
+	private void commandWireStats(ICommandSender sender, String[] arguments) {
+		sender.addChatMessage(new ChatComponentText(String.format("Wire networks solved: %d, pipes visited: %d, signals changed: %d",
+				PipeWireSolver.getNetworksSolved(), PipeWireSolver.getPipesVisited(), PipeWireSolver.getPipesChanged())));
+		sender.addChatMessage(new ChatComponentText(String.format("Solve time: %.3f ms last, %.3f ms total, largest network: %d pipes",
+				PipeWireSolver.getLastSolveNanos() / 1000000.0, PipeWireSolver.getSolveNanos() / 1000000.0, PipeWireSolver.getLargestNetwork())));
+	}
+
+	private void commandPowerStats(ICommandSender sender, String[] arguments) {
+		sender.addChatMessage(new ChatComponentText(String.format("Power networks: %d solved, %d rebuilt, %.1f MJ delivered",
+				PipePowerSolver.getNetworksSolved(), PipePowerSolver.getNetworksRebuilt(), PipePowerSolver.getEnergyDelivered())));
+		sender.addChatMessage(new ChatComponentText(String.format("Power pipe battery cache: %d hits, %d misses",
+				PipeTransportPower.getBatteryCacheHits(), PipeTransportPower.getBatteryCacheMisses())));
+
+		for (WorldServer world : MinecraftServer.getServer().worldServers) {
+			sender.addChatMessage(new ChatComponentText(String.format("%s: power pipes %d awake, %d dormant; engines %d awake, %d dormant",
+					world.provider.getDimensionName(),
+					DormancyStats.getAwake(world, DormancyStats.Kind.PIPE), DormancyStats.getDormant(world, DormancyStats.Kind.PIPE),
+					DormancyStats.getAwake(world, DormancyStats.Kind.ENGINE), DormancyStats.getDormant(world, DormancyStats.Kind.ENGINE))));
+		}
+	}
+
+	private void commandFluidStats(ICommandSender sender, String[] arguments) {
+		sender.addChatMessage(new ChatComponentText(String.format("Fluid networks: %d solved, %d rebuilt, %d mB delivered",
+				PipeFluidSolver.getNetworksSolved(), PipeFluidSolver.getNetworksRebuilt(), PipeFluidSolver.getFluidDelivered())));
+		sender.addChatMessage(new ChatComponentText(String.format("Fluid updates: %d queued, %d unchanged pipes skipped",
+				FluidPacketBatcher.getUpdatesQueued(), PipeTransportFluids.getSyncsSkipped())));
+		sender.addChatMessage(new ChatComponentText(String.format("Fluid batches: %d chunks, %d packets, %d bytes",
+				FluidPacketBatcher.getChunksSent(), FluidPacketBatcher.getPacketsSent(), FluidPacketBatcher.getBytesSent())));
+	}
+
+	private void commandTileStats(ICommandSender sender, String[] arguments) {
+		if (arguments.length > 1 && arguments[1].matches("reset")) {
+			TileUpdateStats.resetStats();
+			sender.addChatMessage(new ChatComponentText("Tile update counters reset."));
+			return;
+		}
+
+		double seconds = TileUpdateStats.getStatsSeconds();
+		int shown = 0;
+
+		for (TileUpdateStats stat : TileUpdateStats.getStats()) {
+			if (shown++ >= 10) {
+				break;
+			}
+
+			sender.addChatMessage(new ChatComponentText(String.format(
+					"%s: %.1f B/s, full %d (%d B), delta %d (%d B), unchanged %d, description %d (%d B)",
+					stat.getTileClass().getSimpleName(), stat.getTotalBytes() / seconds,
+					stat.getPackets(TileUpdateStats.Kind.FULL), stat.getBytes(TileUpdateStats.Kind.FULL),
+					stat.getPackets(TileUpdateStats.Kind.DELTA), stat.getBytes(TileUpdateStats.Kind.DELTA),
+					stat.getUnchanged(),
+					stat.getPackets(TileUpdateStats.Kind.DESCRIPTION), stat.getBytes(TileUpdateStats.Kind.DESCRIPTION))));
+		}
+	}
+
+	private void commandNetStats(ICommandSender sender, String[] arguments) {
+		for (int discriminator : BuildCraftChannelHandler.getDiscriminators()) {
+			long encoded = BuildCraftChannelHandler.getEncodedPackets(discriminator);
+			long decoded = BuildCraftChannelHandler.getDecodedPackets(discriminator);
+
+			if (encoded == 0 && decoded == 0) {
+				continue;
+			}
+
+			sender.addChatMessage(new ChatComponentText(String.format(
+					"%d %s: encoded %d (%d B), sent %d (%d B), decoded %d (%d B)",
+					discriminator, BuildCraftChannelHandler.getPacketName(discriminator),
+					encoded, BuildCraftChannelHandler.getEncodedBytes(discriminator),
+					BuildCraftChannelHandler.getSentPackets(discriminator), BuildCraftChannelHandler.getSentBytes(discriminator),
+					decoded, BuildCraftChannelHandler.getDecodedBytes(discriminator))));
+		}
+	}
+
+	private void commandGateStats(ICommandSender sender, String[] arguments) {
+		for (WorldServer world : MinecraftServer.getServer().worldServers) {
+			sender.addChatMessage(new ChatComponentText(String.format("%s: %d gates evaluated their triggers last tick, %d did not need to",
+					world.provider.getDimensionName(), GateStats.getEvaluated(world), GateStats.getSkipped(world))));
+		}
+
+		sender.addChatMessage(new ChatComponentText(String.format("Inventory and tank summaries: %d computed, %d reused",
+				SummaryCache.getMisses(), SummaryCache.getHits())));
+
+		if (BuildCraftTransport.legacyGatePolling) {
+			sender.addChatMessage(new ChatComponentText("Legacy gate polling is on, all gates are evaluated on every tick."));
+		}
+	}
+
+	private void commandPathStats(ICommandSender sender, String[] arguments) {
+		sender.addChatMessage(new ChatComponentText(String.format("Path finding jobs: %d queued, %d waiting for sections, %d running on %d threads",
+				PathFindingPool.getQueued(), PathFindingPool.getWaiting(), PathFindingPool.getRunning(), PathFindingPool.threadCount)));
+		sender.addChatMessage(new ChatComponentText(String.format("Path finding totals: %d submitted, %d completed, %d cancelled, %d slices",
+				PathFindingPool.getSubmitted(), PathFindingPool.getCompleted(), PathFindingPool.getCancelled(), PathFindingPool.getSlices())));
+		sender.addChatMessage(new ChatComponentText(String.format("Sections captured: %d, at most %d per tick",
+				PathFindingPool.getSectionsCaptured(), PathFindingPool.sectionsPerTick)));
+
+		for (WorldServer world : MinecraftServer.getServer().worldServers) {
+			sender.addChatMessage(new ChatComponentText(String.format("%s: %d soft block sections kept",
+					world.provider.getDimensionName(), WorldSnapshot.getSectionCount(world))));
+		}
+	}
 }
@@ -13,7 +13,9 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.util.ChatComponentTranslation;
 
 import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.TickEvent.Phase;
 import cpw.mods.fml.common.gameevent.TickEvent.PlayerTickEvent;
+import cpw.mods.fml.common.gameevent.TickEvent.WorldTickEvent;
 import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
@@ -22,18 +24,19 @@ import buildcraft.core.inventory.InventoryIterator;
 import buildcraft.core.proxy.CoreProxy;
 import buildcraft.core.science.TechnologyNBT;
 import buildcraft.core.utils.NBTUtils;
+import buildcraft.core.utils.PathFindingPool;
 
 public class TickHandlerCore {
 
-	public static Integer startSynchronousComputation = new Integer(0);
-
 	private boolean nagged;
 
 	@SubscribeEvent
-	public void synchonizationControl(PlayerTickEvent evt) {
-		synchronized (startSynchronousComputation) {
-			startSynchronousComputation.notify();
+	public void worldTick(WorldTickEvent evt) {
+		if (evt.phase != Phase.END || evt.world.isRemote) {
+			return;
 		}
+
+		PathFindingPool.tickWorld(evt.world);
 	}
 
 	@SideOnly(Side.CLIENT)
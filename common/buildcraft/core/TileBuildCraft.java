@@ -9,9 +9,12 @@
 package buildcraft.core;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
 
+import io.netty.buffer.ByteBuf;
+
 import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.item.ItemStack;
@@ -24,10 +27,13 @@ import buildcraft.BuildCraftCore;
 import buildcraft.api.power.IPowerReceptor;
 import buildcraft.core.network.BuildCraftPacket;
 import buildcraft.core.network.ISynchronizedTile;
+import buildcraft.core.network.PacketIds;
 import buildcraft.core.network.PacketPayload;
 import buildcraft.core.network.PacketTileUpdate;
 import buildcraft.core.network.PacketUpdate;
 import buildcraft.core.network.TilePacketWrapper;
+import buildcraft.core.network.TileUpdateSnapshot;
+import buildcraft.core.network.TileUpdateStats;
 import buildcraft.core.utils.Utils;
 
 public abstract class TileBuildCraft extends TileEntity implements ISynchronizedTile {
@@ -36,11 +42,22 @@ public abstract class TileBuildCraft extends TileEntity implements ISynchronized
 	private static Map<Class, TilePacketWrapper> updateWrappers = new HashMap<Class, TilePacketWrapper>();
 	@SuppressWarnings("rawtypes")
 	private static Map<Class, TilePacketWrapper> descriptionWrappers = new HashMap<Class, TilePacketWrapper>();
+	@SuppressWarnings("rawtypes")
+	private static Map<Class, Boolean> deltaCapable = new HashMap<Class, Boolean>();
 	private final TilePacketWrapper descriptionPacket;
 	private final TilePacketWrapper updatePacket;
 	private boolean init = false;
 	private String owner = "[BuildCraft]";
 
+	/**
+	 * What clients were last sent of this tile, when network updates are
+	 * sent as deltas. fullUpdatePending is set when a client may have been
+	 * sent the whole state through a description packet since, so that all
+	 * clients get the whole state again.
+	 */
+	private TileUpdateSnapshot updateSnapshot;
+	private boolean fullUpdatePending = true;
+
 	public TileBuildCraft() {
 		if (!updateWrappers.containsKey(this.getClass())) {
 			updateWrappers.put(this.getClass(), new TilePacketWrapper(this.getClass()));
@@ -93,14 +110,105 @@ public abstract class TileBuildCraft extends TileEntity implements ISynchronized
 
 	public void sendNetworkUpdate() {
 		if (worldObj != null && !worldObj.isRemote) {
-			BuildCraftCore.instance.sendToPlayers(getUpdatePacket(), worldObj,
+			BuildCraftPacket packet;
+
+			if (BuildCraftCore.deltaTileUpdates && isDeltaCapable()) {
+				packet = getDeltaPacket();
+
+				if (packet == null) {
+					return;
+				}
+			} else {
+				packet = measure(getUpdatePacket(), TileUpdateStats.Kind.FULL);
+			}
+
+			BuildCraftCore.instance.sendToPlayers(packet, worldObj,
 					xCoord, yCoord, zCoord, DefaultProps.NETWORK_UPDATE_RANGE);
 		}
 	}
 
+	/**
+	 * Returns the fields that changed since the last update, null if none
+	 * did.
+	 */
+	private BuildCraftPacket getDeltaPacket() {
+		if (updateSnapshot == null) {
+			updateSnapshot = new TileUpdateSnapshot();
+		}
+
+		final ByteBuf delta;
+
+		try {
+			delta = updateSnapshot.update(updatePacket.getDeltaMapping(), this, fullUpdatePending);
+		} catch (IllegalAccessException e) {
+			e.printStackTrace();
+			return null;
+		}
+
+		fullUpdatePending = false;
+
+		if (delta == null) {
+			TileUpdateStats.recordUnchanged(getClass());
+			return null;
+		}
+
+		TileUpdateStats.record(getClass(), TileUpdateStats.Kind.DELTA, delta.readableBytes());
+
+		return new PacketTileUpdate(this, PacketIds.TILE_DELTA, new PacketPayload(new PacketPayload.StreamWriter() {
+			@Override
+			public void writeData(ByteBuf data) {
+				data.writeBytes(delta, delta.readerIndex(), delta.readableBytes());
+			}
+		}));
+	}
+
+	/**
+	 * Returns true if this tile is only synchronized through its
+	 * NetworkData fields, which delta updates are made of.
+	 */
+	private boolean isDeltaCapable() {
+		Class<?> cls = getClass();
+		Boolean capable = deltaCapable.get(cls);
+
+		if (capable == null) {
+			capable = updatePacket.getDeltaMapping() != null
+					&& isInherited(cls, "getPacketPayload")
+					&& isInherited(cls, "getUpdatePacket")
+					&& isInherited(cls, "handleUpdatePacket", PacketUpdate.class);
+			deltaCapable.put(cls, capable);
+		}
+
+		return capable;
+	}
+
+	private static boolean isInherited(Class<?> cls, String name, Class<?>... parameters) {
+		try {
+			Method method = cls.getMethod(name, parameters);
+			return method.getDeclaringClass() == TileBuildCraft.class;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	private BuildCraftPacket measure(BuildCraftPacket packet, TileUpdateStats.Kind kind) {
+		if (packet instanceof PacketUpdate) {
+			PacketUpdate update = (PacketUpdate) packet;
+
+			if (update.payload != null) {
+				update.payload = TileUpdateStats.measure(getClass(), kind, update.payload);
+			}
+		}
+
+		return packet;
+	}
+
 	@Override
 	public Packet getDescriptionPacket() {
-		return Utils.toPacket(getUpdatePacket(), 0);
+		// This state is newer than the last update, so a delta from that
+		// update could miss fields that changed and changed back since.
+		// Everyone gets the whole state next time instead.
+		fullUpdatePending = true;
+		return Utils.toPacket(measure(getUpdatePacket(), TileUpdateStats.Kind.DESCRIPTION), 0);
 	}
 
 	@Override
@@ -123,6 +231,14 @@ public abstract class TileBuildCraft extends TileEntity implements ISynchronized
 		updatePacket.fromPayload(this, packet.payload);
 	}
 
+	/**
+	 * Reads an update sent by sendNetworkUpdate with only the fields that
+	 * changed.
+	 */
+	public void handleDeltaPacket(PacketUpdate packet) throws IOException {
+		updatePacket.fromDeltaPayload(this, packet.payload);
+	}
+
 	@Override
 	public void postPacketHandling(PacketUpdate packet) {
 	}
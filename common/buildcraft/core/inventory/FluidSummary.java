@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.core.inventory;
+
+import java.util.ArrayList;
+
+import net.minecraftforge.common.util.ForgeDirection;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fluids.FluidTankInfo;
+import net.minecraftforge.fluids.IFluidHandler;
+
+/**
+ * What the tanks of one side of a fluid handler hold. Obtained from
+ * SummaryCache, and shared by everything looking at that side during a tick.
+ */
+public final class FluidSummary {
+
+	private static final FluidTankInfo[] NO_TANKS = new FluidTankInfo[0];
+
+	private final IFluidHandler handler;
+	private final ForgeDirection side;
+	private final FluidTankInfo[] tanks;
+	private final int totalAmount;
+	private final int totalCapacity;
+	private final boolean hasSpace;
+
+	private final ArrayList<FluidStack> fillQueries = new ArrayList<FluidStack>();
+	private final ArrayList<Boolean> fillResults = new ArrayList<Boolean>();
+
+	FluidSummary(IFluidHandler handler, ForgeDirection side) {
+		this.handler = handler;
+		this.side = side;
+
+		FluidTankInfo[] info = handler.getTankInfo(side);
+		tanks = info != null ? info : NO_TANKS;
+
+		int amount = 0;
+		int capacity = 0;
+		boolean space = false;
+
+		for (FluidTankInfo tank : tanks) {
+			if (tank.fluid != null && tank.fluid.amount > 0) {
+				amount += tank.fluid.amount;
+			}
+
+			capacity += tank.capacity;
+			space |= tank.fluid == null || tank.fluid.amount < tank.capacity;
+		}
+
+		totalAmount = amount;
+		totalCapacity = capacity;
+		hasSpace = space;
+	}
+
+	/**
+	 * Returns the tanks as given by the handler. These must not be modified.
+	 */
+	public FluidTankInfo[] getTanks() {
+		return tanks;
+	}
+
+	/**
+	 * Returns the amount of fluid equal to fluid in all tanks, or of any
+	 * fluid if fluid is null.
+	 */
+	public int getAmount(FluidStack fluid) {
+		if (fluid == null) {
+			return totalAmount;
+		}
+
+		int amount = 0;
+
+		for (FluidTankInfo tank : tanks) {
+			if (tank.fluid != null && tank.fluid.amount > 0 && fluid.isFluidEqual(tank.fluid)) {
+				amount += tank.fluid.amount;
+			}
+		}
+
+		return amount;
+	}
+
+	/**
+	 * Returns true if a tank is not full.
+	 */
+	public boolean hasSpace() {
+		return hasSpace;
+	}
+
+	/**
+	 * Returns how full all tanks are together, from 0 to 1, or -1 if they
+	 * have no capacity.
+	 */
+	public float getFillRatio() {
+		if (totalCapacity <= 0) {
+			return -1;
+		}
+
+		return (float) totalAmount / (float) totalCapacity;
+	}
+
+	/**
+	 * Returns true if the handler would accept some of fluid on that side.
+	 */
+	public boolean canFill(FluidStack fluid) {
+		for (int i = 0; i < fillQueries.size(); ++i) {
+			if (fillQueries.get(i).isFluidEqual(fluid)) {
+				return fillResults.get(i);
+			}
+		}
+
+		FluidStack query = fluid.copy();
+		query.amount = 1;
+		boolean result = handler.fill(side, query, false) > 0;
+
+		fillQueries.add(query);
+		fillResults.add(result);
+
+		return result;
+	}
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.core.inventory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.minecraft.inventory.IInventory;
+import net.minecraft.item.ItemStack;
+
+import net.minecraftforge.common.util.ForgeDirection;
+
+import buildcraft.api.core.IInvSlot;
+import buildcraft.api.core.StackKey;
+
+/**
+ * What one side of an inventory holds. Obtained from SummaryCache, and
+ * shared by everything looking at that side during a tick.
+ *
+ * Slots are only walked when something is first asked: once for the slot
+ * counts, and once per kind of item asked about.
+ */
+public final class InventorySummary {
+
+	private final IInventory inventory;
+	private final ForgeDirection side;
+
+	private boolean scanned = false;
+	private int slots;
+	private int emptySlots;
+
+	private final Map<StackKey, ItemStats> stats = new HashMap<StackKey, ItemStats>();
+
+	/**
+	 * Totals of one kind of item in the inventory.
+	 */
+	public static final class ItemStats {
+
+		private final ItemStack stack;
+		private int count;
+		private int acceptingSlots;
+		private int acceptedCount;
+		private boolean hasSpace;
+
+		private ItemStats(ItemStack stack) {
+			this.stack = stack;
+		}
+
+		/**
+		 * Returns the number of items that can merge with the stack.
+		 */
+		public int getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the number of slots accepting the stack, empty or holding
+		 * items it can merge with.
+		 */
+		public int getAcceptingSlots() {
+			return acceptingSlots;
+		}
+
+		/**
+		 * Returns the number of items in the slots accepting the stack.
+		 */
+		public int getAcceptedCount() {
+			return acceptedCount;
+		}
+
+		/**
+		 * Returns true if at least one more of the stack fits in a slot.
+		 */
+		public boolean hasSpace() {
+			return hasSpace;
+		}
+
+		/**
+		 * Returns how full the slots accepting the stack are, from 0 to 1, or
+		 * -1 if there are none.
+		 */
+		public float getFillRatio() {
+			if (acceptingSlots == 0) {
+				return -1;
+			}
+
+			return acceptedCount / ((float) acceptingSlots * (float) stack.getMaxStackSize());
+		}
+	}
+
+	InventorySummary(IInventory inventory, ForgeDirection side) {
+		this.inventory = inventory;
+		this.side = side;
+	}
+
+	private void scan() {
+		for (IInvSlot slot : InventoryIterator.getIterable(inventory, side)) {
+			slots++;
+
+			if (slot.getStackInSlot() == null) {
+				emptySlots++;
+			}
+		}
+
+		scanned = true;
+	}
+
+	public int getSlotCount() {
+		if (!scanned) {
+			scan();
+		}
+
+		return slots;
+	}
+
+	public int getEmptySlotCount() {
+		if (!scanned) {
+			scan();
+		}
+
+		return emptySlots;
+	}
+
+	public boolean hasItems() {
+		return getSlotCount() > getEmptySlotCount();
+	}
+
+	/**
+	 * Returns the totals of the items that can merge with stack.
+	 */
+	public ItemStats getStats(ItemStack stack) {
+		StackKey key = new StackKey(stack);
+		ItemStats stat = stats.get(key);
+
+		// StackKey ignores the damage of items without subtypes, merging
+		// does not.
+		if (stat == null || !StackHelper.canStacksMerge(stat.stack, stack)) {
+			stat = new ItemStats(stack.copy());
+			count(stat);
+			stats.put(new StackKey(stat.stack), stat);
+		}
+
+		return stat;
+	}
+
+	private void count(ItemStats stat) {
+		for (IInvSlot slot : InventoryIterator.getIterable(inventory, side)) {
+			ItemStack inSlot = slot.getStackInSlot();
+			boolean merges = StackHelper.canStacksMerge(inSlot, stat.stack);
+
+			if (merges) {
+				stat.count += inSlot.stackSize;
+			}
+
+			if ((inSlot == null || merges) && slot.canPutStackInSlot(stat.stack)) {
+				stat.acceptingSlots++;
+
+				if (inSlot == null) {
+					stat.hasSpace = true;
+				} else {
+					stat.acceptedCount += inSlot.stackSize;
+					stat.hasSpace |= inSlot.stackSize < inSlot.getMaxStackSize();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.core.inventory;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.minecraft.inventory.IInventory;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.World;
+
+import net.minecraftforge.common.util.ForgeDirection;
+import net.minecraftforge.fluids.IFluidHandler;
+
+/**
+ * Keeps, per world, the inventory and fluid summaries of the sides of tiles
+ * that were looked at during the current tick. All triggers of all gates
+ * looking at the same side of a tile share one summary, so that its slots or
+ * tanks are read once per tick at most. Summaries are dropped when the world
+ * time changes.
+ */
+public final class SummaryCache {
+
+	private static final Map<World, SummaryCache> caches = new WeakHashMap<World, SummaryCache>();
+
+	private static long hits = 0;
+	private static long misses = 0;
+
+	private long tick = -1;
+	private final Map<TileEntity, Entry> entries = new WeakHashMap<TileEntity, Entry>();
+
+	private static final class Entry {
+
+		public final InventorySummary[] inventories = new InventorySummary[ForgeDirection.values().length];
+		public final FluidSummary[] fluids = new FluidSummary[ForgeDirection.values().length];
+	}
+
+	private SummaryCache() {
+	}
+
+	private static synchronized SummaryCache get(World world) {
+		SummaryCache cache = caches.get(world);
+
+		if (cache == null) {
+			cache = new SummaryCache();
+			caches.put(world, cache);
+		}
+
+		return cache;
+	}
+
+	/**
+	 * Forgets the summaries of a world being unloaded.
+	 */
+	public static synchronized void unloadWorld(World world) {
+		caches.remove(world);
+	}
+
+	private static Entry getEntry(TileEntity tile) {
+		World world = tile.getWorldObj();
+
+		if (world == null) {
+			return null;
+		}
+
+		SummaryCache cache = get(world);
+		long now = world.getTotalWorldTime();
+
+		if (cache.tick != now) {
+			cache.tick = now;
+			cache.entries.clear();
+		}
+
+		Entry entry = cache.entries.get(tile);
+
+		if (entry == null) {
+			entry = new Entry();
+			cache.entries.put(tile, entry);
+		}
+
+		return entry;
+	}
+
+	/**
+	 * Returns the summary of the slots of tile accessible from side, as of
+	 * this tick.
+	 */
+	public static InventorySummary getInventory(TileEntity tile, ForgeDirection side) {
+		Entry entry = getEntry(tile);
+
+		if (entry == null) {
+			return new InventorySummary((IInventory) tile, side);
+		}
+
+		InventorySummary summary = entry.inventories[side.ordinal()];
+
+		if (summary == null) {
+			summary = new InventorySummary((IInventory) tile, side);
+			entry.inventories[side.ordinal()] = summary;
+			misses++;
+		} else {
+			hits++;
+		}
+
+		return summary;
+	}
+
+	/**
+	 * Returns the summary of the tanks of tile on side, as of this tick.
+	 */
+	public static FluidSummary getFluids(TileEntity tile, ForgeDirection side) {
+		Entry entry = getEntry(tile);
+
+		if (entry == null) {
+			return new FluidSummary((IFluidHandler) tile, side);
+		}
+
+		FluidSummary summary = entry.fluids[side.ordinal()];
+
+		if (summary == null) {
+			summary = new FluidSummary((IFluidHandler) tile, side);
+			entry.fluids[side.ordinal()] = summary;
+			misses++;
+		} else {
+			hits++;
+		}
+
+		return summary;
+	}
+
+	public static long getHits() {
+		return hits;
+	}
+
+	public static long getMisses() {
+		return misses;
+	}
+}
@@ -8,47 +8,202 @@
  */
 package buildcraft.core.network;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 
 import cpw.mods.fml.common.network.FMLIndexedMessageToMessageCodec;
 
 import buildcraft.transport.network.PacketFluidUpdate;
+import buildcraft.transport.network.PacketFluidUpdateBatch;
 import buildcraft.transport.network.PacketPipeTransportItemStack;
 import buildcraft.transport.network.PacketPipeTransportItemStackRequest;
 import buildcraft.transport.network.PacketPipeTransportTraveler;
+import buildcraft.transport.network.PacketPipeTransportTravelerBatch;
 import buildcraft.transport.network.PacketPowerUpdate;
 
+/**
+ * The codec of all BuildCraft channels. It also counts, per discriminator,
+ * the packets and bytes encoded and decoded, and the packets and bytes sent
+ * to players, which differ when an encoded packet is sent to several players
+ * through BuildCraftMod.
+ */
 public class BuildCraftChannelHandler extends FMLIndexedMessageToMessageCodec<BuildCraftPacket> {
 
+	private static final int DISCRIMINATORS = 256;
+
+	private static final Map<Class<? extends BuildCraftPacket>, Integer> discriminators = new HashMap<Class<? extends BuildCraftPacket>, Integer>();
+
+	private static final long[] encodedPackets = new long[DISCRIMINATORS];
+	private static final long[] encodedBytes = new long[DISCRIMINATORS];
+	private static final long[] sentPackets = new long[DISCRIMINATORS];
+	private static final long[] sentBytes = new long[DISCRIMINATORS];
+	private static final long[] decodedPackets = new long[DISCRIMINATORS];
+	private static final long[] decodedBytes = new long[DISCRIMINATORS];
+
     public BuildCraftChannelHandler() {
-		addDiscriminator(0, PacketTileUpdate.class);
-		addDiscriminator(1, PacketTileState.class);
-		addDiscriminator(2, PacketFluidUpdate.class);
-		addDiscriminator(3, PacketNBT.class);
-		addDiscriminator(4, PacketPowerUpdate.class);
-		addDiscriminator(5, PacketSlotChange.class);
-		addDiscriminator(6, PacketGuiReturn.class);
-		addDiscriminator(7, PacketGuiWidget.class);
-		addDiscriminator(8, PacketPipeTransportItemStack.class);
-		addDiscriminator(9, PacketPipeTransportItemStackRequest.class);
-		addDiscriminator(10, PacketPipeTransportTraveler.class);
-		addDiscriminator(11, PacketUpdate.class);
-		addDiscriminator(12, PacketRPCTile.class);
-		addDiscriminator(13, PacketRPCPipe.class);
-		addDiscriminator(14, PacketRPCGui.class);
-		addDiscriminator(15, PacketRPCEntity.class);
-		addDiscriminator(16, PacketRPCStatic.class);
-		addDiscriminator(17, PacketRPCPart.class);
+		register(0, PacketTileUpdate.class);
+		register(1, PacketTileState.class);
+		register(2, PacketFluidUpdate.class);
+		register(3, PacketNBT.class);
+		register(4, PacketPowerUpdate.class);
+		register(5, PacketSlotChange.class);
+		register(6, PacketGuiReturn.class);
+		register(7, PacketGuiWidget.class);
+		register(8, PacketPipeTransportItemStack.class);
+		register(9, PacketPipeTransportItemStackRequest.class);
+		register(10, PacketPipeTransportTraveler.class);
+		register(11, PacketUpdate.class);
+		register(12, PacketRPCTile.class);
+		register(13, PacketRPCPipe.class);
+		register(14, PacketRPCGui.class);
+		register(15, PacketRPCEntity.class);
+		register(16, PacketRPCStatic.class);
+		register(17, PacketRPCPart.class);
+		register(18, PacketPipeTransportTravelerBatch.class);
+		register(19, PacketFluidUpdateBatch.class);
     }
 
+	private void register(int discriminator, Class<? extends BuildCraftPacket> type) {
+		addDiscriminator(discriminator, type);
+
+		synchronized (discriminators) {
+			discriminators.put(type, discriminator);
+		}
+	}
+
     @Override
     public void encodeInto(ChannelHandlerContext ctx, BuildCraftPacket packet, ByteBuf data) throws Exception {
+		int start = data.writerIndex();
         packet.writeData(data);
+
+		int discriminator = getDiscriminator(packet);
+
+		if (discriminator >= 0) {
+			int size = data.writerIndex() - start;
+			encodedPackets[discriminator]++;
+			encodedBytes[discriminator] += size;
+			sentPackets[discriminator]++;
+			sentBytes[discriminator] += size;
+		}
     }
 
     @Override
     public void decodeInto(ChannelHandlerContext ctx, ByteBuf data, BuildCraftPacket packet) {
+		int discriminator = getDiscriminator(packet);
+
+		if (discriminator >= 0) {
+			decodedPackets[discriminator]++;
+			decodedBytes[discriminator] += data.readableBytes();
+		}
+
         packet.readData(data);
     }
+
+	/**
+	 * Returns the discriminator of the packet, -1 if it has none.
+	 */
+	public static int getDiscriminator(BuildCraftPacket packet) {
+		Integer discriminator;
+
+		synchronized (discriminators) {
+			discriminator = discriminators.get(packet.getClass());
+		}
+
+		return discriminator != null ? discriminator : -1;
+	}
+
+	/**
+	 * Encodes a packet the way the codec does, into a buffer holding exactly
+	 * the discriminator and the data. The buffer can then be sent to any
+	 * number of players through duplicates.
+	 */
+	public static ByteBuf encode(BuildCraftPacket packet) {
+		int discriminator = getDiscriminator(packet);
+
+		if (discriminator < 0) {
+			throw new IllegalArgumentException("no discriminator for " + packet.getClass());
+		}
+
+		ByteBuf data = Unpooled.buffer();
+		data.writeByte(discriminator);
+		packet.writeData(data);
+
+		byte[] bytes = new byte[data.readableBytes()];
+		data.readBytes(bytes);
+
+		encodedPackets[discriminator]++;
+		encodedBytes[discriminator] += bytes.length - 1;
+
+		return Unpooled.wrappedBuffer(bytes);
+	}
+
+	/**
+	 * Counts a buffer returned by encode as sent to one more player.
+	 */
+	public static void countSent(ByteBuf encoded) {
+		int discriminator = encoded.getUnsignedByte(encoded.readerIndex());
+		sentPackets[discriminator]++;
+		sentBytes[discriminator] += encoded.readableBytes() - 1;
+	}
+
+	/**
+	 * Returns the discriminators in use, in increasing order.
+	 */
+	public static int[] getDiscriminators() {
+		synchronized (discriminators) {
+			int[] result = new int[discriminators.size()];
+			int i = 0;
+
+			for (int discriminator = 0; discriminator < DISCRIMINATORS; ++discriminator) {
+				if (discriminators.containsValue(discriminator)) {
+					result[i++] = discriminator;
+				}
+			}
+
+			return result;
+		}
+	}
+
+	/**
+	 * Returns the simple name of the packet class of a discriminator.
+	 */
+	public static String getPacketName(int discriminator) {
+		synchronized (discriminators) {
+			for (Map.Entry<Class<? extends BuildCraftPacket>, Integer> entry : discriminators.entrySet()) {
+				if (entry.getValue() == discriminator) {
+					return entry.getKey().getSimpleName();
+				}
+			}
+		}
+
+		return "?";
+	}
+
+	public static long getEncodedPackets(int discriminator) {
+		return encodedPackets[discriminator];
+	}
+
+	public static long getEncodedBytes(int discriminator) {
+		return encodedBytes[discriminator];
+	}
+
+	public static long getSentPackets(int discriminator) {
+		return sentPackets[discriminator];
+	}
+
+	public static long getSentBytes(int discriminator) {
+		return sentBytes[discriminator];
+	}
+
+	public static long getDecodedPackets(int discriminator) {
+		return decodedPackets[discriminator];
+	}
+
+	public static long getDecodedBytes(int discriminator) {
+		return decodedBytes[discriminator];
+	}
 }
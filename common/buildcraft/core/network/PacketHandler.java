@@ -21,6 +21,7 @@ import net.minecraft.world.World;
 
 import cpw.mods.fml.common.network.NetworkRegistry;
 
+import buildcraft.core.TileBuildCraft;
 import buildcraft.core.proxy.CoreProxy;
 
 @Sharable
@@ -43,6 +44,24 @@ public class PacketHandler extends SimpleChannelInboundHandler<BuildCraftPacket>
 		tile.postPacketHandling(packet);
 	}
 
+	private void onTileDelta(EntityPlayer player, PacketTileUpdate packet) throws IOException {
+		World world = player.worldObj;
+
+		if (!packet.targetExists(world)) {
+			return;
+		}
+
+		TileEntity entity = packet.getTarget(world);
+
+		if (!(entity instanceof TileBuildCraft)) {
+			return;
+		}
+
+		TileBuildCraft tile = (TileBuildCraft) entity;
+		tile.handleDeltaPacket(packet);
+		tile.postPacketHandling(packet);
+	}
+
 	@Override
 	protected  void channelRead0(ChannelHandlerContext ctx, BuildCraftPacket packet) {
 		try {
@@ -57,6 +76,11 @@ public class PacketHandler extends SimpleChannelInboundHandler<BuildCraftPacket>
 				break;
 			}
 
+			case PacketIds.TILE_DELTA: {
+				onTileDelta(player, (PacketTileUpdate) packet);
+				break;
+			}
+
 			case PacketIds.STATE_UPDATE: {
 				PacketTileState pkt = (PacketTileState) packet;
 				World world = player.worldObj;
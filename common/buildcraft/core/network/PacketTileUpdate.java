@@ -31,6 +31,21 @@ public class PacketTileUpdate extends PacketUpdate {
 
 	}
 
+	/**
+	 * Creates an update of tile carrying payload, with another id than
+	 * TILE_UPDATE, e.g. TILE_DELTA.
+	 */
+	public PacketTileUpdate(ISynchronizedTile tile, int packetId, PacketPayload payload) {
+		super(packetId);
+
+		this.payload = payload;
+
+		TileEntity entity = (TileEntity) tile;
+		posX = entity.xCoord;
+		posY = entity.yCoord;
+		posZ = entity.zCoord;
+	}
+
 	public boolean targetExists(World world) {
 		return world.blockExists(posX, posY, posZ);
 	}
@@ -11,9 +11,11 @@ package buildcraft.core.network;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -22,7 +24,6 @@ import io.netty.buffer.Unpooled;
 
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.EntityPlayer;
-import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.inventory.Container;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.world.World;
@@ -144,32 +145,36 @@ public final class RPCHandler {
 		RPCHandler.rpcBroadcastPlayersAtDistance(world, object, method, DefaultProps.NETWORK_UPDATE_RANGE, actuals);
 	}
 
+	/**
+	 * Sends the call to the players watching the chunk of the tile or entity
+	 * it is made on, or to all players of the world for other calls. The
+	 * call is split and encoded once, whatever the number of players.
+	 * maxDistance is not used anymore: players only get calls on what is in
+	 * the chunks they see.
+	 */
 	public static void rpcBroadcastPlayersAtDistance(World world, Object object, String method, int maxDistance,
 			Object... actuals) {
 		PacketRPC packet = createPacket(object, method, actuals);
 
 		if (packet != null) {
-			if (packet instanceof PacketRPCTile) {
+			ArrayList<PacketRPC> parts = packet.breakIntoSmallerPackets(MAX_PACKET_SIZE);
+
+			if (object instanceof TileEntity) {
 				TileEntity tile = (TileEntity) object;
 
-				for (PacketRPC p : packet.breakIntoSmallerPackets(MAX_PACKET_SIZE)) {
-					for (Object o : world.playerEntities) {
-						EntityPlayerMP player = (EntityPlayerMP) o;
+				for (PacketRPC p : parts) {
+					BuildCraftCore.instance.sendToPlayers(p, world, tile.xCoord, tile.yCoord, tile.zCoord, maxDistance);
+				}
+			} else if (object instanceof Entity) {
+				Entity entity = (Entity) object;
 
-						if (Math.abs(player.posX - tile.xCoord) <= maxDistance
-								&& Math.abs(player.posY - tile.yCoord) <= maxDistance
-								&& Math.abs(player.posZ - tile.zCoord) <= maxDistance) {
-							BuildCraftCore.instance.sendToPlayer(player, p);
-						}
-					}
+				for (PacketRPC p : parts) {
+					BuildCraftCore.instance.sendToPlayers(p, world, (int) Math.floor(entity.posX),
+							(int) Math.floor(entity.posY), (int) Math.floor(entity.posZ), maxDistance);
 				}
 			} else {
-				for (Object o : world.playerEntities) {
-					EntityPlayerMP player = (EntityPlayerMP) o;
-
-					for (PacketRPC p : packet.breakIntoSmallerPackets(MAX_PACKET_SIZE)) {
-						BuildCraftCore.instance.sendToPlayer(player, p);
-					}
+				for (PacketRPC p : parts) {
+					BuildCraftCore.instance.sendToPlayers(p, world.playerEntities);
 				}
 			}
 		}
@@ -179,12 +184,10 @@ public final class RPCHandler {
 		PacketRPC packet = createPacket(object, method, actuals);
 
 		if (packet != null) {
-			for (Object o : FMLCommonHandler.instance().getMinecraftServerInstance().getConfigurationManager().playerEntityList) {
-				EntityPlayerMP player = (EntityPlayerMP) o;
+			List<?> players = FMLCommonHandler.instance().getMinecraftServerInstance().getConfigurationManager().playerEntityList;
 
-				for (PacketRPC p : packet.breakIntoSmallerPackets(MAX_PACKET_SIZE)) {
-					BuildCraftCore.instance.sendToPlayer(player, p);
-				}
+			for (PacketRPC p : packet.breakIntoSmallerPackets(MAX_PACKET_SIZE)) {
+				BuildCraftCore.instance.sendToPlayers(p, players);
 			}
 		}
 	}
@@ -72,7 +72,7 @@ public class TilePacketWrapper {
 					for (int i = 0; i < rootMappings.length; ++i) {
 						try {
 							SerializationContext context = new SerializationContext();
-							rootMappings[0].write(data, obj [i], context);
+							rootMappings[i].write(data, obj [i], context);
 						} catch (IllegalArgumentException e) {
 							e.printStackTrace();
 						} catch (IllegalAccessException e) {
@@ -99,6 +99,29 @@ public class TilePacketWrapper {
 		}
 	}
 
+	/**
+	 * Returns the mapping used for delta updates of the tile, or null if
+	 * this wrapper does not support them.
+	 */
+	public ClassMapping getDeltaMapping() {
+		if (rootMappings.length == 1 && rootMappings[0] instanceof ClassMapping) {
+			return (ClassMapping) rootMappings[0];
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Reads a delta sent from a TileUpdateSnapshot into tile.
+	 */
+	public void fromDeltaPayload(TileEntity tile, PacketPayload packet) {
+		try {
+			TileUpdateSnapshot.apply(getDeltaMapping(), tile, packet.stream);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
 	public void fromPayload(Object obj, PacketPayload packet) {
 		fromPayload(new Object[] { obj }, packet);
 	}
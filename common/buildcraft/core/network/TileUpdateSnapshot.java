@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.core.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import buildcraft.core.network.serializers.ClassMapping;
+import buildcraft.core.network.serializers.SerializationContext;
+
+/**
+ * The @NetworkData fields of a tile as they were last sent to clients, kept
+ * on the server to send only the fields that changed since.
+ *
+ * Fields are compared by their serialized bytes. A delta is a mask with one
+ * bit per field, in the order of ClassMapping.writeFields, followed by the
+ * bytes of the fields whose bit is set.
+ */
+public final class TileUpdateSnapshot {
+
+	private ByteBuf sent = Unpooled.buffer();
+	private int[] sentEnds;
+	private ByteBuf current = Unpooled.buffer();
+	private int[] currentEnds;
+
+	/**
+	 * Serializes the fields of tile, and returns the delta from what was
+	 * sent last, or null if no field changed. All fields are sent when full
+	 * is true, or when nothing was sent yet.
+	 */
+	public ByteBuf update(ClassMapping mapping, Object tile, boolean full) throws IllegalArgumentException, IllegalAccessException {
+		int count = mapping.getFieldCount();
+
+		if (currentEnds == null || currentEnds.length != count) {
+			currentEnds = new int[count];
+			sentEnds = null;
+		}
+
+		current.clear();
+		mapping.writeFields(current, tile, new SerializationContext(), currentEnds);
+
+		boolean all = full || sentEnds == null;
+		byte[] mask = new byte[getMaskSize(count)];
+		int changedBytes = 0;
+		boolean changed = false;
+
+		for (int i = 0; i < count; ++i) {
+			int start = i > 0 ? currentEnds[i - 1] : 0;
+			int length = currentEnds[i] - start;
+
+			if (all || !sameBytes(start, length, i)) {
+				mask[i >> 3] |= 1 << (i & 7);
+				changedBytes += length;
+				changed = true;
+			}
+		}
+
+		if (!changed && !all) {
+			return null;
+		}
+
+		ByteBuf delta = Unpooled.buffer(mask.length + changedBytes);
+		delta.writeBytes(mask);
+
+		for (int i = 0; i < count; ++i) {
+			if ((mask[i >> 3] & (1 << (i & 7))) != 0) {
+				int start = i > 0 ? currentEnds[i - 1] : 0;
+				delta.writeBytes(current, start, currentEnds[i] - start);
+			}
+		}
+
+		ByteBuf swapBuf = sent;
+		sent = current;
+		current = swapBuf;
+
+		int[] swapEnds = sentEnds != null ? sentEnds : new int[count];
+		sentEnds = currentEnds;
+		currentEnds = swapEnds;
+
+		return delta;
+	}
+
+	private boolean sameBytes(int start, int length, int field) {
+		int sentStart = field > 0 ? sentEnds[field - 1] : 0;
+
+		if (sentEnds[field] - sentStart != length) {
+			return false;
+		}
+
+		for (int i = 0; i < length; ++i) {
+			if (current.getByte(start + i) != sent.getByte(sentStart + i)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	public static int getMaskSize(int fieldCount) {
+		return (fieldCount + 7) >> 3;
+	}
+
+	/**
+	 * Reads a delta written by update into tile.
+	 */
+	public static void apply(ClassMapping mapping, Object tile, ByteBuf data) throws IllegalArgumentException,
+			IllegalAccessException, InstantiationException, ClassNotFoundException {
+		byte[] mask = new byte[getMaskSize(mapping.getFieldCount())];
+		data.readBytes(mask);
+		mapping.readFields(data, tile, new SerializationContext(), mask);
+	}
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.core.network;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Counts the network updates of TileBuildCraft and the bytes of their
+ * payloads, per tile class, so that the machines using most bandwidth can be
+ * found. Packets sent to several players are counted once.
+ */
+public final class TileUpdateStats {
+
+	public enum Kind {
+		DESCRIPTION, FULL, DELTA;
+
+		public static final Kind[] VALUES = values();
+	}
+
+	private static final Map<Class<?>, TileUpdateStats> stats = new HashMap<Class<?>, TileUpdateStats>();
+	private static long statsStart = System.currentTimeMillis();
+
+	private final Class<?> tileClass;
+	private final long[] packets = new long[Kind.VALUES.length];
+	private final long[] bytes = new long[Kind.VALUES.length];
+	private long unchanged;
+
+	private TileUpdateStats(Class<?> tileClass) {
+		this.tileClass = tileClass;
+	}
+
+	private static TileUpdateStats get(Class<?> tileClass) {
+		TileUpdateStats stat = stats.get(tileClass);
+
+		if (stat == null) {
+			stat = new TileUpdateStats(tileClass);
+			stats.put(tileClass, stat);
+		}
+
+		return stat;
+	}
+
+	public static synchronized void record(Class<?> tileClass, Kind kind, int size) {
+		TileUpdateStats stat = get(tileClass);
+		stat.packets[kind.ordinal()]++;
+		stat.bytes[kind.ordinal()] += size;
+	}
+
+	/**
+	 * Counts an update that was not sent since no field changed.
+	 */
+	public static synchronized void recordUnchanged(Class<?> tileClass) {
+		get(tileClass).unchanged++;
+	}
+
+	/**
+	 * Returns a payload writing the same data as payload, and recording its
+	 * size when it is written.
+	 */
+	public static PacketPayload measure(final Class<?> tileClass, final Kind kind, final PacketPayload payload) {
+		return new PacketPayload(new PacketPayload.StreamWriter() {
+			@Override
+			public void writeData(ByteBuf data) {
+				int start = data.writerIndex();
+				payload.writeData(data);
+				record(tileClass, kind, data.writerIndex() - start);
+			}
+		});
+	}
+
+	public static synchronized void resetStats() {
+		stats.clear();
+		statsStart = System.currentTimeMillis();
+	}
+
+	/**
+	 * Returns the number of seconds since the counters were last reset, never
+	 * less than one.
+	 */
+	public static double getStatsSeconds() {
+		return Math.max(1, (System.currentTimeMillis() - statsStart) / 1000.0);
+	}
+
+	/**
+	 * Returns a copy of the counters of all tile classes, the classes using
+	 * most bytes first.
+	 */
+	public static synchronized List<TileUpdateStats> getStats() {
+		List<TileUpdateStats> result = new ArrayList<TileUpdateStats>();
+
+		for (TileUpdateStats stat : stats.values()) {
+			TileUpdateStats copy = new TileUpdateStats(stat.tileClass);
+			System.arraycopy(stat.packets, 0, copy.packets, 0, copy.packets.length);
+			System.arraycopy(stat.bytes, 0, copy.bytes, 0, copy.bytes.length);
+			copy.unchanged = stat.unchanged;
+			result.add(copy);
+		}
+
+		Collections.sort(result, new Comparator<TileUpdateStats>() {
+			@Override
+			public int compare(TileUpdateStats a, TileUpdateStats b) {
+				long diff = b.getTotalBytes() - a.getTotalBytes();
+				return diff > 0 ? 1 : diff < 0 ? -1 : 0;
+			}
+		});
+
+		return result;
+	}
+
+	public Class<?> getTileClass() {
+		return tileClass;
+	}
+
+	public long getPackets(Kind kind) {
+		return packets[kind.ordinal()];
+	}
+
+	public long getBytes(Kind kind) {
+		return bytes[kind.ordinal()];
+	}
+
+	public long getUnchanged() {
+		return unchanged;
+	}
+
+	public long getTotalBytes() {
+		long total = 0;
+
+		for (long b : bytes) {
+			total += b;
+		}
+
+		return total;
+	}
+}
@@ -74,19 +74,21 @@ public class ClassMapping extends ClassSerializer {
 
 	private static Map<String, ClassSerializer> classes = new TreeMap<String, ClassSerializer>();
 
-	private LinkedList<Field> floatFields = new LinkedList<Field>();
-	private LinkedList<Field> doubleFields = new LinkedList<Field>();
-	private LinkedList<Field> shortFields = new LinkedList<Field>();
-	private LinkedList<Field> intFields = new LinkedList<Field>();
-	private LinkedList<Field> booleanFields = new LinkedList<Field>();
-	private LinkedList<Field> enumFields = new LinkedList<Field>();
-
-	class FieldObject {
-		public Field field;
-		public ClassSerializer mapping;
-	}
+	/**
+	 * Serializers already looked up by class, and classes already looked up
+	 * by network name, so that neither is resolved again on every packet.
+	 */
+	private static Map<Class<?>, ClassSerializer> classCache = new HashMap<Class<?>, ClassSerializer>();
+	private static Map<String, Class<?>> nameCache = new HashMap<String, Class<?>>();
+
+	private String networkName;
 
-	private LinkedList<FieldObject> objectFields = new LinkedList<FieldObject>();
+	/**
+	 * The serializers of the synchronized fields, in the order they are on
+	 * the wire: shorts, ints, booleans, enums, floats, doubles and chars,
+	 * then objects. Built when the class is analyzed.
+	 */
+	private FieldSerializer[] fields = new FieldSerializer[0];
 
 	enum CptType {
 		Byte,
@@ -134,9 +136,15 @@ public class ClassMapping extends ClassSerializer {
 					cptMapping = get (cptClass);
 				}
 			} else {
-				List<Field> fields = JavaTools.getAllFields(c);
-
-				for (Field f : fields) {
+				List<Field> shortFields = new ArrayList<Field>();
+				List<Field> intFields = new ArrayList<Field>();
+				List<Field> booleanFields = new ArrayList<Field>();
+				List<Field> enumFields = new ArrayList<Field>();
+				List<Field> floatFields = new ArrayList<Field>();
+				List<Field> doubleFields = new ArrayList<Field>();
+				List<Field> objectFields = new ArrayList<Field>();
+
+				for (Field f : JavaTools.getAllFields(c)) {
 					if (!isSynchronizedField(f)) {
 						continue;
 					}
@@ -163,21 +171,37 @@ public class ClassMapping extends ClassSerializer {
 						} else if (char.class.equals(fieldClass)) {
 							doubleFields.add(f);
 						} else {
-							FieldObject obj = new FieldObject();
-							obj.mapping = get (fieldClass);
-							obj.field = f;
-
-							objectFields.add(obj);
+							objectFields.add(f);
 						}
 					}
 				}
 
+				List<FieldSerializer> serializers = new ArrayList<FieldSerializer>();
+
+				addPrimitives(serializers, shortFields);
+				addPrimitives(serializers, intFields);
+				addPrimitives(serializers, booleanFields);
+				addPrimitives(serializers, enumFields);
+				addPrimitives(serializers, floatFields);
+				addPrimitives(serializers, doubleFields);
+
+				for (Field f : objectFields) {
+					serializers.add(FieldSerializer.create(f, get(f.getType())));
+				}
+
+				fields = serializers.toArray(new FieldSerializer[serializers.size()]);
 			}
 		} catch (IllegalArgumentException e) {
 			e.printStackTrace();
 		}
 	}
 
+	private static void addPrimitives(List<FieldSerializer> serializers, List<Field> bucket) {
+		for (Field f : bucket) {
+			serializers.add(FieldSerializer.create(f));
+		}
+	}
+
 	private boolean isSynchronizedField(Field f) {
 		NetworkData updateAnnotation = f.getAnnotation(NetworkData.class);
 
@@ -258,49 +282,19 @@ public class ClassMapping extends ClassSerializer {
 
 		Class realClass = obj.getClass();
 
-		if (realClass.equals(this.mappedClass)) {
+		if (realClass == this.mappedClass) {
 			data.writeBoolean(true);
 		} else {
 			data.writeBoolean(false);
-			NetworkIdRegistry.write(data, realClass.getCanonicalName());
 			ClassMapping delegateMapping = (ClassMapping) get(realClass);
+			NetworkIdRegistry.write(data, delegateMapping.networkName);
 			delegateMapping.writeClass(obj, data, context);
 
 			return;
 		}
 
-		for (Field f : shortFields) {
-			data.writeShort(f.getShort(obj));
-		}
-
-		for (Field f : intFields) {
-			data.writeInt(f.getInt(obj));
-		}
-
-		for (Field f : booleanFields) {
-			data.writeBoolean(f.getBoolean(obj));
-		}
-
-		for (Field f : enumFields) {
-			if (f.get(obj) == null) {
-				data.writeBoolean(false);
-			} else {
-				data.writeBoolean(true);
-				data.writeByte(((Enum) f.get(obj)).ordinal());
-			}
-		}
-
-		for (Field f : floatFields) {
-			data.writeFloat(f.getFloat(obj));
-		}
-
-		for (Field f : doubleFields) {
-			data.writeDouble(f.getDouble(obj));
-		}
-
-		for (FieldObject f : objectFields) {
-			Object cpt = f.field.get(obj);
-			f.mapping.write(data, cpt, context);
+		for (FieldSerializer f : fields) {
+			f.write(data, obj, context);
 		}
 	}
 
@@ -318,8 +312,7 @@ public class ClassMapping extends ClassSerializer {
 
 		if (!data.readBoolean()) {
 			String className = NetworkIdRegistry.read(data);
-			Class cls = Class.forName(className);
-			ClassMapping delegateMapping = (ClassMapping) get(cls);
+			ClassMapping delegateMapping = (ClassMapping) get(forName(className));
 
 			return delegateMapping.readClass(obj, data, context);
 		}
@@ -328,37 +321,43 @@ public class ClassMapping extends ClassSerializer {
 			obj = mappedClass.newInstance();
 		}
 
-		for (Field f : shortFields) {
-			f.setShort(obj, data.readShort());
-		}
-
-		for (Field f : intFields) {
-			f.setInt(obj, data.readInt());
+		for (FieldSerializer f : fields) {
+			f.read(data, obj, context);
 		}
 
-		for (Field f : booleanFields) {
-			f.setBoolean(obj, data.readBoolean());
-		}
-
-		for (Field f : enumFields) {
-			if (data.readBoolean()) {
-				f.set(obj, ((Class) f.getGenericType()).getEnumConstants()[data.readByte()]);
-			}
-		}
+		return obj;
+	}
 
-		for (Field f : floatFields) {
-			f.setFloat(obj, data.readFloat());
-		}
+	/**
+	 * Returns the number of synchronized fields of the mapped class.
+	 */
+	public int getFieldCount() {
+		return fields.length;
+	}
 
-		for (Field f : doubleFields) {
-			f.setDouble(obj, data.readDouble());
+	/**
+	 * Writes the fields of obj, which must be exactly of the mapped class,
+	 * without the headers of write. The index in data where the bytes of
+	 * each field end is stored in ends.
+	 */
+	public void writeFields(ByteBuf data, Object obj, SerializationContext context, int[] ends)
+			throws IllegalArgumentException, IllegalAccessException {
+		for (int i = 0; i < fields.length; ++i) {
+			fields[i].write(data, obj, context);
+			ends[i] = data.writerIndex();
 		}
+	}
 
-		for (FieldObject f : objectFields) {
-			f.field.set(obj, f.mapping.read(data, f.field.get(obj), context));
+	/**
+	 * Reads the fields whose bit is set in mask, as written by writeFields.
+	 */
+	public void readFields(ByteBuf data, Object obj, SerializationContext context, byte[] mask)
+			throws IllegalArgumentException, IllegalAccessException, InstantiationException, ClassNotFoundException {
+		for (int i = 0; i < fields.length; ++i) {
+			if ((mask[i >> 3] & (1 << (i & 7))) != 0) {
+				fields[i].read(data, obj, context);
+			}
 		}
-
-		return obj;
 	}
 
 	private void writeArray(Object obj, ByteBuf data, SerializationContext context) throws IllegalArgumentException,
@@ -631,6 +630,11 @@ public class ClassMapping extends ClassSerializer {
 	private static void registerSerializer (Class<?> clas, ClassSerializer s) {
 		try {
 			s.mappedClass = clas;
+
+			if (s instanceof ClassMapping) {
+				((ClassMapping) s).networkName = clas.getCanonicalName();
+			}
+
 			classes.put(clas.getCanonicalName(), s);
 		} catch (Throwable t) {
 			t.printStackTrace();
@@ -638,10 +642,12 @@ public class ClassMapping extends ClassSerializer {
 		}
 	}
 
-	public static ClassSerializer get (Class<?> clas) {
-		ClassSerializer mapping;
+	public static synchronized ClassSerializer get (Class<?> clas) {
+		ClassSerializer mapping = classCache.get(clas);
 
-		if (Block.class.isAssignableFrom(clas)) {
+		if (mapping != null) {
+			return mapping;
+		} else if (Block.class.isAssignableFrom(clas)) {
 			mapping = classes.get(Block.class.getCanonicalName());
 		} else if (Item.class.isAssignableFrom(clas)) {
 			mapping = classes.get(Item.class.getCanonicalName());
@@ -657,9 +663,27 @@ public class ClassMapping extends ClassSerializer {
 			mapping = null;
 		}
 
+		if (mapping != null) {
+			classCache.put(clas, mapping);
+		}
+
 		return mapping;
 	}
 
+	/**
+	 * Returns the class sent under that name, see SerializerObject.
+	 */
+	public static synchronized Class<?> forName(String className) throws ClassNotFoundException {
+		Class<?> cls = nameCache.get(className);
+
+		if (cls == null) {
+			cls = Class.forName(className);
+			nameCache.put(className, cls);
+		}
+
+		return cls;
+	}
+
 	static {
 		registerSerializer(String.class, new SerializerString());
 		registerSerializer(HashMap.class, new SerializerHashMap());
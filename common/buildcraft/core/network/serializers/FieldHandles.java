@@ -0,0 +1,357 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.core.network.serializers;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Field serializers going through a getter and a setter method handle bound
+ * to the field, with the field type as is, so that primitives are neither
+ * boxed nor checked on every packet. Everything using java.lang.invoke is
+ * kept in this class, so that a runtime without it only fails to link this
+ * class, and FieldSerializer falls back to reflection.
+ */
+final class FieldHandles {
+
+	private FieldHandles() {
+	}
+
+	/**
+	 * Returns the serializer of a field holding a primitive or an enum.
+	 */
+	static FieldSerializer create(Field field) throws IllegalAccessException {
+		Class<?> type = field.getType();
+
+		if (short.class.equals(type)) {
+			return new ShortField(field);
+		} else if (int.class.equals(type)) {
+			return new IntField(field);
+		} else if (boolean.class.equals(type)) {
+			return new BooleanField(field);
+		} else if (float.class.equals(type)) {
+			return new FloatField(field);
+		} else if (double.class.equals(type)) {
+			return new DoubleField(field);
+		} else if (char.class.equals(type)) {
+			return new CharAsDouble(field);
+		} else if (Enum.class.isAssignableFrom(type)) {
+			return new EnumField(field);
+		}
+
+		throw new IllegalArgumentException("no primitive serializer for " + field);
+	}
+
+	/**
+	 * Returns the serializer of a field holding an object written by mapping.
+	 */
+	static FieldSerializer create(Field field, ClassSerializer mapping) throws IllegalAccessException {
+		return new ObjectField(field, mapping);
+	}
+
+	private static MethodHandle getter(Field field, Class<?> type) throws IllegalAccessException {
+		field.setAccessible(true);
+
+		return MethodHandles.lookup().unreflectGetter(field).asType(MethodType.methodType(type, Object.class));
+	}
+
+	private static MethodHandle setter(Field field, Class<?> type) throws IllegalAccessException {
+		field.setAccessible(true);
+
+		return MethodHandles.lookup().unreflectSetter(field)
+				.asType(MethodType.methodType(void.class, Object.class, type));
+	}
+
+	private static RuntimeException propagate(Throwable t) {
+		if (t instanceof RuntimeException) {
+			return (RuntimeException) t;
+		} else if (t instanceof Error) {
+			throw (Error) t;
+		} else {
+			return new RuntimeException(t);
+		}
+	}
+
+	private static final class ShortField extends FieldSerializer {
+
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+
+		public ShortField(Field field) throws IllegalAccessException {
+			super(field);
+			getter = getter(field, short.class);
+			setter = setter(field, short.class);
+		}
+
+		@Override
+		public void write(ByteBuf data, Object obj, SerializationContext context) {
+			try {
+				data.writeShort((short) getter.invokeExact(obj));
+			} catch (Throwable t) {
+				throw propagate(t);
+			}
+		}
+
+		@Override
+		public void read(ByteBuf data, Object obj, SerializationContext context) {
+			try {
+				setter.invokeExact(obj, data.readShort());
+			} catch (Throwable t) {
+				throw propagate(t);
+			}
+		}
+	}
+
+	private static final class IntField extends FieldSerializer {
+
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+
+		public IntField(Field field) throws IllegalAccessException {
+			super(field);
+			getter = getter(field, int.class);
+			setter = setter(field, int.class);
+		}
+
+		@Override
+		public void write(ByteBuf data, Object obj, SerializationContext context) {
+			try {
+				data.writeInt((int) getter.invokeExact(obj));
+			} catch (Throwable t) {
+				throw propagate(t);
+			}
+		}
+
+		@Override
+		public void read(ByteBuf data, Object obj, SerializationContext context) {
+			try {
+				setter.invokeExact(obj, data.readInt());
+			} catch (Throwable t) {
+				throw propagate(t);
+			}
+		}
+	}
+
+	private static final class BooleanField extends FieldSerializer {
+
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+
+		public BooleanField(Field field) throws IllegalAccessException {
+			super(field);
+			getter = getter(field, boolean.class);
+			setter = setter(field, boolean.class);
+		}
+
+		@Override
+		public void write(ByteBuf data, Object obj, SerializationContext context) {
+			try {
+				data.writeBoolean((boolean) getter.invokeExact(obj));
+			} catch (Throwable t) {
+				throw propagate(t);
+			}
+		}
+
+		@Override
+		public void read(ByteBuf data, Object obj, SerializationContext context) {
+			try {
+				setter.invokeExact(obj, data.readBoolean());
+			} catch (Throwable t) {
+				throw propagate(t);
+			}
+		}
+	}
+
+	private static final class FloatField extends FieldSerializer {
+
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+
+		public FloatField(Field field) throws IllegalAccessException {
+			super(field);
+			getter = getter(field, float.class);
+			setter = setter(field, float.class);
+		}
+
+		@Override
+		public void write(ByteBuf data, Object obj, SerializationContext context) {
+			try {
+				data.writeFloat((float) getter.invokeExact(obj));
+			} catch (Throwable t) {
+				throw propagate(t);
+			}
+		}
+
+		@Override
+		public void read(ByteBuf data, Object obj, SerializationContext context) {
+			try {
+				setter.invokeExact(obj, data.readFloat());
+			} catch (Throwable t) {
+				throw propagate(t);
+			}
+		}
+	}
+
+	private static final class DoubleField extends FieldSerializer {
+
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+
+		public DoubleField(Field field) throws IllegalAccessException {
+			super(field);
+			getter = getter(field, double.class);
+			setter = setter(field, double.class);
+		}
+
+		@Override
+		public void write(ByteBuf data, Object obj, SerializationContext context) {
+			try {
+				data.writeDouble((double) getter.invokeExact(obj));
+			} catch (Throwable t) {
+				throw propagate(t);
+			}
+		}
+
+		@Override
+		public void read(ByteBuf data, Object obj, SerializationContext context) {
+			try {
+				setter.invokeExact(obj, data.readDouble());
+			} catch (Throwable t) {
+				throw propagate(t);
+			}
+		}
+	}
+
+	/**
+	 * Chars have always been sent along with doubles, as doubles.
+	 */
+	private static final class CharAsDouble extends FieldSerializer {
+
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+
+		public CharAsDouble(Field field) throws IllegalAccessException {
+			super(field);
+			getter = getter(field, char.class);
+			setter = setter(field, char.class);
+		}
+
+		@Override
+		public void write(ByteBuf data, Object obj, SerializationContext context) {
+			try {
+				data.writeDouble((char) getter.invokeExact(obj));
+			} catch (Throwable t) {
+				throw propagate(t);
+			}
+		}
+
+		@Override
+		public void read(ByteBuf data, Object obj, SerializationContext context) {
+			try {
+				setter.invokeExact(obj, (char) data.readDouble());
+			} catch (Throwable t) {
+				throw propagate(t);
+			}
+		}
+	}
+
+	private static final class EnumField extends FieldSerializer {
+
+		private final Object[] constants;
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+
+		public EnumField(Field field) throws IllegalAccessException {
+			super(field);
+			constants = field.getType().getEnumConstants();
+			getter = getter(field, Object.class);
+			setter = setter(field, Object.class);
+		}
+
+		@Override
+		public void write(ByteBuf data, Object obj, SerializationContext context) {
+			Object value;
+
+			try {
+				value = (Object) getter.invokeExact(obj);
+			} catch (Throwable t) {
+				throw propagate(t);
+			}
+
+			if (value == null) {
+				data.writeBoolean(false);
+			} else {
+				data.writeBoolean(true);
+				data.writeByte(((Enum<?>) value).ordinal());
+			}
+		}
+
+		@Override
+		public void read(ByteBuf data, Object obj, SerializationContext context) {
+			if (data.readBoolean()) {
+				try {
+					setter.invokeExact(obj, constants[data.readByte()]);
+				} catch (Throwable t) {
+					throw propagate(t);
+				}
+			}
+		}
+	}
+
+	private static final class ObjectField extends FieldSerializer {
+
+		private final ClassSerializer mapping;
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+
+		public ObjectField(Field field, ClassSerializer mapping) throws IllegalAccessException {
+			super(field);
+			this.mapping = mapping;
+			getter = getter(field, Object.class);
+			setter = setter(field, Object.class);
+		}
+
+		@Override
+		public void write(ByteBuf data, Object obj, SerializationContext context) throws IllegalAccessException {
+			Object value;
+
+			try {
+				value = (Object) getter.invokeExact(obj);
+			} catch (Throwable t) {
+				throw propagate(t);
+			}
+
+			mapping.write(data, value, context);
+		}
+
+		@Override
+		public void read(ByteBuf data, Object obj, SerializationContext context)
+				throws IllegalAccessException, InstantiationException, ClassNotFoundException {
+			Object value;
+
+			try {
+				value = (Object) getter.invokeExact(obj);
+			} catch (Throwable t) {
+				throw propagate(t);
+			}
+
+			value = mapping.read(data, value, context);
+
+			try {
+				setter.invokeExact(obj, value);
+			} catch (Throwable t) {
+				throw propagate(t);
+			}
+		}
+	}
+}
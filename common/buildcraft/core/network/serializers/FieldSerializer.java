@@ -0,0 +1,247 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.core.network.serializers;
+
+import java.lang.reflect.Field;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Writes and reads one @NetworkData field of an object.
+ *
+ * ClassMapping builds one of these per field when a class is first mapped,
+ * which makes the plan of that class, and then runs through them in wire
+ * order. Fields are read and written through method handles, see
+ * FieldHandles. The implementations below go through the typed getters and
+ * setters of Field instead, for runtimes without java.lang.invoke and for
+ * fields no handle can be made for.
+ */
+abstract class FieldSerializer {
+
+	private static boolean handlesAvailable = true;
+
+	protected final Field field;
+
+	protected FieldSerializer(Field field) {
+		this.field = field;
+	}
+
+	public abstract void write(ByteBuf data, Object obj, SerializationContext context)
+			throws IllegalArgumentException, IllegalAccessException;
+
+	public abstract void read(ByteBuf data, Object obj, SerializationContext context)
+			throws IllegalArgumentException, IllegalAccessException, InstantiationException, ClassNotFoundException;
+
+	/**
+	 * Returns the serializer of a field holding a primitive or an enum.
+	 */
+	public static FieldSerializer create(Field field) {
+		if (handlesAvailable) {
+			try {
+				return FieldHandles.create(field);
+			} catch (LinkageError e) {
+				handlesAvailable = false;
+			} catch (IllegalAccessException e) {
+				// Falls back to reflection below.
+			}
+		}
+
+		Class<?> type = field.getType();
+
+		if (short.class.equals(type)) {
+			return new ShortField(field);
+		} else if (int.class.equals(type)) {
+			return new IntField(field);
+		} else if (boolean.class.equals(type)) {
+			return new BooleanField(field);
+		} else if (float.class.equals(type)) {
+			return new FloatField(field);
+		} else if (double.class.equals(type)) {
+			return new DoubleField(field);
+		} else if (char.class.equals(type)) {
+			return new CharAsDouble(field);
+		} else if (Enum.class.isAssignableFrom(type)) {
+			return new EnumField(field);
+		}
+
+		throw new IllegalArgumentException("no primitive serializer for " + field);
+	}
+
+	/**
+	 * Returns the serializer of a field holding an object written by mapping.
+	 */
+	public static FieldSerializer create(Field field, ClassSerializer mapping) {
+		if (handlesAvailable) {
+			try {
+				return FieldHandles.create(field, mapping);
+			} catch (LinkageError e) {
+				handlesAvailable = false;
+			} catch (IllegalAccessException e) {
+				// Falls back to reflection below.
+			}
+		}
+
+		return new ObjectField(field, mapping);
+	}
+
+	private static final class ShortField extends FieldSerializer {
+
+		public ShortField(Field field) {
+			super(field);
+		}
+
+		@Override
+		public void write(ByteBuf data, Object obj, SerializationContext context) throws IllegalAccessException {
+			data.writeShort(field.getShort(obj));
+		}
+
+		@Override
+		public void read(ByteBuf data, Object obj, SerializationContext context) throws IllegalAccessException {
+			field.setShort(obj, data.readShort());
+		}
+	}
+
+	private static final class IntField extends FieldSerializer {
+
+		public IntField(Field field) {
+			super(field);
+		}
+
+		@Override
+		public void write(ByteBuf data, Object obj, SerializationContext context) throws IllegalAccessException {
+			data.writeInt(field.getInt(obj));
+		}
+
+		@Override
+		public void read(ByteBuf data, Object obj, SerializationContext context) throws IllegalAccessException {
+			field.setInt(obj, data.readInt());
+		}
+	}
+
+	private static final class BooleanField extends FieldSerializer {
+
+		public BooleanField(Field field) {
+			super(field);
+		}
+
+		@Override
+		public void write(ByteBuf data, Object obj, SerializationContext context) throws IllegalAccessException {
+			data.writeBoolean(field.getBoolean(obj));
+		}
+
+		@Override
+		public void read(ByteBuf data, Object obj, SerializationContext context) throws IllegalAccessException {
+			field.setBoolean(obj, data.readBoolean());
+		}
+	}
+
+	private static final class FloatField extends FieldSerializer {
+
+		public FloatField(Field field) {
+			super(field);
+		}
+
+		@Override
+		public void write(ByteBuf data, Object obj, SerializationContext context) throws IllegalAccessException {
+			data.writeFloat(field.getFloat(obj));
+		}
+
+		@Override
+		public void read(ByteBuf data, Object obj, SerializationContext context) throws IllegalAccessException {
+			field.setFloat(obj, data.readFloat());
+		}
+	}
+
+	private static final class DoubleField extends FieldSerializer {
+
+		public DoubleField(Field field) {
+			super(field);
+		}
+
+		@Override
+		public void write(ByteBuf data, Object obj, SerializationContext context) throws IllegalAccessException {
+			data.writeDouble(field.getDouble(obj));
+		}
+
+		@Override
+		public void read(ByteBuf data, Object obj, SerializationContext context) throws IllegalAccessException {
+			field.setDouble(obj, data.readDouble());
+		}
+	}
+
+	/**
+	 * Chars have always been sent along with doubles, as doubles.
+	 */
+	private static final class CharAsDouble extends FieldSerializer {
+
+		public CharAsDouble(Field field) {
+			super(field);
+		}
+
+		@Override
+		public void write(ByteBuf data, Object obj, SerializationContext context) throws IllegalAccessException {
+			data.writeDouble(field.getChar(obj));
+		}
+
+		@Override
+		public void read(ByteBuf data, Object obj, SerializationContext context) throws IllegalAccessException {
+			field.setChar(obj, (char) data.readDouble());
+		}
+	}
+
+	private static final class EnumField extends FieldSerializer {
+
+		private final Object[] constants;
+
+		public EnumField(Field field) {
+			super(field);
+			this.constants = field.getType().getEnumConstants();
+		}
+
+		@Override
+		public void write(ByteBuf data, Object obj, SerializationContext context) throws IllegalAccessException {
+			Object value = field.get(obj);
+
+			if (value == null) {
+				data.writeBoolean(false);
+			} else {
+				data.writeBoolean(true);
+				data.writeByte(((Enum<?>) value).ordinal());
+			}
+		}
+
+		@Override
+		public void read(ByteBuf data, Object obj, SerializationContext context) throws IllegalAccessException {
+			if (data.readBoolean()) {
+				field.set(obj, constants[data.readByte()]);
+			}
+		}
+	}
+
+	private static final class ObjectField extends FieldSerializer {
+
+		private final ClassSerializer mapping;
+
+		public ObjectField(Field field, ClassSerializer mapping) {
+			super(field);
+			this.mapping = mapping;
+		}
+
+		@Override
+		public void write(ByteBuf data, Object obj, SerializationContext context) throws IllegalAccessException {
+			mapping.write(data, field.get(obj), context);
+		}
+
+		@Override
+		public void read(ByteBuf data, Object obj, SerializationContext context)
+				throws IllegalAccessException, InstantiationException, ClassNotFoundException {
+			field.set(obj, mapping.read(data, field.get(obj), context));
+		}
+	}
+}
@@ -42,7 +42,7 @@ public class SerializerObject extends ClassSerializer {
 			return null;
 		} else {
 			String className = NetworkIdRegistry.read(data);
-			Class cls = Class.forName(className);
+			Class cls = ClassMapping.forName(className);
 			ClassSerializer delegateMapping = ClassMapping.get(cls);
 
 			if (delegateMapping instanceof ClassMapping) {
@@ -71,6 +71,7 @@ public class AIRobotGotoBlock extends AIRobotGoto {
 					(int) Math.floor(finalX), (int) Math.floor(finalY), (int) Math.floor(finalZ)), maxDistance);
 
 			pathSearchJob = new PathFindingJob(pathSearch, 100);
+			pathSearchJob.setPriority(PathFindingJob.PRIORITY_HIGH, robot);
 			pathSearchJob.start();
 		} else if (path != null) {
 			double distance = robot.getDistance(nextX, nextY, nextZ);
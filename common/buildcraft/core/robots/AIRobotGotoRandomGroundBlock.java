@@ -44,7 +44,7 @@ public class AIRobotGotoRandomGroundBlock extends AIRobot {
 		if (pathFindingJob == null) {
 			startDelegateAI(new AIRobotSearchRandomGroundBlock(robot, range, filter, zone));
 		} else {
-			if (!pathFindingJob.isAlive()) {
+			if (pathFindingJob.isDone()) {
 				LinkedList<BlockIndex> path = pathFinding.getResult();
 				if (path.size() == 0) {
 					terminate();
@@ -68,6 +68,7 @@ public class AIRobotGotoRandomGroundBlock extends AIRobot {
 			blockFound = aiFind.blockFound;
 			pathFinding = new PathFinding(robot.worldObj, new BlockIndex(robot), blockFound);
 			pathFindingJob = new PathFindingJob(pathFinding);
+			pathFindingJob.setPriority(PathFindingJob.PRIORITY_LOW, robot);
 			pathFindingJob.start();
 		} else if (ai instanceof AIRobotGotoBlock) {
 			terminate();
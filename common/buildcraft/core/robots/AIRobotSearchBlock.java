@@ -42,6 +42,7 @@ public class AIRobotSearchBlock extends AIRobot {
 	public void start() {
 		blockScanner = new PathFinding(robot.worldObj, new BlockIndex(robot), pathFound, 64, robot.getZoneToWork());
 		blockScannerJob = new PathFindingJob(blockScanner);
+		blockScannerJob.setPriority(PathFindingJob.PRIORITY_NORMAL, robot);
 		blockScannerJob.start();
 	}
 
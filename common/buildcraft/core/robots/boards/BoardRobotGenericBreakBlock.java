@@ -22,7 +22,6 @@ import buildcraft.api.gates.ActionParameterItemStack;
 import buildcraft.api.gates.IActionParameter;
 import buildcraft.api.robots.AIRobot;
 import buildcraft.api.robots.EntityRobotBase;
-import buildcraft.core.TickHandlerCore;
 import buildcraft.core.inventory.filters.IStackFilter;
 import buildcraft.core.robots.AIRobotBreak;
 import buildcraft.core.robots.AIRobotFetchAndEquipItemStack;
@@ -145,25 +144,16 @@ public abstract class BoardRobotGenericBreakBlock extends RedstoneBoardRobot {
 			return true;
 		}
 
-		synchronized (TickHandlerCore.startSynchronousComputation) {
-			try {
-				TickHandlerCore.startSynchronousComputation.wait();
+		Block block = world.getBlock(x, y, z);
+		int meta = world.getBlockMetadata(x, y, z);
 
-				Block block = world.getBlock(x, y, z);
-				int meta = world.getBlockMetadata(x, y, z);
-
-				for (int i = 0; i < blockFilter.size(); ++i) {
-					if (blockFilter.get(i) == block && metaFilter.get(i) == meta) {
-						return true;
-					}
-				}
-
-				return false;
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-				return false;
+		for (int i = 0; i < blockFilter.size(); ++i) {
+			if (blockFilter.get(i) == block && metaFilter.get(i) == meta) {
+				return true;
 			}
 		}
+
+		return false;
 	}
 
 	@Override
@@ -25,7 +25,6 @@ import buildcraft.api.core.BlockIndex;
 import buildcraft.api.core.BuildCraftAPI;
 import buildcraft.api.robots.AIRobot;
 import buildcraft.api.robots.EntityRobotBase;
-import buildcraft.core.TickHandlerCore;
 import buildcraft.core.inventory.filters.ArrayStackFilter;
 import buildcraft.core.inventory.filters.CompositeFilter;
 import buildcraft.core.inventory.filters.IStackFilter;
@@ -145,16 +144,7 @@ public class BoardRobotPlanter extends RedstoneBoardRobot {
 	}
 
 	private boolean isAirAbove(World world, int x, int y, int z) {
-		synchronized (TickHandlerCore.startSynchronousComputation) {
-			try {
-				TickHandlerCore.startSynchronousComputation.wait();
-
-				return world.isAirBlock(x, y + 1, z);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-				return false;
-			}
-		}
+		return world.isAirBlock(x, y + 1, z);
 	}
 
 	@Override
@@ -18,12 +18,14 @@ import cpw.mods.fml.relauncher.SideOnly;
 import net.minecraftforge.common.util.ForgeDirection;
 
 import buildcraft.api.gates.IGate;
+import buildcraft.api.gates.ITriggerDependencies;
 import buildcraft.api.gates.ITriggerParameter;
+import buildcraft.api.gates.TriggerDependency;
 import buildcraft.api.mj.IBatteryObject;
 import buildcraft.api.mj.MjAPI;
 import buildcraft.core.utils.StringUtils;
 
-public class TriggerEnergy extends BCTrigger {
+public class TriggerEnergy extends BCTrigger implements ITriggerDependencies {
 
 	private boolean high;
 	private IIcon iconEnergyLow;
@@ -40,6 +42,11 @@ public class TriggerEnergy extends BCTrigger {
 		return StringUtils.localize("gate.trigger.machine.energyStored" + (high ? "High" : "Low"));
 	}
 
+	@Override
+	public TriggerDependency[] getDependencies() {
+		return new TriggerDependency[] {TriggerDependency.NEIGHBOR};
+	}
+
 	@Override
 	public boolean isTriggerActive(IGate gate, ITriggerParameter[] parameters) {
 		IBatteryObject battery = MjAPI.getMjBattery(gate.getPipe());
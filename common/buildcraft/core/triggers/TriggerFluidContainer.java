@@ -15,13 +15,16 @@ import net.minecraft.tileentity.TileEntity;
 import net.minecraftforge.common.util.ForgeDirection;
 import net.minecraftforge.fluids.FluidContainerRegistry;
 import net.minecraftforge.fluids.FluidStack;
-import net.minecraftforge.fluids.FluidTankInfo;
 import net.minecraftforge.fluids.IFluidHandler;
 
+import buildcraft.api.gates.ITriggerDependencies;
 import buildcraft.api.gates.ITriggerParameter;
+import buildcraft.api.gates.TriggerDependency;
+import buildcraft.core.inventory.FluidSummary;
+import buildcraft.core.inventory.SummaryCache;
 import buildcraft.core.utils.StringUtils;
 
-public class TriggerFluidContainer extends BCTrigger {
+public class TriggerFluidContainer extends BCTrigger implements ITriggerDependencies {
 
 	public enum State {
 
@@ -44,61 +47,41 @@ public class TriggerFluidContainer extends BCTrigger {
 		return StringUtils.localize("gate.trigger.fluid." + state.name().toLowerCase(Locale.ENGLISH));
 	}
 
+	@Override
+	public TriggerDependency[] getDependencies() {
+		return new TriggerDependency[] {TriggerDependency.NEIGHBOR};
+	}
+
 	@Override
 	public boolean isTriggerActive(ForgeDirection side, TileEntity tile, ITriggerParameter parameter) {
 		if (tile instanceof IFluidHandler) {
-			IFluidHandler container = (IFluidHandler) tile;
-
 			FluidStack searchedFluid = null;
 
 			if (parameter != null && parameter.getItemStackToDraw() != null) {
 				searchedFluid = FluidContainerRegistry.getFluidForFilledItem(parameter.getItemStackToDraw());
 			}
 
-			if (searchedFluid != null) {
-				searchedFluid.amount = 1;
-			}
+			FluidSummary summary = SummaryCache.getFluids(tile, side);
 
-			FluidTankInfo[] liquids = container.getTankInfo(side);
-			if (liquids == null || liquids.length == 0) {
+			if (summary.getTanks().length == 0) {
 				return false;
 			}
 
 			switch (state) {
 				case Empty:
-					for (FluidTankInfo c : liquids) {
-						if (c.fluid != null && c.fluid.amount > 0 && (searchedFluid == null || searchedFluid.isFluidEqual(c.fluid))) {
-							return false;
-						}
-					}
-					return true;
+					return summary.getAmount(searchedFluid) == 0;
 				case Contains:
-					for (FluidTankInfo c : liquids) {
-						if (c.fluid != null && c.fluid.amount > 0 && (searchedFluid == null || searchedFluid.isFluidEqual(c.fluid))) {
-							return true;
-						}
-					}
-					return false;
+					return summary.getAmount(searchedFluid) > 0;
 				case Space:
 					if (searchedFluid == null) {
-						for (FluidTankInfo c : liquids) {
-							if (c.fluid == null || c.fluid.amount < c.capacity) {
-								return true;
-							}
-						}
-						return false;
+						return summary.hasSpace();
 					}
-					return container.fill(side, searchedFluid, false) > 0;
+					return summary.canFill(searchedFluid);
 				case Full:
 					if (searchedFluid == null) {
-						for (FluidTankInfo c : liquids) {
-							if (c.fluid == null || c.fluid.amount < c.capacity) {
-								return false;
-							}
-						}
-						return true;
+						return !summary.hasSpace();
 					}
-					return container.fill(side, searchedFluid, false) <= 0;
+					return !summary.canFill(searchedFluid);
 			}
 		}
 
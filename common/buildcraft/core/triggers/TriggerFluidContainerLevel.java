@@ -18,10 +18,14 @@ import net.minecraftforge.fluids.FluidStack;
 import net.minecraftforge.fluids.FluidTankInfo;
 import net.minecraftforge.fluids.IFluidHandler;
 
+import buildcraft.api.gates.ITriggerDependencies;
 import buildcraft.api.gates.ITriggerParameter;
+import buildcraft.api.gates.TriggerDependency;
+import buildcraft.core.inventory.FluidSummary;
+import buildcraft.core.inventory.SummaryCache;
 import buildcraft.core.utils.StringUtils;
 
-public class TriggerFluidContainerLevel extends BCTrigger {
+public class TriggerFluidContainerLevel extends BCTrigger implements ITriggerDependencies {
 
 	public enum TriggerType {
 
@@ -51,32 +55,28 @@ public class TriggerFluidContainerLevel extends BCTrigger {
 		return String.format(StringUtils.localize("gate.trigger.fluidlevel.below"), (int) (type.level * 100));
 	}
 
+	@Override
+	public TriggerDependency[] getDependencies() {
+		return new TriggerDependency[] {TriggerDependency.NEIGHBOR};
+	}
+
 	@Override
 	public boolean isTriggerActive(ForgeDirection side, TileEntity tile, ITriggerParameter parameter) {
 		if (tile instanceof IFluidHandler) {
-			IFluidHandler container = (IFluidHandler) tile;
-
 			FluidStack searchedFluid = null;
 
 			if (parameter != null && parameter.getItemStackToDraw() != null) {
 				searchedFluid = FluidContainerRegistry.getFluidForFilledItem(parameter.getItemStackToDraw());
 			}
 
-			if (searchedFluid != null) {
-				searchedFluid.amount = 1;
-			}
-
-			FluidTankInfo[] liquids = container.getTankInfo(side);
-			if (liquids == null || liquids.length == 0) {
-				return false;
-			}
+			FluidSummary summary = SummaryCache.getFluids(tile, side);
 
-			for (FluidTankInfo c : liquids) {
+			for (FluidTankInfo c : summary.getTanks()) {
 				if (c.fluid == null) {
 					if (searchedFluid == null) {
 						return true;
 					}
-					return container.fill(side, searchedFluid, false) > 0;
+					return summary.canFill(searchedFluid);
 				}
 
 				if (searchedFluid == null || searchedFluid.isFluidEqual(c.fluid)) {
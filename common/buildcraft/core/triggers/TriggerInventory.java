@@ -16,13 +16,14 @@ import net.minecraft.tileentity.TileEntity;
 
 import net.minecraftforge.common.util.ForgeDirection;
 
-import buildcraft.api.core.IInvSlot;
+import buildcraft.api.gates.ITriggerDependencies;
 import buildcraft.api.gates.ITriggerParameter;
-import buildcraft.core.inventory.InventoryIterator;
-import buildcraft.core.inventory.StackHelper;
+import buildcraft.api.gates.TriggerDependency;
+import buildcraft.core.inventory.InventorySummary;
+import buildcraft.core.inventory.SummaryCache;
 import buildcraft.core.utils.StringUtils;
 
-public class TriggerInventory extends BCTrigger {
+public class TriggerInventory extends BCTrigger implements ITriggerDependencies {
 
 	public enum State {
 
@@ -46,6 +47,11 @@ public class TriggerInventory extends BCTrigger {
 		return StringUtils.localize("gate.trigger.inventory." + state.name().toLowerCase(Locale.ENGLISH));
 	}
 
+	@Override
+	public TriggerDependency[] getDependencies() {
+		return new TriggerDependency[] {TriggerDependency.NEIGHBOR};
+	}
+
 	@Override
 	public boolean isTriggerActive(ForgeDirection side, TileEntity tile, ITriggerParameter parameter) {
 		ItemStack searchedStack = null;
@@ -55,21 +61,22 @@ public class TriggerInventory extends BCTrigger {
 		}
 
 		if (tile instanceof IInventory) {
-			boolean hasSlots = false;
-			boolean foundItems = false;
-			boolean foundSpace = false;
-
-			for (IInvSlot slot : InventoryIterator.getIterable((IInventory) tile, side.getOpposite())) {
-				hasSlots = true;
-				ItemStack stack = slot.getStackInSlot();
+			InventorySummary summary = SummaryCache.getInventory(tile, side.getOpposite());
 
-				foundItems |= stack != null && (searchedStack == null || StackHelper.canStacksMerge(stack, searchedStack));
-				foundSpace |= (stack == null || (StackHelper.canStacksMerge(stack, searchedStack) && stack.stackSize < stack.getMaxStackSize()))
-						&& (searchedStack == null || slot.canPutStackInSlot(searchedStack));
+			if (summary.getSlotCount() == 0) {
+				return false;
 			}
 
-			if (!hasSlots) {
-				return false;
+			boolean foundItems;
+			boolean foundSpace;
+
+			if (searchedStack == null) {
+				foundItems = summary.hasItems();
+				foundSpace = summary.getEmptySlotCount() > 0;
+			} else {
+				InventorySummary.ItemStats stats = summary.getStats(searchedStack);
+				foundItems = stats.getCount() > 0;
+				foundSpace = stats.hasSpace();
 			}
 
 			switch (state) {
@@ -16,13 +16,14 @@ import net.minecraft.tileentity.TileEntity;
 
 import net.minecraftforge.common.util.ForgeDirection;
 
-import buildcraft.api.core.IInvSlot;
+import buildcraft.api.gates.ITriggerDependencies;
 import buildcraft.api.gates.ITriggerParameter;
-import buildcraft.core.inventory.InventoryIterator;
-import buildcraft.core.inventory.StackHelper;
+import buildcraft.api.gates.TriggerDependency;
+import buildcraft.core.inventory.InventorySummary;
+import buildcraft.core.inventory.SummaryCache;
 import buildcraft.core.utils.StringUtils;
 
-public class TriggerInventoryLevel extends BCTrigger {
+public class TriggerInventoryLevel extends BCTrigger implements ITriggerDependencies {
 
 	public enum TriggerType {
 
@@ -57,6 +58,11 @@ public class TriggerInventoryLevel extends BCTrigger {
 		return String.format(StringUtils.localize("gate.trigger.inventorylevel.below"), (int) (type.level * 100));
 	}
 
+	@Override
+	public TriggerDependency[] getDependencies() {
+		return new TriggerDependency[] {TriggerDependency.NEIGHBOR};
+	}
+
 	@Override
 	public boolean isTriggerActive(ForgeDirection side, TileEntity tile, ITriggerParameter parameter) {
 		// A parameter is required
@@ -71,21 +77,10 @@ public class TriggerInventoryLevel extends BCTrigger {
 				return false;
 			}
 
-			int stackSpace = 0;
-			int foundItems = 0;
-			for (IInvSlot slot : InventoryIterator.getIterable((IInventory) tile, side.getOpposite())) {
-				if (slot.canPutStackInSlot(searchStack)) {
-					ItemStack stackInSlot = slot.getStackInSlot();
-					if (stackInSlot == null || StackHelper.canStacksMerge(stackInSlot, searchStack)) {
-						stackSpace++;
-						foundItems += stackInSlot == null ? 0 : stackInSlot.stackSize;
-					}
-				}
-			}
+			InventorySummary.ItemStats stats = SummaryCache.getInventory(tile, side.getOpposite()).getStats(searchStack);
 
-			if (stackSpace > 0) {
-				float percentage = foundItems / ((float) stackSpace * (float) searchStack.getMaxStackSize());
-				return percentage < type.level;
+			if (stats.getAcceptingSlots() > 0) {
+				return stats.getFillRatio() < type.level;
 			}
 
 		}
@@ -12,11 +12,13 @@ import net.minecraft.tileentity.TileEntity;
 
 import net.minecraftforge.common.util.ForgeDirection;
 
+import buildcraft.api.gates.ITriggerDependencies;
 import buildcraft.api.gates.ITriggerParameter;
+import buildcraft.api.gates.TriggerDependency;
 import buildcraft.core.IMachine;
 import buildcraft.core.utils.StringUtils;
 
-public class TriggerMachine extends BCTrigger {
+public class TriggerMachine extends BCTrigger implements ITriggerDependencies {
 
 	boolean active;
 
@@ -31,6 +33,11 @@ public class TriggerMachine extends BCTrigger {
 		return StringUtils.localize("gate.trigger.machine." + (active ? "scheduled" : "done"));
 	}
 
+	@Override
+	public TriggerDependency[] getDependencies() {
+		return new TriggerDependency[] {TriggerDependency.NEIGHBOR};
+	}
+
 	@Override
 	public boolean isTriggerActive(ForgeDirection side, TileEntity tile, ITriggerParameter parameter) {
 		if (tile instanceof IMachine) {
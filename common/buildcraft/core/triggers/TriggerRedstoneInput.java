@@ -9,11 +9,13 @@
 package buildcraft.core.triggers;
 
 import buildcraft.api.gates.IGate;
+import buildcraft.api.gates.ITriggerDependencies;
 import buildcraft.api.gates.ITriggerParameter;
+import buildcraft.api.gates.TriggerDependency;
 import buildcraft.core.utils.StringUtils;
 import buildcraft.transport.Pipe;
 
-public class TriggerRedstoneInput extends BCTrigger {
+public class TriggerRedstoneInput extends BCTrigger implements ITriggerDependencies {
 
 	boolean active;
 
@@ -27,6 +29,11 @@ public class TriggerRedstoneInput extends BCTrigger {
 		return StringUtils.localize("gate.trigger.redstone.input." + (active ? "active" : "inactive"));
 	}
 
+	@Override
+	public TriggerDependency[] getDependencies() {
+		return new TriggerDependency[] {TriggerDependency.REDSTONE};
+	}
+
 	@Override
 	public boolean isTriggerActive(IGate gate, ITriggerParameter[] parameters) {
 		return !(active ^ isBeingPowered((Pipe<?>) gate.getPipe()));
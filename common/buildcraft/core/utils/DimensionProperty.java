@@ -17,8 +17,6 @@ import net.minecraft.world.IWorldAccess;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
 
-import buildcraft.core.TickHandlerCore;
-
 public class DimensionProperty implements IWorldAccess {
 
 	private LongHashMap chunkMapping = new LongHashMap();
@@ -52,25 +50,16 @@ public class DimensionProperty implements IWorldAccess {
 	}
 
 	private void load(Chunk chunk, ChunkProperty property) {
-		synchronized (TickHandlerCore.startSynchronousComputation) {
-			try {
-				TickHandlerCore.startSynchronousComputation.wait();
-
-				for (int x = 0; x < 16; ++x) {
-					for (int y = 0; y < worldHeight; ++y) {
-						for (int z = 0; z < 16; ++z) {
-							Block block = chunk.getBlock(x, y, z);
-							int meta = chunk.getBlockMetadata(x, y, z);
-
-							boolean prop = worldProperty.
-									get(world, block, meta, chunk.xPosition * 16 + x, y, chunk.zPosition * 16 + z);
-							property.set(x, y, z, prop);
-						}
-					}
+		for (int x = 0; x < 16; ++x) {
+			for (int y = 0; y < worldHeight; ++y) {
+				for (int z = 0; z < 16; ++z) {
+					Block block = chunk.getBlock(x, y, z);
+					int meta = chunk.getBlockMetadata(x, y, z);
+
+					boolean prop = worldProperty.
+							get(world, block, meta, chunk.xPosition * 16 + x, y, chunk.zPosition * 16 + z);
+					property.set(x, y, z, prop);
 				}
-			} catch (InterruptedException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
 			}
 		}
 	}
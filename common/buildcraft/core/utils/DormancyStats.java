@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.core.utils;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.minecraft.world.World;
+
+/**
+ * Counts, per world, the power tiles that were awake and dormant during the
+ * last tick. Dormant tiles still report themselves on each update before
+ * returning, so nothing has to be done when they are unloaded or broken.
+ */
+public final class DormancyStats {
+
+	public enum Kind {
+		PIPE, ENGINE;
+
+		public static final Kind[] VALUES = values();
+	}
+
+	private static final Map<World, DormancyStats> stats = new WeakHashMap<World, DormancyStats>();
+
+	private long tick = -1;
+	private final int[] awake = new int[Kind.VALUES.length];
+	private final int[] dormant = new int[Kind.VALUES.length];
+
+	private DormancyStats() {
+	}
+
+	private static synchronized DormancyStats get(World world) {
+		DormancyStats stat = stats.get(world);
+
+		if (stat == null) {
+			stat = new DormancyStats();
+			stats.put(world, stat);
+		}
+
+		return stat;
+	}
+
+	/**
+	 * Forgets the counters of a world being unloaded.
+	 */
+	public static synchronized void unloadWorld(World world) {
+		stats.remove(world);
+	}
+
+	public static void report(World world, Kind kind, boolean isDormant) {
+		DormancyStats stat = get(world);
+		long now = world.getTotalWorldTime();
+
+		if (stat.tick != now) {
+			stat.tick = now;
+
+			for (int i = 0; i < stat.awake.length; ++i) {
+				stat.awake[i] = 0;
+				stat.dormant[i] = 0;
+			}
+		}
+
+		if (isDormant) {
+			stat.dormant[kind.ordinal()]++;
+		} else {
+			stat.awake[kind.ordinal()]++;
+		}
+	}
+
+	/**
+	 * Returns the number of tiles of that kind that were awake during the
+	 * last tick of the world.
+	 */
+	public static int getAwake(World world, Kind kind) {
+		DormancyStats stat = get(world);
+		return stat.isRecent(world) ? stat.awake[kind.ordinal()] : 0;
+	}
+
+	/**
+	 * Returns the number of tiles of that kind that were dormant during the
+	 * last tick of the world.
+	 */
+	public static int getDormant(World world, Kind kind) {
+		DormancyStats stat = get(world);
+		return stat.isRecent(world) ? stat.dormant[kind.ordinal()] : 0;
+	}
+
+	private boolean isRecent(World world) {
+		return tick >= world.getTotalWorldTime() - 1;
+	}
+}
@@ -8,11 +8,9 @@
  */
 package buildcraft.core.utils;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
 import java.util.LinkedList;
 
+import net.minecraft.util.LongHashMap;
 import net.minecraft.world.World;
 
 import buildcraft.api.core.BlockIndex;
@@ -24,6 +22,13 @@ import buildcraft.core.robots.IBlockFilter;
  * This class implements a 3D path finding based on the A* algorithm, following
  * guidelines documented on http://www.policyalmanac.org/games/aStarTutorial.htm
  * .
+ *
+ * Nodes are found by their packed coordinates in a single map, and open
+ * nodes are kept in a binary heap on their total weight, so that each step
+ * costs a logarithm of the open set instead of a scan of it.
+ *
+ * When run by a PathFindingJob, blocks are read from sections of the world
+ * captured on the main thread instead of from the world itself.
  */
 public class PathFinding {
 
@@ -39,8 +44,14 @@ public class PathFinding {
 	private IZone zone;
 	private double maxDistanceToEnd = 0;
 
-	private HashMap<BlockIndex, Node> openList = new HashMap<BlockIndex, PathFinding.Node>();
-	private HashMap<BlockIndex, Node> closedList = new HashMap<BlockIndex, PathFinding.Node>();
+	/**
+	 * All nodes visited so far, open or closed, by packed coordinates.
+	 */
+	private LongHashMap nodes = new LongHashMap();
+	private Node[] openList = new Node[64];
+	private int openSize = 0;
+
+	private final byte[][][] resultMoves = new byte[3][3][3];
 
 	private Node nextIteration;
 
@@ -48,18 +59,20 @@ public class PathFinding {
 
 	private boolean endReached = false;
 
+	private PathFindingJob job;
+	private boolean sectionMissing = false;
+
 	public PathFinding(World iWorld, BlockIndex iStart, BlockIndex iEnd) {
 		world = iWorld;
 		start = iStart;
 		end = iEnd;
 
-		Node startNode = new Node();
+		Node startNode = new Node(iStart.x, iStart.y, iStart.z);
 		startNode.parent = null;
 		startNode.movementCost = 0;
 		startNode.destinationCost = distance(start, end);
 		startNode.totalWeight = startNode.movementCost + startNode.destinationCost;
-		startNode.index = iStart;
-		openList.put(start, startNode);
+		addOpen(startNode);
 		nextIteration = startNode;
 	}
 
@@ -77,13 +90,12 @@ public class PathFinding {
 		start = iStart;
 		pathFound = iPathFound;
 
-		Node startNode = new Node();
+		Node startNode = new Node(iStart.x, iStart.y, iStart.z);
 		startNode.parent = null;
 		startNode.movementCost = 0;
 		startNode.destinationCost = 0;
 		startNode.totalWeight = startNode.movementCost + startNode.destinationCost;
-		startNode.index = iStart;
-		openList.put(start, startNode);
+		addOpen(startNode);
 		nextIteration = startNode;
 		maxDistance = iMaxDistance;
 		sqrMaxDistance = maxDistance * maxDistance;
@@ -94,25 +106,37 @@ public class PathFinding {
 		iterate(PATH_ITERATIONS);
 	}
 
-	public void iterate(int itNumber) {
+	/**
+	 * Iterates over at most itNumber nodes, and returns the number of nodes
+	 * actually iterated over. When run by a job, stops early if a section of
+	 * the world has not been captured yet.
+	 */
+	public int iterate(int itNumber) {
 		for (int i = 0; i < itNumber; ++i) {
 			if (nextIteration == null) {
-				return;
+				return i;
 			}
 
 			if (endReached) {
 				result = new LinkedList<BlockIndex>();
 
 				while (nextIteration != null) {
-					result.addFirst(nextIteration.index);
+					result.addFirst(new BlockIndex(nextIteration.x, nextIteration.y, nextIteration.z));
 					nextIteration = nextIteration.parent;
 				}
 
-				return;
+				return i;
 			} else {
 				nextIteration = iterate(nextIteration);
+
+				if (sectionMissing) {
+					sectionMissing = false;
+					return i;
+				}
 			}
 		}
+
+		return itNumber;
 	}
 
 	public boolean isDone() {
@@ -127,93 +151,195 @@ public class PathFinding {
 		}
 	}
 
+	/**
+	 * Makes the searched world be read from the sections captured for job,
+	 * instead of from the world itself.
+	 */
+	void setJob(PathFindingJob iJob) {
+		job = iJob;
+	}
+
+	IBlockFilter getFilter() {
+		return pathFound;
+	}
+
+	World getWorld() {
+		return world;
+	}
+
 	private Node iterate(Node from) {
-		openList.remove(from.index);
-		closedList.put(from.index, from);
+		byte[][][] moves = movements(from);
+
+		if (moves == null) {
+			// Left open, to be iterated over again once the missing
+			// sections are captured.
+			return from;
+		}
 
-		ArrayList<Node> nodes = new ArrayList<Node>();
-		byte[][][] resultMoves = movements(from);
+		if (from.heapIndex >= 0) {
+			removeOpen(from.heapIndex);
+		}
+
+		from.closed = true;
 
 		for (int dx = -1; dx <= +1; ++dx) {
 			for (int dy = -1; dy <= +1; ++dy) {
 				for (int dz = -1; dz <= +1; ++dz) {
-					if (resultMoves[dx + 1][dy + 1][dz + 1] == 0) {
+					byte move = moves[dx + 1][dy + 1][dz + 1];
+
+					if (move == 0) {
 						continue;
 					}
 
-					int x = from.index.x + dx;
-					int y = from.index.y + dy;
-					int z = from.index.z + dz;
+					int x = from.x + dx;
+					int y = from.y + dy;
+					int z = from.z + dz;
 
-					Node nextNode = new Node();
-					nextNode.parent = from;
-					nextNode.index = new BlockIndex(x, y, z);
-
-					if (resultMoves[dx + 1][dy + 1][dz + 1] == 2) {
+					if (move == 2) {
+						Node endNode = new Node(x, y, z);
+						endNode.parent = from;
 						endReached = true;
-						return nextNode;
+						return endNode;
 					}
 
-					nextNode.movementCost = from.movementCost + distance(nextNode.index, from.index);
-
-					if (end != null) {
-						nextNode.destinationCost = distance(nextNode.index, end);
-					} else if (zone != null) {
-						if (zone.contains(x, y, z)) {
-							nextNode.destinationCost = 0;
-						} else {
-							nextNode.destinationCost = zone.distanceTo(nextNode.index);
-						}
-					} else {
-						nextNode.destinationCost = 0;
+					double movementCost = from.movementCost + Math.sqrt(dx * dx + dy * dy + dz * dz);
+					Node node = (Node) nodes.getValueByKey(pack(x, y, z));
+
+					if (node == null) {
+						node = new Node(x, y, z);
+						node.parent = from;
+						node.movementCost = movementCost;
+						node.destinationCost = destinationCost(x, y, z);
+						node.totalWeight = node.movementCost + node.destinationCost;
+						addOpen(node);
+					} else if (!node.closed && movementCost <= node.movementCost) {
+						node.parent = from;
+						node.movementCost = movementCost;
+						node.totalWeight = node.movementCost + node.destinationCost;
+						siftUp(node.heapIndex);
 					}
+				}
+			}
+		}
 
-					nextNode.totalWeight = nextNode.movementCost + nextNode.destinationCost;
-
-					if (closedList.containsKey(nextNode.index)) {
-						continue;
-					} else if (openList.containsKey(nextNode.index)) {
-						Node tentative = openList.get(nextNode.index);
+		return openSize > 0 ? openList[0] : null;
+	}
 
-						if (tentative.movementCost < nextNode.movementCost) {
-							nextNode = tentative;
-						} else {
-							openList.put(nextNode.index, nextNode);
-						}
-					} else {
-						openList.put(nextNode.index, nextNode);
-					}
+	private double destinationCost(int x, int y, int z) {
+		if (end != null) {
+			double dx = (double) x - (double) end.x;
+			double dy = (double) y - (double) end.y;
+			double dz = (double) z - (double) end.z;
 
-					nodes.add(nextNode);
-				}
+			return Math.sqrt(dx * dx + dy * dy + dz * dz);
+		} else if (zone != null) {
+			if (zone.contains(x, y, z)) {
+				return 0;
+			} else {
+				return zone.distanceTo(new BlockIndex(x, y, z));
 			}
+		} else {
+			return 0;
+		}
+	}
+
+	private static long pack(int x, int y, int z) {
+		return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+	}
+
+	private void addOpen(Node node) {
+		if (openSize == openList.length) {
+			Node[] grown = new Node[openList.length * 2];
+			System.arraycopy(openList, 0, grown, 0, openSize);
+			openList = grown;
+		}
+
+		nodes.add(pack(node.x, node.y, node.z), node);
+		openList[openSize] = node;
+		node.heapIndex = openSize;
+		openSize++;
+		siftUp(node.heapIndex);
+	}
+
+	private void removeOpen(int index) {
+		Node removed = openList[index];
+		openSize--;
+
+		if (index != openSize) {
+			Node moved = openList[openSize];
+			openList[openSize] = null;
+			openList[index] = moved;
+			moved.heapIndex = index;
+			siftDown(index);
+			siftUp(moved.heapIndex);
+		} else {
+			openList[openSize] = null;
 		}
 
-		nodes.addAll(openList.values());
+		removed.heapIndex = -1;
+	}
+
+	private void siftUp(int index) {
+		Node node = openList[index];
+
+		while (index > 0) {
+			int parent = (index - 1) >> 1;
+			Node parentNode = openList[parent];
+
+			if (parentNode.totalWeight <= node.totalWeight) {
+				break;
+			}
+
+			openList[index] = parentNode;
+			parentNode.heapIndex = index;
+			index = parent;
+		}
 
-		return findSmallerWeight(nodes);
+		openList[index] = node;
+		node.heapIndex = index;
 	}
 
-	private Node findSmallerWeight(Collection<Node> collection) {
-		Node found = null;
+	private void siftDown(int index) {
+		Node node = openList[index];
+
+		while (true) {
+			int child = (index << 1) + 1;
+
+			if (child >= openSize) {
+				break;
+			}
+
+			if (child + 1 < openSize && openList[child + 1].totalWeight < openList[child].totalWeight) {
+				child++;
+			}
 
-		for (Node n : collection) {
-			if (found == null) {
-				found = n;
-			} else if (n.totalWeight < found.totalWeight) {
-				found = n;
+			if (openList[child].totalWeight >= node.totalWeight) {
+				break;
 			}
+
+			openList[index] = openList[child];
+			openList[index].heapIndex = index;
+			index = child;
 		}
 
-		return found;
+		openList[index] = node;
+		node.heapIndex = index;
 	}
 
 	private static class Node {
+		public final int x, y, z;
 		public Node parent;
 		public double movementCost;
 		public double destinationCost;
 		public double totalWeight;
-		public BlockIndex index;
+		public boolean closed;
+		public int heapIndex = -1;
+
+		public Node(int x, int y, int z) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
 	}
 
 	private static double distance(BlockIndex i1, BlockIndex i2) {
@@ -228,30 +354,63 @@ public class PathFinding {
 		if (zone != null && !zone.contains(x, y, z)) {
 			return false;
 		} else if (pathFound != null) {
-			return pathFound.matches(world, x, y, z);
+			return matches(x, y, z);
 		} else {
 			if (maxDistanceToEnd == 0) {
 				return end.x == x && end.y == y && end.z == z;
 			} else {
-				return BuildCraftAPI.isSoftBlock(world, x, y, z)
+				return isSoft(x, y, z)
 						&& distance(new BlockIndex(x, y, z), end) <= maxDistanceToEnd;
 			}
 		}
 	}
 
-	private byte[][][] movements(Node from) {
-		byte[][][] resultMoves = new byte[3][3][3];
+	private boolean isSoft(int x, int y, int z) {
+		if (job == null) {
+			return BuildCraftAPI.isSoftBlock(world, x, y, z);
+		}
+
+		SectionSnapshot section = job.getSoft(x, y, z);
+
+		if (section == null) {
+			sectionMissing = true;
+			return false;
+		}
+
+		return section.get(x & 15, y & 15, z & 15);
+	}
+
+	private boolean matches(int x, int y, int z) {
+		if (job == null) {
+			return pathFound.matches(world, x, y, z);
+		}
+
+		SectionSnapshot section = job.getFilter(x, y, z);
+
+		if (section == null) {
+			sectionMissing = true;
+			return false;
+		}
 
+		return section.get(x & 15, y & 15, z & 15);
+	}
+
+	/**
+	 * Returns the moves possible from a node, reusing the same array on each
+	 * call: 0 if the move is not possible, 1 if it is, and 2 if it reaches
+	 * the end. Returns null if a section around the node is missing.
+	 */
+	private byte[][][] movements(Node from) {
 		for (int dx = -1; dx <= +1; ++dx) {
 			for (int dy = -1; dy <= +1; ++dy) {
 				for (int dz = -1; dz <= +1; ++dz) {
-					int x = from.index.x + dx;
-					int y = from.index.y + dy;
-					int z = from.index.z + dz;
+					int x = from.x + dx;
+					int y = from.y + dy;
+					int z = from.z + dz;
 
 					if (endReached(x, y, z)) {
 						resultMoves[dx + 1][dy + 1][dz + 1] = 2;
-					} else if (!BuildCraftAPI.isSoftBlock(world, x, y, z)) {
+					} else if (!isSoft(x, y, z)) {
 						resultMoves[dx + 1][dy + 1][dz + 1] = 0;
 					} else {
 						resultMoves[dx + 1][dy + 1][dz + 1] = 1;
@@ -260,6 +419,10 @@ public class PathFinding {
 			}
 		}
 
+		if (sectionMissing) {
+			return null;
+		}
+
 		resultMoves[1][1][1] = 0;
 
 		if (resultMoves[0][1][1] == 0) {
@@ -375,9 +538,9 @@ public class PathFinding {
 			for (int dx = -1; dx <= +1; ++dx) {
 				for (int dy = -1; dy <= +1; ++dy) {
 					for (int dz = -1; dz <= +1; ++dz) {
-						int x = from.index.x + dx;
-						int y = from.index.y + dy;
-						int z = from.index.z + dz;
+						int x = from.x + dx;
+						int y = from.y + dy;
+						int z = from.z + dz;
 
 						float distX = x - start.x;
 						float distY = y - start.y;
@@ -8,49 +8,86 @@
  */
 package buildcraft.core.utils;
 
-import java.util.Date;
+import java.util.ArrayList;
 
-public class PathFindingJob extends Thread {
+import net.minecraft.util.LongHashMap;
+import net.minecraft.world.World;
+
+import buildcraft.core.robots.IBlockFilter;
+
+/**
+ * A search run by the threads of PathFindingPool. The search never reads the
+ * world: it reads sections captured on the main thread, and when it needs one
+ * that is not captured yet, it waits for the next world tick to capture it.
+ */
+public class PathFindingJob implements Comparable<PathFindingJob> {
+
+	/**
+	 * For robots going to a known destination.
+	 */
+	public static final int PRIORITY_HIGH = 8;
+
+	/**
+	 * For robots looking for something to work on.
+	 */
+	public static final int PRIORITY_NORMAL = 4;
+
+	/**
+	 * For robots wandering around.
+	 */
+	public static final int PRIORITY_LOW = 0;
 
 	private PathFinding pathFinding;
+	private World world;
+	private WorldSnapshot snapshot;
+	private IBlockFilter filter;
 
 	private boolean stop = false;
-	private int maxIterations;
-
 	private boolean done = false;
+	private int nodesLeft;
+
+	private int basePriority = PRIORITY_NORMAL;
+	private Object owner;
+
+	int priority;
+	long sequence;
+
+	private LongHashMap softSections = new LongHashMap();
+	private LongHashMap filterSections = new LongHashMap();
+	private ArrayList<Long> missingSoft = new ArrayList<Long>();
+	private ArrayList<Long> missingFilter = new ArrayList<Long>();
+
+	private long lastSoftKey = -1;
+	private SectionSnapshot lastSoft;
 
 	public PathFindingJob(PathFinding iPathFinding, int iMaxIterations) {
-		super("Path Finding");
 		pathFinding = iPathFinding;
-		maxIterations = iMaxIterations;
+		nodesLeft = iMaxIterations * PathFinding.PATH_ITERATIONS;
+		world = pathFinding.getWorld();
+		filter = pathFinding.getFilter();
+		snapshot = WorldSnapshot.get(world);
+		pathFinding.setJob(this);
 	}
 
 	public PathFindingJob(PathFinding iPathFinding) {
 		this(iPathFinding, 1000);
 	}
 
-	@Override
-	public void run() {
-		try {
-			for (int i = 0; i < maxIterations; ++i) {
-				if (isTerminated() || pathFinding.isDone()) {
-					break;
-				}
-
-				long startTime = new Date().getTime();
-				long elapsedtime = 0;
-
-				pathFinding.iterate();
+	/**
+	 * Sets the priority of the job, and the robot or other object it is run
+	 * for. Jobs of owners whose previous searches found nothing are run after
+	 * the others of the same priority.
+	 */
+	public void setPriority(int iPriority, Object iOwner) {
+		basePriority = iPriority;
+		owner = iOwner;
+	}
 
-				elapsedtime = new Date().getTime() - startTime;
-				double timeToWait = elapsedtime * 1.5;
-				sleep((long) timeToWait);
-			}
-		} catch (Throwable t) {
-			t.printStackTrace();
-		} finally {
-			done = true;
-		}
+	/**
+	 * Queues the job in the pool.
+	 */
+	public void start() {
+		PathFindingPool.submit(this);
 	}
 
 	public synchronized void terminate() {
@@ -65,4 +102,136 @@ public class PathFindingJob extends Thread {
 		return done;
 	}
 
+	synchronized void setDone() {
+		done = true;
+	}
+
+	World getWorld() {
+		return world;
+	}
+
+	WorldSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	int getBasePriority() {
+		return basePriority;
+	}
+
+	Object getOwner() {
+		return owner;
+	}
+
+	boolean hasResult() {
+		return pathFinding.getResult().size() > 0;
+	}
+
+	/**
+	 * Runs the search for a while, on a thread of the pool.
+	 */
+	void iterate() {
+		nodesLeft -= pathFinding.iterate(Math.min(nodesLeft, PathFinding.PATH_ITERATIONS));
+	}
+
+	boolean isFinished() {
+		return isTerminated() || pathFinding.isDone() || nodesLeft <= 0;
+	}
+
+	/**
+	 * Returns true if the search is waiting for sections to be captured.
+	 */
+	boolean isWaiting() {
+		return !missingSoft.isEmpty() || !missingFilter.isEmpty();
+	}
+
+	/**
+	 * Captures at most budget of the sections the search is waiting for, and
+	 * returns the number captured. Called on the main thread, while the job is
+	 * not run.
+	 */
+	int capture(int budget) {
+		int captured = 0;
+
+		while (captured < budget && !missingSoft.isEmpty()) {
+			long key = missingSoft.remove(missingSoft.size() - 1);
+			softSections.add(key, snapshot.captureSoft(key));
+			captured++;
+		}
+
+		while (captured < budget && !missingFilter.isEmpty()) {
+			long key = missingFilter.remove(missingFilter.size() - 1);
+			filterSections.add(key, SectionSnapshot.captureFilter(world, WorldSnapshot.keyX(key),
+					WorldSnapshot.keyY(key), WorldSnapshot.keyZ(key), filter));
+			captured++;
+		}
+
+		return captured;
+	}
+
+	/**
+	 * Returns the soft blocks of the section holding a block, or null if they
+	 * were not captured yet.
+	 */
+	SectionSnapshot getSoft(int x, int y, int z) {
+		if (y < 0 || y >= 256) {
+			return SectionSnapshot.ALL;
+		}
+
+		long key = WorldSnapshot.key(x >> 4, y >> 4, z >> 4);
+
+		if (key == lastSoftKey) {
+			return lastSoft;
+		}
+
+		SectionSnapshot section = (SectionSnapshot) softSections.getValueByKey(key);
+
+		if (section == null) {
+			section = snapshot.getSoft(key);
+
+			if (section == null) {
+				if (!missingSoft.contains(key)) {
+					missingSoft.add(key);
+				}
+
+				return null;
+			}
+
+			softSections.add(key, section);
+		}
+
+		lastSoftKey = key;
+		lastSoft = section;
+
+		return section;
+	}
+
+	/**
+	 * Returns the blocks matched by the filter in the section holding a
+	 * block, or null if they were not captured yet.
+	 */
+	SectionSnapshot getFilter(int x, int y, int z) {
+		if (y < 0 || y >= 256) {
+			return SectionSnapshot.NONE;
+		}
+
+		long key = WorldSnapshot.key(x >> 4, y >> 4, z >> 4);
+		SectionSnapshot section = (SectionSnapshot) filterSections.getValueByKey(key);
+
+		if (section == null && !missingFilter.contains(key)) {
+			missingFilter.add(key);
+		}
+
+		return section;
+	}
+
+	@Override
+	public int compareTo(PathFindingJob o) {
+		if (priority != o.priority) {
+			return priority > o.priority ? -1 : 1;
+		} else if (sequence != o.sequence) {
+			return sequence < o.sequence ? -1 : 1;
+		} else {
+			return 0;
+		}
+	}
 }
@@ -0,0 +1,285 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.core.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.WeakHashMap;
+
+import org.apache.logging.log4j.Level;
+
+import net.minecraft.world.World;
+
+import buildcraft.api.core.BCLog;
+
+/**
+ * Runs all path finding jobs on a fixed number of threads. Jobs are taken by
+ * priority, and run a slice at a time so that long searches do not hold a
+ * thread away from the others. A job needing sections of the world that are
+ * not captured yet waits until the next tick of its world, where a limited
+ * number of sections are captured on the main thread.
+ */
+public final class PathFindingPool {
+
+	public static int threadCount = 2;
+	public static int sectionsPerTick = 16;
+
+	/**
+	 * How much the priority of a job is lowered at most when the previous
+	 * searches of its owner found nothing.
+	 */
+	private static final int MAX_IDLE_PENALTY = 3;
+
+	private static final Object lock = new Object();
+	private static final PriorityQueue<PathFindingJob> queue = new PriorityQueue<PathFindingJob>();
+	private static final ArrayList<PathFindingJob> waiting = new ArrayList<PathFindingJob>();
+	private static final Map<Object, Integer> idleSearches = new WeakHashMap<Object, Integer>();
+
+	private static Thread[] workers;
+	private static long sequence = 0;
+	private static int running = 0;
+
+	private static long submitted = 0;
+	private static long completed = 0;
+	private static long cancelled = 0;
+	private static long slices = 0;
+	private static long sectionsCaptured = 0;
+
+	private PathFindingPool() {
+	}
+
+	/**
+	 * Queues a job. Called on the main thread.
+	 */
+	public static void submit(PathFindingJob job) {
+		synchronized (lock) {
+			if (workers == null) {
+				startWorkers();
+			}
+
+			Integer idle = job.getOwner() != null ? idleSearches.get(job.getOwner()) : null;
+			job.priority = job.getBasePriority() - (idle != null ? Math.min(idle, MAX_IDLE_PENALTY) : 0);
+			submitted++;
+			enqueue(job);
+		}
+	}
+
+	private static void startWorkers() {
+		workers = new Thread[Math.max(1, threadCount)];
+
+		for (int i = 0; i < workers.length; ++i) {
+			workers[i] = new Thread(new Worker(), "BuildCraft Path Finding " + (i + 1));
+			workers[i].setDaemon(true);
+			workers[i].setPriority(Thread.MIN_PRIORITY);
+			workers[i].start();
+		}
+	}
+
+	private static void enqueue(PathFindingJob job) {
+		// A new sequence sends the job behind the others of its priority.
+		job.sequence = sequence++;
+		queue.add(job);
+		lock.notify();
+	}
+
+	private static void finish(PathFindingJob job) {
+		if (job.isTerminated()) {
+			cancelled++;
+		} else {
+			completed++;
+
+			if (job.getOwner() != null) {
+				if (job.hasResult()) {
+					idleSearches.remove(job.getOwner());
+				} else {
+					Integer idle = idleSearches.get(job.getOwner());
+					idleSearches.put(job.getOwner(), idle != null ? idle + 1 : 1);
+				}
+			}
+		}
+
+		job.setDone();
+	}
+
+	/**
+	 * Captures the sections the jobs of a world are waiting for, and queues
+	 * these jobs again. Called on the main thread at the end of each tick.
+	 */
+	public static void tickWorld(World world) {
+		ArrayList<PathFindingJob> jobs = null;
+
+		synchronized (lock) {
+			for (Iterator<PathFindingJob> it = waiting.iterator(); it.hasNext();) {
+				PathFindingJob job = it.next();
+
+				if (job.getWorld() == world) {
+					if (jobs == null) {
+						jobs = new ArrayList<PathFindingJob>();
+					}
+
+					jobs.add(job);
+					it.remove();
+				}
+			}
+		}
+
+		WorldSnapshot.sweep(world);
+
+		if (jobs == null) {
+			return;
+		}
+
+		Collections.sort(jobs);
+
+		// Waiting jobs are not run, their sections can be captured outside
+		// of the lock.
+		int budget = sectionsPerTick;
+
+		for (PathFindingJob job : jobs) {
+			if (!job.isTerminated() && budget > 0) {
+				int captured = job.capture(budget);
+				budget -= captured;
+				sectionsCaptured += captured;
+			}
+		}
+
+		synchronized (lock) {
+			for (PathFindingJob job : jobs) {
+				if (job.isTerminated()) {
+					finish(job);
+				} else if (job.isWaiting()) {
+					waiting.add(job);
+				} else {
+					enqueue(job);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Cancels the jobs of a world being unloaded, and forgets its sections.
+	 */
+	public static void unloadWorld(World world) {
+		synchronized (lock) {
+			for (Iterator<PathFindingJob> it = waiting.iterator(); it.hasNext();) {
+				PathFindingJob job = it.next();
+
+				if (job.getWorld() == world) {
+					job.terminate();
+					finish(job);
+					it.remove();
+				}
+			}
+
+			for (PathFindingJob job : queue) {
+				if (job.getWorld() == world) {
+					job.terminate();
+				}
+			}
+		}
+
+		WorldSnapshot.unload(world);
+	}
+
+	private static class Worker implements Runnable {
+
+		@Override
+		public void run() {
+			while (true) {
+				PathFindingJob job;
+
+				synchronized (lock) {
+					while (queue.isEmpty()) {
+						try {
+							lock.wait();
+						} catch (InterruptedException e) {
+							return;
+						}
+					}
+
+					job = queue.poll();
+					running++;
+				}
+
+				boolean failed = false;
+
+				try {
+					if (!job.isFinished()) {
+						job.iterate();
+					}
+				} catch (Throwable t) {
+					BCLog.logger.log(Level.WARN, "path finding job crashed", t);
+					failed = true;
+				}
+
+				synchronized (lock) {
+					running--;
+					slices++;
+
+					if (failed || job.isFinished()) {
+						finish(job);
+					} else if (job.isWaiting()) {
+						waiting.add(job);
+					} else {
+						enqueue(job);
+					}
+				}
+			}
+		}
+	}
+
+	public static int getQueued() {
+		synchronized (lock) {
+			return queue.size();
+		}
+	}
+
+	public static int getWaiting() {
+		synchronized (lock) {
+			return waiting.size();
+		}
+	}
+
+	public static int getRunning() {
+		synchronized (lock) {
+			return running;
+		}
+	}
+
+	public static long getSubmitted() {
+		synchronized (lock) {
+			return submitted;
+		}
+	}
+
+	public static long getCompleted() {
+		synchronized (lock) {
+			return completed;
+		}
+	}
+
+	public static long getCancelled() {
+		synchronized (lock) {
+			return cancelled;
+		}
+	}
+
+	public static long getSlices() {
+		synchronized (lock) {
+			return slices;
+		}
+	}
+
+	public static long getSectionsCaptured() {
+		return sectionsCaptured;
+	}
+}
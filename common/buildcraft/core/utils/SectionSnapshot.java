@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.core.utils;
+
+import net.minecraft.block.Block;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+import buildcraft.api.core.BuildCraftAPI;
+import buildcraft.core.robots.IBlockFilter;
+
+/**
+ * One bit per block of a 16x16x16 chunk section, read from the world on the
+ * main thread and never modified afterwards, so that path finding threads
+ * can read it while the world changes.
+ */
+public final class SectionSnapshot {
+
+	/**
+	 * Used for sections where the property holds nowhere, and for sections
+	 * of chunks that are not loaded.
+	 */
+	public static final SectionSnapshot NONE = new SectionSnapshot(new long[64]);
+
+	/**
+	 * Used for sections where the property holds everywhere, such as empty
+	 * sections and those above and below the world for soft blocks.
+	 */
+	public static final SectionSnapshot ALL;
+
+	static {
+		long[] bits = new long[64];
+
+		for (int i = 0; i < bits.length; ++i) {
+			bits[i] = -1L;
+		}
+
+		ALL = new SectionSnapshot(bits);
+	}
+
+	private final long[] bits;
+
+	private SectionSnapshot(long[] bits) {
+		this.bits = bits;
+	}
+
+	/**
+	 * Returns the bit of a block, from coordinates inside the section.
+	 */
+	public boolean get(int x, int y, int z) {
+		int i = y << 8 | z << 4 | x;
+
+		return (bits[i >> 6] >>> (i & 63) & 1L) != 0;
+	}
+
+	/**
+	 * Reads which blocks of a section are soft. Must be called on the main
+	 * thread.
+	 */
+	public static SectionSnapshot captureSoft(World world, int xChunk, int ySection, int zChunk) {
+		if (ySection < 0 || ySection >= 16) {
+			return ALL;
+		} else if (!world.getChunkProvider().chunkExists(xChunk, zChunk)) {
+			return NONE;
+		}
+
+		Chunk chunk = world.getChunkFromChunkCoords(xChunk, zChunk);
+		ExtendedBlockStorage storage = chunk.getBlockStorageArray()[ySection];
+
+		if (storage == null || storage.isEmpty()) {
+			return ALL;
+		}
+
+		long[] bits = new long[64];
+		int xBase = xChunk << 4;
+		int yBase = ySection << 4;
+		int zBase = zChunk << 4;
+
+		for (int i = 0; i < 4096; ++i) {
+			int x = i & 15;
+			int z = i >> 4 & 15;
+			int y = yBase + (i >> 8);
+
+			if (isSoft(world, chunk.getBlock(x, y, z), chunk.getBlockMetadata(x, y, z), xBase + x, y, zBase + z)) {
+				bits[i >> 6] |= 1L << (i & 63);
+			}
+		}
+
+		return new SectionSnapshot(bits);
+	}
+
+	/**
+	 * Reads which blocks of a section a filter matches. Must be called on the
+	 * main thread.
+	 */
+	public static SectionSnapshot captureFilter(World world, int xChunk, int ySection, int zChunk, IBlockFilter filter) {
+		if (ySection < 0 || ySection >= 16 || !world.getChunkProvider().chunkExists(xChunk, zChunk)) {
+			return NONE;
+		}
+
+		long[] bits = new long[64];
+		boolean any = false;
+		int xBase = xChunk << 4;
+		int yBase = ySection << 4;
+		int zBase = zChunk << 4;
+
+		for (int i = 0; i < 4096; ++i) {
+			if (filter.matches(world, xBase + (i & 15), yBase + (i >> 8), zBase + (i >> 4 & 15))) {
+				bits[i >> 6] |= 1L << (i & 63);
+				any = true;
+			}
+		}
+
+		return any ? new SectionSnapshot(bits) : NONE;
+	}
+
+	private static boolean isSoft(World world, Block block, int meta, int x, int y, int z) {
+		// Reads the block from the chunk already at hand, instead of going
+		// through the per-dimension cache of the property.
+		if (BuildCraftAPI.isSoftProperty instanceof WorldProperty) {
+			return ((WorldProperty) BuildCraftAPI.isSoftProperty).get(world, block, meta, x, y, z);
+		} else {
+			return BuildCraftAPI.isSoftProperty.get(world, x, y, z);
+		}
+	}
+}
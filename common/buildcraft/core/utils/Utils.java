@@ -461,6 +461,46 @@ public final class Utils {
 		}
 	}
 
+	/**
+	 * Writes a non-negative integer on one to five bytes, seven bits at a
+	 * time, small values first.
+	 */
+	public static void writeVarInt(ByteBuf data, int value) {
+		while ((value & ~0x7F) != 0) {
+			data.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		data.writeByte(value);
+	}
+
+	public static int readVarInt(ByteBuf data) {
+		int value = 0;
+		int shift = 0;
+		byte b;
+
+		do {
+			b = data.readByte();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0 && shift < 35);
+
+		return value;
+	}
+
+	/**
+	 * Writes an integer as a varint, zigzag encoded so that small negative
+	 * values are as short as small positive ones.
+	 */
+	public static void writeSignedVarInt(ByteBuf data, int value) {
+		writeVarInt(data, (value << 1) ^ (value >> 31));
+	}
+
+	public static int readSignedVarInt(ByteBuf data) {
+		int value = readVarInt(data);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
 	public static void writeNBT (ByteBuf data, NBTTagCompound nbt) {
 		try {
 			byte[] compressed = CompressedStreamTools.compress(nbt);
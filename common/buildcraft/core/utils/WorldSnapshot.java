@@ -0,0 +1,236 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.core.utils;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.world.IWorldAccess;
+import net.minecraft.world.World;
+
+/**
+ * The soft block sections of a world captured for path finding, shared by
+ * all searches. Sections are captured on the main thread, dropped when one of
+ * their blocks changes, and forgotten after a while without being used.
+ */
+public final class WorldSnapshot implements IWorldAccess {
+
+	/**
+	 * Ticks after which an unused section is forgotten.
+	 */
+	private static final long MAX_AGE = 1200;
+
+	private static final Map<World, WorldSnapshot> snapshots = new WeakHashMap<World, WorldSnapshot>();
+
+	private final World world;
+	private final Map<Long, Entry> sections = new HashMap<Long, Entry>();
+	private long lastSweep;
+
+	private static final class Entry {
+
+		public final SectionSnapshot section;
+		public long lastUse;
+
+		public Entry(SectionSnapshot section, long lastUse) {
+			this.section = section;
+			this.lastUse = lastUse;
+		}
+	}
+
+	private WorldSnapshot(World world) {
+		this.world = world;
+		world.addWorldAccess(this);
+	}
+
+	public static synchronized WorldSnapshot get(World world) {
+		WorldSnapshot snapshot = snapshots.get(world);
+
+		if (snapshot == null) {
+			snapshot = new WorldSnapshot(world);
+			snapshots.put(world, snapshot);
+		}
+
+		return snapshot;
+	}
+
+	public static synchronized void unload(World world) {
+		WorldSnapshot snapshot = snapshots.remove(world);
+
+		if (snapshot != null) {
+			world.removeWorldAccess(snapshot);
+		}
+	}
+
+	/**
+	 * Packs the coordinates of a section into a key: 26 bits for x and z,
+	 * and 4 for the section height.
+	 */
+	public static long key(int xChunk, int ySection, int zChunk) {
+		return (long) (xChunk & 0x3FFFFFF) << 30 | (long) (zChunk & 0x3FFFFFF) << 4 | ySection & 0xF;
+	}
+
+	public static int keyX(long key) {
+		return (int) (key << 8 >> 38);
+	}
+
+	public static int keyY(long key) {
+		return (int) (key & 0xF);
+	}
+
+	public static int keyZ(long key) {
+		return (int) (key << 34 >> 38);
+	}
+
+	/**
+	 * Returns the soft blocks of a section if they were already captured, or
+	 * null. May be called from any thread.
+	 */
+	public synchronized SectionSnapshot getSoft(long key) {
+		Entry entry = sections.get(key);
+
+		return entry != null ? entry.section : null;
+	}
+
+	/**
+	 * Returns the soft blocks of a section, capturing them if needed. Must be
+	 * called on the main thread.
+	 */
+	public SectionSnapshot captureSoft(long key) {
+		long now = world.getTotalWorldTime();
+
+		synchronized (this) {
+			Entry entry = sections.get(key);
+
+			if (entry != null) {
+				entry.lastUse = now;
+				return entry.section;
+			}
+		}
+
+		SectionSnapshot section = SectionSnapshot.captureSoft(world, keyX(key), keyY(key), keyZ(key));
+
+		// Unloaded chunks are not remembered, they may be loaded later on.
+		if (section != SectionSnapshot.NONE) {
+			synchronized (this) {
+				sections.put(key, new Entry(section, now));
+			}
+		}
+
+		return section;
+	}
+
+	/**
+	 * Forgets the sections of a world that were not used for a while. Called
+	 * on the main thread.
+	 */
+	public static void sweep(World world) {
+		WorldSnapshot snapshot;
+
+		synchronized (WorldSnapshot.class) {
+			snapshot = snapshots.get(world);
+		}
+
+		if (snapshot != null) {
+			snapshot.sweep();
+		}
+	}
+
+	private synchronized void sweep() {
+		long now = world.getTotalWorldTime();
+
+		if (now - lastSweep < MAX_AGE / 4) {
+			return;
+		}
+
+		lastSweep = now;
+
+		for (Iterator<Entry> it = sections.values().iterator(); it.hasNext();) {
+			if (now - it.next().lastUse > MAX_AGE) {
+				it.remove();
+			}
+		}
+	}
+
+	public static int getSectionCount(World world) {
+		WorldSnapshot snapshot;
+
+		synchronized (WorldSnapshot.class) {
+			snapshot = snapshots.get(world);
+		}
+
+		if (snapshot == null) {
+			return 0;
+		}
+
+		synchronized (snapshot) {
+			return snapshot.sections.size();
+		}
+	}
+
+	@Override
+	public synchronized void markBlockForUpdate(int x, int y, int z) {
+		if (!sections.isEmpty()) {
+			sections.remove(key(x >> 4, y >> 4, z >> 4));
+		}
+	}
+
+	@Override
+	public void markBlockForRenderUpdate(int var1, int var2, int var3) {
+	}
+
+	@Override
+	public void markBlockRangeForRenderUpdate(int x1, int y1, int z1, int x2, int y2, int z2) {
+	}
+
+	@Override
+	public void playSound(String var1, double var2, double var4, double var6, float var8, float var9) {
+	}
+
+	@Override
+	public void playSoundToNearExcept(EntityPlayer var1, String var2, double var3, double var5, double var7,
+			float var9, float var10) {
+	}
+
+	@Override
+	public void spawnParticle(String var1, double var2, double var4, double var6, double var8, double var10,
+			double var12) {
+	}
+
+	@Override
+	public void onEntityCreate(Entity var1) {
+	}
+
+	@Override
+	public void onEntityDestroy(Entity var1) {
+	}
+
+	@Override
+	public void playRecord(String var1, int var2, int var3, int var4) {
+	}
+
+	@Override
+	public void broadcastSound(int var1, int var2, int var3, int var4, int var5) {
+	}
+
+	@Override
+	public void playAuxSFX(EntityPlayer var1, int var2, int var3, int var4, int var5, int var6) {
+	}
+
+	@Override
+	public void destroyBlockPartially(int var1, int var2, int var3, int var4, int var5) {
+	}
+
+	@Override
+	public void onStaticEntitiesChanged() {
+	}
+}
@@ -18,6 +18,7 @@ import net.minecraft.util.ResourceLocation;
 
 import net.minecraftforge.common.util.ForgeDirection;
 
+import buildcraft.BuildCraftCore;
 import buildcraft.BuildCraftEnergy;
 import buildcraft.api.core.NetworkData;
 import buildcraft.api.gates.IOverrideDefaultTriggers;
@@ -38,6 +39,7 @@ import buildcraft.core.DefaultProps;
 import buildcraft.core.TileBuffer;
 import buildcraft.core.TileBuildCraft;
 import buildcraft.core.utils.AverageUtil;
+import buildcraft.core.utils.DormancyStats;
 import buildcraft.energy.gui.ContainerEngine;
 
 public abstract class TileEngine extends TileBuildCraft implements ISidedBatteryProvider, IPowerReceptor, IPowerEmitter, IOverrideDefaultTriggers, IPipeConnection {
@@ -79,6 +81,9 @@ public abstract class TileEngine extends TileBuildCraft implements ISidedBattery
 	public static final float MIN_HEAT = 20;
 	public static final float IDEAL_HEAT = 100;
 	public static final float MAX_HEAT = 250;
+
+	private static final int DORMANT_DELAY = 40;
+
 	public boolean isRedstonePowered = false;
 	public float progress;
 	public float heat = MIN_HEAT;
@@ -97,6 +102,14 @@ public abstract class TileEngine extends TileBuildCraft implements ISidedBattery
 	private boolean checkOrienation = false;
 	private TileBuffer[] tileCache;
 
+	/**
+	 * An engine that stayed cold, empty and unpowered for DORMANT_DELAY ticks
+	 * goes dormant and skips its updates, until it is given redstone, energy
+	 * or items, or its neighbors change.
+	 */
+	private boolean dormant = false;
+	private int idleTicks = 0;
+
 	@NetworkData
 	private boolean isPumping = false; // Used for SMP synch
 
@@ -227,6 +240,15 @@ public abstract class TileEngine extends TileBuildCraft implements ISidedBattery
 
 	@Override
 	public void updateEntity() {
+		if (dormant) {
+			if (mjStoredBattery.getEnergyStored() <= 0) {
+				DormancyStats.report(worldObj, DormancyStats.Kind.ENGINE, true);
+				return;
+			}
+
+			wakeUp();
+		}
+
 		super.updateEntity();
 		MjAPI.updateEntity(this);
 
@@ -282,6 +304,38 @@ public abstract class TileEngine extends TileBuildCraft implements ISidedBattery
 			progressPart = 0;
 			setPumping(false);
 		}
+
+		DormancyStats.report(worldObj, DormancyStats.Kind.ENGINE, false);
+
+		if (!BuildCraftCore.dormantPowerTiles || !isIdle()) {
+			idleTicks = 0;
+		} else if (idleTicks < DORMANT_DELAY) {
+			idleTicks++;
+		} else {
+			dormant = true;
+		}
+	}
+
+	/**
+	 * Returns true if the engine has nothing to do until something around it
+	 * changes.
+	 */
+	protected boolean isIdle() {
+		return !isRedstonePowered && !isBurning() && !isPumping && !checkOrienation
+				&& progressPart == 0 && heat <= MIN_HEAT && energyStage == EnergyStage.BLUE
+				&& mjStoredBattery.getEnergyStored() <= 0;
+	}
+
+	/**
+	 * Brings a dormant engine back to its normal update.
+	 */
+	public void wakeUp() {
+		dormant = false;
+		idleTicks = 0;
+	}
+
+	public boolean isDormant() {
+		return dormant;
 	}
 
 	protected void burn() {
@@ -351,6 +405,7 @@ public abstract class TileEngine extends TileBuildCraft implements ISidedBattery
 		super.invalidate();
 		tileCache = null;
 		checkOrienation = true;
+		wakeUp();
 	}
 
 	@Override
@@ -358,6 +413,7 @@ public abstract class TileEngine extends TileBuildCraft implements ISidedBattery
 		super.validate();
 		tileCache = null;
 		checkOrienation = true;
+		wakeUp();
 	}
 
 	@Override
@@ -368,6 +424,7 @@ public abstract class TileEngine extends TileBuildCraft implements ISidedBattery
 		progress = data.getFloat("progress");
 		mjStoredBattery.setEnergyStored(data.getDouble("energy"));
 		heat = data.getFloat("heat");
+		wakeUp();
 	}
 
 	@Override
@@ -422,6 +479,8 @@ public abstract class TileEngine extends TileBuildCraft implements ISidedBattery
 	}
 
 	public void addEnergy(double addition) {
+		wakeUp();
+
 		double stored = mjStoredBattery.getEnergyStored();
 		double used = Math.min(addition, mjStoredBattery.maxReceivedPerCycle());
 		used = Math.min(used, mjStoredBattery.maxCapacity() - stored);
@@ -476,5 +535,6 @@ public abstract class TileEngine extends TileBuildCraft implements ISidedBattery
 
 	public void checkRedstonePower() {
 		isRedstonePowered = worldObj.isBlockIndirectlyGettingPowered(xCoord, yCoord, zCoord);
+		wakeUp();
 	}
 }
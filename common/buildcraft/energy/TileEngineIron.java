@@ -337,6 +337,11 @@ public class TileEngineIron extends TileEngineWithInventory implements IFluidHan
 		return currentFuel != null && penaltyCooling <= 0;
 	}
 
+	@Override
+	protected boolean isIdle() {
+		return super.isIdle() && penaltyCooling <= 0;
+	}
+
 	/* ITANKCONTAINER */
 	@Override
 	public FluidStack drain(ForgeDirection from, int maxDrain, boolean doDrain) {
@@ -368,14 +373,23 @@ public class TileEngineIron extends TileEngineWithInventory implements IFluidHan
 			return 0;
 		}
 
+		int filled;
+
 		// Handle coolant
 		if (IronEngineCoolant.getCoolant(resource) != null) {
-			return tankCoolant.fill(resource, doFill);
+			filled = tankCoolant.fill(resource, doFill);
 		} else if (IronEngineFuel.getFuelForFluid(resource.getFluid()) != null) {
-			return tankFuel.fill(resource, doFill);
+			filled = tankFuel.fill(resource, doFill);
 		} else {
 			return 0;
 		}
+
+		// New fuel or coolant may let a dormant engine run again.
+		if (doFill && filled > 0) {
+			wakeUp();
+		}
+
+		return filled;
 	}
 
 	@Override
@@ -47,6 +47,7 @@ public abstract class TileEngineWithInventory extends TileEngine implements IInv
 	@Override
 	public void setInventorySlotContents(int slot, ItemStack itemstack) {
 		inv.setInventorySlotContents(slot, itemstack);
+		wakeUp();
 	}
 
 	@Override
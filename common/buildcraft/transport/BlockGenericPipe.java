@@ -48,6 +48,7 @@ import buildcraft.api.core.BCLog;
 import buildcraft.api.core.BlockIndex;
 import buildcraft.api.gates.GateExpansions;
 import buildcraft.api.gates.IGateExpansion;
+import buildcraft.api.gates.TriggerDependency;
 import buildcraft.api.tools.IToolWrench;
 import buildcraft.api.transport.PipeWire;
 import buildcraft.core.BlockBuildCraft;
@@ -683,6 +684,26 @@ public class BlockGenericPipe extends BlockBuildCraft {
 				pipe.container.redstoneInputSide[i] = world.isBlockProvidingPowerTo(x + d.offsetY, y + d.offsetY, z
 						+ d.offsetZ, i);
 			}
+
+			pipe.notifyGates(TriggerDependency.REDSTONE);
+			pipe.notifyGates(TriggerDependency.NEIGHBOR);
+		}
+	}
+
+	@Override
+	public void onNeighborChange(IBlockAccess world, int x, int y, int z, int tileX, int tileY, int tileZ) {
+		super.onNeighborChange(world, x, y, z, tileX, tileY, tileZ);
+
+		Pipe<?> pipe = getPipe(world, x, y, z);
+
+		if (isValid(pipe)) {
+			for (ForgeDirection d : ForgeDirection.VALID_DIRECTIONS) {
+				if (x + d.offsetX == tileX && y + d.offsetY == tileY && z + d.offsetZ == tileZ) {
+					pipe.onNeighborTileChange(d);
+					pipe.notifyGates(TriggerDependency.NEIGHBOR);
+					break;
+				}
+			}
 		}
 	}
 
@@ -865,6 +886,7 @@ public class BlockGenericPipe extends BlockBuildCraft {
 		if (!pipe.wireSet[color.ordinal()]) {
 			pipe.wireSet[color.ordinal()] = true;
 			pipe.signalStrength[color.ordinal()] = 0;
+			pipe.notifyGates(TriggerDependency.WIRE);
 
 			pipe.updateSignalState();
 			pipe.container.scheduleRenderUpdate();
@@ -881,6 +903,7 @@ public class BlockGenericPipe extends BlockBuildCraft {
 
 			pipe.signalStrength[color.ordinal()] = 0;
 			pipe.wireSet[color.ordinal()] = false;
+			pipe.notifyGates(TriggerDependency.WIRE);
 
 			pipe.updateSignalState();
 
@@ -1076,6 +1099,7 @@ public class BlockGenericPipe extends BlockBuildCraft {
 		GameRegistry.registerItem(item, item.getUnlocalizedName());
 
 		pipes.put(item, clas);
+		PipeEventDispatcher.register(clas);
 
 		Pipe<?> dummyPipe = createPipe(item);
 		if (dummyPipe != null) {
@@ -17,6 +17,7 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.inventory.IInventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
@@ -34,6 +35,7 @@ import buildcraft.api.gates.IGateExpansion;
 import buildcraft.api.gates.ITrigger;
 import buildcraft.api.gates.ITriggerParameter;
 import buildcraft.api.gates.StatementManager;
+import buildcraft.api.gates.TriggerDependency;
 import buildcraft.api.gates.TriggerParameterItemStack;
 import buildcraft.api.transport.IPipe;
 import buildcraft.api.transport.PipeWire;
@@ -42,6 +44,7 @@ import buildcraft.core.triggers.ActionRedstoneOutput;
 import buildcraft.transport.gates.ActionSlot;
 import buildcraft.transport.gates.GateDefinition.GateLogic;
 import buildcraft.transport.gates.GateDefinition.GateMaterial;
+import buildcraft.transport.gates.GatePlan;
 import buildcraft.transport.gates.ItemGate;
 import buildcraft.transport.gui.ContainerGateInterface;
 import buildcraft.transport.triggers.ActionRedstoneFaderOutput;
@@ -78,6 +81,22 @@ public final class Gate implements IGate {
 	private float pulseStage = 0;
 	private ForgeDirection direction;
 
+	/**
+	 * Triggers are only evaluated again when something they depend on may
+	 * have changed. In between, the actions found active last time are
+	 * activated again on each tick.
+	 */
+	private boolean evaluationNeeded = true;
+	private int neighborTicks;
+
+	/**
+	 * The compiled statements of the gate, null until the next evaluation
+	 * after they changed, and the groups of that plan active at the last
+	 * evaluation.
+	 */
+	private GatePlan plan;
+	private int activeGroups;
+
 	// / CONSTRUCTOR
 	public Gate(Pipe<?> pipe, GateMaterial material, GateLogic logic, ForgeDirection direction) {
 		this.pipe = pipe;
@@ -92,6 +111,7 @@ public final class Gate implements IGate {
 
 	public void setTrigger(int position, ITrigger trigger) {
 		triggers[position] = trigger;
+		invalidate();
 	}
 
 	public ITrigger getTrigger(int position) {
@@ -100,6 +120,7 @@ public final class Gate implements IGate {
 
 	public void setAction(int position, IAction action) {
 		actions[position] = action;
+		invalidate();
 	}
 
 	public IAction getAction(int position) {
@@ -108,10 +129,12 @@ public final class Gate implements IGate {
 
 	public void setTriggerParameter(int trigger, int param, ITriggerParameter p) {
 		triggerParameters[trigger][param] = p;
+		invalidate();
 	}
 
 	public void setActionParameter(int action, int param, IActionParameter p) {
 		actionParameters[action][param] = p;
+		invalidate();
 	}
 
 	public ITriggerParameter getTriggerParameter(int trigger, int param) {
@@ -133,6 +156,26 @@ public final class Gate implements IGate {
 	public void addGateExpansion(IGateExpansion expansion) {
 		if (!expansions.containsKey(expansion)) {
 			expansions.put(expansion, expansion.makeController(pipe.container));
+			invalidate();
+		}
+	}
+
+	/**
+	 * Makes the gate evaluate its triggers again on its next update.
+	 */
+	public void invalidate() {
+		evaluationNeeded = true;
+		plan = null;
+	}
+
+	/**
+	 * Called when something triggers may depend on changed, makes the gate
+	 * evaluate its triggers again on its next update if one of them depends
+	 * on it.
+	 */
+	public void onDependencyChange(TriggerDependency dependency) {
+		if (plan != null && (plan.getDependencies() & (1 << dependency.ordinal())) != 0) {
+			evaluationNeeded = true;
 		}
 	}
 
@@ -226,6 +269,7 @@ public final class Gate implements IGate {
 		}
 
 		redstoneOutput = data.getByte("redstoneOutput");
+		invalidate();
 	}
 
 	// GUI
@@ -311,85 +355,13 @@ public final class Gate implements IGate {
 		// Tell the gate to prepare for resolving actions. (Disable pulser)
 		startResolution();
 
-		int [] actionGroups = new int [] {0, 1, 2, 3, 4, 5, 6, 7};
-
-		for (int i = 0; i < MAX_STATEMENTS; ++i) {
-			for (int j = i - 1; j >= 0; --j) {
-				if (actions[i] != null && actions[j] != null
-						&& actions[i].getUniqueTag().equals(actions[j].getUniqueTag())) {
-
-					boolean sameParams = true;
-
-					for (int p = 0; p < MAX_PARAMETERS; ++p) {
-						if ((actionParameters[i][p] != null && actionParameters[j][p] == null)
-								|| (actionParameters[i][p] == null && actionParameters[j][p] != null)
-								|| (actionParameters[i][p] != null
-										&& actionParameters[j][p] != null
-										&& !actionParameters[i][p].equals(actionParameters[j][p]))) {
-							sameParams = false;
-						}
-					}
+		boolean evaluate = isEvaluationNeeded();
 
-					if (sameParams) {
-						actionGroups[i] = j;
-					}
-				}
-			}
+		if (evaluate) {
+			evaluateTriggers();
 		}
 
-		// Computes the actions depending on the triggers
-		for (int it = 0; it < MAX_STATEMENTS; ++it) {
-			actionsState[it] = ActionActiveState.Deactivated;
-
-			ITrigger trigger = triggers[it];
-			ITriggerParameter[] parameter = triggerParameters[it];
-
-			if (trigger != null) {
-				if (isTriggerActive(trigger, parameter)) {
-					actionsState[it] = ActionActiveState.Partial;
-				}
-			}
-		}
-
-		activeActions = new ArrayList<ActionSlot>();
-
-		for (int it = 0; it < MAX_STATEMENTS; ++it) {
-			boolean allActive = true;
-			boolean oneActive = false;
-
-			if (actions[it] == null) {
-				continue;
-			}
-
-			for (int j = 0; j < MAX_STATEMENTS; ++j) {
-				if (actionGroups[j] == it) {
-					if (actionsState[j] != ActionActiveState.Partial) {
-						allActive = false;
-					} else {
-						oneActive = true;
-					}
-				}
-			}
-
-			if ((logic == GateLogic.AND && allActive && oneActive) || (logic == GateLogic.OR && oneActive)) {
-				if (logic == GateLogic.AND) {
-					for (int j = 0; j < MAX_STATEMENTS; ++j) {
-						if (actionGroups[j] == it) {
-							actionsState[j] = ActionActiveState.Activated;
-						}
-					}
-				}
-
-				ActionSlot slot = new ActionSlot();
-				slot.action = actions[it];
-				slot.parameters = actionParameters[it];
-				activeActions.add(slot);
-			}
-
-			if (logic == GateLogic.OR && actionsState[it] == ActionActiveState.Partial) {
-				actionsState[it] = ActionActiveState.Activated;
-			}
-		}
+		GateStats.report(pipe.container.getWorldObj(), evaluate);
 
 		// Activate the actions
 		for (ActionSlot slot : activeActions) {
@@ -436,6 +408,92 @@ public final class Gate implements IGate {
 		}
 	}
 
+	private boolean isEvaluationNeeded() {
+		if (evaluationNeeded || plan == null || BuildCraftTransport.legacyGatePolling) {
+			return true;
+		}
+
+		int dependencies = plan.getDependencies();
+
+		if ((dependencies & GatePlan.POLLED) != 0) {
+			return true;
+		}
+
+		if ((dependencies & (1 << TriggerDependency.NEIGHBOR.ordinal())) != 0) {
+			return ++neighborTicks >= BuildCraftTransport.gateNeighborRefreshTicks || hasVerticalInventory();
+		}
+
+		return false;
+	}
+
+	/**
+	 * Inventories only tell the blocks beside them when their contents
+	 * change, not the blocks above and below, so triggers on those are
+	 * checked on every tick.
+	 */
+	private boolean hasVerticalInventory() {
+		return pipe.container.getTile(ForgeDirection.UP) instanceof IInventory
+				|| pipe.container.getTile(ForgeDirection.DOWN) instanceof IInventory;
+	}
+
+	private void evaluateTriggers() {
+		boolean compiled = false;
+
+		if (plan == null) {
+			plan = new GatePlan(this);
+			compiled = true;
+		}
+
+		evaluationNeeded = false;
+		neighborTicks = 0;
+
+		// Computes the actions depending on the triggers
+		int active = 0;
+
+		for (int i = 0; i < plan.getTriggerCount(); ++i) {
+			if (isTriggerActive(plan.getTrigger(i), plan.getTriggerParameters(i))) {
+				active |= 1 << plan.getTriggerSlot(i);
+			}
+		}
+
+		int activated = logic == GateLogic.OR ? active & plan.getActionMask() : 0;
+		int groups = 0;
+
+		for (int g = 0; g < plan.getGroupCount(); ++g) {
+			int mask = plan.getGroupMask(g);
+
+			if (logic == GateLogic.AND ? (active & mask) == mask : (active & mask) != 0) {
+				groups |= 1 << g;
+
+				if (logic == GateLogic.AND) {
+					activated |= mask;
+				}
+			}
+		}
+
+		for (int i = 0; i < MAX_STATEMENTS; ++i) {
+			if ((activated & (1 << i)) != 0) {
+				actionsState[i] = ActionActiveState.Activated;
+			} else if ((active & (1 << i)) != 0) {
+				actionsState[i] = ActionActiveState.Partial;
+			} else {
+				actionsState[i] = ActionActiveState.Deactivated;
+			}
+		}
+
+		if (compiled || groups != activeGroups) {
+			activeActions = new ArrayList<ActionSlot>();
+
+			for (int g = 0; g < plan.getGroupCount(); ++g) {
+				if ((groups & (1 << g)) != 0) {
+					activeActions.add(plan.getGroupSlot(g));
+				}
+			}
+
+			activeGroups = groups;
+		}
+	}
+
 	public boolean resolveAction(IAction action) {
 		for (GateExpansionController expansion : expansions.values()) {
 			if (expansion.resolveAction(action)) {
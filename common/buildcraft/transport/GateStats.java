@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.transport;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.minecraft.world.World;
+
+/**
+ * Counts, per world, the gates that evaluated their triggers during the last
+ * tick, and the ones that only activated the actions they had found active
+ * before.
+ */
+public final class GateStats {
+
+	private static final Map<World, GateStats> stats = new WeakHashMap<World, GateStats>();
+
+	private long tick = -1;
+	private int evaluated;
+	private int skipped;
+
+	private GateStats() {
+	}
+
+	private static synchronized GateStats get(World world) {
+		GateStats stat = stats.get(world);
+
+		if (stat == null) {
+			stat = new GateStats();
+			stats.put(world, stat);
+		}
+
+		return stat;
+	}
+
+	/**
+	 * Forgets the counters of a world being unloaded.
+	 */
+	public static synchronized void unloadWorld(World world) {
+		stats.remove(world);
+	}
+
+	public static void report(World world, boolean isEvaluated) {
+		GateStats stat = get(world);
+		long now = world.getTotalWorldTime();
+
+		if (stat.tick != now) {
+			stat.tick = now;
+			stat.evaluated = 0;
+			stat.skipped = 0;
+		}
+
+		if (isEvaluated) {
+			stat.evaluated++;
+		} else {
+			stat.skipped++;
+		}
+	}
+
+	/**
+	 * Returns the number of gates that evaluated their triggers during the
+	 * last tick of the world.
+	 */
+	public static int getEvaluated(World world) {
+		GateStats stat = get(world);
+		return stat.isRecent(world) ? stat.evaluated : 0;
+	}
+
+	/**
+	 * Returns the number of gates that did not need to evaluate their
+	 * triggers during the last tick of the world.
+	 */
+	public static int getSkipped(World world) {
+		GateStats stat = get(world);
+		return stat.isRecent(world) ? stat.skipped : 0;
+	}
+
+	private boolean isRecent(World world) {
+		return tick >= world.getTotalWorldTime() - 1;
+	}
+}
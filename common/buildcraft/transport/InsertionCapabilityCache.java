@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.transport;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.tileentity.TileEntity;
+
+import net.minecraftforge.common.util.ForgeDirection;
+
+import buildcraft.api.core.StackKey;
+
+/**
+ * Remembers, per side of a pipe, the kinds of item the adjacent inventory
+ * accepted the last time routing simulated an insertion into it. Refusals are
+ * not remembered, since an inventory may free space without notifying its
+ * neighbors. Entries expire after a few ticks, and a side is cleared when the
+ * tile on that side changes, when the pipe inserts items into it, or when the
+ * inventory notifies its neighbors of a change.
+ */
+public final class InsertionCapabilityCache {
+
+	/**
+	 * Past this many entries on one side, the side is cleared rather than
+	 * grown further.
+	 */
+	private static final int MAX_ENTRIES_PER_SIDE = 64;
+
+	private static long hits = 0;
+	private static long misses = 0;
+
+	private final TileEntity[] tiles = new TileEntity[ForgeDirection.VALID_DIRECTIONS.length];
+	@SuppressWarnings("unchecked")
+	private final Map<StackKey, Long>[] entries = new Map[ForgeDirection.VALID_DIRECTIONS.length];
+
+	/**
+	 * Returns true if the stack is known to be insertable on that side.
+	 */
+	public boolean canInsert(ForgeDirection side, TileEntity tile, ItemStack stack, long worldTime) {
+		int index = side.ordinal();
+
+		if (tiles[index] != tile || entries[index] == null) {
+			misses++;
+			return false;
+		}
+
+		Long expiresAt = entries[index].get(new StackKey(stack));
+
+		if (expiresAt == null || expiresAt < worldTime) {
+			misses++;
+			return false;
+		}
+
+		hits++;
+		return true;
+	}
+
+	/**
+	 * Records that the stack was accepted on that side.
+	 */
+	public void put(ForgeDirection side, TileEntity tile, ItemStack stack, long expiresAt) {
+		int index = side.ordinal();
+
+		if (tiles[index] != tile || entries[index] == null || entries[index].size() >= MAX_ENTRIES_PER_SIDE) {
+			tiles[index] = tile;
+
+			if (entries[index] == null) {
+				entries[index] = new HashMap<StackKey, Long>();
+			} else {
+				entries[index].clear();
+			}
+		}
+
+		entries[index].put(new StackKey(stack.copy()), expiresAt);
+	}
+
+	public void invalidate(ForgeDirection side) {
+		int index = side.ordinal();
+
+		tiles[index] = null;
+
+		if (entries[index] != null) {
+			entries[index].clear();
+		}
+	}
+
+	public void invalidateAll() {
+		for (ForgeDirection side : ForgeDirection.VALID_DIRECTIONS) {
+			invalidate(side);
+		}
+	}
+
+	public static long getHits() {
+		return hits;
+	}
+
+	public static long getMisses() {
+		return misses;
+	}
+}
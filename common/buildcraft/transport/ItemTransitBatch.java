@@ -0,0 +1,314 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.transport;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.minecraft.world.World;
+
+import net.minecraftforge.common.util.ForgeDirection;
+
+import buildcraft.transport.utils.TransportUtils;
+
+/**
+ * Holds the motion state of every item traveling through the item pipes of
+ * one world in flat arrays, and advances all of them in a single pass per
+ * world tick. Pipes are only called back when an item reaches the center or
+ * the end of a pipe. Used on the server when pipes.batchedItemTransit is
+ * enabled.
+ *
+ * Membership is driven by TravelerSet: an item is in the batch while it is
+ * in a pipe and not scheduled for removal. After each call back, the state
+ * of the item is copied again from the TravelingItem, since the pipe may
+ * have changed its direction, speed or position.
+ */
+public final class ItemTransitBatch {
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	private static final int[] OFFSET_X = new int[ForgeDirection.values().length];
+	private static final int[] OFFSET_Y = new int[ForgeDirection.values().length];
+	private static final int[] OFFSET_Z = new int[ForgeDirection.values().length];
+
+	private static final Map<World, ItemTransitBatch> batches = new WeakHashMap<World, ItemTransitBatch>();
+
+	private TravelingItem[] items = new TravelingItem[INITIAL_CAPACITY];
+	private PipeTransportItems[] transports = new PipeTransportItems[INITIAL_CAPACITY];
+	private double[] xCoords = new double[INITIAL_CAPACITY];
+	private double[] yCoords = new double[INITIAL_CAPACITY];
+	private double[] zCoords = new double[INITIAL_CAPACITY];
+	private float[] speeds = new float[INITIAL_CAPACITY];
+	private float[] floors = new float[INITIAL_CAPACITY];
+	private byte[] directions = new byte[INITIAL_CAPACITY];
+	private boolean[] toCenter = new boolean[INITIAL_CAPACITY];
+
+	private int size;
+	private boolean iterating;
+	private boolean hasHoles;
+
+	static {
+		for (ForgeDirection dir : ForgeDirection.values()) {
+			OFFSET_X[dir.ordinal()] = dir.offsetX;
+			OFFSET_Y[dir.ordinal()] = dir.offsetY;
+			OFFSET_Z[dir.ordinal()] = dir.offsetZ;
+		}
+	}
+
+	public static synchronized ItemTransitBatch get(World world) {
+		ItemTransitBatch batch = batches.get(world);
+
+		if (batch == null) {
+			batch = new ItemTransitBatch();
+			batches.put(world, batch);
+		}
+
+		return batch;
+	}
+
+	/**
+	 * Forgets the items of a world being unloaded.
+	 */
+	public static synchronized void unloadWorld(World world) {
+		batches.remove(world);
+	}
+
+	public static void tickWorld(World world) {
+		ItemTransitBatch batch;
+
+		synchronized (ItemTransitBatch.class) {
+			batch = batches.get(world);
+		}
+
+		if (batch != null) {
+			batch.tick();
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	void add(PipeTransportItems transport, TravelingItem item) {
+		int slot = item.transitSlot;
+
+		if (slot < 0 || slot >= size || items[slot] != item) {
+			ensureCapacity(size + 1);
+			slot = size++;
+			items[slot] = item;
+			item.transitSlot = slot;
+		}
+
+		transports[slot] = transport;
+		refresh(slot);
+	}
+
+	void remove(PipeTransportItems transport, TravelingItem item) {
+		int slot = item.transitSlot;
+
+		if (slot < 0 || slot >= size || items[slot] != item || transports[slot] != transport) {
+			return;
+		}
+
+		item.transitSlot = -1;
+
+		if (iterating) {
+			items[slot] = null;
+			transports[slot] = null;
+			hasHoles = true;
+		} else {
+			moveSlot(size - 1, slot);
+			size--;
+		}
+	}
+
+	private void tick() {
+		iterating = true;
+
+		try {
+			int count = size;
+
+			for (int i = 0; i < count; ++i) {
+				TravelingItem item = items[i];
+
+				if (item == null) {
+					continue;
+				}
+
+				PipeTransportItems transport = transports[i];
+				TileGenericPipe pipe = transport.container;
+
+				if (pipe == null || pipe.isInvalid() || item.getContainer() != pipe) {
+					// The pipe went away without telling us, e.g. on chunk unload.
+					items[i] = null;
+					transports[i] = null;
+					hasHoles = true;
+
+					if (item.transitSlot == i) {
+						item.transitSlot = -1;
+					}
+
+					continue;
+				}
+
+				int dir = directions[i];
+				float speed = speeds[i];
+				double x = xCoords[i] + OFFSET_X[dir] * speed;
+				double y = yCoords[i] + OFFSET_Y[dir] * speed;
+				double z = zCoords[i] + OFFSET_Z[dir] * speed;
+
+				xCoords[i] = x;
+				yCoords[i] = y;
+				zCoords[i] = z;
+				item.setPosition(x, y, z);
+
+				int px = pipe.xCoord;
+				int py = pipe.yCoord;
+				int pz = pipe.zCoord;
+
+				boolean outOfBounds = x > px + 2 || x < px - 1 || y > py + 2 || y < py - 1 || z > pz + 2 || z < pz - 1;
+
+				if (toCenter[i]) {
+					float middleLimit = speed * 1.01F;
+
+					if (outOfBounds || (Math.abs(px + 0.5 - x) < middleLimit
+							&& Math.abs(py + floors[i] - y) < middleLimit
+							&& Math.abs(pz + 0.5 - z) < middleLimit)) {
+						transport.reachedCenter(item);
+						refreshIfPresent(i, item);
+					}
+				} else if (outOfBounds) {
+					transport.reachedCenter(item);
+					refreshIfPresent(i, item);
+				} else if (x > px + 1 || x < px || y > py + 1 || y < py || z > pz + 1 || z < pz) {
+					transport.reachedEnd(item);
+					refreshIfPresent(i, item);
+				}
+			}
+		} finally {
+			iterating = false;
+		}
+
+		if (hasHoles) {
+			compact();
+		}
+	}
+
+	private void refreshIfPresent(int slot, TravelingItem item) {
+		if (items[slot] == item) {
+			refresh(slot);
+		}
+	}
+
+	private void refresh(int slot) {
+		TravelingItem item = items[slot];
+
+		xCoords[slot] = item.xCoord;
+		yCoords[slot] = item.yCoord;
+		zCoords[slot] = item.zCoord;
+		speeds[slot] = item.getSpeed();
+		floors[slot] = TransportUtils.getPipeFloorOf(item.getItemStack());
+		toCenter[slot] = item.toCenter;
+		directions[slot] = (byte) (item.toCenter ? item.input : item.output).ordinal();
+	}
+
+	private void compact() {
+		int last = size - 1;
+
+		for (int i = 0; i <= last; ++i) {
+			if (items[i] != null) {
+				continue;
+			}
+
+			while (last > i && items[last] == null) {
+				last--;
+			}
+
+			if (last > i) {
+				moveSlot(last, i);
+				last--;
+			} else {
+				last = i - 1;
+			}
+		}
+
+		for (int i = last + 1; i < size; ++i) {
+			items[i] = null;
+			transports[i] = null;
+		}
+
+		size = last + 1;
+		hasHoles = false;
+	}
+
+	private void moveSlot(int from, int to) {
+		if (from != to) {
+			items[to] = items[from];
+			transports[to] = transports[from];
+			xCoords[to] = xCoords[from];
+			yCoords[to] = yCoords[from];
+			zCoords[to] = zCoords[from];
+			speeds[to] = speeds[from];
+			floors[to] = floors[from];
+			directions[to] = directions[from];
+			toCenter[to] = toCenter[from];
+
+			if (items[to] != null) {
+				items[to].transitSlot = to;
+			}
+		}
+
+		items[from] = null;
+		transports[from] = null;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= items.length) {
+			return;
+		}
+
+		int newCapacity = Math.max(capacity, items.length * 2);
+
+		TravelingItem[] newItems = new TravelingItem[newCapacity];
+		System.arraycopy(items, 0, newItems, 0, size);
+		items = newItems;
+
+		PipeTransportItems[] newTransports = new PipeTransportItems[newCapacity];
+		System.arraycopy(transports, 0, newTransports, 0, size);
+		transports = newTransports;
+
+		double[] newXCoords = new double[newCapacity];
+		System.arraycopy(xCoords, 0, newXCoords, 0, size);
+		xCoords = newXCoords;
+
+		double[] newYCoords = new double[newCapacity];
+		System.arraycopy(yCoords, 0, newYCoords, 0, size);
+		yCoords = newYCoords;
+
+		double[] newZCoords = new double[newCapacity];
+		System.arraycopy(zCoords, 0, newZCoords, 0, size);
+		zCoords = newZCoords;
+
+		float[] newSpeeds = new float[newCapacity];
+		System.arraycopy(speeds, 0, newSpeeds, 0, size);
+		speeds = newSpeeds;
+
+		float[] newFloors = new float[newCapacity];
+		System.arraycopy(floors, 0, newFloors, 0, size);
+		floors = newFloors;
+
+		byte[] newDirections = new byte[newCapacity];
+		System.arraycopy(directions, 0, newDirections, 0, size);
+		directions = newDirections;
+
+		boolean[] newToCenter = new boolean[newCapacity];
+		System.arraycopy(toCenter, 0, newToCenter, 0, size);
+		toCenter = newToCenter;
+	}
+}
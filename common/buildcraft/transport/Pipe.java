@@ -8,7 +8,6 @@
  */
 package buildcraft.transport;
 
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -36,6 +35,7 @@ import buildcraft.api.core.IIconProvider;
 import buildcraft.api.gates.ActionState;
 import buildcraft.api.gates.IAction;
 import buildcraft.api.gates.ITrigger;
+import buildcraft.api.gates.TriggerDependency;
 import buildcraft.api.transport.IPipe;
 import buildcraft.api.transport.IPipeTile;
 import buildcraft.api.transport.PipeWire;
@@ -51,7 +51,6 @@ public abstract class Pipe<T extends PipeTransport> implements IDropControlInven
 
 	@SuppressWarnings("rawtypes")
 	private static Map<Class, TilePacketWrapper> networkWrappers = new HashMap<Class, TilePacketWrapper>();
-	private static Map<Class<? extends Pipe>, Map<Class<? extends PipeEvent>, EventHandler>> eventHandlers = new HashMap<Class<? extends Pipe>, Map<Class<? extends PipeEvent>, EventHandler>>();
 
 	public int[] signalStrength = new int[]{0, 0, 0, 0};
 	public TileGenericPipe container;
@@ -60,15 +59,23 @@ public abstract class Pipe<T extends PipeTransport> implements IDropControlInven
 	public boolean[] wireSet = new boolean[]{false, false, false, false};
 	public final Gate[] gates = new Gate[ForgeDirection.VALID_DIRECTIONS.length];
 
-	private boolean internalUpdateScheduled = false;
+	/**
+	 * Wire network of each color this pipe belongs to on the server, and its
+	 * index in that network. Maintained by PipeWireSolver.
+	 */
+	PipeWireSolver.Network[] wireNetworks = new PipeWireSolver.Network[PipeWire.VALUES.length];
+	int[] wireIndex = new int[PipeWire.VALUES.length];
 	private boolean initialized = false;
 	private boolean closed = false;
 
 	private ArrayList<ActionState> actionStates = new ArrayList<ActionState>();
 
+	private final PipeEventDispatcher eventDispatcher;
+
 	public Pipe(T transport, Item item) {
 		this.transport = transport;
 		this.item = item;
+		this.eventDispatcher = PipeEventDispatcher.get(this);
 
 		if (!networkWrappers.containsKey(this.getClass())) {
 			networkWrappers
@@ -89,58 +96,28 @@ public abstract class Pipe<T extends PipeTransport> implements IDropControlInven
 		}
 	}
 
-	//	public final void handlePipeEvent(PipeEvent event) {
-//		try {
-//			Method method = getClass().getDeclaredMethod("eventHandler", event.getClass());
-//			method.invoke(this, event);
-//		} catch (Exception ex) {
-//		}
-//	}
-	private static class EventHandler {
-
-		public final Method method;
-
-		public EventHandler(Method method) {
-			this.method = method;
+	/**
+	 * Tells the gates of this pipe that something their triggers may depend
+	 * on changed.
+	 */
+	public void notifyGates(TriggerDependency dependency) {
+		for (Gate gate : gates) {
+			if (gate != null) {
+				gate.onDependencyChange(dependency);
+			}
 		}
 	}
 
 	public final void handlePipeEvent(PipeEvent event) {
-		Map<Class<? extends PipeEvent>, EventHandler> handlerMap = eventHandlers.get(getClass());
-
-		if (handlerMap == null) {
-			handlerMap = new HashMap<Class<? extends PipeEvent>, EventHandler>();
-			eventHandlers.put(getClass(), handlerMap);
-		}
-
-		EventHandler handler = handlerMap.get(event.getClass());
-
-		if (handler == null) {
-			handler = makeEventHandler(event, handlerMap);
-		}
-
-		if (handler.method == null) {
-			return;
-		}
-
-		try {
-			handler.method.invoke(this, event);
-		} catch (Exception ex) {
-		}
+		eventDispatcher.dispatch(this, event);
 	}
 
-	private EventHandler makeEventHandler(PipeEvent event, Map<Class<? extends PipeEvent>, EventHandler> handlerMap) {
-		EventHandler handler;
-
-		try {
-			Method method = getClass().getDeclaredMethod("eventHandler", event.getClass());
-			handler = new EventHandler(method);
-		} catch (Exception ex) {
-			handler = new EventHandler(null);
-		}
-
-		handlerMap.put(event.getClass(), handler);
-		return handler;
+	/**
+	 * Returns true if this pipe class handles the given event type. Transports
+	 * use this to skip building events that no one would listen to.
+	 */
+	public final boolean hasEventHandler(Class<? extends PipeEvent> eventClass) {
+		return eventDispatcher.hasHandler(eventClass);
 	}
 
 	public boolean blockActivated(EntityPlayer entityplayer) {
@@ -159,6 +136,10 @@ public abstract class Pipe<T extends PipeTransport> implements IDropControlInven
 
 	}
 
+	public void onNeighborTileChange(ForgeDirection side) {
+		transport.onNeighborTileChange(side);
+	}
+
 	public boolean canPipeConnect(TileEntity tile, ForgeDirection side) {
 		Pipe<?> otherPipe;
 
@@ -207,11 +188,6 @@ public abstract class Pipe<T extends PipeTransport> implements IDropControlInven
 	public void updateEntity() {
 		transport.updateEntity();
 
-		if (internalUpdateScheduled) {
-			internalUpdate();
-			internalUpdateScheduled = false;
-		}
-
 		closed = false;
 		actionStates.clear();
 
@@ -231,10 +207,6 @@ public abstract class Pipe<T extends PipeTransport> implements IDropControlInven
 		}
 	}
 
-	private void internalUpdate() {
-		updateSignalState();
-	}
-
 	public void writeToNBT(NBTTagCompound data) {
 		transport.writeToNBT(data);
 
@@ -287,107 +259,18 @@ public abstract class Pipe<T extends PipeTransport> implements IDropControlInven
 		initialized = true;
 	}
 
-	private void readNearbyPipesSignal(PipeWire color) {
-		boolean foundBiggerSignal = false;
-
-		for (ForgeDirection o : ForgeDirection.VALID_DIRECTIONS) {
-			TileEntity tile = container.getTile(o);
-
-			if (tile instanceof TileGenericPipe) {
-				TileGenericPipe tilePipe = (TileGenericPipe) tile;
-
-				if (BlockGenericPipe.isFullyDefined(tilePipe.pipe)) {
-					if (isWireConnectedTo(tile, color)) {
-						foundBiggerSignal |= receiveSignal(tilePipe.pipe.signalStrength[color.ordinal()] - 1, color);
-					}
-				}
-			}
-		}
-
-		if (!foundBiggerSignal && signalStrength[color.ordinal()] != 0) {
-			signalStrength[color.ordinal()] = 0;
-			// worldObj.markBlockNeedsUpdate(container.xCoord, container.yCoord, zCoord);
-			container.scheduleRenderUpdate();
-
-			for (ForgeDirection o : ForgeDirection.VALID_DIRECTIONS) {
-				TileEntity tile = container.getTile(o);
-
-				if (tile instanceof TileGenericPipe) {
-					TileGenericPipe tilePipe = (TileGenericPipe) tile;
-
-					if (BlockGenericPipe.isFullyDefined(tilePipe.pipe)) {
-						tilePipe.pipe.internalUpdateScheduled = true;
-					}
-				}
-			}
-		}
-	}
-
+	/**
+	 * Schedules the signal of the wires of this pipe to be computed again at
+	 * the end of the tick. See PipeWireSolver.
+	 */
 	public void updateSignalState() {
-		for (PipeWire c : PipeWire.values()) {
-			updateSignalStateForColor(c);
-		}
-	}
-
-	private void updateSignalStateForColor(PipeWire wire) {
-		if (!wireSet[wire.ordinal()]) {
-			return;
-		}
-
-		// STEP 1: compute internal signal strength
-
-		boolean readNearbySignal = true;
-		for (Gate gate : gates) {
-			if (gate != null && gate.broadcastSignal.get(wire.ordinal())) {
-				receiveSignal(255, wire);
-				readNearbySignal = false;
-			}
-		}
-
-		if (readNearbySignal) {
-			readNearbyPipesSignal(wire);
-		}
-
-		// STEP 2: transmit signal in nearby blocks
-
-		if (signalStrength[wire.ordinal()] > 1) {
-			for (ForgeDirection o : ForgeDirection.VALID_DIRECTIONS) {
-				TileEntity tile = container.getTile(o);
-
-				if (tile instanceof TileGenericPipe) {
-					TileGenericPipe tilePipe = (TileGenericPipe) tile;
-
-					if (BlockGenericPipe.isFullyDefined(tilePipe.pipe) && tilePipe.pipe.wireSet[wire.ordinal()]) {
-						if (isWireConnectedTo(tile, wire)) {
-							tilePipe.pipe.receiveSignal(signalStrength[wire.ordinal()] - 1, wire);
-						}
-					}
-				}
+		for (PipeWire c : PipeWire.VALUES) {
+			if (wireSet[c.ordinal()] || wireNetworks[c.ordinal()] != null) {
+				PipeWireSolver.markDirty(this, c);
 			}
 		}
 	}
 
-	private boolean receiveSignal(int signal, PipeWire color) {
-		if (container.getWorldObj() == null) {
-			return false;
-		}
-
-		int oldSignal = signalStrength[color.ordinal()];
-
-		if (signal >= signalStrength[color.ordinal()] && signal != 0) {
-			signalStrength[color.ordinal()] = signal;
-			internalUpdateScheduled = true;
-
-			if (oldSignal == 0) {
-				container.scheduleRenderUpdate();
-			}
-
-			return true;
-		} else {
-			return false;
-		}
-	}
-
 	public boolean inputOpen(ForgeDirection from) {
 		return transport.inputOpen(from);
 	}
@@ -549,7 +432,7 @@ public abstract class Pipe<T extends PipeTransport> implements IDropControlInven
 			gates[i] = null;
 		}
 
-		internalUpdateScheduled = true;
+		updateSignalState();
 		container.scheduleRenderUpdate();
 	}
 
@@ -0,0 +1,278 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.transport;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.logging.log4j.Level;
+
+import buildcraft.api.core.BCLog;
+import buildcraft.transport.pipes.events.PipeEvent;
+import buildcraft.transport.pipes.events.PipeEventItem;
+
+/**
+ * Dispatch table for the pipe events of one Pipe class. It is built once per
+ * class when the class is registered through BlockGenericPipe.registerPipe,
+ * or when a pipe of a class that was never registered is first created, so
+ * that firing an event is an array lookup followed by an interface call.
+ *
+ * Pipes receive events by implementing the IHandler interface nested in the
+ * event class, e.g. PipeEventItem.FindDest.IHandler. Pipes that only declare
+ * an eventHandler method, as was required before, are still supported
+ * through reflection.
+ *
+ * As before, only the handlers declared by the pipe class itself receive
+ * events: a handler inherited from a parent class is not called, whether or
+ * not it implements the IHandler interface. Exceptions thrown by handlers are
+ * logged and do not reach the code firing the event, whichever way the
+ * handler is called.
+ */
+public final class PipeEventDispatcher {
+
+	private static final Map<Class<? extends Pipe<?>>, PipeEventDispatcher> dispatchers = new HashMap<Class<? extends Pipe<?>>, PipeEventDispatcher>();
+
+	private static final IInvoker[] INTERFACE_INVOKERS = new IInvoker[] {
+		new IInvoker() {
+			@Override
+			public void invoke(Pipe<?> pipe, PipeEvent event) {
+				((PipeEventItem.Entered.IHandler) pipe).eventHandler((PipeEventItem.Entered) event);
+			}
+		},
+		new IInvoker() {
+			@Override
+			public void invoke(Pipe<?> pipe, PipeEvent event) {
+				((PipeEventItem.ReachedCenter.IHandler) pipe).eventHandler((PipeEventItem.ReachedCenter) event);
+			}
+		},
+		new IInvoker() {
+			@Override
+			public void invoke(Pipe<?> pipe, PipeEvent event) {
+				((PipeEventItem.ReachedEnd.IHandler) pipe).eventHandler((PipeEventItem.ReachedEnd) event);
+			}
+		},
+		new IInvoker() {
+			@Override
+			public void invoke(Pipe<?> pipe, PipeEvent event) {
+				((PipeEventItem.DropItem.IHandler) pipe).eventHandler((PipeEventItem.DropItem) event);
+			}
+		},
+		new IInvoker() {
+			@Override
+			public void invoke(Pipe<?> pipe, PipeEvent event) {
+				((PipeEventItem.FindDest.IHandler) pipe).eventHandler((PipeEventItem.FindDest) event);
+			}
+		},
+		new IInvoker() {
+			@Override
+			public void invoke(Pipe<?> pipe, PipeEvent event) {
+				((PipeEventItem.AdjustSpeed.IHandler) pipe).eventHandler((PipeEventItem.AdjustSpeed) event);
+			}
+		}
+	};
+
+	private static final Class<?>[] HANDLER_INTERFACES = new Class<?>[] {
+		PipeEventItem.Entered.IHandler.class,
+		PipeEventItem.ReachedCenter.IHandler.class,
+		PipeEventItem.ReachedEnd.IHandler.class,
+		PipeEventItem.DropItem.IHandler.class,
+		PipeEventItem.FindDest.IHandler.class,
+		PipeEventItem.AdjustSpeed.IHandler.class
+	};
+
+	private static long statsStart = System.currentTimeMillis();
+
+	private final Class<? extends Pipe<?>> pipeClass;
+	private final IInvoker[] invokers = new IInvoker[PipeEventItem.EVENT_TYPES.length];
+	private final Map<Class<? extends PipeEvent>, IInvoker> extraInvokers = new HashMap<Class<? extends PipeEvent>, IInvoker>();
+
+	/**
+	 * Number of events fired per event id, plus one trailing slot for events
+	 * without an id.
+	 */
+	private final AtomicLongArray eventCounts = new AtomicLongArray(PipeEventItem.EVENT_TYPES.length + 1);
+
+	private PipeEventDispatcher(Class<? extends Pipe<?>> pipeClass) {
+		this.pipeClass = pipeClass;
+
+		for (int id = 0; id < invokers.length; ++id) {
+			Method method = getHandler(pipeClass, PipeEventItem.EVENT_TYPES[id]);
+
+			if (method == null) {
+				invokers[id] = null;
+			} else if (HANDLER_INTERFACES[id].isAssignableFrom(pipeClass)) {
+				invokers[id] = INTERFACE_INVOKERS[id];
+			} else {
+				invokers[id] = new ReflectiveInvoker(method);
+			}
+		}
+	}
+
+	public static synchronized PipeEventDispatcher get(Class<? extends Pipe<?>> pipeClass) {
+		PipeEventDispatcher dispatcher = dispatchers.get(pipeClass);
+
+		if (dispatcher == null) {
+			dispatcher = new PipeEventDispatcher(pipeClass);
+			dispatchers.put(pipeClass, dispatcher);
+		}
+
+		return dispatcher;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static PipeEventDispatcher get(Pipe<?> pipe) {
+		return get((Class<? extends Pipe<?>>) pipe.getClass());
+	}
+
+	/**
+	 * Builds the dispatch table of a pipe class being registered.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public static PipeEventDispatcher register(Class<? extends Pipe> pipeClass) {
+		return get((Class<? extends Pipe<?>>) (Class) pipeClass);
+	}
+
+	public static synchronized List<PipeEventDispatcher> getDispatchers() {
+		return new ArrayList<PipeEventDispatcher>(dispatchers.values());
+	}
+
+	public static synchronized void resetStats() {
+		for (PipeEventDispatcher dispatcher : dispatchers.values()) {
+			for (int i = 0; i < dispatcher.eventCounts.length(); ++i) {
+				dispatcher.eventCounts.set(i, 0);
+			}
+		}
+
+		statsStart = System.currentTimeMillis();
+	}
+
+	/**
+	 * Returns the number of seconds elapsed since the event counters were last
+	 * reset, never less than one.
+	 */
+	public static double getStatsSeconds() {
+		return Math.max(1.0, (System.currentTimeMillis() - statsStart) / 1000.0);
+	}
+
+	public void dispatch(Pipe<?> pipe, PipeEvent event) {
+		int id = event.getEventId();
+		IInvoker invoker;
+
+		if (id >= 0 && id < invokers.length) {
+			eventCounts.incrementAndGet(id);
+			invoker = invokers[id];
+		} else {
+			eventCounts.incrementAndGet(invokers.length);
+			invoker = getExtraInvoker(event.getClass());
+		}
+
+		if (invoker != null) {
+			try {
+				invoker.invoke(pipe, event);
+			} catch (RuntimeException ex) {
+				BCLog.logger.log(Level.WARN, "Pipe event handler of " + pipeClass.getName() + " for "
+						+ event.getClass().getSimpleName() + " threw an exception", ex);
+			}
+		}
+	}
+
+	public boolean hasHandler(Class<? extends PipeEvent> eventClass) {
+		for (int id = 0; id < invokers.length; ++id) {
+			if (PipeEventItem.EVENT_TYPES[id] == eventClass) {
+				return invokers[id] != null;
+			}
+		}
+
+		return getExtraInvoker(eventClass) != null;
+	}
+
+	public Class<? extends Pipe<?>> getPipeClass() {
+		return pipeClass;
+	}
+
+	/**
+	 * Returns the number of events fired for the given event id, or for events
+	 * without an id if eventId is -1.
+	 */
+	public long getEventCount(int eventId) {
+		return eventCounts.get(eventId < 0 ? invokers.length : eventId);
+	}
+
+	public long getTotalEventCount() {
+		long total = 0;
+
+		for (int i = 0; i < eventCounts.length(); ++i) {
+			total += eventCounts.get(i);
+		}
+
+		return total;
+	}
+
+	private IInvoker getExtraInvoker(Class<? extends PipeEvent> eventClass) {
+		synchronized (extraInvokers) {
+			if (extraInvokers.containsKey(eventClass)) {
+				return extraInvokers.get(eventClass);
+			}
+
+			Method method = getHandler(pipeClass, eventClass);
+			IInvoker invoker = method != null ? new ReflectiveInvoker(method) : null;
+			extraInvokers.put(eventClass, invoker);
+			return invoker;
+		}
+	}
+
+	private static Method getHandler(Class<? extends Pipe<?>> pipeClass, Class<? extends PipeEvent> eventClass) {
+		try {
+			return pipeClass.getDeclaredMethod("eventHandler", eventClass);
+		} catch (NoSuchMethodException ex) {
+			return null;
+		}
+	}
+
+	private interface IInvoker {
+
+		void invoke(Pipe<?> pipe, PipeEvent event);
+	}
+
+	private static final class ReflectiveInvoker implements IInvoker {
+
+		private final Method method;
+
+		public ReflectiveInvoker(Method method) {
+			this.method = method;
+			this.method.setAccessible(true);
+		}
+
+		@Override
+		public void invoke(Pipe<?> pipe, PipeEvent event) {
+			// Rethrows what the handler threw, to be dealt with as for
+			// interface handlers.
+			try {
+				method.invoke(pipe, event);
+			} catch (InvocationTargetException ex) {
+				Throwable cause = ex.getCause();
+
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else if (cause instanceof Error) {
+					throw (Error) cause;
+				} else {
+					throw new RuntimeException(cause);
+				}
+			} catch (IllegalAccessException ex) {
+				throw new RuntimeException(ex);
+			}
+		}
+	}
+}
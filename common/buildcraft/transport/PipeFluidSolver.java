@@ -0,0 +1,508 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.transport;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.World;
+
+import net.minecraftforge.common.util.ForgeDirection;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fluids.IFluidHandler;
+
+/**
+ * Moves fluids through fluid pipes a whole network at a time, when
+ * pipes.fluidNetworks is enabled.
+ *
+ * Fluid pipes connected both ways form a network holding a single fluid.
+ * Pipes that only let fluid through in one direction, such as iron pipes, and
+ * pipes with their own fill logic, such as void and sandstone pipes, are
+ * boundaries: networks push into them like into any other tank. A network
+ * holds as much as one pipe section per pipe, and moves at most the flow
+ * rate of its slowest pipe in and out per tick. Fluid given to any pipe of a
+ * network goes straight into the network, and at the end of the tick the
+ * network shares what it can move equally among the tanks around it.
+ *
+ * When a network is split or merged, its fluid is shared evenly among its
+ * pipes first, and each new network gathers the shares of its pipes. Pipes
+ * holding different fluids are not linked, they are boundaries between
+ * networks, and pipes whose own sections hold several fluids stay out of
+ * networks until they drained all but one. No fluid is ever dropped: a
+ * network gathering more than its capacity keeps the excess, and only
+ * accepts more once it sent enough out.
+ */
+public final class PipeFluidSolver {
+
+	private static final Map<World, PipeFluidSolver> solvers = new WeakHashMap<World, PipeFluidSolver>();
+
+	private static long networksSolved = 0;
+	private static long networksRebuilt = 0;
+	private static long fluidDelivered = 0;
+
+	private final Set<Network> networks = new LinkedHashSet<Network>();
+	private final Set<Network> dirtyNetworks = new LinkedHashSet<Network>();
+	private final Set<PipeTransportFluids> dirtyPipes = new LinkedHashSet<PipeTransportFluids>();
+
+	private final ArrayList<PipeTransportFluids> sinkPipes = new ArrayList<PipeTransportFluids>();
+	private final ArrayList<ForgeDirection> sinkSides = new ArrayList<ForgeDirection>();
+
+	private int pass = 0;
+	private boolean solving;
+
+	static final class Network {
+
+		final ArrayList<PipeTransportFluids> pipes = new ArrayList<PipeTransportFluids>();
+		int pass;
+		boolean discarded;
+
+		/**
+		 * Fluid held by the network, null when empty.
+		 */
+		FluidStack fluid;
+		int capacity;
+
+		/**
+		 * Flow rate of the slowest pipe of the network.
+		 */
+		int throughput;
+
+		/**
+		 * How much fluid the network still accepts this tick.
+		 */
+		int inputLeft;
+
+		/**
+		 * Fluid delivered to tanks during the last solve.
+		 */
+		int flow;
+
+		int getAmount() {
+			return fluid != null ? fluid.amount : 0;
+		}
+	}
+
+	private static synchronized PipeFluidSolver get(World world) {
+		PipeFluidSolver solver = solvers.get(world);
+
+		if (solver == null) {
+			solver = new PipeFluidSolver();
+			solvers.put(world, solver);
+		}
+
+		return solver;
+	}
+
+	/**
+	 * Forgets the networks of a world being unloaded.
+	 */
+	public static synchronized void unloadWorld(World world) {
+		solvers.remove(world);
+	}
+
+	/**
+	 * Schedules the network of the pipe to be walked again at the end of the
+	 * tick.
+	 */
+	public static void markDirty(PipeTransportFluids transport) {
+		if (transport.container == null || transport.container.getWorldObj() == null
+				|| transport.container.getWorldObj().isRemote) {
+			return;
+		}
+
+		PipeFluidSolver solver = get(transport.container.getWorldObj());
+		Network network = transport.network;
+
+		if (network != null && !network.discarded) {
+			solver.dirtyNetworks.add(network);
+		} else {
+			solver.dirtyPipes.add(transport);
+		}
+	}
+
+	/**
+	 * Builds the network of a pipe that has none right away, rather than at
+	 * the end of the tick, so that fluid offered to a new network during its
+	 * first tick is not turned away. Pipes filled by another network while
+	 * it is being solved wait for the end of the tick instead.
+	 */
+	static Network attach(PipeTransportFluids transport) {
+		if (transport.container == null || transport.container.getWorldObj() == null
+				|| transport.container.getWorldObj().isRemote || !isMember(transport)
+				|| transport.hasMixedFluids()) {
+			return null;
+		}
+
+		PipeFluidSolver solver = get(transport.container.getWorldObj());
+
+		if (solver.solving) {
+			return null;
+		}
+
+		solver.pass++;
+
+		Network network = solver.build(transport);
+		solver.networks.add(network);
+		networksRebuilt++;
+
+		return network;
+	}
+
+	public static void tickWorld(World world) {
+		PipeFluidSolver solver;
+
+		synchronized (PipeFluidSolver.class) {
+			solver = solvers.get(world);
+		}
+
+		if (solver != null) {
+			solver.rebuild();
+			solver.solve();
+		}
+	}
+
+	public static long getNetworksSolved() {
+		return networksSolved;
+	}
+
+	public static long getNetworksRebuilt() {
+		return networksRebuilt;
+	}
+
+	public static long getFluidDelivered() {
+		return fluidDelivered;
+	}
+
+	private void rebuild() {
+		if (dirtyNetworks.isEmpty() && dirtyPipes.isEmpty()) {
+			return;
+		}
+
+		pass++;
+
+		ArrayList<PipeTransportFluids> seeds = new ArrayList<PipeTransportFluids>(dirtyPipes);
+		dirtyPipes.clear();
+
+		for (Network network : dirtyNetworks) {
+			if (!network.discarded) {
+				discard(network);
+				seeds.addAll(network.pipes);
+			}
+		}
+
+		dirtyNetworks.clear();
+
+		for (PipeTransportFluids seed : seeds) {
+			Network current = seed.network;
+
+			if (current != null && current.pass == pass && !current.discarded) {
+				continue;
+			}
+
+			if (!isMember(seed) || seed.hasMixedFluids()) {
+				seed.network = null;
+				continue;
+			}
+
+			networks.add(build(seed));
+			networksRebuilt++;
+		}
+
+		for (Iterator<Network> it = networks.iterator(); it.hasNext();) {
+			if (it.next().discarded) {
+				it.remove();
+			}
+		}
+	}
+
+	static boolean isMember(PipeTransportFluids transport) {
+		TileGenericPipe tile = transport.container;
+
+		return tile != null && !tile.isInvalid() && tile.getWorldObj() != null
+				&& tile.getWorldObj().blockExists(tile.xCoord, tile.yCoord, tile.zCoord)
+				&& tile.pipe != null && tile.pipe.transport == transport
+				&& !(tile.pipe instanceof IPipeTransportFluidsHook);
+	}
+
+	/**
+	 * Returns the pipe on that side if fluid can move both ways between it
+	 * and this one.
+	 */
+	private static PipeTransportFluids getLinkedPipe(PipeTransportFluids transport, ForgeDirection side) {
+		if (!transport.container.isPipeConnected(side)) {
+			return null;
+		}
+
+		TileEntity tile = transport.container.getTile(side);
+
+		if (!(tile instanceof TileGenericPipe) || tile.isInvalid()) {
+			return null;
+		}
+
+		Pipe<?> pipe = ((TileGenericPipe) tile).pipe;
+
+		if (!BlockGenericPipe.isValid(pipe) || !(pipe.transport instanceof PipeTransportFluids)) {
+			return null;
+		}
+
+		PipeTransportFluids other = (PipeTransportFluids) pipe.transport;
+		ForgeDirection back = side.getOpposite();
+
+		if (!isMember(other)
+				|| !transport.container.pipe.outputOpen(side) || !transport.container.pipe.inputOpen(side)
+				|| !pipe.outputOpen(back) || !pipe.inputOpen(back)) {
+			return null;
+		}
+
+		return other;
+	}
+
+	private Network build(PipeTransportFluids seed) {
+		Network network = new Network();
+		network.pass = pass;
+		network.throughput = Integer.MAX_VALUE;
+
+		// The fluid of the first pipe found holding one decides what the
+		// network carries. Pipes holding another fluid are left out.
+
+		FluidStack kind = seed.getNetworkFluid();
+
+		add(network, seed);
+
+		for (int i = 0; i < network.pipes.size(); ++i) {
+			PipeTransportFluids transport = network.pipes.get(i);
+
+			for (ForgeDirection side : ForgeDirection.VALID_DIRECTIONS) {
+				PipeTransportFluids other = getLinkedPipe(transport, side);
+
+				if (other == null || other.network == network || other.hasMixedFluids()) {
+					continue;
+				}
+
+				FluidStack fluid = other.getNetworkFluid();
+
+				if (fluid != null) {
+					if (kind == null) {
+						kind = fluid;
+					} else if (!kind.isFluidEqual(fluid)) {
+						continue;
+					}
+				}
+
+				add(network, other);
+			}
+		}
+
+		// Gather the fluid of the pipes. Only the kind chosen above is left,
+		// and all of it is kept even past the capacity of the network.
+
+		for (PipeTransportFluids transport : network.pipes) {
+			FluidStack share = transport.takeNetworkShare();
+
+			if (share == null || share.amount <= 0) {
+				continue;
+			}
+
+			if (network.fluid == null) {
+				network.fluid = share.copy();
+			} else {
+				network.fluid.amount += share.amount;
+			}
+		}
+
+		network.inputLeft = network.throughput;
+
+		return network;
+	}
+
+	private static void add(Network network, PipeTransportFluids transport) {
+		Network previous = transport.network;
+
+		if (previous != null && previous != network && !previous.discarded) {
+			discard(previous);
+		}
+
+		transport.network = network;
+		network.pipes.add(transport);
+		network.capacity += transport.getCapacity();
+		network.throughput = Math.min(network.throughput, transport.flowRate);
+	}
+
+	/**
+	 * Shares the fluid of a network among its pipes, so that the networks
+	 * built from them get it back.
+	 */
+	private static void discard(Network network) {
+		network.discarded = true;
+
+		int size = network.pipes.size();
+		int amount = network.getAmount();
+
+		for (int i = 0; i < size; ++i) {
+			PipeTransportFluids transport = network.pipes.get(i);
+			int share = amount / size + (i < amount % size ? 1 : 0);
+
+			if (share > 0) {
+				FluidStack stack = network.fluid.copy();
+				stack.amount = share;
+				transport.setNetworkShare(stack);
+			} else {
+				transport.setNetworkShare(null);
+			}
+		}
+
+		network.fluid = null;
+	}
+
+	private void solve() {
+		solving = true;
+
+		try {
+			solveNetworks();
+		} finally {
+			solving = false;
+		}
+	}
+
+	private void solveNetworks() {
+		for (Network network : networks) {
+			if (network.discarded) {
+				continue;
+			}
+
+			boolean valid = true;
+
+			for (PipeTransportFluids transport : network.pipes) {
+				if (!isMember(transport)) {
+					valid = false;
+					break;
+				}
+			}
+
+			if (!valid) {
+				// A pipe went away without a neighbor change, e.g. on chunk
+				// unload. The network is solved again once rebuilt.
+				dirtyNetworks.add(network);
+				continue;
+			}
+
+			solve(network);
+		}
+	}
+
+	private void solve(Network network) {
+		network.inputLeft = network.throughput;
+		network.flow = 0;
+		networksSolved++;
+
+		if (network.fluid == null) {
+			return;
+		}
+
+		// Find the tanks around the network that fluid may be pushed to.
+
+		sinkPipes.clear();
+		sinkSides.clear();
+
+		for (PipeTransportFluids transport : network.pipes) {
+			if (transport.container.pipe.isClosed()) {
+				continue;
+			}
+
+			for (ForgeDirection side : ForgeDirection.VALID_DIRECTIONS) {
+				if (!transport.canOutputToNetworkSink(side)) {
+					continue;
+				}
+
+				// Linked pipes left out of the network for holding another
+				// fluid are pushed to like tanks, and refuse what they can't
+				// take.
+				PipeTransportFluids other = getLinkedPipe(transport, side);
+
+				if (other == null || other.network != network) {
+					sinkPipes.add(transport);
+					sinkSides.add(side);
+				}
+			}
+		}
+
+		int sinks = sinkPipes.size();
+		int toSend = Math.min(network.fluid.amount, network.throughput);
+
+		if (sinks == 0 || toSend <= 0) {
+			return;
+		}
+
+		// Share equally, then offer what some tanks refused to the others.
+
+		int sent = 0;
+		boolean[] full = new boolean[sinks];
+
+		for (int round = 0; round < 2 && sent < toSend; ++round) {
+			int open = 0;
+
+			for (int i = 0; i < sinks; ++i) {
+				if (!full[i]) {
+					open++;
+				}
+			}
+
+			if (open == 0) {
+				break;
+			}
+
+			int left = toSend - sent;
+			int index = 0;
+
+			for (int i = 0; i < sinks && sent < toSend; ++i) {
+				if (full[i]) {
+					continue;
+				}
+
+				int share = left / open + (index < left % open ? 1 : 0);
+				index++;
+
+				if (share <= 0) {
+					continue;
+				}
+
+				PipeTransportFluids transport = sinkPipes.get(i);
+				ForgeDirection side = sinkSides.get(i);
+				IFluidHandler target = (IFluidHandler) transport.container.getTile(side);
+
+				FluidStack stack = network.fluid.copy();
+				stack.amount = share;
+
+				int filled = target.fill(side.getOpposite(), stack, true);
+
+				if (filled < share) {
+					full[i] = true;
+				}
+
+				if (filled > 0) {
+					sent += filled;
+				}
+			}
+		}
+
+		network.fluid.amount -= sent;
+
+		if (network.fluid.amount <= 0) {
+			network.fluid = null;
+		}
+
+		network.flow = sent;
+		fluidDelivered += sent;
+	}
+}
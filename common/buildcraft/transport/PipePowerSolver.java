@@ -0,0 +1,651 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.transport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.World;
+
+import net.minecraftforge.common.util.ForgeDirection;
+
+import buildcraft.api.mj.FixedPointEnergy;
+
+/**
+ * Moves energy through power pipes a whole network at a time, when
+ * pipes.powerNetworks is enabled.
+ *
+ * Connected power pipes form a network. Networks are marked dirty when one of
+ * their pipes sees a neighbor change, and are walked again at the end of the
+ * tick, which splits or merges them as needed.
+ *
+ * Energy given to a pipe stays on the side it entered until it is sent to a
+ * machine. At the end of each tick, the energy held by the network is routed
+ * from the pipes holding it to the machines the network touches, as a flow
+ * in which no pipe carries more than its capacity. Machines are first given
+ * their share of the energy in proportion to their requests, then whatever
+ * the pipes can still carry. Energy that could not be routed, or that a
+ * machine refused, stays in the pipes it entered, and the total of the
+ * requests, less what the network already holds, bounds how much energy the
+ * network accepts during the next tick.
+ */
+public final class PipePowerSolver {
+
+	private static final int SIDES = ForgeDirection.VALID_DIRECTIONS.length;
+
+	/**
+	 * Amounts of energy below this are ignored when routing.
+	 */
+	private static final double EPSILON = 1e-6;
+
+	/**
+	 * Bounds the number of paths routed per network and tick, the energy
+	 * left over is routed on the next ticks.
+	 */
+	private static final int MAX_PATHS = 64;
+
+	private static final Map<World, PipePowerSolver> solvers = new WeakHashMap<World, PipePowerSolver>();
+
+	private static long networksSolved = 0;
+	private static long networksRebuilt = 0;
+	private static double energyDelivered = 0;
+
+	private final Set<Network> networks = new LinkedHashSet<Network>();
+	private final Set<Network> dirtyNetworks = new LinkedHashSet<Network>();
+	private final Set<PipeTransportPower> dirtyPipes = new LinkedHashSet<PipeTransportPower>();
+
+	private int pass = 0;
+
+	static final class Network {
+
+		final ArrayList<PipeTransportPower> pipes = new ArrayList<PipeTransportPower>();
+		int pass;
+		boolean discarded;
+
+		/**
+		 * Index in pipes of the neighbor on each side of each pipe, -1 if
+		 * there is no power pipe connected on that side.
+		 */
+		int[] links = new int[0];
+
+		/**
+		 * How much energy the network still accepts this tick.
+		 */
+		double budget;
+
+		/**
+		 * Energy delivered to machines during the last solve.
+		 */
+		double flow;
+	}
+
+	/**
+	 * The residual graph of one solve. Each pipe is an input node and an
+	 * output node joined by an edge of the capacity of the pipe; output nodes
+	 * lead to the input nodes of the neighbors, the source leads to the input
+	 * nodes of the pipes holding energy, and the output nodes of the pipes
+	 * next to machines lead to the sink.
+	 */
+	private static final class Flow {
+
+		final int size;
+		final int[] links;
+		final double[] capacity;
+		final double[] source;
+		final double[] sink;
+
+		final double[] pipeFlow;
+		final double[] linkFlow;
+		final double[] sourceFlow;
+		final double[] sinkFlow;
+
+		final int[] parent;
+		final int[] parentSide;
+		final int[] queue;
+
+		Flow(Network network, double[] source) {
+			size = network.pipes.size();
+			links = network.links;
+			capacity = new double[size];
+			this.source = source;
+			sink = new double[size];
+			pipeFlow = new double[size];
+			linkFlow = new double[size * SIDES];
+			sourceFlow = new double[size];
+			sinkFlow = new double[size];
+			parent = new int[size * 2 + 2];
+			parentSide = new int[size * 2 + 2];
+			queue = new int[size * 2 + 2];
+
+			for (int i = 0; i < size; ++i) {
+				capacity[i] = network.pipes.get(i).maxPower;
+			}
+		}
+
+		/**
+		 * Routes energy along shortest paths until the sink edges are full or
+		 * no path is left, and returns the number of paths used.
+		 */
+		int route(int maxPaths) {
+			int paths = 0;
+
+			while (paths < maxPaths && augment()) {
+				paths++;
+			}
+
+			return paths;
+		}
+
+		// Nodes are 2 * i for the input and 2 * i + 1 for the output of pipe
+		// i, then the source and the sink.
+
+		private boolean augment() {
+			int sourceNode = size * 2;
+			int sinkNode = size * 2 + 1;
+			int head = 0;
+			int tail = 0;
+
+			Arrays.fill(parent, -1);
+			parent[sourceNode] = sourceNode;
+
+			for (int i = 0; i < size; ++i) {
+				if (source[i] - sourceFlow[i] > EPSILON) {
+					parent[i * 2] = sourceNode;
+					queue[tail++] = i * 2;
+				}
+			}
+
+			while (head < tail && parent[sinkNode] == -1) {
+				int node = queue[head++];
+				int i = node >> 1;
+
+				if ((node & 1) == 0) {
+					if (capacity[i] - pipeFlow[i] > EPSILON && parent[node + 1] == -1) {
+						parent[node + 1] = node;
+						queue[tail++] = node + 1;
+					}
+
+					// Energy sent into this pipe from a neighbor can be sent
+					// back, to be routed elsewhere.
+					for (int side = 0; side < SIDES; ++side) {
+						int j = links[i * SIDES + side];
+
+						if (j >= 0 && linkFlow[j * SIDES + (side ^ 1)] > EPSILON && parent[j * 2 + 1] == -1) {
+							parent[j * 2 + 1] = node;
+							parentSide[j * 2 + 1] = side ^ 1;
+							queue[tail++] = j * 2 + 1;
+						}
+					}
+				} else {
+					if (sink[i] - sinkFlow[i] > EPSILON) {
+						parent[sinkNode] = node;
+						break;
+					}
+
+					if (pipeFlow[i] > EPSILON && parent[node - 1] == -1) {
+						parent[node - 1] = node;
+						queue[tail++] = node - 1;
+					}
+
+					for (int side = 0; side < SIDES; ++side) {
+						int j = links[i * SIDES + side];
+
+						if (j >= 0 && parent[j * 2] == -1) {
+							parent[j * 2] = node;
+							parentSide[j * 2] = side;
+							queue[tail++] = j * 2;
+						}
+					}
+				}
+			}
+
+			if (parent[sinkNode] == -1) {
+				return false;
+			}
+
+			double amount = Double.MAX_VALUE;
+
+			for (int node = sinkNode; node != sourceNode; node = parent[node]) {
+				amount = Math.min(amount, residual(parent[node], node));
+			}
+
+			for (int node = sinkNode; node != sourceNode; node = parent[node]) {
+				push(parent[node], node, amount);
+			}
+
+			return true;
+		}
+
+		private double residual(int from, int to) {
+			int sourceNode = size * 2;
+			int sinkNode = size * 2 + 1;
+
+			if (from == sourceNode) {
+				return source[to >> 1] - sourceFlow[to >> 1];
+			} else if (to == sinkNode) {
+				return sink[from >> 1] - sinkFlow[from >> 1];
+			} else if (from >> 1 == to >> 1) {
+				return (from & 1) == 0 ? capacity[from >> 1] - pipeFlow[from >> 1] : pipeFlow[from >> 1];
+			} else if ((from & 1) == 1) {
+				return Double.MAX_VALUE;
+			} else {
+				return linkFlow[(to >> 1) * SIDES + parentSide[to]];
+			}
+		}
+
+		private void push(int from, int to, double amount) {
+			int sourceNode = size * 2;
+			int sinkNode = size * 2 + 1;
+
+			if (from == sourceNode) {
+				sourceFlow[to >> 1] += amount;
+			} else if (to == sinkNode) {
+				sinkFlow[from >> 1] += amount;
+			} else if (from >> 1 == to >> 1) {
+				pipeFlow[from >> 1] += (from & 1) == 0 ? amount : -amount;
+			} else if ((from & 1) == 1) {
+				int i = from >> 1;
+				int j = to >> 1;
+				int back = j * SIDES + (parentSide[to] ^ 1);
+
+				// Cancel energy sent the other way first.
+				double cancelled = Math.min(amount, linkFlow[back]);
+				linkFlow[back] -= cancelled;
+				linkFlow[i * SIDES + parentSide[to]] += amount - cancelled;
+			} else {
+				linkFlow[(to >> 1) * SIDES + parentSide[to]] -= amount;
+			}
+		}
+	}
+
+	private static synchronized PipePowerSolver get(World world) {
+		PipePowerSolver solver = solvers.get(world);
+
+		if (solver == null) {
+			solver = new PipePowerSolver();
+			solvers.put(world, solver);
+		}
+
+		return solver;
+	}
+
+	/**
+	 * Forgets the networks of a world being unloaded.
+	 */
+	public static synchronized void unloadWorld(World world) {
+		solvers.remove(world);
+	}
+
+	/**
+	 * Schedules the network of the pipe to be walked again at the end of the
+	 * tick.
+	 */
+	public static void markDirty(PipeTransportPower transport) {
+		if (transport.container == null || transport.container.getWorldObj() == null
+				|| transport.container.getWorldObj().isRemote) {
+			return;
+		}
+
+		PipePowerSolver solver = get(transport.container.getWorldObj());
+		Network network = transport.network;
+
+		if (network != null && !network.discarded) {
+			solver.dirtyNetworks.add(network);
+		} else {
+			solver.dirtyPipes.add(transport);
+		}
+	}
+
+	/**
+	 * Builds the network of a pipe that has none right away, rather than at
+	 * the end of the tick, so that energy given to a new network during its
+	 * first tick is not turned away. The network accepts as much energy as
+	 * its machines request.
+	 */
+	static Network attach(PipeTransportPower transport) {
+		if (transport.container == null || transport.container.getWorldObj() == null
+				|| transport.container.getWorldObj().isRemote || !isMember(transport)) {
+			return null;
+		}
+
+		PipePowerSolver solver = get(transport.container.getWorldObj());
+		solver.pass++;
+
+		Network network = solver.build(transport);
+		solver.networks.add(network);
+		networksRebuilt++;
+
+		double demand = 0;
+		double held = 0;
+
+		for (PipeTransportPower pipe : network.pipes) {
+			for (ForgeDirection side : ForgeDirection.VALID_DIRECTIONS) {
+				demand += pipe.getNetworkRequest(side);
+				held += pipe.networkInput[side.ordinal()];
+			}
+		}
+
+		network.budget = Math.max(network.budget, demand - held);
+
+		return network;
+	}
+
+	public static void tickWorld(World world) {
+		PipePowerSolver solver;
+
+		synchronized (PipePowerSolver.class) {
+			solver = solvers.get(world);
+		}
+
+		if (solver != null) {
+			solver.rebuild();
+			solver.solve();
+		}
+	}
+
+	public static long getNetworksSolved() {
+		return networksSolved;
+	}
+
+	public static long getNetworksRebuilt() {
+		return networksRebuilt;
+	}
+
+	public static double getEnergyDelivered() {
+		return energyDelivered;
+	}
+
+	private void rebuild() {
+		if (dirtyNetworks.isEmpty() && dirtyPipes.isEmpty()) {
+			return;
+		}
+
+		pass++;
+
+		ArrayList<PipeTransportPower> seeds = new ArrayList<PipeTransportPower>(dirtyPipes);
+		dirtyPipes.clear();
+
+		for (Network network : dirtyNetworks) {
+			if (!network.discarded) {
+				network.discarded = true;
+				seeds.addAll(network.pipes);
+			}
+		}
+
+		dirtyNetworks.clear();
+
+		for (PipeTransportPower seed : seeds) {
+			Network current = seed.network;
+
+			if (current != null && current.pass == pass && !current.discarded) {
+				continue;
+			}
+
+			if (!isMember(seed)) {
+				seed.network = null;
+				continue;
+			}
+
+			networks.add(build(seed));
+			networksRebuilt++;
+		}
+	}
+
+	private static boolean isMember(PipeTransportPower transport) {
+		TileGenericPipe tile = transport.container;
+
+		return tile != null && !tile.isInvalid() && tile.getWorldObj() != null
+				&& tile.getWorldObj().blockExists(tile.xCoord, tile.yCoord, tile.zCoord)
+				&& tile.pipe != null && tile.pipe.transport == transport;
+	}
+
+	private static PipeTransportPower getConnectedPipe(PipeTransportPower transport, ForgeDirection side) {
+		if (!transport.container.isPipeConnected(side)) {
+			return null;
+		}
+
+		TileEntity tile = transport.container.getTile(side);
+
+		if (!(tile instanceof TileGenericPipe) || tile.isInvalid()) {
+			return null;
+		}
+
+		Pipe<?> pipe = ((TileGenericPipe) tile).pipe;
+
+		if (!BlockGenericPipe.isValid(pipe) || !(pipe.transport instanceof PipeTransportPower)) {
+			return null;
+		}
+
+		return (PipeTransportPower) pipe.transport;
+	}
+
+	private Network build(PipeTransportPower seed) {
+		Network network = new Network();
+		network.pass = pass;
+
+		add(network, seed);
+
+		for (int i = 0; i < network.pipes.size(); ++i) {
+			PipeTransportPower transport = network.pipes.get(i);
+
+			for (ForgeDirection side : ForgeDirection.VALID_DIRECTIONS) {
+				PipeTransportPower other = getConnectedPipe(transport, side);
+
+				if (other != null && other.network != network) {
+					add(network, other);
+				}
+			}
+		}
+
+		int size = network.pipes.size();
+		network.links = new int[size * SIDES];
+
+		for (int i = 0; i < size; ++i) {
+			PipeTransportPower transport = network.pipes.get(i);
+
+			for (ForgeDirection side : ForgeDirection.VALID_DIRECTIONS) {
+				PipeTransportPower other = getConnectedPipe(transport, side);
+
+				network.links[i * SIDES + side.ordinal()] = other != null && other.network == network
+						? other.networkIndex : -1;
+			}
+		}
+
+		return network;
+	}
+
+	private static void add(Network network, PipeTransportPower transport) {
+		Network previous = transport.network;
+
+		if (previous != null && previous != network) {
+			previous.discarded = true;
+			// Keep the energy already promised to the pipes of the old network.
+			network.budget += previous.budget;
+			previous.budget = 0;
+		}
+
+		transport.network = network;
+		transport.networkIndex = network.pipes.size();
+		network.pipes.add(transport);
+	}
+
+	private void solve() {
+		for (Iterator<Network> it = networks.iterator(); it.hasNext();) {
+			Network network = it.next();
+
+			if (network.discarded) {
+				it.remove();
+				continue;
+			}
+
+			boolean valid = true;
+
+			for (PipeTransportPower transport : network.pipes) {
+				if (!isMember(transport)) {
+					valid = false;
+					break;
+				}
+			}
+
+			if (!valid) {
+				// A pipe went away without a neighbor change, e.g. on chunk
+				// unload. The network is solved again once rebuilt.
+				dirtyNetworks.add(network);
+				continue;
+			}
+
+			solve(network);
+		}
+	}
+
+	private static void solve(Network network) {
+		int size = network.pipes.size();
+
+		// Gather the energy held by each pipe, and the requests of the
+		// machines around the network.
+
+		double[] held = new double[size];
+		double supply = 0;
+		double[] requests = new double[size * SIDES];
+		double demand = 0;
+
+		for (int i = 0; i < size; ++i) {
+			PipeTransportPower transport = network.pipes.get(i);
+
+			for (ForgeDirection side : ForgeDirection.VALID_DIRECTIONS) {
+				double request = transport.getNetworkRequest(side);
+
+				held[i] += transport.networkInput[side.ordinal()];
+				requests[i * SIDES + side.ordinal()] = request;
+				demand += request;
+			}
+
+			supply += held[i];
+		}
+
+		double delivered = 0;
+		Flow flow = null;
+
+		if (supply > EPSILON && demand > EPSILON) {
+			flow = new Flow(network, held);
+
+			// Route the share of each machine first, then whatever the pipes
+			// can still carry.
+
+			double[] shares = new double[size * SIDES];
+			FixedPointEnergy.split(Math.min(supply, demand), requests, shares);
+
+			for (int i = 0; i < size; ++i) {
+				for (int side = 0; side < SIDES; ++side) {
+					flow.sink[i] += shares[i * SIDES + side];
+				}
+			}
+
+			int paths = flow.route(MAX_PATHS);
+
+			for (int i = 0; i < size; ++i) {
+				flow.sink[i] = 0;
+
+				for (int side = 0; side < SIDES; ++side) {
+					flow.sink[i] += requests[i * SIDES + side];
+				}
+			}
+
+			flow.route(MAX_PATHS - paths);
+
+			// Hand the energy routed to each pipe to its machines.
+
+			double[] pipeRequests = new double[SIDES];
+			double[] pipeShares = new double[SIDES];
+
+			for (int i = 0; i < size; ++i) {
+				if (flow.sinkFlow[i] <= 0) {
+					continue;
+				}
+
+				PipeTransportPower transport = network.pipes.get(i);
+				System.arraycopy(requests, i * SIDES, pipeRequests, 0, SIDES);
+				FixedPointEnergy.split(flow.sinkFlow[i], pipeRequests, pipeShares);
+
+				for (ForgeDirection side : ForgeDirection.VALID_DIRECTIONS) {
+					double share = pipeShares[side.ordinal()];
+
+					if (share > 0) {
+						delivered += transport.deliverNetworkEnergy(side, share);
+					}
+				}
+			}
+
+			// Take what was delivered from the pipes the energy came from,
+			// in proportion to what each sent. What machines refused stays
+			// in the network.
+
+			double[] taken = new double[size];
+			double[] inputs = new double[SIDES];
+			double[] remaining = new double[SIDES];
+
+			FixedPointEnergy.split(delivered, flow.sourceFlow, taken);
+
+			for (int i = 0; i < size; ++i) {
+				if (taken[i] <= 0) {
+					continue;
+				}
+
+				PipeTransportPower transport = network.pipes.get(i);
+				System.arraycopy(transport.networkInput, 0, inputs, 0, SIDES);
+				FixedPointEnergy.split(Math.max(0, held[i] - taken[i]), inputs, remaining);
+
+				for (int side = 0; side < SIDES; ++side) {
+					transport.networkDisplay[side] += inputs[side] - remaining[side];
+					transport.networkInput[side] = remaining[side];
+				}
+			}
+		}
+
+		// Display the flow between pipes, and wake up the pipes carrying
+		// energy. Input and machine sides were accounted for above.
+
+		double stored = 0;
+
+		for (int i = 0; i < size; ++i) {
+			PipeTransportPower transport = network.pipes.get(i);
+			boolean carried = false;
+
+			for (int side = 0; side < SIDES; ++side) {
+				if (flow != null) {
+					int j = network.links[i * SIDES + side];
+
+					if (j >= 0) {
+						transport.networkDisplay[side] += flow.linkFlow[i * SIDES + side]
+								+ flow.linkFlow[j * SIDES + (side ^ 1)];
+					}
+				}
+
+				carried |= transport.networkDisplay[side] > 0;
+				stored += transport.networkInput[side];
+			}
+
+			if (carried) {
+				transport.wakeUp();
+			}
+		}
+
+		network.flow = delivered;
+		network.budget = Math.max(0, demand - stored);
+
+		networksSolved++;
+		energyDelivered += delivered;
+	}
+}
@@ -46,6 +46,13 @@ public abstract class PipeTransport {
 	public void onNeighborBlockChange(int blockId) {
 	}
 
+	/**
+	 * Called when the tile entity on the given side reports a change of its
+	 * contents to its neighbors.
+	 */
+	public void onNeighborTileChange(ForgeDirection side) {
+	}
+
 	public void onBlockPlaced() {
 	}
 
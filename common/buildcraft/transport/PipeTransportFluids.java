@@ -8,8 +8,6 @@
  */
 package buildcraft.transport;
 
-import java.util.BitSet;
-
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.tileentity.TileEntity;
 
@@ -28,6 +26,7 @@ import buildcraft.api.gates.ITrigger;
 import buildcraft.api.transport.IPipeTile.PipeType;
 import buildcraft.core.DefaultProps;
 import buildcraft.core.IMachine;
+import buildcraft.transport.network.FluidPacketBatcher;
 import buildcraft.transport.network.PacketFluidUpdate;
 
 public class PipeTransportFluids extends PipeTransport implements IFluidHandler {
@@ -60,6 +59,10 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler
 
 			if (doFill) {
 				incomming[currentTime] += filled;
+
+				if (filled > 0) {
+					fluidDirty = true;
+				}
 			}
 
 			return filled;
@@ -77,9 +80,18 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler
 			if (maxToDrain <= 0) {
 				return null;
 			}
+			if (doDrain) {
+				fluidDirty = true;
+			}
 			return super.drain(maxToDrain, doDrain);
 		}
 
+		@Override
+		public void setFluid(FluidStack fluid) {
+			super.setFluid(fluid);
+			fluidDirty = true;
+		}
+
 		public void moveFluids() {
 			// Processes the inbound liquid
 			incomming[currentTime] = 0;
@@ -156,6 +168,25 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler
 	private final SafeTimeTracker tracker = new SafeTimeTracker(BuildCraftCore.updateFactor);
 	private int clientSyncCounter = 0;
 
+	private static long syncsSkipped = 0;
+
+	/**
+	 * Set when the contents of a section change, and cleared once clients
+	 * were sent them. Pipes that are not dirty skip their client sync.
+	 */
+	private boolean fluidDirty = true;
+
+	/**
+	 * Network this pipe belongs to when pipes.fluidNetworks is enabled, see
+	 * PipeFluidSolver. networkShare holds the fluid handed to this pipe when
+	 * its last network was split or merged. While the pipe is in a network,
+	 * its sections only show the network fill level, which
+	 * tanksShowNetwork tells apart from real contents.
+	 */
+	PipeFluidSolver.Network network;
+	private FluidStack networkShare;
+	private boolean tanksShowNetwork = false;
+
 	public PipeTransportFluids() {
 		for (ForgeDirection direction : orientations) {
 			internalTanks[direction.ordinal()] = new PipeSection(getCapacity());
@@ -202,7 +233,12 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler
 			return;
 		}
 
-		moveFluids();
+		if (BuildCraftTransport.fluidNetworks && !(container.pipe instanceof IPipeTransportFluidsHook)
+				&& !hasMixedFluids()) {
+			updateNetworked();
+		} else {
+			moveFluids();
+		}
 
 		if (tracker.markTimeIfDelay(container.getWorldObj())) {
 
@@ -211,39 +247,256 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler
 				clientSyncCounter = 0;
 				init = true;
 			}
-			PacketFluidUpdate packet = computeFluidUpdate(init, true);
-			if (packet != null) {
-				BuildCraftTransport.instance.sendToPlayers(packet, container.getWorldObj(), container.xCoord, container.yCoord, container.zCoord, DefaultProps.PIPE_CONTENTS_RENDER_DIST);
+			int delta = computeFluidUpdate(init);
+			if (delta != 0) {
+				sendFluidUpdate(delta, init);
+			}
+		}
+	}
+
+	private void sendFluidUpdate(int delta, boolean init) {
+		if (BuildCraftTransport.batchFluidUpdates) {
+			FluidPacketBatcher.get(container.getWorldObj()).add(container.xCoord, container.yCoord, container.zCoord,
+					delta, renderCache, colorRenderCache);
+		} else {
+			// Packets are encoded as they are sent, so the caches can be
+			// given as they are.
+			PacketFluidUpdate packet = new PacketFluidUpdate(container.xCoord, container.yCoord, container.zCoord, init);
+			packet.renderCache = renderCache;
+			packet.colorRenderCache = colorRenderCache;
+			packet.delta = delta;
+			BuildCraftTransport.instance.sendToPlayers(packet, container.getWorldObj(), container.xCoord, container.yCoord, container.zCoord, DefaultProps.PIPE_CONTENTS_RENDER_DIST);
+		}
+	}
+
+	public static long getSyncsSkipped() {
+		return syncsSkipped;
+	}
+
+	private void updateNetworked() {
+		if (network == null || network.discarded) {
+			PipeFluidSolver.markDirty(this);
+		}
+
+		for (ForgeDirection direction : directions) {
+			if (transferState[direction.ordinal()] == TransferState.Input) {
+				inputTTL[direction.ordinal()]--;
+				if (inputTTL[direction.ordinal()] <= 0) {
+					transferState[direction.ordinal()] = TransferState.None;
+				}
+			}
+		}
+
+		if (network != null && !network.discarded) {
+			showNetworkLevel();
+		}
+	}
+
+	/**
+	 * Fills the sections of the pipe up to the average fill level of its
+	 * network, for display.
+	 */
+	private void showNetworkLevel() {
+		if (!tanksShowNetwork) {
+			// Whatever the pipe held before joining was taken by the network.
+			for (ForgeDirection direction : orientations) {
+				internalTanks[direction.ordinal()].reset();
+			}
+
+			tanksShowNetwork = true;
+		}
+
+		FluidStack fluid = network.fluid;
+		int level = 0;
+
+		if (fluid != null && !network.pipes.isEmpty()) {
+			level = Math.min(getCapacity(), (fluid.amount + network.pipes.size() - 1) / network.pipes.size());
+		}
+
+		for (ForgeDirection direction : orientations) {
+			PipeSection section = internalTanks[direction.ordinal()];
+			FluidStack current = section.getFluid();
+
+			if (level == 0 || (direction != ForgeDirection.UNKNOWN && !container.isPipeConnected(direction))) {
+				if (current != null) {
+					section.setFluid(null);
+				}
+			} else if (current == null || current.amount != level || !current.isFluidEqual(fluid)) {
+				FluidStack shown = fluid.copy();
+				shown.amount = level;
+				section.setFluid(shown);
 			}
 		}
 	}
 
 	/**
-	 * Computes the PacketFluidUpdate packet for transmission to a client
+	 * Returns true if the sections of a pipe that is not in a network yet
+	 * hold different fluids. Such pipes stay out of networks, and move their
+	 * fluids the usual way until only one is left.
+	 */
+	boolean hasMixedFluids() {
+		if (tanksShowNetwork || networkShare != null) {
+			return false;
+		}
+
+		FluidStack first = null;
+
+		for (ForgeDirection direction : orientations) {
+			FluidStack contents = internalTanks[direction.ordinal()].getFluid();
+
+			if (contents == null || contents.amount <= 0) {
+				continue;
+			}
+
+			if (first == null) {
+				first = contents;
+			} else if (!first.isFluidEqual(contents)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns the fluid the pipe would bring into a network, without taking
+	 * it: its share, the fluid of the network it is in, or what its sections
+	 * hold if it was not in a network yet. Null if it is empty.
+	 */
+	FluidStack getNetworkFluid() {
+		if (networkShare != null) {
+			return networkShare;
+		} else if (network != null && !network.discarded) {
+			return network.fluid;
+		} else if (tanksShowNetwork) {
+			return null;
+		}
+
+		for (ForgeDirection direction : orientations) {
+			FluidStack contents = internalTanks[direction.ordinal()].getFluid();
+
+			if (contents != null && contents.amount > 0) {
+				return contents;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Hands the fluid given to this pipe by the network solver over to the
+	 * caller. Pipes that were not in a network yet give what their sections
+	 * hold, which is a single fluid since pipes with mixed fluids are kept
+	 * out of networks.
+	 */
+	FluidStack takeNetworkShare() {
+		FluidStack share = networkShare;
+		networkShare = null;
+
+		if (share == null && !tanksShowNetwork) {
+			for (ForgeDirection direction : orientations) {
+				PipeSection section = internalTanks[direction.ordinal()];
+				FluidStack contents = section.getFluid();
+
+				if (contents == null || contents.amount <= 0) {
+					continue;
+				}
+
+				if (share == null) {
+					share = contents.copy();
+				} else if (share.isFluidEqual(contents)) {
+					share.amount += contents.amount;
+				} else {
+					// Pipes holding more than one fluid do not join networks,
+					// see hasMixedFluids.
+					continue;
+				}
+
+				section.reset();
+			}
+
+			tanksShowNetwork = true;
+		}
+
+		return share;
+	}
+
+	void setNetworkShare(FluidStack share) {
+		networkShare = share;
+	}
+
+	/**
+	 * Returns true if the network may push fluid to the tank on that side.
+	 */
+	boolean canOutputToNetworkSink(ForgeDirection side) {
+		return transferState[side.ordinal()] != TransferState.Input
+				&& container.pipe.outputOpen(side) && canReceiveFluid(side);
+	}
+
+	private int fillNetwork(int tankIndex, FluidStack resource, boolean doFill) {
+		if (network == null || network.discarded) {
+			if (PipeFluidSolver.attach(this) == null) {
+				PipeFluidSolver.markDirty(this);
+				return 0;
+			}
+		}
+
+		if (resource == null || (network.fluid != null && !network.fluid.isFluidEqual(resource))) {
+			return 0;
+		}
+
+		int filled = Math.min(resource.amount, Math.min(flowRate, network.inputLeft));
+		filled = Math.min(filled, network.capacity - network.getAmount());
+
+		if (filled <= 0) {
+			return 0;
+		}
+
+		if (doFill) {
+			if (network.fluid == null) {
+				network.fluid = resource.copy();
+				network.fluid.amount = filled;
+			} else {
+				network.fluid.amount += filled;
+			}
+
+			network.inputLeft -= filled;
+		}
+
+		return filled;
+	}
+
+	/**
+	 * Brings the render cache, which holds what clients were last sent,
+	 * closer to the contents of the sections, and returns the delta bits of
+	 * PacketFluidUpdate for what changed. The render cache only allocates
+	 * when the fluid of a section changes, and pipes whose sections did not
+	 * change since the render cache caught up with them do nothing.
 	 *
 	 * @param initPacket everything is sent, no delta stuff ( first packet )
-	 * @param persistChange The render cache change is persisted
-	 * @return PacketFluidUpdate liquid update packet
+	 * @return the delta bits, 0 if there is nothing to send
 	 */
-	private PacketFluidUpdate computeFluidUpdate(boolean initPacket, boolean persistChange) {
-
-		boolean changed = false;
-		BitSet delta = new BitSet(PacketFluidUpdate.FLUID_DATA_NUM * ForgeDirection.VALID_DIRECTIONS.length);
+	private int computeFluidUpdate(boolean initPacket) {
+		int delta = 0;
 
 		if (initClient > 0) {
 			initClient--;
 			if (initClient == 1) {
-				changed = true;
-				delta.set(0, PacketFluidUpdate.FLUID_DATA_NUM * ForgeDirection.VALID_DIRECTIONS.length);
+				delta = PacketFluidUpdate.ALL_SECTIONS;
 			}
 		}
 
-		FluidStack[] renderCacheCopy = this.renderCache.clone();
-		int[] colorRenderCacheCopy = this.colorRenderCache.clone();
+		if (!fluidDirty && delta == 0) {
+			syncsSkipped++;
+			return 0;
+		}
+
+		boolean settled = true;
 
 		for (ForgeDirection dir : orientations) {
-			FluidStack current = internalTanks[dir.ordinal()].getFluid();
-			FluidStack prev = renderCacheCopy[dir.ordinal()];
+			int i = dir.ordinal();
+			FluidStack current = internalTanks[i].getFluid();
+			FluidStack prev = renderCache[i];
 
 			if (current != null && current.getFluid() == null) {
 				continue;
@@ -254,16 +507,15 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler
 			}
 
 			if (prev == null ^ current == null) {
-				changed = true;
 				if (current != null) {
-					renderCacheCopy[dir.ordinal()] = current.copy();
-					colorRenderCacheCopy[dir.ordinal()] = current.getFluid().getColor(current);
+					renderCache[i] = current.copy();
+					colorRenderCache[i] = current.getFluid().getColor(current);
 				} else {
-					renderCacheCopy[dir.ordinal()] = null;
-					colorRenderCacheCopy[dir.ordinal()] = 0xFFFFFF;
+					renderCache[i] = null;
+					colorRenderCache[i] = 0xFFFFFF;
 				}
-				delta.set(dir.ordinal() * PacketFluidUpdate.FLUID_DATA_NUM + PacketFluidUpdate.FLUID_ID_BIT);
-				delta.set(dir.ordinal() * PacketFluidUpdate.FLUID_DATA_NUM + PacketFluidUpdate.FLUID_AMOUNT_BIT);
+				delta |= PacketFluidUpdate.getBit(i, PacketFluidUpdate.FLUID_ID_BIT);
+				delta |= PacketFluidUpdate.getBit(i, PacketFluidUpdate.FLUID_AMOUNT_BIT);
 				continue;
 			}
 
@@ -271,41 +523,60 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler
 				continue;
 			}
 
-			if (!prev.equals(current) || initPacket) {
-				changed = true;
-				renderCacheCopy[dir.ordinal()] = current;
-				colorRenderCacheCopy[dir.ordinal()] = current.getFluid().getColor(current);
-				delta.set(dir.ordinal() * PacketFluidUpdate.FLUID_DATA_NUM + PacketFluidUpdate.FLUID_ID_BIT);
+			FluidStack shown = prev;
+
+			if (!prev.isFluidEqual(current)) {
+				shown = current.copy();
+				shown.amount = prev.amount;
+				renderCache[i] = shown;
+				colorRenderCache[i] = current.getFluid().getColor(current);
+				delta |= PacketFluidUpdate.getBit(i, PacketFluidUpdate.FLUID_ID_BIT);
+			} else if (initPacket) {
+				colorRenderCache[i] = current.getFluid().getColor(current);
+				delta |= PacketFluidUpdate.getBit(i, PacketFluidUpdate.FLUID_ID_BIT);
 			}
 
-			int displayQty = (prev.amount * 4 + current.amount) / 5;
-			if (displayQty == 0 && current.amount > 0 || initPacket) {
+			int target = Math.min(getCapacity(), current.amount);
+			int displayQty = (shown.amount * 4 + current.amount) / 5;
+			if (displayQty == 0 && current.amount > 0 || displayQty == shown.amount || initPacket) {
+				// Rounding stops the smoothing just short of small
+				// increases, so the amount is set once it stalls.
 				displayQty = current.amount;
 			}
 			displayQty = Math.min(getCapacity(), displayQty);
 
-			if (prev.amount != displayQty || initPacket) {
-				changed = true;
-				renderCacheCopy[dir.ordinal()].amount = displayQty;
-				delta.set(dir.ordinal() * PacketFluidUpdate.FLUID_DATA_NUM + PacketFluidUpdate.FLUID_AMOUNT_BIT);
+			if (shown.amount != displayQty || initPacket) {
+				shown.amount = displayQty;
+				delta |= PacketFluidUpdate.getBit(i, PacketFluidUpdate.FLUID_AMOUNT_BIT);
 			}
-		}
 
-		if (persistChange) {
-			this.renderCache = renderCacheCopy;
-			this.colorRenderCache = colorRenderCacheCopy;
+			if (displayQty != target) {
+				settled = false;
+			}
 		}
 
-		if (changed || initPacket) {
-			PacketFluidUpdate packet = new PacketFluidUpdate(container.xCoord, container.yCoord, container.zCoord, initPacket);
-			packet.renderCache = renderCacheCopy;
-			packet.colorRenderCache = colorRenderCacheCopy;
-			packet.delta = delta;
-			return packet;
-		}
+		fluidDirty = !settled;
 
-		return null;
+		return delta;
+	}
+
+	/**
+	 * Sets the fluid a section is rendered with, on the client.
+	 */
+	public void setRenderFluid(int section, int fluidID, int color) {
+		int amount = renderCache[section] != null ? renderCache[section].amount : 0;
+		renderCache[section] = new FluidStack(fluidID, amount);
+		colorRenderCache[section] = color;
+	}
 
+	/**
+	 * Sets the amount a section is rendered with, on the client.
+	 */
+	public void setRenderAmount(int section, int amount) {
+		if (renderCache[section] == null) {
+			renderCache[section] = new FluidStack(0, 0);
+		}
+		renderCache[section].amount = Math.min(getCapacity(), amount);
 	}
 
 	/**
@@ -336,9 +607,24 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler
 	public void writeToNBT(NBTTagCompound nbttagcompound) {
 		super.writeToNBT(nbttagcompound);
 
+		FluidStack[] saved = null;
+
+		if (tanksShowNetwork) {
+			saved = getNetworkPortion();
+		}
+
 		for (ForgeDirection direction : orientations) {
 			NBTTagCompound subTag = new NBTTagCompound();
-			internalTanks[direction.ordinal()].writeToNBT(subTag);
+			if (saved != null) {
+				// Save this pipe's part of the network as its own contents,
+				// so that nothing is lost if it is loaded without networks.
+				subTag.setInteger("capacity", getCapacity());
+				if (saved[direction.ordinal()] != null) {
+					saved[direction.ordinal()].writeToNBT(subTag);
+				}
+			} else {
+				internalTanks[direction.ordinal()].writeToNBT(subTag);
+			}
 			nbttagcompound.setTag("tank[" + direction.ordinal() + "]", subTag);
 			if (direction != ForgeDirection.UNKNOWN) {
 				nbttagcompound.setShort("transferState[" + direction.ordinal() + "]", (short) transferState[direction.ordinal()].ordinal());
@@ -346,6 +632,40 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler
 		}
 	}
 
+	/**
+	 * Returns this pipe's even part of the fluid of its network, or of the
+	 * share it was handed, spread over its sections.
+	 */
+	private FluidStack[] getNetworkPortion() {
+		FluidStack portion = networkShare;
+
+		if (portion == null && network != null && !network.discarded && network.fluid != null) {
+			int index = network.pipes.indexOf(this);
+			int size = network.pipes.size();
+			int amount = network.fluid.amount;
+
+			portion = network.fluid.copy();
+			portion.amount = amount / size + (index >= 0 && index < amount % size ? 1 : 0);
+		}
+
+		FluidStack[] sections = new FluidStack[orientations.length];
+
+		if (portion == null) {
+			return sections;
+		}
+
+		int left = portion.amount;
+
+		for (int i = 0; i < sections.length && left > 0; ++i) {
+			FluidStack section = portion.copy();
+			section.amount = i == sections.length - 1 ? left : Math.min(left, getCapacity());
+			sections[i] = section;
+			left -= section.amount;
+		}
+
+		return sections;
+	}
+
 	private void moveFluids() {
 		short newTimeSlot = (short) (container.getWorldObj().getTotalWorldTime() % travelDelay);
 
@@ -498,6 +818,10 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler
 	public void onNeighborBlockChange(int blockId) {
 		super.onNeighborBlockChange(blockId);
 
+		if (BuildCraftTransport.fluidNetworks) {
+			PipeFluidSolver.markDirty(this);
+		}
+
 		for (ForgeDirection direction : directions) {
 			if (!container.isPipeConnected(direction)) {
 				internalTanks[direction.ordinal()].reset();
@@ -550,6 +874,8 @@ public class PipeTransportFluids extends PipeTransport implements IFluidHandler
 
 		if (this.container.pipe instanceof IPipeTransportFluidsHook) {
 			filled = ((IPipeTransportFluidsHook) this.container.pipe).fill(orientations[tankIndex], resource, doFill);
+		} else if (BuildCraftTransport.fluidNetworks) {
+			filled = fillNetwork(tankIndex, resource, doFill);
 		} else {
 			filled = internalTanks[tankIndex].fill(resource, doFill);
 		}
@@ -8,10 +8,14 @@
  */
 package buildcraft.transport;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.logging.log4j.Level;
 
@@ -28,6 +32,7 @@ import net.minecraftforge.common.util.ForgeDirection;
 
 import buildcraft.BuildCraftTransport;
 import buildcraft.api.core.BCLog;
+import buildcraft.api.core.EnumColor;
 import buildcraft.api.core.Position;
 import buildcraft.api.gates.ITrigger;
 import buildcraft.api.transport.IPipeTile.PipeType;
@@ -38,6 +43,7 @@ import buildcraft.core.utils.BlockUtil;
 import buildcraft.core.utils.MathUtils;
 import buildcraft.transport.network.PacketPipeTransportItemStackRequest;
 import buildcraft.transport.network.PacketPipeTransportTraveler;
+import buildcraft.transport.network.TravelerPacketBatcher;
 import buildcraft.transport.pipes.events.PipeEventItem;
 import buildcraft.transport.utils.TransportUtils;
 
@@ -48,6 +54,10 @@ public class PipeTransportItems extends PipeTransport {
 	public boolean allowBouncing = false;
 	public final TravelerSet items = new TravelerSet(this);
 
+	private ItemTransitBatch transitBatch;
+	private final InsertionCapabilityCache insertionCache = new InsertionCapabilityCache();
+	private final ArrayList<ForgeDirection> destinationBuffer = new ArrayList<ForgeDirection>(ForgeDirection.VALID_DIRECTIONS.length);
+
 	@Override
 	public PipeType getPipeType() {
 		return PipeType.ITEM;
@@ -111,6 +121,10 @@ public class PipeTransportItems extends PipeTransport {
 			return;
 		}
 
+		if (BuildCraftTransport.mergeItemsOnInjection && !container.getWorldObj().isRemote && mergeIntoExisting(item)) {
+			return;
+		}
+
 		items.add(item);
 
 		if (!container.getWorldObj().isRemote) {
@@ -126,13 +140,7 @@ public class PipeTransportItems extends PipeTransport {
 				return;
 			}
 
-			int numItems = 0;
-			for (TravelingItem travellingItem : items) {
-				ItemStack stack = travellingItem.getItemStack();
-				if (stack != null && stack.stackSize > 0) {
-					numItems += stack.stackSize;
-				}
-			}
+			int numItems = items.getItemCount();
 
 			if (numItems > MAX_PIPE_ITEMS) {
 				BCLog.logger.log(Level.WARN, String.format("Pipe exploded at %d,%d,%d because it had too many items: %d", container.xCoord, container.yCoord, container.zCoord, numItems));
@@ -182,13 +190,66 @@ public class PipeTransportItems extends PipeTransport {
 	}
 
 	public ForgeDirection resolveDestination(TravelingItem data) {
-		List<ForgeDirection> validDestinations = getPossibleMovements(data);
+		if (container.pipe.hasEventHandler(PipeEventItem.FindDest.class)) {
+			destinationBuffer.clear();
+			fillPossibleMovements(data, destinationBuffer);
+
+			if (destinationBuffer.isEmpty()) {
+				return ForgeDirection.UNKNOWN;
+			}
 
-		if (validDestinations.isEmpty()) {
+			ForgeDirection result = destinationBuffer.get(0);
+			destinationBuffer.clear();
+			return result;
+		}
+
+		// Nobody listens to FindDest on this pipe, so the candidate sides can
+		// be kept in a bit mask and picked without touching the heap.
+		int mask = getPossibleMovementsMask(data);
+
+		if (mask == 0) {
 			return ForgeDirection.UNKNOWN;
 		}
 
-		return validDestinations.get(0);
+		return pickRandomDirection(mask);
+	}
+
+	/**
+	 * Returns a bit mask of all possible movements, bit n being set if the
+	 * item can move towards ForgeDirection.getOrientation(n). Unlike
+	 * getPossibleMovements, this does not fire the FindDest event.
+	 */
+	public int getPossibleMovementsMask(TravelingItem item) {
+		int mask = 0;
+
+		item.blacklist.add(item.input.getOpposite());
+
+		for (ForgeDirection o : ForgeDirection.VALID_DIRECTIONS) {
+			if (!item.blacklist.contains(o) && container.pipe.outputOpen(o) && canReceivePipeObjects(o, item)) {
+				mask |= 1 << o.ordinal();
+			}
+		}
+
+		if (allowBouncing && mask == 0) {
+			if (canReceivePipeObjects(item.input.getOpposite(), item)) {
+				mask |= 1 << item.input.getOpposite().ordinal();
+			}
+		}
+
+		return mask;
+	}
+
+	private ForgeDirection pickRandomDirection(int mask) {
+		int count = Integer.bitCount(mask);
+		int bits = mask;
+
+		if (count > 1) {
+			for (int skip = getWorld().rand.nextInt(count); skip > 0; --skip) {
+				bits &= bits - 1;
+			}
+		}
+
+		return ForgeDirection.VALID_DIRECTIONS[Integer.numberOfTrailingZeros(bits)];
 	}
 
 	/**
@@ -197,7 +258,11 @@ public class PipeTransportItems extends PipeTransport {
 	 */
 	public List<ForgeDirection> getPossibleMovements(TravelingItem item) {
 		LinkedList<ForgeDirection> result = new LinkedList<ForgeDirection>();
+		fillPossibleMovements(item, result);
+		return result;
+	}
 
+	private void fillPossibleMovements(TravelingItem item, List<ForgeDirection> result) {
 		item.blacklist.add(item.input.getOpposite());
 
 		EnumSet<ForgeDirection> sides = EnumSet.complementOf(item.blacklist);
@@ -219,8 +284,6 @@ public class PipeTransportItems extends PipeTransport {
 		}
 
 		Collections.shuffle(result);
-
-		return result;
 	}
 
 	private boolean canReceivePipeObjects(ForgeDirection o, TravelingItem item) {
@@ -235,17 +298,55 @@ public class PipeTransportItems extends PipeTransport {
 
 			return !pipe.pipe.isClosed() && pipe.pipe.transport instanceof PipeTransportItems;
 		} else if (entity instanceof IInventory && item.getInsertionHandler().canInsertItem(item, (IInventory) entity)) {
-			if (Transactor.getTransactorFor(entity).add(item.getItemStack(), o.getOpposite(), false).stackSize > 0) {
-				return true;
-			}
+			return canInsertInto(o, entity, item.getItemStack());
 		}
 
 		return false;
 	}
 
+	private boolean canInsertInto(ForgeDirection o, TileEntity entity, ItemStack stack) {
+		if (BuildCraftTransport.insertionCacheTicks <= 0) {
+			return Transactor.getTransactorFor(entity).add(stack, o.getOpposite(), false).stackSize > 0;
+		}
+
+		long worldTime = getWorld().getTotalWorldTime();
+
+		if (insertionCache.canInsert(o, entity, stack, worldTime)) {
+			return true;
+		}
+
+		boolean canInsert = Transactor.getTransactorFor(entity).add(stack, o.getOpposite(), false).stackSize > 0;
+
+		if (canInsert) {
+			insertionCache.put(o, entity, stack, worldTime + BuildCraftTransport.insertionCacheTicks);
+		}
+
+		return canInsert;
+	}
+
 	@Override
 	public void updateEntity() {
-		moveSolids();
+		if (getTransitBatch() != null) {
+			// Motion is handled by the world's ItemTransitBatch, which calls
+			// back reachedCenter and reachedEnd.
+			items.flush();
+			items.purgeCorruptedItems();
+		} else {
+			moveSolids();
+		}
+	}
+
+	/**
+	 * Returns the transit batch moving the items of this pipe, or null if
+	 * this pipe moves its items itself in updateEntity.
+	 */
+	ItemTransitBatch getTransitBatch() {
+		if (transitBatch == null && BuildCraftTransport.batchedItemTransit && container != null
+				&& container.getWorldObj() != null && !container.getWorldObj().isRemote) {
+			transitBatch = ItemTransitBatch.get(container.getWorldObj());
+		}
+
+		return transitBatch;
 	}
 
 	private void moveSolids() {
@@ -262,42 +363,48 @@ public class PipeTransportItems extends PipeTransport {
 				continue;
 			}
 
-			Position motion = new Position(0, 0, 0, item.toCenter ? item.input : item.output);
-			motion.moveForwards(item.getSpeed());
+			ForgeDirection motion = item.toCenter ? item.input : item.output;
+			float speed = item.getSpeed();
 
-			item.movePosition(motion.x, motion.y, motion.z);
+			item.movePosition(motion.offsetX * speed, motion.offsetY * speed, motion.offsetZ * speed);
 
 			if ((item.toCenter && middleReached(item)) || outOfBounds(item)) {
-				item.toCenter = false;
+				reachedCenter(item);
+			} else if (!item.toCenter && endReached(item)) {
+				reachedEnd(item);
+			}
+		}
+		items.iterating = false;
+		items.flush();
+	}
 
-				// Reajusting to the middle
-				item.setPosition(container.xCoord + 0.5, container.yCoord + TransportUtils.getPipeFloorOf(item.getItemStack()), container.zCoord + 0.5);
+	void reachedCenter(TravelingItem item) {
+		item.toCenter = false;
 
-				if (item.output == ForgeDirection.UNKNOWN) {
-					if (items.scheduleRemoval(item)) {
-						dropItem(item);
-					}
-				} else {
-					PipeEventItem.ReachedCenter event = new PipeEventItem.ReachedCenter(item);
-					container.pipe.handlePipeEvent(event);
-				}
+		// Reajusting to the middle
+		item.setPosition(container.xCoord + 0.5, container.yCoord + TransportUtils.getPipeFloorOf(item.getItemStack()), container.zCoord + 0.5);
 
-			} else if (!item.toCenter && endReached(item)) {
-				TileEntity tile = container.getTile(item.output);
+		if (item.output == ForgeDirection.UNKNOWN) {
+			if (items.scheduleRemoval(item)) {
+				dropItem(item);
+			}
+		} else {
+			PipeEventItem.ReachedCenter event = new PipeEventItem.ReachedCenter(item);
+			container.pipe.handlePipeEvent(event);
+		}
+	}
 
-				PipeEventItem.ReachedEnd event = new PipeEventItem.ReachedEnd(item, tile);
-				container.pipe.handlePipeEvent(event);
-				boolean handleItem = !event.handled;
+	void reachedEnd(TravelingItem item) {
+		TileEntity tile = container.getTile(item.output);
 
-				// If the item has not been scheduled to removal by the hook
-				if (handleItem && items.scheduleRemoval(item)) {
-					handleTileReached(item, tile);
-				}
+		PipeEventItem.ReachedEnd event = new PipeEventItem.ReachedEnd(item, tile);
+		container.pipe.handlePipeEvent(event);
+		boolean handleItem = !event.handled;
 
-			}
+		// If the item has not been scheduled to removal by the hook
+		if (handleItem && items.scheduleRemoval(item)) {
+			handleTileReached(item, tile);
 		}
-		items.iterating = false;
-		items.flush();
 	}
 
 	private boolean passToNextPipe(TravelingItem item, TileEntity tile) {
@@ -319,6 +426,8 @@ public class PipeTransportItems extends PipeTransport {
 				if (item.getInsertionHandler().canInsertItem(item, (IInventory) tile)) {
 					ItemStack added = Transactor.getTransactorFor(tile).add(item.getItemStack(), item.output.getOpposite(), true);
 					item.getItemStack().stackSize -= added.stackSize;
+					items.updateItemCount(item);
+					insertionCache.invalidate(item.output);
 				}
 
 				if (item.getItemStack().stackSize > 0) {
@@ -426,32 +535,69 @@ public class PipeTransportItems extends PipeTransport {
 	 * @param packet
 	 */
 	public void handleTravelerPacket(PacketPipeTransportTraveler packet) {
-		TravelingItem item = TravelingItem.clientCache.get(packet.getTravelingEntityId());
+		handleTravelerUpdate(packet.getTravelingEntityId(), true, packet.getItemX(), packet.getItemY(), packet.getItemZ(),
+				packet.getSpeed(), packet.getInputOrientation(), packet.getOutputOrientation(), packet.getColor(),
+				null, packet.forceStackRefresh());
+	}
+
+	/**
+	 * Applies a traveler update received from the server. If hasPosition is
+	 * false, the item keeps the position the client simulated for it, unless
+	 * it is not near this pipe, in which case it is placed at the entrance.
+	 * If stack is not null, it is used instead of requesting the stack from
+	 * the server.
+	 */
+	public void handleTravelerUpdate(int id, boolean hasPosition, double x, double y, double z, float speed,
+			ForgeDirection input, ForgeDirection output, EnumColor color, ItemStack stack, boolean forceStackRefresh) {
+		TravelingItem item = TravelingItem.clientCache.get(id);
+		boolean known = item != null;
 
 		if (item == null) {
-			item = TravelingItem.make(packet.getTravelingEntityId());
+			item = TravelingItem.make(id);
 		}
 
 		if (item.getContainer() != container) {
 			items.add(item);
 		}
 
-		if (packet.forceStackRefresh() || item.getItemStack() == null) {
-			BuildCraftTransport.instance.sendToServer(new PacketPipeTransportItemStackRequest(packet.getTravelingEntityId()));
+		if (stack != null) {
+			if (forceStackRefresh || item.getItemStack() == null) {
+				item.setItemStack(stack.copy());
+			}
+		} else if (forceStackRefresh || item.getItemStack() == null) {
+			BuildCraftTransport.instance.sendToServer(new PacketPipeTransportItemStackRequest(id));
 		}
 
-		item.setPosition(packet.getItemX(), packet.getItemY(), packet.getItemZ());
-
-		item.setSpeed(packet.getSpeed());
+		item.setSpeed(speed);
 
 		item.toCenter = true;
-		item.input = packet.getInputOrientation();
-		item.output = packet.getOutputOrientation();
-		item.color = packet.getColor();
+		item.input = input;
+		item.output = output;
+		item.color = color;
+
+		if (hasPosition) {
+			item.setPosition(x, y, z);
+		} else if (!known || outOfBounds(item)) {
+			placeAtEntrance(item);
+		}
+	}
+
+	private void placeAtEntrance(TravelingItem item) {
+		double y = container.yCoord + 0.5 - item.input.offsetY * 0.49;
+
+		if (item.input != ForgeDirection.UP && item.input != ForgeDirection.DOWN && item.getItemStack() != null) {
+			y = container.yCoord + TransportUtils.getPipeFloorOf(item.getItemStack());
+		}
 
+		item.setPosition(container.xCoord + 0.5 - item.input.offsetX * 0.49, y, container.zCoord + 0.5 - item.input.offsetZ * 0.49);
 	}
 
 	private void sendTravelerPacket(TravelingItem data, boolean forceStackRefresh) {
+		if (BuildCraftTransport.batchTravelerPackets) {
+			TravelerPacketBatcher.get(container.getWorldObj()).add(container.xCoord, container.yCoord, container.zCoord, data, forceStackRefresh);
+			return;
+		}
+
 		PacketPipeTransportTraveler packet = new PacketPipeTransportTraveler(data, forceStackRefresh);
 		BuildCraftTransport.instance.sendToPlayers(packet, container.getWorldObj(), container.xCoord, container.yCoord, container.zCoord, DefaultProps.PIPE_CONTENTS_RENDER_DIST);
 	}
@@ -461,19 +607,22 @@ public class PipeTransportItems extends PipeTransport {
 	}
 
 	public int getNumberOfItems() {
-		int num = 0;
-		for (TravelingItem item : items) {
-			if (item.getItemStack() == null) {
-				continue;
-			}
-			num += item.getItemStack().stackSize;
-		}
-		return num;
+		return items.getItemCount();
 	}
 
 	protected void neighborChange() {
 	}
 
+	@Override
+	public void onNeighborBlockChange(int blockId) {
+		insertionCache.invalidateAll();
+	}
+
+	@Override
+	public void onNeighborTileChange(ForgeDirection side) {
+		insertionCache.invalidate(side);
+	}
+
 	@Override
 	public boolean canPipeConnect(TileEntity tile, ForgeDirection side) {
 		if (tile instanceof TileGenericPipe) {
@@ -501,16 +650,69 @@ public class PipeTransportItems extends PipeTransport {
 	 * nbt and no contribution controlling them
 	 */
 	public void groupEntities() {
+		// Candidates to merge into, indexed by grouping hash. Items that
+		// share a hash but cannot be grouped, or targets that are full, are
+		// kept side by side in the same bucket.
+		Map<Integer, List<TravelingItem>> targets = new HashMap<Integer, List<TravelingItem>>();
+
 		for (TravelingItem item : items) {
-			if (item.isCorrupted()) {
+			if (!item.isGroupable()) {
 				continue;
 			}
-			for (TravelingItem otherItem : items) {
+
+			Integer hash = item.getGroupingHash();
+			List<TravelingItem> bucket = targets.get(hash);
+
+			if (bucket == null) {
+				bucket = new ArrayList<TravelingItem>(1);
+				targets.put(hash, bucket);
+			}
+
+			boolean merged = false;
+
+			for (Iterator<TravelingItem> it = bucket.iterator(); it.hasNext();) {
+				TravelingItem otherItem = it.next();
+
 				if (item.tryMergeInto(otherItem)) {
+					items.updateItemCount(item);
+					items.updateItemCount(otherItem);
+					merged = true;
+
+					if (otherItem.getItemStack().stackSize >= otherItem.getItemStack().getMaxStackSize()) {
+						it.remove();
+					}
+
 					break;
 				}
 			}
+
+			if (!merged) {
+				bucket.add(item);
+			}
+		}
+	}
+
+	/**
+	 * Merges the item into a compatible item already in this pipe, if any.
+	 * Returns true if the whole stack was merged.
+	 */
+	private boolean mergeIntoExisting(TravelingItem item) {
+		if (!item.isGroupable()) {
+			return false;
 		}
+
+		int hash = item.getGroupingHash();
+
+		for (TravelingItem otherItem : items) {
+			if (otherItem.getContainer() == container && otherItem.isGroupable()
+					&& otherItem.getGroupingHash() == hash && item.tryMergeInto(otherItem)) {
+				items.updateItemCount(otherItem);
+				sendTravelerPacket(otherItem, true);
+				return true;
+			}
+		}
+
+		return false;
 	}
 
 	@Override
@@ -21,6 +21,7 @@ import buildcraft.BuildCraftCore;
 import buildcraft.BuildCraftTransport;
 import buildcraft.api.core.SafeTimeTracker;
 import buildcraft.api.gates.ITrigger;
+import buildcraft.api.mj.FixedPointEnergy;
 import buildcraft.api.mj.IBatteryObject;
 import buildcraft.api.mj.MjAPI;
 import buildcraft.api.power.IPowerEmitter;
@@ -29,6 +30,7 @@ import buildcraft.api.power.PowerHandler.PowerReceiver;
 import buildcraft.api.power.PowerHandler.Type;
 import buildcraft.api.transport.IPipeTile.PipeType;
 import buildcraft.core.DefaultProps;
+import buildcraft.core.utils.DormancyStats;
 import buildcraft.transport.network.PacketPowerUpdate;
 import buildcraft.transport.pipes.PipePowerCobblestone;
 import buildcraft.transport.pipes.PipePowerDiamond;
@@ -45,6 +47,11 @@ public class PipeTransportPower extends PipeTransport {
 	private static final short MAX_DISPLAY = 100;
 	private static final int DISPLAY_SMOOTHING = 10;
 	private static final int OVERLOAD_TICKS = 60;
+	private static final int DORMANT_DELAY = 40;
+	private static final int DORMANT_POLL_TICKS = 20;
+
+	private static long batteryCacheHits = 0;
+	private static long batteryCacheMisses = 0;
 
 	public float[] displayPower = new float[6];
 	public short[] clientDisplayPower = new short[6];
@@ -57,15 +64,50 @@ public class PipeTransportPower extends PipeTransport {
 	private boolean needsInit = true;
 	private TileEntity[] tiles = new TileEntity[6];
 
+	/**
+	 * Battery of the tile on each side, resolved once when the tiles are
+	 * updated rather than looked up in MjAPI every tick. Batteries MjAPI
+	 * would not cache either are looked up every time.
+	 */
+	private IBatteryObject[] batteries = new IBatteryObject[6];
+	private boolean[] batteryResolved = new boolean[6];
+	private int batteryGeneration;
+
 	private float[] prevDisplayPower = new float[6];
 
 	private double[] powerQuery = new double[6];
+	private double[] powerWeights = new double[6];
+	private double[] powerShares = new double[6];
 
 	private long currentDate;
 	private double[] internalPower = new double[6];
 	private double[] externalPower = new double[6];
 
 	private double highestPower;
+
+	/**
+	 * Network this pipe belongs to when pipes.powerNetworks is enabled, see
+	 * PipePowerSolver, and its index in the network. networkInput holds the
+	 * energy received on each side and not delivered yet, networkDisplay the
+	 * raw display values computed by the last solve.
+	 */
+	PipePowerSolver.Network network;
+	int networkIndex;
+	double[] networkInput = new double[6];
+	float[] networkDisplay = new float[6];
+
+	/**
+	 * A pipe that has held, carried and been asked no energy for
+	 * DORMANT_DELAY ticks, and has told clients so, goes dormant and skips
+	 * its updates. It wakes up when energy is given to it or requested from
+	 * it, or when a neighbor changes. Machines around a dormant pipe are
+	 * still asked for their requests every DORMANT_POLL_TICKS.
+	 */
+	private boolean dormant = false;
+	private int idleTicks = 0;
+	private boolean idleSynced = false;
+	private int pollOffset;
+
 	private SafeTimeTracker tracker = new SafeTimeTracker(2 * BuildCraftCore.updateFactor);
 
 	public PipeTransportPower() {
@@ -76,6 +118,8 @@ public class PipeTransportPower extends PipeTransport {
 		for (int i = 0; i < 3; ++i) {
 			movementStage[i] = (float) Math.random();
 		}
+
+		pollOffset = (int) (Math.random() * DORMANT_POLL_TICKS);
 	}
 
 	@Override
@@ -123,9 +167,24 @@ public class PipeTransportPower extends PipeTransport {
 	public void onNeighborBlockChange(int blockId) {
 		super.onNeighborBlockChange(blockId);
 		updateTiles();
+		wakeUp();
+
+		if (BuildCraftTransport.powerNetworks) {
+			PipePowerSolver.markDirty(this);
+		}
+	}
+
+	@Override
+	public void onNeighborTileChange(ForgeDirection side) {
+		batteryResolved[side.ordinal()] = false;
+		batteries[side.ordinal()] = null;
+		wakeUp();
 	}
 
 	private void updateTiles() {
+		Arrays.fill(batteryResolved, false);
+		Arrays.fill(batteries, null);
+
 		for (ForgeDirection side : ForgeDirection.VALID_DIRECTIONS) {
 			TileEntity tile = container.getTile(side);
 			if (container.isPipeConnected(side)) {
@@ -159,10 +218,27 @@ public class PipeTransportPower extends PipeTransport {
 			return;
 		}
 
+		if (dormant) {
+			if ((container.getWorldObj().getTotalWorldTime() + pollOffset) % DORMANT_POLL_TICKS != 0
+					|| !hasMachineRequest()) {
+				DormancyStats.report(container.getWorldObj(), DormancyStats.Kind.PIPE, true);
+				return;
+			}
+
+			wakeUp();
+		}
+
+		DormancyStats.report(container.getWorldObj(), DormancyStats.Kind.PIPE, false);
+
 		step();
 
 		init();
 
+		if (BuildCraftTransport.powerNetworks) {
+			updateNetworked();
+			return;
+		}
+
 		// Send the power to nearby pipes who requested it
 
 		System.arraycopy(displayPower, 0, prevDisplayPower, 0, 6);
@@ -177,12 +253,8 @@ public class PipeTransportPower extends PipeTransport {
 			totalPowerContained += internalPower[in];
 		}
 
-		double totalPowerQuery = 0;
-
 		for (int out = 0; out < 6; ++out) {
-			if (internalPower[out] == 0) {
-				totalPowerQuery += powerQuery[out];
-			}
+			powerWeights[out] = internalPower[out] == 0 ? powerQuery[out] : 0;
 		}
 
 		// STEP 2 - sends the power to all directions and computes the actual
@@ -191,11 +263,13 @@ public class PipeTransportPower extends PipeTransport {
 		double totalPowerConsumed = 0;
 
 		if (totalPowerContained > 0) {
+			FixedPointEnergy.split(totalPowerContained, powerWeights, powerShares);
+
 			for (int out = 0; out < 6; ++out) {
 				externalPower[out] = 0;
 
 				if (powerQuery[out] > 0 && internalPower[out] == 0) {
-					double powerConsumed = powerQuery[out] / totalPowerQuery * totalPowerContained;
+					double powerConsumed = powerShares[out];
 					boolean tilePowered = false;
 
 					if (tiles[out] instanceof TileGenericPipe) {
@@ -208,8 +282,7 @@ public class PipeTransportPower extends PipeTransport {
 								powerConsumed);
 						tilePowered = true;
 					} else {
-						IBatteryObject battery = MjAPI.getMjBattery(tiles[out], MjAPI.DEFAULT_POWER_FRAMEWORK,
-								ForgeDirection.VALID_DIRECTIONS[out].getOpposite());
+						IBatteryObject battery = getBatteryOnSide(ForgeDirection.VALID_DIRECTIONS[out]);
 
 						if (battery != null) {
 							// Transmit power to the simplified power framework
@@ -248,28 +321,7 @@ public class PipeTransportPower extends PipeTransport {
 			}
 		}
 
-		// NEXT STEPS... other things to do...
-
-		highestPower = 0;
-		for (int i = 0; i < 6; i++) {
-			displayPower[i] = (prevDisplayPower[i] * (DISPLAY_SMOOTHING - 1.0F) + displayPower[i]) / DISPLAY_SMOOTHING;
-
-			if (displayPower[i] > highestPower) {
-				highestPower = displayPower[i];
-			}
-
-			if (displayPower[i] < 0.01) {
-				displayPower[i] = 0;
-			}
-		}
-
-		overload += highestPower > maxPower * 0.95 ? 1 : -1;
-		if (overload < 0) {
-			overload = 0;
-		}
-		if (overload > OVERLOAD_TICKS) {
-			overload = OVERLOAD_TICKS;
-		}
+		updateDisplay();
 
 		// Compute the tiles requesting energy that are not power pipes
 
@@ -287,7 +339,7 @@ public class PipeTransportPower extends PipeTransport {
 				}
 
 				if (tile != null) {
-					IBatteryObject battery = MjAPI.getMjBattery(tile, MjAPI.DEFAULT_POWER_FRAMEWORK, dir.getOpposite());
+					IBatteryObject battery = getBatteryOnSide(dir);
 
 					if (battery != null) {
 						requestEnergy(dir, battery.getEnergyRequested());
@@ -333,6 +385,112 @@ public class PipeTransportPower extends PipeTransport {
 			}
 		}
 
+		sendDisplayPacket();
+
+		updateDormancy(isEmpty(internalPower) && isEmpty(internalNextPower)
+				&& isEmpty(powerQuery) && isEmpty(nextPowerQuery));
+	}
+
+	private void updateNetworked() {
+		if (network == null || network.discarded) {
+			PipePowerSolver.markDirty(this);
+		}
+
+		System.arraycopy(displayPower, 0, prevDisplayPower, 0, 6);
+		System.arraycopy(networkDisplay, 0, displayPower, 0, 6);
+		Arrays.fill(networkDisplay, 0.0F);
+
+		updateDisplay();
+		sendDisplayPacket();
+
+		updateDormancy(network != null && !network.discarded && isEmpty(networkInput));
+	}
+
+	private void updateDormancy(boolean idle) {
+		if (!idle || !BuildCraftCore.dormantPowerTiles || overload > 0 || highestPower > 0) {
+			idleTicks = 0;
+			idleSynced = false;
+			return;
+		}
+
+		if (idleTicks < DORMANT_DELAY) {
+			idleTicks++;
+		} else if (idleSynced) {
+			dormant = true;
+		}
+	}
+
+	/**
+	 * Brings a dormant pipe back to its normal update.
+	 */
+	void wakeUp() {
+		dormant = false;
+		idleTicks = 0;
+		idleSynced = false;
+	}
+
+	public boolean isDormant() {
+		return dormant;
+	}
+
+	private boolean hasMachineRequest() {
+		for (ForgeDirection side : ForgeDirection.VALID_DIRECTIONS) {
+			TileEntity tile = tiles[side.ordinal()];
+
+			if (tile == null || tile instanceof TileGenericPipe) {
+				continue;
+			}
+
+			IBatteryObject battery = getBatteryOnSide(side);
+
+			if (battery != null && battery.getEnergyRequested() > 0) {
+				return true;
+			}
+
+			PowerReceiver prov = getReceiverOnSide(side);
+
+			if (prov != null && prov.powerRequest() > 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean isEmpty(double[] values) {
+		for (double d : values) {
+			if (d != 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private void updateDisplay() {
+		highestPower = 0;
+		for (int i = 0; i < 6; i++) {
+			displayPower[i] = (prevDisplayPower[i] * (DISPLAY_SMOOTHING - 1.0F) + displayPower[i]) / DISPLAY_SMOOTHING;
+
+			if (displayPower[i] > highestPower) {
+				highestPower = displayPower[i];
+			}
+
+			if (displayPower[i] < 0.01) {
+				displayPower[i] = 0;
+			}
+		}
+
+		overload += highestPower > maxPower * 0.95 ? 1 : -1;
+		if (overload < 0) {
+			overload = 0;
+		}
+		if (overload > OVERLOAD_TICKS) {
+			overload = OVERLOAD_TICKS;
+		}
+	}
+
+	private void sendDisplayPacket() {
 		if (tracker.markTimeIfDelay(container.getWorldObj())) {
 			PacketPowerUpdate packet = new PacketPowerUpdate(container.xCoord, container.yCoord, container.zCoord);
 
@@ -343,10 +501,111 @@ public class PipeTransportPower extends PipeTransport {
 
 			packet.displayPower = clientDisplayPower;
 			packet.overload = isOverloaded();
+			idleSynced = highestPower == 0 && overload == 0;
 			BuildCraftTransport.instance.sendToPlayers(packet, container.getWorldObj(), container.xCoord, container.yCoord, container.zCoord, DefaultProps.PIPE_CONTENTS_RENDER_DIST);
 		}
 	}
 
+	/**
+	 * Returns how much energy the machine on that side asks to this pipe, as
+	 * seen by the network solver.
+	 */
+	double getNetworkRequest(ForgeDirection side) {
+		TileEntity tile = tiles[side.ordinal()];
+
+		if (tile == null || tile instanceof TileGenericPipe || container.pipe.isClosed()) {
+			return 0;
+		}
+
+		double request = 0;
+		IBatteryObject battery = getBatteryOnSide(side);
+
+		if (battery != null) {
+			request = battery.getEnergyRequested();
+		} else {
+			PowerReceiver prov = getReceiverOnSide(side);
+
+			if (prov != null) {
+				request = prov.powerRequest();
+			}
+		}
+
+		if (request <= 0) {
+			return 0;
+		}
+
+		if (this.container.pipe instanceof IPipeTransportPowerHook) {
+			request = ((IPipeTransportPowerHook) this.container.pipe).requestEnergy(side, request);
+		}
+
+		return Math.min(request, maxPower);
+	}
+
+	/**
+	 * Gives energy from the network to the machine on that side, and returns
+	 * how much it took.
+	 */
+	double deliverNetworkEnergy(ForgeDirection side, double amount) {
+		double accepted = 0;
+		IBatteryObject battery = getBatteryOnSide(side);
+
+		if (battery != null) {
+			accepted = battery.addEnergy(amount);
+		} else {
+			PowerReceiver prov = getReceiverOnSide(side);
+
+			if (prov != null) {
+				accepted = prov.receiveEnergy(Type.PIPE, amount, side.getOpposite());
+			}
+		}
+
+		if (accepted > 0) {
+			wakeUp();
+		}
+
+		networkDisplay[side.ordinal()] += accepted;
+		return accepted;
+	}
+
+	private IBatteryObject getBatteryOnSide(ForgeDirection side) {
+		int i = side.ordinal();
+		TileEntity tile = tiles[i];
+
+		if (tile == null) {
+			return null;
+		}
+
+		if (batteryGeneration != MjAPI.getCacheGeneration()) {
+			batteryGeneration = MjAPI.getCacheGeneration();
+			Arrays.fill(batteryResolved, false);
+			Arrays.fill(batteries, null);
+		}
+
+		if (batteryResolved[i] && !tile.isInvalid()) {
+			batteryCacheHits++;
+			return batteries[i];
+		}
+
+		batteryCacheMisses++;
+
+		IBatteryObject battery = MjAPI.getMjBattery(tile, MjAPI.DEFAULT_POWER_FRAMEWORK, side.getOpposite());
+
+		if (battery == null || MjAPI.isCacheable(battery)) {
+			batteries[i] = battery;
+			batteryResolved[i] = true;
+		}
+
+		return battery;
+	}
+
+	public static long getBatteryCacheHits() {
+		return batteryCacheHits;
+	}
+
+	public static long getBatteryCacheMisses() {
+		return batteryCacheMisses;
+	}
+
 	private PowerReceiver getReceiverOnSide(ForgeDirection side) {
 		TileEntity tile = tiles[side.ordinal()];
 		if (!(tile instanceof IPowerReceptor)) {
@@ -393,6 +652,11 @@ public class PipeTransportPower extends PipeTransport {
 	public double receiveEnergy(ForgeDirection from, double valI) {
 		double val = valI;
 		step();
+
+		if (val > 0) {
+			wakeUp();
+		}
+
 		if (this.container.pipe instanceof IPipeTransportPowerHook) {
 			double ret = ((IPipeTransportPowerHook) this.container.pipe).receiveEnergy(from, val);
 			if (ret >= 0) {
@@ -400,6 +664,15 @@ public class PipeTransportPower extends PipeTransport {
 			}
 		}
 		int side = from.ordinal();
+
+		if (BuildCraftTransport.powerNetworks) {
+			return receiveNetworkEnergy(side, val);
+		}
+
+		if (FixedPointEnergy.enabled) {
+			return receiveEnergyFixed(side, val);
+		}
+
 		if (internalNextPower[side] > maxPower) {
 			return 0;
 		}
@@ -417,9 +690,45 @@ public class PipeTransportPower extends PipeTransport {
 		return val;
 	}
 
+	private double receiveEnergyFixed(int side, double val) {
+		long stored = FixedPointEnergy.toMicro(internalNextPower[side]);
+		long accepted = Math.min(FixedPointEnergy.toMicro(val), FixedPointEnergy.toMicro(maxPower) - stored);
+
+		if (accepted <= 0) {
+			return 0;
+		}
+
+		internalNextPower[side] = FixedPointEnergy.toMj(stored + accepted);
+
+		return FixedPointEnergy.toMj(accepted);
+	}
+
+	private double receiveNetworkEnergy(int side, double val) {
+		if (network == null || network.discarded) {
+			if (PipePowerSolver.attach(this) == null) {
+				return 0;
+			}
+		}
+
+		double accepted = FixedPointEnergy.quantize(Math.min(val, Math.min(network.budget, maxPower - networkInput[side])));
+
+		if (accepted <= 0) {
+			return 0;
+		}
+
+		networkInput[side] += accepted;
+		network.budget -= accepted;
+
+		return accepted;
+	}
+
 	public void requestEnergy(ForgeDirection from, double amount) {
 		step();
 
+		if (amount > 0) {
+			wakeUp();
+		}
+
 		if (!container.pipe.isClosed()) {
 			if (this.container.pipe instanceof IPipeTransportPowerHook) {
 				nextPowerQuery[from.ordinal()] += ((IPipeTransportPowerHook) this.container.pipe).requestEnergy(from,
@@ -444,6 +753,17 @@ public class PipeTransportPower extends PipeTransport {
 			nextPowerQuery[i] = nbttagcompound.getDouble("nextPowerQuery[" + i + "]");
 			internalPower[i] = (float) nbttagcompound.getDouble("internalPower[" + i + "]");
 			internalNextPower[i] = (float) nbttagcompound.getDouble("internalNextPower[" + i + "]");
+
+			// Energy accepted by a network but not routed yet. It is routed
+			// again once the pipe joins a network, or moves on pipe by pipe
+			// if power networks were turned off in between.
+			double input = nbttagcompound.getDouble("networkInput[" + i + "]");
+
+			if (BuildCraftTransport.powerNetworks) {
+				networkInput[i] = input;
+			} else {
+				internalNextPower[i] += input;
+			}
 		}
 
 	}
@@ -457,6 +777,7 @@ public class PipeTransportPower extends PipeTransport {
 			nbttagcompound.setDouble("nextPowerQuery[" + i + "]", nextPowerQuery[i]);
 			nbttagcompound.setDouble("internalPower[" + i + "]", internalPower[i]);
 			nbttagcompound.setDouble("internalNextPower[" + i + "]", internalNextPower[i]);
+			nbttagcompound.setDouble("networkInput[" + i + "]", networkInput[i]);
 		}
 	}
 
@@ -500,6 +821,9 @@ public class PipeTransportPower extends PipeTransport {
 		for (double d : internalNextPower) {
 			amount += d;
 		}
+		for (double d : networkInput) {
+			amount += d;
+		}
 		return amount;
 	}
 
@@ -536,6 +860,10 @@ public class PipeTransportPower extends PipeTransport {
 	}
 
 	public boolean isQueryingPower() {
+		if (BuildCraftTransport.powerNetworks) {
+			return network != null && !network.discarded && network.budget > 1e-4;
+		}
+
 		for (double d : powerQuery) {
 			if (d > 1e-4) {
 				return true;
@@ -0,0 +1,342 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.transport;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.World;
+
+import net.minecraftforge.common.util.ForgeDirection;
+
+import buildcraft.api.gates.TriggerDependency;
+import buildcraft.api.transport.PipeWire;
+
+/**
+ * Computes the signal strength of pipe wires on the server.
+ *
+ * The pipes wired with a given color are grouped into networks, one per
+ * connected set of wires. Changes to a pipe (wire added or removed, gate
+ * broadcast changed, neighbor changed) only mark its network dirty. Once per
+ * world tick, each dirty network is walked again, which splits or merges it
+ * as needed, and its signal strengths are solved with one breadth-first pass
+ * starting from all the broadcasting pipes. Signal strength is 255 on a
+ * broadcasting pipe and decreases by one per pipe, as before. Only the pipes
+ * whose strength changed are updated.
+ *
+ * Pipes in unloading chunks are not scheduled. They are left in their network
+ * until it is walked again, which drops them as they no longer exist.
+ */
+public final class PipeWireSolver {
+
+	public static final int MAX_SIGNAL = 255;
+
+	private static final int SIDES = ForgeDirection.VALID_DIRECTIONS.length;
+
+	private static final Map<World, PipeWireSolver> solvers = new WeakHashMap<World, PipeWireSolver>();
+
+	private static long networksSolved = 0;
+	private static long pipesVisited = 0;
+	private static long pipesChanged = 0;
+	private static long solveNanos = 0;
+	private static long lastSolveNanos = 0;
+	private static int largestNetwork = 0;
+
+	@SuppressWarnings("unchecked")
+	private final Set<Network>[] dirtyNetworks = new Set[PipeWire.VALUES.length];
+	@SuppressWarnings("unchecked")
+	private final Set<Pipe<?>>[] dirtyPipes = new Set[PipeWire.VALUES.length];
+
+	private int pass = 0;
+
+	/**
+	 * The pipes of one connected set of wires of one color, along with the
+	 * wire connections between them.
+	 */
+	static final class Network {
+
+		final ArrayList<Pipe<?>> pipes = new ArrayList<Pipe<?>>();
+		int pass;
+		boolean discarded;
+
+		/**
+		 * Index in pipes of the neighbor on each side of each pipe, -1 if
+		 * there is no wire connection on that side.
+		 */
+		int[] links = new int[0];
+	}
+
+	private PipeWireSolver() {
+		for (int i = 0; i < PipeWire.VALUES.length; ++i) {
+			dirtyNetworks[i] = new LinkedHashSet<Network>();
+			dirtyPipes[i] = new LinkedHashSet<Pipe<?>>();
+		}
+	}
+
+	private static synchronized PipeWireSolver get(World world) {
+		PipeWireSolver solver = solvers.get(world);
+
+		if (solver == null) {
+			solver = new PipeWireSolver();
+			solvers.put(world, solver);
+		}
+
+		return solver;
+	}
+
+	/**
+	 * Drops the networks scheduled for a world being unloaded.
+	 */
+	public static synchronized void unloadWorld(World world) {
+		solvers.remove(world);
+	}
+
+	/**
+	 * Schedules the signal of that color to be solved again, at the end of
+	 * the tick, on the wire network of the pipe.
+	 */
+	public static void markDirty(Pipe<?> pipe, PipeWire color) {
+		if (pipe.container == null || pipe.container.getWorldObj() == null || pipe.container.getWorldObj().isRemote) {
+			return;
+		}
+
+		PipeWireSolver solver = get(pipe.container.getWorldObj());
+		Network network = pipe.wireNetworks[color.ordinal()];
+
+		if (network != null && !network.discarded) {
+			solver.dirtyNetworks[color.ordinal()].add(network);
+		} else {
+			solver.dirtyPipes[color.ordinal()].add(pipe);
+		}
+	}
+
+	public static void tickWorld(World world) {
+		PipeWireSolver solver;
+
+		synchronized (PipeWireSolver.class) {
+			solver = solvers.get(world);
+		}
+
+		if (solver != null) {
+			solver.solve();
+		}
+	}
+
+	public static long getNetworksSolved() {
+		return networksSolved;
+	}
+
+	public static long getPipesVisited() {
+		return pipesVisited;
+	}
+
+	public static long getPipesChanged() {
+		return pipesChanged;
+	}
+
+	public static long getSolveNanos() {
+		return solveNanos;
+	}
+
+	public static long getLastSolveNanos() {
+		return lastSolveNanos;
+	}
+
+	public static int getLargestNetwork() {
+		return largestNetwork;
+	}
+
+	private void solve() {
+		long start = System.nanoTime();
+		boolean solvedAny = false;
+
+		for (PipeWire color : PipeWire.VALUES) {
+			int c = color.ordinal();
+
+			if (dirtyNetworks[c].isEmpty() && dirtyPipes[c].isEmpty()) {
+				continue;
+			}
+
+			solvedAny = true;
+			pass++;
+
+			ArrayList<Pipe<?>> seeds = new ArrayList<Pipe<?>>(dirtyPipes[c]);
+			dirtyPipes[c].clear();
+
+			for (Network network : dirtyNetworks[c]) {
+				if (!network.discarded) {
+					network.discarded = true;
+					seeds.addAll(network.pipes);
+				}
+			}
+
+			dirtyNetworks[c].clear();
+
+			for (Pipe<?> seed : seeds) {
+				Network current = seed.wireNetworks[c];
+
+				if (current != null && current.pass == pass && !current.discarded) {
+					continue;
+				}
+
+				if (!isMember(seed, color)) {
+					seed.wireNetworks[c] = null;
+					setSignal(seed, c, 0);
+					continue;
+				}
+
+				Network network = build(seed, color);
+				solveNetwork(network, c);
+			}
+		}
+
+		if (solvedAny) {
+			lastSolveNanos = System.nanoTime() - start;
+			solveNanos += lastSolveNanos;
+		}
+	}
+
+	private static boolean isMember(Pipe<?> pipe, PipeWire color) {
+		TileGenericPipe tile = pipe.container;
+
+		return tile != null && !tile.isInvalid() && tile.getWorldObj() != null
+				&& tile.getWorldObj().blockExists(tile.xCoord, tile.yCoord, tile.zCoord)
+				&& tile.pipe == pipe && pipe.wireSet[color.ordinal()];
+	}
+
+	/**
+	 * Walks the wires connected to seed, and gathers the pipes found in a new
+	 * network. The networks these pipes belonged to are discarded.
+	 */
+	private Network build(Pipe<?> seed, PipeWire color) {
+		int c = color.ordinal();
+		Network network = new Network();
+		network.pass = pass;
+
+		add(network, seed, c);
+
+		int[] links = new int[SIDES * 16];
+
+		for (int i = 0; i < network.pipes.size(); ++i) {
+			Pipe<?> pipe = network.pipes.get(i);
+
+			if (links.length < (i + 1) * SIDES) {
+				int[] newLinks = new int[links.length * 2];
+				System.arraycopy(links, 0, newLinks, 0, i * SIDES);
+				links = newLinks;
+			}
+
+			for (int side = 0; side < SIDES; ++side) {
+				links[i * SIDES + side] = -1;
+
+				TileEntity tile = pipe.container.getTile(ForgeDirection.VALID_DIRECTIONS[side]);
+
+				if (!(tile instanceof TileGenericPipe) || tile.isInvalid() || !pipe.isWireConnectedTo(tile, color)) {
+					continue;
+				}
+
+				Pipe<?> other = ((TileGenericPipe) tile).pipe;
+				Network otherNetwork = other.wireNetworks[c];
+
+				if (otherNetwork != network) {
+					add(network, other, c);
+				}
+
+				links[i * SIDES + side] = other.wireIndex[c];
+			}
+		}
+
+		network.links = links;
+		pipesVisited += network.pipes.size();
+		largestNetwork = Math.max(largestNetwork, network.pipes.size());
+
+		return network;
+	}
+
+	private static void add(Network network, Pipe<?> pipe, int c) {
+		Network previous = pipe.wireNetworks[c];
+
+		if (previous != null && previous != network) {
+			previous.discarded = true;
+		}
+
+		pipe.wireNetworks[c] = network;
+		pipe.wireIndex[c] = network.pipes.size();
+		network.pipes.add(pipe);
+	}
+
+	private static void solveNetwork(Network network, int c) {
+		int size = network.pipes.size();
+		int[] strength = new int[size];
+		int[] queue = new int[size];
+		int head = 0;
+		int tail = 0;
+
+		for (int i = 0; i < size; ++i) {
+			if (isBroadcasting(network.pipes.get(i), c)) {
+				strength[i] = MAX_SIGNAL;
+				queue[tail++] = i;
+			}
+		}
+
+		while (head < tail) {
+			int i = queue[head++];
+			int next = strength[i] - 1;
+
+			if (next <= 0) {
+				continue;
+			}
+
+			for (int side = 0; side < SIDES; ++side) {
+				int j = network.links[i * SIDES + side];
+
+				if (j >= 0 && strength[j] == 0) {
+					strength[j] = next;
+					queue[tail++] = j;
+				}
+			}
+		}
+
+		for (int i = 0; i < size; ++i) {
+			setSignal(network.pipes.get(i), c, strength[i]);
+		}
+
+		networksSolved++;
+	}
+
+	private static boolean isBroadcasting(Pipe<?> pipe, int c) {
+		for (Gate gate : pipe.gates) {
+			if (gate != null && gate.broadcastSignal.get(c)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static void setSignal(Pipe<?> pipe, int c, int signal) {
+		int oldSignal = pipe.signalStrength[c];
+
+		if (oldSignal == signal) {
+			return;
+		}
+
+		pipe.signalStrength[c] = signal;
+		pipesChanged++;
+		pipe.notifyGates(TriggerDependency.WIRE);
+
+		if ((oldSignal == 0) != (signal == 0) && pipe.container != null) {
+			pipe.container.scheduleRenderUpdate();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.transport;
+
+import net.minecraftforge.event.world.WorldEvent;
+
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import cpw.mods.fml.common.gameevent.TickEvent.Phase;
+import cpw.mods.fml.common.gameevent.TickEvent.WorldTickEvent;
+import cpw.mods.fml.common.network.FMLNetworkEvent.ClientDisconnectionFromServerEvent;
+
+import buildcraft.BuildCraftTransport;
+import buildcraft.transport.network.FluidPacketBatcher;
+import buildcraft.transport.network.PacketPipeTransportTravelerBatch;
+import buildcraft.transport.network.TravelerPacketBatcher;
+
+public class TickHandlerTransport {
+
+	@SubscribeEvent
+	public void worldTick(WorldTickEvent evt) {
+		if (evt.phase != Phase.END || evt.world.isRemote) {
+			return;
+		}
+
+		if (BuildCraftTransport.batchedItemTransit) {
+			ItemTransitBatch.tickWorld(evt.world);
+		}
+
+		PipeWireSolver.tickWorld(evt.world);
+
+		if (BuildCraftTransport.powerNetworks) {
+			PipePowerSolver.tickWorld(evt.world);
+		}
+
+		if (BuildCraftTransport.fluidNetworks) {
+			PipeFluidSolver.tickWorld(evt.world);
+		}
+
+		// Always flushed, so that nothing is left behind if the option is
+		// turned off while updates are queued.
+		TravelerPacketBatcher.flushWorld(evt.world);
+		FluidPacketBatcher.flushWorld(evt.world);
+	}
+
+	/**
+	 * Drops everything kept for a world being unloaded. This handler is
+	 * registered on both the FML and the Forge event buses for that.
+	 */
+	@SubscribeEvent
+	public void worldUnload(WorldEvent.Unload evt) {
+		ItemTransitBatch.unloadWorld(evt.world);
+		PipeFluidSolver.unloadWorld(evt.world);
+		PipePowerSolver.unloadWorld(evt.world);
+		PipeWireSolver.unloadWorld(evt.world);
+		GateStats.unloadWorld(evt.world);
+		TravelerPacketBatcher.unloadWorld(evt.world);
+		FluidPacketBatcher.unloadWorld(evt.world);
+	}
+
+	@SubscribeEvent
+	public void clientDisconnected(ClientDisconnectionFromServerEvent evt) {
+		PacketPipeTransportTravelerBatch.clearClientStacks();
+	}
+}
@@ -17,6 +17,8 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.ForwardingSet;
 import com.google.common.collect.HashBiMap;
 
+import net.minecraft.item.ItemStack;
+
 public class TravelerSet extends ForwardingSet<TravelingItem> {
 
 	public boolean iterating;
@@ -26,6 +28,7 @@ public class TravelerSet extends ForwardingSet<TravelingItem> {
 	private final Set<TravelingItem> toAdd = new HashSet<TravelingItem>();
 	private final Set<TravelingItem> toRemove = new HashSet<TravelingItem>();
 	private int delay = 0;
+	private int itemCount = 0;
 	private final PipeTransportItems transport;
 
 	public TravelerSet(PipeTransportItems transport) {
@@ -47,6 +50,20 @@ public class TravelerSet extends ForwardingSet<TravelingItem> {
 		}
 		item.setContainer(transport.container);
 		items.put(item.id, item);
+
+		if (item.countedBy != null) {
+			item.countedBy.uncount(item);
+		}
+
+		item.countedBy = this;
+		item.countedStackSize = getStackSize(item);
+		itemCount += item.countedStackSize;
+
+		ItemTransitBatch batch = transport.getTransitBatch();
+		if (batch != null) {
+			batch.add(transport, item);
+		}
+
 		return true;
 	}
 
@@ -63,7 +80,11 @@ public class TravelerSet extends ForwardingSet<TravelingItem> {
 		if (iterating) {
 			return toRemove.add((TravelingItem) object);
 		}
-		return delegate().remove(object);
+		if (object instanceof TravelingItem && items.inverse().remove(object) != null) {
+			detach((TravelingItem) object);
+			return true;
+		}
+		return false;
 	}
 
 	@Override
@@ -80,6 +101,34 @@ public class TravelerSet extends ForwardingSet<TravelingItem> {
 		return items.get(id);
 	}
 
+	/**
+	 * Returns the total stack size of all items in this set. This is kept up
+	 * to date incrementally: code that changes the stack size of an item
+	 * already in the set must call updateItemCount.
+	 */
+	public int getItemCount() {
+		return itemCount;
+	}
+
+	/**
+	 * Accounts for a change of the stack size, or of the stack, of an item of
+	 * this set.
+	 */
+	public void updateItemCount(TravelingItem item) {
+		if (item.countedBy != this || items.get(item.id) != item) {
+			return;
+		}
+
+		int size = getStackSize(item);
+		itemCount += size - item.countedStackSize;
+		item.countedStackSize = size;
+	}
+
+	private static int getStackSize(TravelingItem item) {
+		ItemStack stack = item.getItemStack();
+		return stack != null && stack.stackSize > 0 ? stack.stackSize : 0;
+	}
+
 	void scheduleLoad(TravelingItem item) {
 		delay = 10;
 		toLoad.add(item);
@@ -100,24 +149,58 @@ public class TravelerSet extends ForwardingSet<TravelingItem> {
 	}
 
 	public boolean scheduleRemoval(TravelingItem item) {
+		removeFromBatch(item);
 		return toRemove.add(item);
 	}
 
 	public boolean unscheduleRemoval(TravelingItem item) {
-		return toRemove.remove(item);
+		boolean removed = toRemove.remove(item);
+
+		ItemTransitBatch batch = transport.getTransitBatch();
+		if (removed && batch != null && items.containsValue(item)) {
+			batch.add(transport, item);
+		}
+
+		return removed;
 	}
 
 	void removeScheduledItems() {
-		items.values().removeAll(toRemove);
+		for (TravelingItem item : toRemove) {
+			if (items.inverse().remove(item) != null) {
+				detach(item);
+			}
+		}
 		toRemove.clear();
 	}
 
+	private void detach(TravelingItem item) {
+		if (item.countedBy == this) {
+			uncount(item);
+		}
+
+		removeFromBatch(item);
+	}
+
+	private void uncount(TravelingItem item) {
+		itemCount -= item.countedStackSize;
+		item.countedBy = null;
+		item.countedStackSize = 0;
+	}
+
+	private void removeFromBatch(TravelingItem item) {
+		ItemTransitBatch batch = transport.getTransitBatch();
+		if (batch != null) {
+			batch.remove(transport, item);
+		}
+	}
+
 	void purgeCorruptedItems() {
 		Iterator<TravelingItem> it = items.values().iterator();
 		while (it.hasNext()) {
 			TravelingItem item = it.next();
 			if (item.isCorrupted()) {
 				it.remove();
+				detach(item);
 			}
 		}
 	}
@@ -138,7 +221,16 @@ public class TravelerSet extends ForwardingSet<TravelingItem> {
 		if (iterating) {
 			toRemove.addAll(this);
 		} else {
+			for (TravelingItem item : items.values()) {
+				if (item.countedBy == this) {
+					item.countedBy = null;
+					item.countedStackSize = 0;
+				}
+
+				removeFromBatch(item);
+			}
 			items.clear();
+			itemCount = 0;
 		}
 	}
 }
@@ -8,11 +8,14 @@
  */
 package buildcraft.transport;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
-import com.google.common.collect.MapMaker;
-
 import net.minecraft.entity.item.EntityItem;
 import net.minecraft.inventory.IInventory;
 import net.minecraft.item.ItemStack;
@@ -35,7 +38,6 @@ public class TravelingItem {
 	public static final TravelingItemCache serverCache = new TravelingItemCache();
 	public static final TravelingItemCache clientCache = new TravelingItemCache();
 	public static final InsertionHandler DEFAULT_INSERTION_HANDLER = new InsertionHandler();
-	private static int maxId = 0;
 
 	public final EnumSet<ForgeDirection> blacklist = EnumSet.noneOf(ForgeDirection.class);
 
@@ -53,6 +55,19 @@ public class TravelingItem {
 	protected NBTTagCompound extraData;
 	protected InsertionHandler insertionHandler = DEFAULT_INSERTION_HANDLER;
 
+	/**
+	 * Slot of this item in the ItemTransitBatch of its world, or -1.
+	 */
+	int transitSlot = -1;
+
+	/**
+	 * The TravelerSet whose item count includes this item, and the stack
+	 * size it contributes to that count. An item handed to the next pipe is
+	 * briefly in two sets, but only counted by the one it was handed to.
+	 */
+	TravelerSet countedBy;
+	int countedStackSize = 0;
+
 	/* CONSTRUCTORS */
 	protected TravelingItem(int id) {
 		this.id = id;
@@ -65,7 +80,7 @@ public class TravelingItem {
 	}
 
 	public static TravelingItem make() {
-		return make(maxId < Short.MAX_VALUE ? ++maxId : (maxId = Short.MIN_VALUE));
+		return make(getCache().allocateId());
 	}
 
 	public static TravelingItem make(double x, double y, double z, ItemStack stack) {
@@ -272,6 +287,35 @@ public class TravelingItem {
 		return StackHelper.canStacksMerge(itemStack, otherItem.itemStack);
 	}
 
+	/**
+	 * Returns true if this item could ever be grouped with another one, that
+	 * is to say if it carries no state that canBeGroupedWith refuses.
+	 */
+	public boolean isGroupable() {
+		return !hasExtraData() && insertionHandler == DEFAULT_INSERTION_HANDLER && !isCorrupted();
+	}
+
+	/**
+	 * Returns a hash of the properties compared by canBeGroupedWith. Two items
+	 * that can be grouped together always have the same grouping hash.
+	 */
+	public int getGroupingHash() {
+		int hash = 7;
+
+		hash = 31 * hash + itemStack.getItem().hashCode();
+		hash = 31 * hash + itemStack.getItemDamage();
+		hash = 31 * hash + (itemStack.stackTagCompound != null ? itemStack.stackTagCompound.hashCode() : 0);
+		hash = 31 * hash + (color != null ? color.ordinal() + 1 : 0);
+		hash = 31 * hash + output.ordinal();
+		hash = 31 * hash + (toCenter ? 1 : 0);
+
+		for (ForgeDirection dir : blacklist) {
+			hash = 31 * hash + dir.ordinal();
+		}
+
+		return hash;
+	}
+
 	public boolean tryMergeInto(TravelingItem otherItem) {
 		if (!canBeGroupedWith(otherItem)) {
 			return false;
@@ -318,16 +362,141 @@ public class TravelingItem {
 		}
 	}
 
+	/**
+	 * Keeps track of the items of one side by id, without keeping them alive.
+	 *
+	 * Ids handed out by allocateId are unique among the items still
+	 * referenced. The id of an item is reclaimed once the item has been
+	 * garbage collected, and reclaimed ids are only handed out again, oldest
+	 * first, once more than FREE_ID_DELAY of them are waiting. This leaves
+	 * clients plenty of time to forget about the previous owner of an id.
+	 */
 	public static class TravelingItemCache {
 
-		private final Map<Integer, TravelingItem> itemCache = new MapMaker().weakValues().makeMap();
+		private static final int FREE_ID_DELAY = 4096;
+
+		private final Map<Integer, ItemReference> itemCache = new HashMap<Integer, ItemReference>();
+		private final ReferenceQueue<TravelingItem> queue = new ReferenceQueue<TravelingItem>();
+		private final BitSet allocatedIds = new BitSet();
+
+		private int[] freeIds = new int[FREE_ID_DELAY * 2];
+		private int freeHead = 0;
+		private int freeCount = 0;
+		private int nextId = 0;
+		private long reclaimedIds = 0;
+
+		private static final class ItemReference extends WeakReference<TravelingItem> {
+
+			public final int id;
+
+			public ItemReference(TravelingItem item, ReferenceQueue<TravelingItem> queue) {
+				super(item, queue);
+				this.id = item.id;
+			}
+		}
+
+		public synchronized int allocateId() {
+			expunge();
+
+			int id;
+
+			if (freeCount > FREE_ID_DELAY || (nextId == Integer.MAX_VALUE && freeCount > 0)) {
+				id = freeIds[freeHead];
+				freeHead = (freeHead + 1) % freeIds.length;
+				freeCount--;
+			} else if (nextId < Integer.MAX_VALUE) {
+				id = nextId++;
+			} else {
+				throw new IllegalStateException("Out of traveling item ids");
+			}
+
+			allocatedIds.set(id);
+			return id;
+		}
+
+		public synchronized void cache(TravelingItem item) {
+			expunge();
+			itemCache.put(item.id, new ItemReference(item, queue));
+		}
+
+		public synchronized TravelingItem get(int id) {
+			ItemReference ref = itemCache.get(id);
+			return ref != null ? ref.get() : null;
+		}
+
+		/**
+		 * Returns the number of ids in the cache, including the ones of
+		 * collected items not reclaimed yet.
+		 */
+		public synchronized int size() {
+			expunge();
+			return itemCache.size();
+		}
+
+		/**
+		 * Returns the number of items in the cache that are still referenced.
+		 * This walks the whole cache, and is meant for diagnostics only.
+		 */
+		public synchronized int getLiveCount() {
+			int live = 0;
+
+			for (Iterator<ItemReference> it = itemCache.values().iterator(); it.hasNext();) {
+				if (it.next().get() != null) {
+					live++;
+				}
+			}
+
+			return live;
+		}
+
+		public synchronized int getFreeIdCount() {
+			return freeCount;
+		}
 
-		public void cache(TravelingItem item) {
-			itemCache.put(item.id, item);
+		public synchronized long getReclaimedIdCount() {
+			return reclaimedIds;
 		}
 
-		public TravelingItem get(int id) {
-			return itemCache.get(id);
+		/**
+		 * Returns the highest number of ids allocated at once so far.
+		 */
+		public synchronized int getIdHighWater() {
+			return nextId;
+		}
+
+		private void expunge() {
+			ItemReference ref;
+
+			while ((ref = (ItemReference) queue.poll()) != null) {
+				if (itemCache.get(ref.id) != ref) {
+					// The id was cached again since, e.g. on the client.
+					continue;
+				}
+
+				itemCache.remove(ref.id);
+
+				if (allocatedIds.get(ref.id)) {
+					allocatedIds.clear(ref.id);
+					freeId(ref.id);
+					reclaimedIds++;
+				}
+			}
+		}
+
+		private void freeId(int id) {
+			if (freeCount == freeIds.length) {
+				int[] newFreeIds = new int[freeIds.length * 2];
+
+				for (int i = 0; i < freeCount; ++i) {
+					newFreeIds[i] = freeIds[(freeHead + i) % freeIds.length];
+				}
+
+				freeIds = newFreeIds;
+				freeHead = 0;
+			}
+
+			freeIds[(freeHead + freeCount) % freeIds.length] = id;
+			freeCount++;
 		}
 	}
 }
@@ -18,6 +18,8 @@ import buildcraft.api.gates.IGate;
 import buildcraft.api.gates.IGateExpansion;
 import buildcraft.api.gates.ITrigger;
 import buildcraft.api.gates.ITriggerParameter;
+import buildcraft.api.gates.TriggerDependency;
+import buildcraft.transport.Gate;
 import buildcraft.transport.triggers.TriggerClockTimer;
 import buildcraft.transport.triggers.TriggerClockTimer.Time;
 
@@ -46,12 +48,19 @@ public final class GateExpansionTimer extends GateExpansionBuildcraft implements
 				this.time = time;
 			}
 
-			public void tick() {
+			/**
+			 * Returns true if the timer became active or inactive.
+			 */
+			public boolean tick() {
+				boolean wasActive = isActive();
+
 				if (clock > -ACTIVE_TIME) {
 					clock--;
 				} else {
 					clock = time.delay * 20 + ACTIVE_TIME;
 				}
+
+				return wasActive != isActive();
 			}
 
 			public boolean isActive() {
@@ -86,8 +95,14 @@ public final class GateExpansionTimer extends GateExpansionBuildcraft implements
 
 		@Override
 		public void tick(IGate gate) {
+			boolean changed = false;
+
 			for (Timer timer : timers) {
-				timer.tick();
+				changed |= timer.tick();
+			}
+
+			if (changed && gate instanceof Gate) {
+				((Gate) gate).onDependencyChange(TriggerDependency.EXPANSION);
 			}
 		}
 	}
@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.transport.gates;
+
+import buildcraft.api.gates.IAction;
+import buildcraft.api.gates.IActionParameter;
+import buildcraft.api.gates.ITrigger;
+import buildcraft.api.gates.ITriggerDependencies;
+import buildcraft.api.gates.ITriggerParameter;
+import buildcraft.api.gates.TriggerDependency;
+import buildcraft.transport.Gate;
+
+/**
+ * The statements of a gate, compiled when they are edited or loaded so that
+ * evaluating the gate only combines bitmasks.
+ *
+ * Statement slots are numbered as in the gate, and masks have one bit per
+ * slot. Slots whose actions are the same, with the same parameters, form one
+ * group, run once. A group is made of the slot of its first action and of
+ * all later slots with the same action. With AND logic, a group is active
+ * when the triggers of all of its slots are. With OR logic, it is active
+ * when the trigger of one of them is.
+ */
+public final class GatePlan {
+
+	/**
+	 * Set in the dependencies when a trigger does not declare what it
+	 * depends on, and has to be evaluated on every tick.
+	 */
+	public static final int POLLED = 1 << TriggerDependency.VALUES.length;
+
+	private final ITrigger[] triggers;
+	private final ITriggerParameter[][] triggerParameters;
+	private final int[] triggerSlots;
+
+	private final int[] groupMasks;
+	private final ActionSlot[] groupSlots;
+	private final int actionMask;
+
+	private final int dependencies;
+
+	public GatePlan(Gate gate) {
+		int triggerCount = 0;
+		int deps = 0;
+
+		for (ITrigger trigger : gate.triggers) {
+			if (trigger instanceof ITriggerDependencies) {
+				for (TriggerDependency dependency : ((ITriggerDependencies) trigger).getDependencies()) {
+					deps |= 1 << dependency.ordinal();
+				}
+			} else if (trigger != null) {
+				deps |= POLLED;
+			}
+
+			if (trigger != null) {
+				triggerCount++;
+			}
+		}
+
+		dependencies = deps;
+		triggers = new ITrigger[triggerCount];
+		triggerParameters = new ITriggerParameter[triggerCount][];
+		triggerSlots = new int[triggerCount];
+
+		for (int i = 0, t = 0; i < Gate.MAX_STATEMENTS; ++i) {
+			if (gate.triggers[i] != null) {
+				triggers[t] = gate.triggers[i];
+				triggerParameters[t] = gate.triggerParameters[i].clone();
+				triggerSlots[t] = i;
+				t++;
+			}
+		}
+
+		int[] masks = new int[Gate.MAX_STATEMENTS];
+		ActionSlot[] slots = new ActionSlot[Gate.MAX_STATEMENTS];
+		int groupCount = 0;
+		int actions = 0;
+		int grouped = 0;
+
+		for (int i = 0; i < Gate.MAX_STATEMENTS; ++i) {
+			IAction action = gate.actions[i];
+
+			if (action == null) {
+				continue;
+			}
+
+			actions |= 1 << i;
+
+			if ((grouped & (1 << i)) != 0) {
+				continue;
+			}
+
+			int mask = 1 << i;
+
+			for (int j = i + 1; j < Gate.MAX_STATEMENTS; ++j) {
+				if ((grouped & (1 << j)) == 0 && isSameAction(gate, i, j)) {
+					mask |= 1 << j;
+				}
+			}
+
+			grouped |= mask;
+
+			ActionSlot slot = new ActionSlot();
+			slot.action = action;
+			slot.parameters = gate.actionParameters[i].clone();
+
+			masks[groupCount] = mask;
+			slots[groupCount] = slot;
+			groupCount++;
+		}
+
+		actionMask = actions;
+		groupMasks = new int[groupCount];
+		groupSlots = new ActionSlot[groupCount];
+		System.arraycopy(masks, 0, groupMasks, 0, groupCount);
+		System.arraycopy(slots, 0, groupSlots, 0, groupCount);
+	}
+
+	private static boolean isSameAction(Gate gate, int i, int j) {
+		IAction a = gate.actions[i];
+		IAction b = gate.actions[j];
+
+		if (b == null || !a.getUniqueTag().equals(b.getUniqueTag())) {
+			return false;
+		}
+
+		for (int p = 0; p < Gate.MAX_PARAMETERS; ++p) {
+			IActionParameter pa = gate.actionParameters[i][p];
+			IActionParameter pb = gate.actionParameters[j][p];
+
+			if (pa == null ? pb != null : !pa.equals(pb)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	public int getTriggerCount() {
+		return triggers.length;
+	}
+
+	public ITrigger getTrigger(int index) {
+		return triggers[index];
+	}
+
+	public ITriggerParameter[] getTriggerParameters(int index) {
+		return triggerParameters[index];
+	}
+
+	/**
+	 * Returns the statement slot of the trigger at index.
+	 */
+	public int getTriggerSlot(int index) {
+		return triggerSlots[index];
+	}
+
+	public int getGroupCount() {
+		return groupMasks.length;
+	}
+
+	/**
+	 * Returns the mask of the slots of a group.
+	 */
+	public int getGroupMask(int group) {
+		return groupMasks[group];
+	}
+
+	/**
+	 * Returns the action of a group and its parameters.
+	 */
+	public ActionSlot getGroupSlot(int group) {
+		return groupSlots[group];
+	}
+
+	/**
+	 * Returns the mask of the slots that have an action.
+	 */
+	public int getActionMask() {
+		return actionMask;
+	}
+
+	/**
+	 * Returns the bits of the TriggerDependency values the triggers depend
+	 * on, and POLLED if one of them does not tell.
+	 */
+	public int getDependencies() {
+		return dependencies;
+	}
+}
@@ -0,0 +1,217 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.transport.network;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.util.LongHashMap;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+
+import net.minecraftforge.fluids.FluidStack;
+
+import buildcraft.BuildCraftTransport;
+
+/**
+ * Collects the fluid updates of one world during a tick, and sends each
+ * player a single PacketFluidUpdateBatch with the updates of the chunks it
+ * watches once the world tick is over.
+ *
+ * Updates are encoded as they are queued, into a buffer per chunk that is
+ * kept and reused from tick to tick, so that queuing an update allocates
+ * nothing and each chunk is encoded once whatever the number of players
+ * watching it.
+ */
+public final class FluidPacketBatcher {
+
+	/**
+	 * Batches are split past this many bytes, well below the size limit of
+	 * custom payload packets.
+	 */
+	private static final int MAX_PAYLOAD_SIZE = 24000;
+
+	/**
+	 * Chunks without updates for this many ticks have their buffer dropped.
+	 */
+	private static final int IDLE_FLUSHES = 100;
+
+	private static final Map<World, FluidPacketBatcher> batchers = new WeakHashMap<World, FluidPacketBatcher>();
+
+	private static long updatesQueued = 0;
+	private static long chunksSent = 0;
+	private static long packetsSent = 0;
+	private static long bytesSent = 0;
+
+	private final LongHashMap chunkMap = new LongHashMap();
+	private final ArrayList<ChunkBatch> chunks = new ArrayList<ChunkBatch>();
+	private ChunkBatch lastChunk;
+
+	private static final class ChunkBatch {
+
+		private final int chunkX;
+		private final int chunkZ;
+		private final ByteBuf entries = Unpooled.buffer();
+		private int count;
+		private int idleFlushes;
+
+		public ChunkBatch(int chunkX, int chunkZ) {
+			this.chunkX = chunkX;
+			this.chunkZ = chunkZ;
+		}
+	}
+
+	public static synchronized FluidPacketBatcher get(World world) {
+		FluidPacketBatcher batcher = batchers.get(world);
+
+		if (batcher == null) {
+			batcher = new FluidPacketBatcher();
+			batchers.put(world, batcher);
+		}
+
+		return batcher;
+	}
+
+	/**
+	 * Drops the updates queued for a world being unloaded.
+	 */
+	public static synchronized void unloadWorld(World world) {
+		batchers.remove(world);
+	}
+
+	public static void flushWorld(World world) {
+		FluidPacketBatcher batcher;
+
+		synchronized (FluidPacketBatcher.class) {
+			batcher = batchers.get(world);
+		}
+
+		if (batcher != null && world instanceof WorldServer) {
+			batcher.flush((WorldServer) world);
+		}
+	}
+
+	public static long getUpdatesQueued() {
+		return updatesQueued;
+	}
+
+	public static long getChunksSent() {
+		return chunksSent;
+	}
+
+	public static long getPacketsSent() {
+		return packetsSent;
+	}
+
+	public static long getBytesSent() {
+		return bytesSent;
+	}
+
+	/**
+	 * Queues the update of the pipe at x, y, z. The delta bits and caches
+	 * are those of PacketFluidUpdate, and are read right away.
+	 */
+	public void add(int x, int y, int z, int delta, FluidStack[] renderCache, int[] colorRenderCache) {
+		int chunkX = x >> 4;
+		int chunkZ = z >> 4;
+		ChunkBatch chunk = lastChunk;
+
+		if (chunk == null || chunk.chunkX != chunkX || chunk.chunkZ != chunkZ) {
+			long key = ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ);
+			chunk = (ChunkBatch) chunkMap.getValueByKey(key);
+
+			if (chunk == null) {
+				chunk = new ChunkBatch(chunkX, chunkZ);
+				chunkMap.add(key, chunk);
+				chunks.add(chunk);
+			}
+
+			lastChunk = chunk;
+		}
+
+		PacketFluidUpdateBatch.writeEntry(chunk.entries, x, y, z, delta, renderCache, colorRenderCache);
+		chunk.count++;
+		updatesQueued++;
+	}
+
+	private void flush(WorldServer world) {
+		boolean queued = false;
+
+		for (int i = 0; i < chunks.size(); ++i) {
+			if (chunks.get(i).count > 0) {
+				queued = true;
+				break;
+			}
+		}
+
+		if (queued) {
+			for (Object o : world.playerEntities) {
+				if (o instanceof EntityPlayerMP) {
+					flush(world, (EntityPlayerMP) o);
+				}
+			}
+		}
+
+		for (int i = chunks.size() - 1; i >= 0; --i) {
+			ChunkBatch chunk = chunks.get(i);
+
+			if (chunk.count > 0) {
+				chunk.entries.clear();
+				chunk.count = 0;
+				chunk.idleFlushes = 0;
+			} else if (++chunk.idleFlushes > IDLE_FLUSHES) {
+				chunkMap.remove(ChunkCoordIntPair.chunkXZ2Int(chunk.chunkX, chunk.chunkZ));
+				chunks.set(i, chunks.get(chunks.size() - 1));
+				chunks.remove(chunks.size() - 1);
+			}
+		}
+
+		lastChunk = null;
+	}
+
+	private void flush(WorldServer world, EntityPlayerMP player) {
+		PacketFluidUpdateBatch packet = null;
+
+		for (int i = 0; i < chunks.size(); ++i) {
+			ChunkBatch chunk = chunks.get(i);
+
+			if (chunk.count == 0 || !world.getPlayerManager().isPlayerWatchingChunk(player, chunk.chunkX, chunk.chunkZ)) {
+				continue;
+			}
+
+			if (packet == null) {
+				packet = new PacketFluidUpdateBatch();
+			}
+
+			packet.addChunk(chunk.chunkX, chunk.chunkZ, chunk.count, chunk.entries);
+			chunksSent++;
+
+			if (packet.getPayloadSize() > MAX_PAYLOAD_SIZE) {
+				send(player, packet);
+				packet = null;
+			}
+		}
+
+		if (packet != null) {
+			send(player, packet);
+		}
+	}
+
+	private void send(EntityPlayerMP player, PacketFluidUpdateBatch packet) {
+		packetsSent++;
+		bytesSent += packet.getPayloadSize();
+		BuildCraftTransport.instance.sendToPlayer(player, packet);
+	}
+}
@@ -8,8 +8,6 @@
  */
 package buildcraft.transport.network;
 
-import java.util.BitSet;
-
 import io.netty.buffer.ByteBuf;
 
 import net.minecraft.tileentity.TileEntity;
@@ -30,9 +28,14 @@ public class PacketFluidUpdate extends PacketCoordinates {
 	public static int FLUID_AMOUNT_BIT = 1;
 	public static int FLUID_DATA_NUM = 2;
 
+	/**
+	 * Delta with the bits of all sections set, center included.
+	 */
+	public static final int ALL_SECTIONS = (1 << (FLUID_DATA_NUM * ForgeDirection.values().length)) - 1;
+
 	public FluidStack[] renderCache = new FluidStack[ForgeDirection.values().length];
 	public int[] colorRenderCache = new int[ForgeDirection.values().length];
-	public BitSet delta;
+	public int delta;
 
 	public PacketFluidUpdate(int xCoord, int yCoord, int zCoord) {
 		super(PacketIds.PIPE_LIQUID, xCoord, yCoord, zCoord);
@@ -71,26 +74,15 @@ public class PacketFluidUpdate extends PacketCoordinates {
 
 		PipeTransportFluids transLiq = (PipeTransportFluids) pipe.pipe.transport;
 
-		renderCache = transLiq.renderCache;
-		colorRenderCache = transLiq.colorRenderCache;
-
-		byte[] dBytes = new byte[2];
-		data.readBytes(dBytes);
-		delta = fromByteArray(dBytes);
-
-		// System.out.printf("read %d, %d, %d = %s, %s%n", posX, posY, posZ, Arrays.toString(dBytes), delta);
+		delta = data.readUnsignedShort();
 
 		for (ForgeDirection dir : ForgeDirection.values()) {
-			if (delta.get(dir.ordinal() * FLUID_DATA_NUM + FLUID_ID_BIT)) {
-			    int amt = renderCache[dir.ordinal()] != null ? renderCache[dir.ordinal()].amount : 0;
-				renderCache[dir.ordinal()] = new FluidStack(data.readShort(), amt);
-				colorRenderCache[dir.ordinal()] = data.readInt();
+			if (hasBit(delta, dir.ordinal(), FLUID_ID_BIT)) {
+				int fluidID = data.readShort();
+				transLiq.setRenderFluid(dir.ordinal(), fluidID, data.readInt());
 			}
-			if (delta.get(dir.ordinal() * FLUID_DATA_NUM + FLUID_AMOUNT_BIT)) {
-			    if (renderCache[dir.ordinal()] == null) {
-					renderCache[dir.ordinal()] = new FluidStack(0, 0);
-			    }
-		        renderCache[dir.ordinal()].amount = Math.min(transLiq.getCapacity(), data.readInt());
+			if (hasBit(delta, dir.ordinal(), FLUID_AMOUNT_BIT)) {
+				transLiq.setRenderAmount(dir.ordinal(), data.readInt());
 			}
 		}
 	}
@@ -99,14 +91,12 @@ public class PacketFluidUpdate extends PacketCoordinates {
 	public void writeData(ByteBuf data) {
 		super.writeData(data);
 
-		byte[] dBytes = toByteArray(delta);
-		// System.out.printf("write %d, %d, %d = %s, %s%n", posX, posY, posZ, Arrays.toString(dBytes), delta);
-		data.writeBytes(dBytes);
+		data.writeShort(delta);
 
 		for (ForgeDirection dir : ForgeDirection.values()) {
 			FluidStack liquid = renderCache[dir.ordinal()];
 
-			if (delta.get(dir.ordinal() * FLUID_DATA_NUM + FLUID_ID_BIT)) {
+			if (hasBit(delta, dir.ordinal(), FLUID_ID_BIT)) {
 				if (liquid != null) {
 					data.writeShort(liquid.fluidID);
 					data.writeInt(colorRenderCache[dir.ordinal()]);
@@ -115,7 +105,7 @@ public class PacketFluidUpdate extends PacketCoordinates {
 					data.writeInt(0xFFFFFF);
 				}
 			}
-			if (delta.get(dir.ordinal() * FLUID_DATA_NUM + FLUID_AMOUNT_BIT)) {
+			if (hasBit(delta, dir.ordinal(), FLUID_AMOUNT_BIT)) {
 				if (liquid != null) {
 					data.writeInt(liquid.amount);
 				} else {
@@ -125,24 +115,12 @@ public class PacketFluidUpdate extends PacketCoordinates {
 		}
 	}
 
-	public static BitSet fromByteArray(byte[] bytes) {
-		BitSet bits = new BitSet();
-		for (int i = 0; i < bytes.length * 8; i++) {
-			if ((bytes[bytes.length - i / 8 - 1] & (1 << (i % 8))) > 0) {
-				bits.set(i);
-			}
-		}
-		return bits;
+	public static int getBit(int section, int bit) {
+		return 1 << (section * FLUID_DATA_NUM + bit);
 	}
 
-	public static byte[] toByteArray(BitSet bits) {
-		byte[] bytes = new byte[2];
-		for (int i = 0; i < bits.length(); i++) {
-			if (bits.get(i)) {
-				bytes[bytes.length - i / 8 - 1] |= 1 << (i % 8);
-			}
-		}
-		return bytes;
+	public static boolean hasBit(int delta, int section, int bit) {
+		return (delta & getBit(section, bit)) != 0;
 	}
 
 	@Override
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.transport.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.World;
+
+import net.minecraftforge.common.util.ForgeDirection;
+import net.minecraftforge.fluids.FluidStack;
+
+import buildcraft.core.network.BuildCraftPacket;
+import buildcraft.core.network.PacketIds;
+import buildcraft.core.proxy.CoreProxy;
+import buildcraft.core.utils.Utils;
+import buildcraft.transport.PipeTransportFluids;
+import buildcraft.transport.TileGenericPipe;
+
+/**
+ * The fluid updates of all pipes of some chunks, sent once per tick to a
+ * player by FluidPacketBatcher.
+ *
+ * Updates are grouped by chunk, and written once per chunk by writeEntry so
+ * that the packets of all players watching that chunk simply copy them.
+ * Pipes are given by their position in the chunk, followed by the delta bits
+ * and data of PacketFluidUpdate. Updates are applied as they are read, like
+ * PacketFluidUpdate does.
+ */
+public class PacketFluidUpdateBatch extends BuildCraftPacket {
+
+	private int chunkCount;
+	private ByteBuf payload;
+
+	public PacketFluidUpdateBatch() {
+	}
+
+	/**
+	 * Writes the update of the pipe at x, y, z to the entries of its chunk.
+	 */
+	public static void writeEntry(ByteBuf entries, int x, int y, int z, int delta, FluidStack[] renderCache, int[] colorRenderCache) {
+		entries.writeByte(((x & 15) << 4) | (z & 15));
+		entries.writeByte(y);
+		entries.writeShort(delta);
+
+		for (ForgeDirection dir : ForgeDirection.values()) {
+			FluidStack liquid = renderCache[dir.ordinal()];
+
+			if (PacketFluidUpdate.hasBit(delta, dir.ordinal(), PacketFluidUpdate.FLUID_ID_BIT)) {
+				if (liquid != null) {
+					Utils.writeVarInt(entries, liquid.fluidID);
+					entries.writeInt(colorRenderCache[dir.ordinal()]);
+				} else {
+					Utils.writeVarInt(entries, 0);
+					entries.writeInt(0xFFFFFF);
+				}
+			}
+
+			if (PacketFluidUpdate.hasBit(delta, dir.ordinal(), PacketFluidUpdate.FLUID_AMOUNT_BIT)) {
+				Utils.writeVarInt(entries, liquid != null ? liquid.amount : 0);
+			}
+		}
+	}
+
+	/**
+	 * Adds count entries of the chunk at chunkX, chunkZ, as written by
+	 * writeEntry.
+	 */
+	public void addChunk(int chunkX, int chunkZ, int count, ByteBuf entries) {
+		if (payload == null) {
+			payload = Unpooled.buffer();
+		}
+
+		Utils.writeSignedVarInt(payload, chunkX);
+		Utils.writeSignedVarInt(payload, chunkZ);
+		Utils.writeVarInt(payload, count);
+		payload.writeBytes(entries, entries.readerIndex(), entries.readableBytes());
+
+		chunkCount++;
+	}
+
+	public int getChunkCount() {
+		return chunkCount;
+	}
+
+	public int getPayloadSize() {
+		return payload != null ? payload.readableBytes() : 0;
+	}
+
+	@Override
+	public void writeData(ByteBuf data) {
+		Utils.writeVarInt(data, chunkCount);
+
+		if (payload != null) {
+			data.writeBytes(payload, payload.readerIndex(), payload.readableBytes());
+		}
+	}
+
+	@Override
+	public void readData(ByteBuf data) {
+		chunkCount = Utils.readVarInt(data);
+
+		World world = CoreProxy.proxy.getClientWorld();
+
+		for (int c = 0; c < chunkCount; ++c) {
+			int chunkX = Utils.readSignedVarInt(data);
+			int chunkZ = Utils.readSignedVarInt(data);
+			int count = Utils.readVarInt(data);
+
+			for (int i = 0; i < count; ++i) {
+				int xz = data.readUnsignedByte();
+				int x = (chunkX << 4) | (xz >> 4);
+				int y = data.readUnsignedByte();
+				int z = (chunkZ << 4) | (xz & 15);
+				int delta = data.readUnsignedShort();
+
+				PipeTransportFluids transport = getTransport(world, x, y, z);
+
+				for (ForgeDirection dir : ForgeDirection.values()) {
+					if (PacketFluidUpdate.hasBit(delta, dir.ordinal(), PacketFluidUpdate.FLUID_ID_BIT)) {
+						int fluidID = Utils.readVarInt(data);
+						int color = data.readInt();
+
+						if (transport != null) {
+							transport.setRenderFluid(dir.ordinal(), fluidID, color);
+						}
+					}
+
+					if (PacketFluidUpdate.hasBit(delta, dir.ordinal(), PacketFluidUpdate.FLUID_AMOUNT_BIT)) {
+						int amount = Utils.readVarInt(data);
+
+						if (transport != null) {
+							transport.setRenderAmount(dir.ordinal(), amount);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static PipeTransportFluids getTransport(World world, int x, int y, int z) {
+		if (world == null || !world.blockExists(x, y, z)) {
+			return null;
+		}
+
+		TileEntity entity = world.getTileEntity(x, y, z);
+
+		if (!(entity instanceof TileGenericPipe)) {
+			return null;
+		}
+
+		TileGenericPipe pipe = (TileGenericPipe) entity;
+
+		if (pipe.pipe == null || !(pipe.pipe.transport instanceof PipeTransportFluids)) {
+			return null;
+		}
+
+		return (PipeTransportFluids) pipe.pipe.transport;
+	}
+
+	@Override
+	public int getID() {
+		return PacketIds.PIPE_LIQUID_BATCH;
+	}
+}
@@ -51,12 +51,17 @@ public class PacketHandlerTransport extends SimpleChannelInboundHandler<BuildCra
 					onPacketPower(player, (PacketPowerUpdate) packet);
 					break;
 				case PacketIds.PIPE_LIQUID:
+				case PacketIds.PIPE_LIQUID_BATCH:
 					// action will have happened already at read time
 					break;
 				case PacketIds.PIPE_TRAVELER: {
 					onPipeTravelerUpdate(player, (PacketPipeTransportTraveler) packet);
 					break;
 				}
+				case PacketIds.PIPE_TRAVELER_BATCH: {
+					onPipeTravelerBatch(player, (PacketPipeTransportTravelerBatch) packet);
+					break;
+				}
 				case PacketIds.PIPE_ITEMSTACK: {
 					// action will have happened already at read time
 					break;
@@ -115,6 +120,28 @@ public class PacketHandlerTransport extends SimpleChannelInboundHandler<BuildCra
 		((PipeTransportItems) pipe.pipe.transport).handleTravelerPacket(packet);
 	}
 
+	/**
+	 * Updates items in several pipes at once.
+	 *
+	 * @param packet
+	 */
+	private void onPipeTravelerBatch(EntityPlayer player, PacketPipeTransportTravelerBatch packet) {
+		World world = player.worldObj;
+
+		for (int i = 0; i < packet.getCount(); ++i) {
+			TileGenericPipe pipe = getPipe(world, packet.getPipeX(i), packet.getPipeY(i), packet.getPipeZ(i));
+
+			if (pipe == null || pipe.pipe == null || !(pipe.pipe.transport instanceof PipeTransportItems)) {
+				continue;
+			}
+
+			((PipeTransportItems) pipe.pipe.transport).handleTravelerUpdate(packet.getTravelingEntityId(i),
+					packet.hasPosition(i), packet.getItemX(i), packet.getItemY(i), packet.getItemZ(i), packet.getSpeed(i),
+					packet.getInputOrientation(i), packet.getOutputOrientation(i), packet.getColor(i),
+					packet.getItemStack(i), packet.forceStackRefresh(i));
+		}
+	}
+
 	/**
 	 * Updates the display power on a power pipe
 	 *
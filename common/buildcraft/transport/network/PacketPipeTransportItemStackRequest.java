@@ -32,12 +32,12 @@ public class PacketPipeTransportItemStackRequest extends BuildCraftPacket {
 
 	@Override
 	public void writeData(ByteBuf data) {
-		data.writeShort(travelerID);
+		data.writeInt(travelerID);
 	}
 
 	@Override
 	public void readData(ByteBuf data) {
-		travelerID = data.readShort();
+		travelerID = data.readInt();
 		TravelingItem.TravelingItemCache cache = TravelingItem.serverCache;
 		item = cache.get(travelerID);		
 	}
@@ -49,7 +49,7 @@ public class PacketPipeTransportTraveler extends BuildCraftPacket {
 		data.writeFloat((float) item.yCoord);
 		data.writeFloat((float) item.zCoord);
 
-		data.writeShort(item.id);
+		data.writeInt(item.id);
 
 		data.writeByte((byte) item.input.ordinal());
 		data.writeByte((byte) item.output.ordinal());
@@ -71,7 +71,7 @@ public class PacketPipeTransportTraveler extends BuildCraftPacket {
 		posY = MathHelper.floor_float(itemY);
 		posZ = MathHelper.floor_float(itemZ);
 
-		this.entityId = data.readShort();
+		this.entityId = data.readInt();
 
 		this.input = ForgeDirection.getOrientation(data.readByte());
 		this.output = ForgeDirection.getOrientation(data.readByte());
@@ -0,0 +1,325 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.transport.network;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import net.minecraft.item.ItemStack;
+
+import net.minecraftforge.common.util.ForgeDirection;
+
+import buildcraft.api.core.EnumColor;
+import buildcraft.core.network.BuildCraftPacket;
+import buildcraft.core.network.PacketIds;
+import buildcraft.core.utils.Utils;
+
+/**
+ * Carries several traveler updates, in the same form as
+ * PacketPipeTransportTraveler, for one player. Pipe coordinates are delta
+ * encoded against the previous entry, ids are varints, directions share a
+ * byte and positions are quantized relative to their pipe.
+ *
+ * When item movement is predicted by the client, entries carry no position
+ * and refer to their stack through a handle. A handle is defined by sending
+ * the stack along with it the first time it is used for a given player; the
+ * client then remembers it for the following packets.
+ */
+public class PacketPipeTransportTravelerBatch extends BuildCraftPacket {
+
+	private static final int FLAG_FORCE_STACK_REFRESH = 1;
+	private static final int FLAG_SAME_PIPE = 2;
+	private static final int FLAG_HAS_COLOR = 4;
+	private static final int FLAG_NO_POSITION = 8;
+	private static final int FLAG_HAS_STACK = 16;
+	private static final int FLAG_NEW_STACK = 32;
+
+	/**
+	 * Stacks defined by the server so far, by handle. Only used on the
+	 * client, and cleared when it disconnects.
+	 */
+	private static final Map<Integer, ItemStack> clientStacks = new HashMap<Integer, ItemStack>();
+
+	/**
+	 * Positions are sent in 1/POSITION_SCALE of a block, relative to one
+	 * block before the pipe, which covers everywhere an item can be.
+	 */
+	private static final float POSITION_SCALE = 4096F;
+
+	private int count;
+
+	// Server side
+	private ByteBuf payload;
+	private int lastX, lastY, lastZ;
+
+	// Client side
+	private int[] pipeX, pipeY, pipeZ;
+	private int[] ids;
+	private double[] itemX, itemY, itemZ;
+	private float[] speeds;
+	private byte[] directions;
+	private byte[] colors;
+	private boolean[] hasPosition;
+	private ItemStack[] stacks;
+	private boolean[] forceStackRefresh;
+
+	public PacketPipeTransportTravelerBatch() {
+	}
+
+	/**
+	 * Forgets the stacks defined by the server, whose handles are only valid
+	 * for the connection they were sent on.
+	 */
+	public static void clearClientStacks() {
+		synchronized (clientStacks) {
+			clientStacks.clear();
+		}
+	}
+
+	public void addEntry(int x, int y, int z, int id, double posX, double posY, double posZ,
+			int input, int output, int color, float speed, boolean forceRefresh) {
+		addEntry(x, y, z, id, true, posX, posY, posZ, input, output, color, speed, -1, null, forceRefresh);
+	}
+
+	/**
+	 * Adds an entry. If hasPosition is false the position is left to the
+	 * client. stackHandle is the handle of the stack of the item, or -1 to
+	 * let the client request it; newStack must be given the first time a
+	 * handle is sent to a player, and be null afterwards.
+	 */
+	public void addEntry(int x, int y, int z, int id, boolean hasPosition, double posX, double posY, double posZ,
+			int input, int output, int color, float speed, int stackHandle, ItemStack newStack, boolean forceRefresh) {
+		if (payload == null) {
+			payload = Unpooled.buffer();
+		}
+
+		int flags = 0;
+
+		if (forceRefresh) {
+			flags |= FLAG_FORCE_STACK_REFRESH;
+		}
+
+		boolean samePipe = count > 0 && x == lastX && y == lastY && z == lastZ;
+
+		if (samePipe) {
+			flags |= FLAG_SAME_PIPE;
+		}
+
+		if (color >= 0) {
+			flags |= FLAG_HAS_COLOR;
+		}
+
+		if (!hasPosition) {
+			flags |= FLAG_NO_POSITION;
+		}
+
+		if (stackHandle >= 0) {
+			flags |= FLAG_HAS_STACK;
+
+			if (newStack != null) {
+				flags |= FLAG_NEW_STACK;
+			}
+		}
+
+		payload.writeByte(flags);
+
+		if (!samePipe) {
+			Utils.writeSignedVarInt(payload, x - lastX);
+			Utils.writeSignedVarInt(payload, y - lastY);
+			Utils.writeSignedVarInt(payload, z - lastZ);
+			lastX = x;
+			lastY = y;
+			lastZ = z;
+		}
+
+		Utils.writeVarInt(payload, id);
+		payload.writeByte((input << 4) | output);
+
+		if (color >= 0) {
+			payload.writeByte(color);
+		}
+
+		if (stackHandle >= 0) {
+			Utils.writeVarInt(payload, stackHandle);
+
+			if (newStack != null) {
+				Utils.writeStack(payload, newStack);
+			}
+		}
+
+		if (hasPosition) {
+			payload.writeShort(quantize(posX - x));
+			payload.writeShort(quantize(posY - y));
+			payload.writeShort(quantize(posZ - z));
+		}
+
+		payload.writeFloat(speed);
+
+		count++;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public int getPayloadSize() {
+		return payload != null ? payload.readableBytes() : 0;
+	}
+
+	private static int quantize(double offset) {
+		int value = (int) Math.round((offset + 1) * POSITION_SCALE);
+		return Math.max(0, Math.min(0xFFFF, value));
+	}
+
+	private static double unquantize(int value) {
+		return value / (double) POSITION_SCALE - 1;
+	}
+
+	@Override
+	public void writeData(ByteBuf data) {
+		Utils.writeVarInt(data, count);
+
+		if (payload != null) {
+			data.writeBytes(payload, payload.readerIndex(), payload.readableBytes());
+		}
+	}
+
+	@Override
+	public void readData(ByteBuf data) {
+		count = Utils.readVarInt(data);
+
+		pipeX = new int[count];
+		pipeY = new int[count];
+		pipeZ = new int[count];
+		ids = new int[count];
+		itemX = new double[count];
+		itemY = new double[count];
+		itemZ = new double[count];
+		speeds = new float[count];
+		directions = new byte[count];
+		colors = new byte[count];
+		hasPosition = new boolean[count];
+		stacks = new ItemStack[count];
+		forceStackRefresh = new boolean[count];
+
+		int x = 0, y = 0, z = 0;
+
+		for (int i = 0; i < count; ++i) {
+			int flags = data.readUnsignedByte();
+
+			if ((flags & FLAG_SAME_PIPE) == 0) {
+				x += Utils.readSignedVarInt(data);
+				y += Utils.readSignedVarInt(data);
+				z += Utils.readSignedVarInt(data);
+			}
+
+			pipeX[i] = x;
+			pipeY[i] = y;
+			pipeZ[i] = z;
+			ids[i] = Utils.readVarInt(data);
+			directions[i] = data.readByte();
+			colors[i] = (flags & FLAG_HAS_COLOR) != 0 ? data.readByte() : -1;
+
+			if ((flags & FLAG_HAS_STACK) != 0) {
+				int handle = Utils.readVarInt(data);
+
+				if ((flags & FLAG_NEW_STACK) != 0) {
+					stacks[i] = Utils.readStack(data);
+
+					synchronized (clientStacks) {
+						clientStacks.put(handle, stacks[i]);
+					}
+				} else {
+					synchronized (clientStacks) {
+						stacks[i] = clientStacks.get(handle);
+					}
+				}
+			}
+
+			hasPosition[i] = (flags & FLAG_NO_POSITION) == 0;
+
+			if (hasPosition[i]) {
+				itemX[i] = x + unquantize(data.readUnsignedShort());
+				itemY[i] = y + unquantize(data.readUnsignedShort());
+				itemZ[i] = z + unquantize(data.readUnsignedShort());
+			}
+
+			speeds[i] = data.readFloat();
+			forceStackRefresh[i] = (flags & FLAG_FORCE_STACK_REFRESH) != 0;
+		}
+	}
+
+	public int getPipeX(int i) {
+		return pipeX[i];
+	}
+
+	public int getPipeY(int i) {
+		return pipeY[i];
+	}
+
+	public int getPipeZ(int i) {
+		return pipeZ[i];
+	}
+
+	public int getTravelingEntityId(int i) {
+		return ids[i];
+	}
+
+	public boolean hasPosition(int i) {
+		return hasPosition[i];
+	}
+
+	public double getItemX(int i) {
+		return itemX[i];
+	}
+
+	public double getItemY(int i) {
+		return itemY[i];
+	}
+
+	public double getItemZ(int i) {
+		return itemZ[i];
+	}
+
+	public float getSpeed(int i) {
+		return speeds[i];
+	}
+
+	public ForgeDirection getInputOrientation(int i) {
+		return ForgeDirection.getOrientation((directions[i] >> 4) & 0xF);
+	}
+
+	public ForgeDirection getOutputOrientation(int i) {
+		return ForgeDirection.getOrientation(directions[i] & 0xF);
+	}
+
+	public EnumColor getColor(int i) {
+		return colors[i] != -1 ? EnumColor.fromId(colors[i]) : null;
+	}
+
+	/**
+	 * Returns the stack of the item if the server sent one, null otherwise.
+	 * The returned stack is shared and must be copied before use.
+	 */
+	public ItemStack getItemStack(int i) {
+		return stacks[i];
+	}
+
+	public boolean forceStackRefresh(int i) {
+		return forceStackRefresh[i];
+	}
+
+	@Override
+	public int getID() {
+		return PacketIds.PIPE_TRAVELER_BATCH;
+	}
+}
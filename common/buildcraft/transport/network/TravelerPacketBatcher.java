@@ -0,0 +1,382 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.transport.network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.LongHashMap;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+
+import buildcraft.BuildCraftTransport;
+import buildcraft.api.core.StackKey;
+import buildcraft.transport.TravelingItem;
+
+/**
+ * Collects the traveler updates of one world during a tick, and sends each
+ * player a single PacketPipeTransportTravelerBatch with the updates of the
+ * chunks it watches once the world tick is over. Updates are bucketed by
+ * chunk as they are queued, so that each player is tested once per chunk
+ * rather than once per update.
+ *
+ * With pipes.predictItemMovement, positions are left out and stacks are sent
+ * through per player handles, so that each distinct stack goes to a player
+ * once instead of once per item.
+ */
+public final class TravelerPacketBatcher {
+
+	/**
+	 * Batches are split past this many bytes, well below the size limit of
+	 * custom payload packets.
+	 */
+	private static final int MAX_PAYLOAD_SIZE = 24000;
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	/**
+	 * Past this many distinct stacks, the handles of a player are reassigned
+	 * from scratch.
+	 */
+	private static final int MAX_STACK_HANDLES = 1024;
+
+	private static final Map<World, TravelerPacketBatcher> batchers = new WeakHashMap<World, TravelerPacketBatcher>();
+
+	private static long updatesQueued = 0;
+	private static long packetsSent = 0;
+	private static long bytesSent = 0;
+	private static long stacksDefined = 0;
+	private static long stacksReused = 0;
+
+	private static final Map<EntityPlayerMP, PlayerStacks> playerStacks = new WeakHashMap<EntityPlayerMP, PlayerStacks>();
+
+	private int size;
+	private int[] pipeX = new int[INITIAL_CAPACITY];
+	private int[] pipeY = new int[INITIAL_CAPACITY];
+	private int[] pipeZ = new int[INITIAL_CAPACITY];
+	private int[] ids = new int[INITIAL_CAPACITY];
+	private double[] itemX = new double[INITIAL_CAPACITY];
+	private double[] itemY = new double[INITIAL_CAPACITY];
+	private double[] itemZ = new double[INITIAL_CAPACITY];
+	private float[] speeds = new float[INITIAL_CAPACITY];
+	private byte[] inputs = new byte[INITIAL_CAPACITY];
+	private byte[] outputs = new byte[INITIAL_CAPACITY];
+	private byte[] colors = new byte[INITIAL_CAPACITY];
+	private ItemStack[] stacks = new ItemStack[INITIAL_CAPACITY];
+	private boolean[] forceStackRefresh = new boolean[INITIAL_CAPACITY];
+
+	private final LongHashMap chunkMap = new LongHashMap();
+	private final ArrayList<ChunkUpdates> chunks = new ArrayList<ChunkUpdates>();
+	private ChunkUpdates lastChunk;
+
+	private static final class ChunkUpdates {
+
+		private final int chunkX;
+		private final int chunkZ;
+		private int[] indices = new int[16];
+		private int count;
+
+		public ChunkUpdates(int chunkX, int chunkZ) {
+			this.chunkX = chunkX;
+			this.chunkZ = chunkZ;
+		}
+
+		public void add(int index) {
+			if (count == indices.length) {
+				int[] newIndices = new int[count * 2];
+				System.arraycopy(indices, 0, newIndices, 0, count);
+				indices = newIndices;
+			}
+
+			indices[count++] = index;
+		}
+	}
+
+	private static final class StackHandleKey {
+
+		private final StackKey key;
+		private final int damage;
+		private final int stackSize;
+
+		public StackHandleKey(ItemStack stack) {
+			this.key = new StackKey(stack);
+			this.damage = stack.getItemDamage();
+			this.stackSize = stack.stackSize;
+		}
+
+		@Override
+		public int hashCode() {
+			return (key.hashCode() * 31 + damage) * 31 + stackSize;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof StackHandleKey)) {
+				return false;
+			}
+
+			StackHandleKey other = (StackHandleKey) obj;
+			return damage == other.damage && stackSize == other.stackSize && key.equals(other.key);
+		}
+	}
+
+	private static final class PlayerStacks {
+
+		private final Map<StackHandleKey, Integer> handles = new HashMap<StackHandleKey, Integer>();
+	}
+
+	public static synchronized TravelerPacketBatcher get(World world) {
+		TravelerPacketBatcher batcher = batchers.get(world);
+
+		if (batcher == null) {
+			batcher = new TravelerPacketBatcher();
+			batchers.put(world, batcher);
+		}
+
+		return batcher;
+	}
+
+	/**
+	 * Drops the updates queued for a world being unloaded.
+	 */
+	public static synchronized void unloadWorld(World world) {
+		batchers.remove(world);
+	}
+
+	public static void flushWorld(World world) {
+		TravelerPacketBatcher batcher;
+
+		synchronized (TravelerPacketBatcher.class) {
+			batcher = batchers.get(world);
+		}
+
+		if (batcher != null && world instanceof WorldServer) {
+			batcher.flush((WorldServer) world);
+		}
+	}
+
+	public static long getUpdatesQueued() {
+		return updatesQueued;
+	}
+
+	public static long getPacketsSent() {
+		return packetsSent;
+	}
+
+	public static long getBytesSent() {
+		return bytesSent;
+	}
+
+	public static long getStacksDefined() {
+		return stacksDefined;
+	}
+
+	public static long getStacksReused() {
+		return stacksReused;
+	}
+
+	/**
+	 * Queues the current state of the item, which is in the pipe at x, y, z.
+	 */
+	public void add(int x, int y, int z, TravelingItem item, boolean forceRefresh) {
+		if (size == ids.length) {
+			grow();
+		}
+
+		pipeX[size] = x;
+		pipeY[size] = y;
+		pipeZ[size] = z;
+		ids[size] = item.id;
+		itemX[size] = item.xCoord;
+		itemY[size] = item.yCoord;
+		itemZ[size] = item.zCoord;
+		speeds[size] = item.getSpeed();
+		inputs[size] = (byte) item.input.ordinal();
+		outputs[size] = (byte) item.output.ordinal();
+		colors[size] = item.color != null ? (byte) item.color.ordinal() : -1;
+		stacks[size] = item.getItemStack() != null ? item.getItemStack().copy() : null;
+		forceStackRefresh[size] = forceRefresh;
+		getChunk(x >> 4, z >> 4).add(size);
+		size++;
+		updatesQueued++;
+	}
+
+	private void flush(WorldServer world) {
+		if (size == 0) {
+			return;
+		}
+
+		boolean predict = BuildCraftTransport.predictItemMovement;
+
+		for (Object o : world.playerEntities) {
+			if (!(o instanceof EntityPlayerMP)) {
+				continue;
+			}
+
+			EntityPlayerMP player = (EntityPlayerMP) o;
+			PacketPipeTransportTravelerBatch packet = null;
+
+			for (ChunkUpdates chunk : chunks) {
+				if (!world.getPlayerManager().isPlayerWatchingChunk(player, chunk.chunkX, chunk.chunkZ)) {
+					continue;
+				}
+
+				for (int j = 0; j < chunk.count; ++j) {
+					int i = chunk.indices[j];
+
+					if (packet == null) {
+						packet = new PacketPipeTransportTravelerBatch();
+					}
+
+					if (predict && stacks[i] != null) {
+						addPredictedEntry(player, packet, i);
+					} else {
+						packet.addEntry(pipeX[i], pipeY[i], pipeZ[i], ids[i], itemX[i], itemY[i], itemZ[i],
+								inputs[i], outputs[i], colors[i], speeds[i], forceStackRefresh[i]);
+					}
+
+					if (packet.getPayloadSize() > MAX_PAYLOAD_SIZE) {
+						send(player, packet);
+						packet = null;
+					}
+				}
+			}
+
+			if (packet != null) {
+				send(player, packet);
+			}
+		}
+
+		for (int i = 0; i < size; ++i) {
+			stacks[i] = null;
+		}
+
+		for (ChunkUpdates chunk : chunks) {
+			chunkMap.remove(ChunkCoordIntPair.chunkXZ2Int(chunk.chunkX, chunk.chunkZ));
+		}
+
+		chunks.clear();
+		lastChunk = null;
+		size = 0;
+	}
+
+	private ChunkUpdates getChunk(int chunkX, int chunkZ) {
+		if (lastChunk != null && lastChunk.chunkX == chunkX && lastChunk.chunkZ == chunkZ) {
+			return lastChunk;
+		}
+
+		long key = ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ);
+		ChunkUpdates chunk = (ChunkUpdates) chunkMap.getValueByKey(key);
+
+		if (chunk == null) {
+			chunk = new ChunkUpdates(chunkX, chunkZ);
+			chunkMap.add(key, chunk);
+			chunks.add(chunk);
+		}
+
+		lastChunk = chunk;
+		return chunk;
+	}
+
+	private void addPredictedEntry(EntityPlayerMP player, PacketPipeTransportTravelerBatch packet, int i) {
+		PlayerStacks known = playerStacks.get(player);
+
+		if (known == null) {
+			known = new PlayerStacks();
+			playerStacks.put(player, known);
+		}
+
+		StackHandleKey key = new StackHandleKey(stacks[i]);
+		Integer handle = known.handles.get(key);
+		ItemStack newStack = null;
+
+		if (handle == null) {
+			if (known.handles.size() >= MAX_STACK_HANDLES) {
+				known.handles.clear();
+			}
+
+			newStack = stacks[i].copy();
+			handle = known.handles.size();
+			known.handles.put(new StackHandleKey(newStack), handle);
+			stacksDefined++;
+		} else {
+			stacksReused++;
+		}
+
+		packet.addEntry(pipeX[i], pipeY[i], pipeZ[i], ids[i], false, 0, 0, 0,
+				inputs[i], outputs[i], colors[i], speeds[i], handle, newStack, forceStackRefresh[i]);
+	}
+
+	private void send(EntityPlayerMP player, PacketPipeTransportTravelerBatch packet) {
+		packetsSent++;
+		bytesSent += packet.getPayloadSize();
+		BuildCraftTransport.instance.sendToPlayer(player, packet);
+	}
+
+	private void grow() {
+		int capacity = ids.length * 2;
+
+		int[] newPipeX = new int[capacity];
+		System.arraycopy(pipeX, 0, newPipeX, 0, size);
+		pipeX = newPipeX;
+
+		int[] newPipeY = new int[capacity];
+		System.arraycopy(pipeY, 0, newPipeY, 0, size);
+		pipeY = newPipeY;
+
+		int[] newPipeZ = new int[capacity];
+		System.arraycopy(pipeZ, 0, newPipeZ, 0, size);
+		pipeZ = newPipeZ;
+
+		int[] newIds = new int[capacity];
+		System.arraycopy(ids, 0, newIds, 0, size);
+		ids = newIds;
+
+		double[] newItemX = new double[capacity];
+		System.arraycopy(itemX, 0, newItemX, 0, size);
+		itemX = newItemX;
+
+		double[] newItemY = new double[capacity];
+		System.arraycopy(itemY, 0, newItemY, 0, size);
+		itemY = newItemY;
+
+		double[] newItemZ = new double[capacity];
+		System.arraycopy(itemZ, 0, newItemZ, 0, size);
+		itemZ = newItemZ;
+
+		float[] newSpeeds = new float[capacity];
+		System.arraycopy(speeds, 0, newSpeeds, 0, size);
+		speeds = newSpeeds;
+
+		byte[] newInputs = new byte[capacity];
+		System.arraycopy(inputs, 0, newInputs, 0, size);
+		inputs = newInputs;
+
+		byte[] newOutputs = new byte[capacity];
+		System.arraycopy(outputs, 0, newOutputs, 0, size);
+		outputs = newOutputs;
+
+		byte[] newColors = new byte[capacity];
+		System.arraycopy(colors, 0, newColors, 0, size);
+		colors = newColors;
+
+		ItemStack[] newStacks = new ItemStack[capacity];
+		System.arraycopy(stacks, 0, newStacks, 0, size);
+		stacks = newStacks;
+
+		boolean[] newForceStackRefresh = new boolean[capacity];
+		System.arraycopy(forceStackRefresh, 0, newForceStackRefresh, 0, size);
+		forceStackRefresh = newForceStackRefresh;
+	}
+}
@@ -40,7 +40,7 @@ import buildcraft.transport.pipes.events.PipeEventItem;
 import buildcraft.transport.triggers.ActionPipeColor;
 import buildcraft.transport.triggers.ActionPipeDirection;
 
-public class PipeItemsDaizuli extends Pipe<PipeTransportItems> {
+public class PipeItemsDaizuli extends Pipe<PipeTransportItems> implements PipeEventItem.FindDest.IHandler, PipeEventItem.AdjustSpeed.IHandler {
 
 	private int standardIconIndex = PipeIconProvider.TYPE.PipeItemsDaizuli_Black.ordinal();
 	private int solidIconIndex = PipeIconProvider.TYPE.PipeAllDaizuli_Solid.ordinal();
@@ -129,6 +129,7 @@ public class PipeItemsDaizuli extends Pipe<PipeTransportItems> {
 		return true;
 	}
 
+	@Override
 	public void eventHandler(PipeEventItem.FindDest event) {
 		ForgeDirection output = ForgeDirection.getOrientation(container.getBlockMetadata());
 		if (event.item.color == getColor() && event.destinations.contains(output)) {
@@ -139,6 +140,7 @@ public class PipeItemsDaizuli extends Pipe<PipeTransportItems> {
 		event.destinations.remove(output);
 	}
 
+	@Override
 	public void eventHandler(PipeEventItem.AdjustSpeed event) {
 		event.handled = true;
 		TravelingItem item = event.item;
@@ -37,7 +37,7 @@ import buildcraft.transport.PipeIconProvider;
 import buildcraft.transport.PipeTransportItems;
 import buildcraft.transport.pipes.events.PipeEventItem;
 
-public class PipeItemsDiamond extends Pipe<PipeTransportItems> implements IClientState {
+public class PipeItemsDiamond extends Pipe<PipeTransportItems> implements IClientState, PipeEventItem.FindDest.IHandler {
 
 	private SimpleInventory filters = new SimpleInventory(54, "Filters", 1);
 
@@ -97,6 +97,7 @@ public class PipeItemsDiamond extends Pipe<PipeTransportItems> implements IClien
 		return true;
 	}
 
+	@Override
 	public void eventHandler(PipeEventItem.FindDest event) {
 		LinkedList<ForgeDirection> filteredOrientations = new LinkedList<ForgeDirection>();
 		LinkedList<ForgeDirection> defaultOrientations = new LinkedList<ForgeDirection>();
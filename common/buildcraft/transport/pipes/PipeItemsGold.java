@@ -25,7 +25,7 @@ import buildcraft.transport.TransportConstants;
 import buildcraft.transport.TravelingItem;
 import buildcraft.transport.pipes.events.PipeEventItem;
 
-public class PipeItemsGold extends Pipe {
+public class PipeItemsGold extends Pipe implements PipeEventItem.AdjustSpeed.IHandler {
 
 	public PipeItemsGold(Item item) {
 		super(new PipeTransportItems(), item);
@@ -42,6 +42,7 @@ public class PipeItemsGold extends Pipe {
 		return PipeIconProvider.TYPE.PipeItemsGold.ordinal();
 	}
 
+	@Override
 	public void eventHandler(PipeEventItem.AdjustSpeed event) {
 		event.handled = true;
 		TravelingItem item = event.item;
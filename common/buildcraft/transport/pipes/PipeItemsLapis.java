@@ -34,7 +34,7 @@ import buildcraft.transport.gates.ActionSlot;
 import buildcraft.transport.pipes.events.PipeEventItem;
 import buildcraft.transport.triggers.ActionPipeColor;
 
-public class PipeItemsLapis extends Pipe<PipeTransportItems> {
+public class PipeItemsLapis extends Pipe<PipeTransportItems> implements PipeEventItem.ReachedCenter.IHandler, PipeEventItem.AdjustSpeed.IHandler {
 
 	public PipeItemsLapis(Item item) {
 		super(new PipeTransportItems(), item);
@@ -82,10 +82,12 @@ public class PipeItemsLapis extends Pipe<PipeTransportItems> {
 		}
 	}
 
+	@Override
 	public void eventHandler(PipeEventItem.ReachedCenter event) {
 		event.item.color = getColor();
 	}
 
+	@Override
 	public void eventHandler(PipeEventItem.AdjustSpeed event) {
 		event.handled = true;
 		TravelingItem item = event.item;
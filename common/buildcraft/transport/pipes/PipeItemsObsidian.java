@@ -40,7 +40,7 @@ import buildcraft.transport.TravelingItem;
 import buildcraft.transport.pipes.events.PipeEventItem;
 import buildcraft.transport.utils.TransportUtils;
 
-public class PipeItemsObsidian extends Pipe<PipeTransportItems> {
+public class PipeItemsObsidian extends Pipe<PipeTransportItems> implements PipeEventItem.DropItem.IHandler {
 
 	@MjBattery (maxCapacity = 256, maxReceivedPerCycle = 64, minimumConsumption = 0)
 	private double mjStored = 0;
@@ -248,6 +248,7 @@ public class PipeItemsObsidian extends Pipe<PipeTransportItems> {
 		}
 	}
 
+	@Override
 	public void eventHandler(PipeEventItem.DropItem event) {
 		if (entitiesDroppedIndex + 1 >= entitiesDropped.length) {
 			entitiesDroppedIndex = 0;
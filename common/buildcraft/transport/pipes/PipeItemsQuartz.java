@@ -24,7 +24,7 @@ import buildcraft.transport.TransportConstants;
 import buildcraft.transport.TravelingItem;
 import buildcraft.transport.pipes.events.PipeEventItem;
 
-public class PipeItemsQuartz extends Pipe {
+public class PipeItemsQuartz extends Pipe implements PipeEventItem.AdjustSpeed.IHandler {
 
 	public PipeItemsQuartz(Item item) {
 		super(new PipeTransportItems(), item);
@@ -42,6 +42,7 @@ public class PipeItemsQuartz extends Pipe {
 		return PipeIconProvider.TYPE.PipeItemsQuartz.ordinal();
 	}
 
+	@Override
 	public void eventHandler(PipeEventItem.AdjustSpeed event) {
 		event.handled = true;
 		TravelingItem item = event.item;
@@ -24,7 +24,7 @@ import buildcraft.transport.TransportConstants;
 import buildcraft.transport.TravelingItem;
 import buildcraft.transport.pipes.events.PipeEventItem;
 
-public class PipeItemsStone extends Pipe {
+public class PipeItemsStone extends Pipe implements PipeEventItem.AdjustSpeed.IHandler {
 
 	public PipeItemsStone(Item item) {
 		super(new PipeTransportItems(), item);
@@ -41,6 +41,7 @@ public class PipeItemsStone extends Pipe {
 		return PipeIconProvider.TYPE.PipeItemsStone.ordinal();
 	}
 
+	@Override
 	public void eventHandler(PipeEventItem.AdjustSpeed event) {
 		event.handled = true;
 		TravelingItem item = event.item;
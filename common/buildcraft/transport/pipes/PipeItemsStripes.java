@@ -42,7 +42,7 @@ import buildcraft.transport.TravelingItem;
 import buildcraft.transport.pipes.events.PipeEventItem;
 import buildcraft.transport.utils.TransportUtils;
 
-public class PipeItemsStripes extends Pipe<PipeTransportItems> {
+public class PipeItemsStripes extends Pipe<PipeTransportItems> implements PipeEventItem.DropItem.IHandler {
 
 	@MjBattery(maxCapacity = 1, maxReceivedPerCycle = 1, minimumConsumption = 0)
 	private double mjStored = 0;
@@ -94,6 +94,7 @@ public class PipeItemsStripes extends Pipe<PipeTransportItems> {
 		mjStored = 0;
 	}
 
+	@Override
 	public void eventHandler(PipeEventItem.DropItem event) {
 		Position p = new Position(container.xCoord, container.yCoord,
 				container.zCoord, event.direction);
@@ -235,6 +236,7 @@ public class PipeItemsStripes extends Pipe<PipeTransportItems> {
 				this.container.pipe = newPipe;
 
 				item.getItemStack().stackSize--;
+				pipe.items.updateItemCount(item);
 
 				if (item.getItemStack().stackSize <= 0) {
 					((PipeTransportItems) newPipe.transport).items.remove(item);
@@ -22,7 +22,7 @@ import buildcraft.transport.PipeIconProvider;
 import buildcraft.transport.PipeTransportItems;
 import buildcraft.transport.pipes.events.PipeEventItem;
 
-public class PipeItemsVoid extends Pipe<PipeTransportItems> {
+public class PipeItemsVoid extends Pipe<PipeTransportItems> implements PipeEventItem.DropItem.IHandler, PipeEventItem.ReachedCenter.IHandler {
 
 	public PipeItemsVoid(Item item) {
 		super(new PipeTransportItems(), item);
@@ -39,10 +39,12 @@ public class PipeItemsVoid extends Pipe<PipeTransportItems> {
 		return PipeIconProvider.TYPE.PipeItemsVoid.ordinal();
 	}
 
+	@Override
 	public void eventHandler(PipeEventItem.DropItem event) {
 		event.entity = null;
 	}
 
+	@Override
 	public void eventHandler(PipeEventItem.ReachedCenter event) {
 		transport.items.scheduleRemoval(event.item);
 	}
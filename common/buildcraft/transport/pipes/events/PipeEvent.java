@@ -9,4 +9,13 @@
 package buildcraft.transport.pipes.events;
 
 public abstract class PipeEvent {
+
+	/**
+	 * Returns the slot of this event type in the pipe dispatch tables, or -1
+	 * if this event type has no fixed slot. Events without a slot are still
+	 * dispatched, but through a slower map lookup.
+	 */
+	public int getEventId() {
+		return -1;
+	}
 }
@@ -17,6 +17,21 @@ import buildcraft.transport.TravelingItem;
 
 public abstract class PipeEventItem extends PipeEvent {
 
+	public static final int ENTERED = 0;
+	public static final int REACHED_CENTER = 1;
+	public static final int REACHED_END = 2;
+	public static final int DROP_ITEM = 3;
+	public static final int FIND_DEST = 4;
+	public static final int ADJUST_SPEED = 5;
+
+	/**
+	 * Event types indexed by their event id.
+	 */
+	@SuppressWarnings("unchecked")
+	public static final Class<? extends PipeEvent>[] EVENT_TYPES = new Class[] {
+			Entered.class, ReachedCenter.class, ReachedEnd.class, DropItem.class, FindDest.class, AdjustSpeed.class
+	};
+
 	public final TravelingItem item;
 
 	public PipeEventItem(TravelingItem item) {
@@ -30,6 +45,16 @@ public abstract class PipeEventItem extends PipeEvent {
 		public Entered(TravelingItem item) {
 			super(item);
 		}
+
+		@Override
+		public int getEventId() {
+			return ENTERED;
+		}
+
+		public interface IHandler {
+
+			void eventHandler(Entered event);
+		}
 	}
 
 	public static class ReachedCenter extends PipeEventItem {
@@ -37,6 +62,16 @@ public abstract class PipeEventItem extends PipeEvent {
 		public ReachedCenter(TravelingItem item) {
 			super(item);
 		}
+
+		@Override
+		public int getEventId() {
+			return REACHED_CENTER;
+		}
+
+		public interface IHandler {
+
+			void eventHandler(ReachedCenter event);
+		}
 	}
 
 	public static class ReachedEnd extends PipeEventItem {
@@ -48,6 +83,16 @@ public abstract class PipeEventItem extends PipeEvent {
 			super(item);
 			this.dest = dest;
 		}
+
+		@Override
+		public int getEventId() {
+			return REACHED_END;
+		}
+
+		public interface IHandler {
+
+			void eventHandler(ReachedEnd event);
+		}
 	}
 
 	public static class DropItem extends PipeEventItem {
@@ -65,6 +110,16 @@ public abstract class PipeEventItem extends PipeEvent {
 				this.direction = item.input;
 			}
 		}
+
+		@Override
+		public int getEventId() {
+			return DROP_ITEM;
+		}
+
+		public interface IHandler {
+
+			void eventHandler(DropItem event);
+		}
 	}
 
 	public static class FindDest extends PipeEventItem {
@@ -75,6 +130,16 @@ public abstract class PipeEventItem extends PipeEvent {
 			super(item);
 			this.destinations = destinations;
 		}
+
+		@Override
+		public int getEventId() {
+			return FIND_DEST;
+		}
+
+		public interface IHandler {
+
+			void eventHandler(FindDest event);
+		}
 	}
 
 	public static class AdjustSpeed extends PipeEventItem {
@@ -84,5 +149,15 @@ public abstract class PipeEventItem extends PipeEvent {
 		public AdjustSpeed(TravelingItem item) {
 			super(item);
 		}
+
+		@Override
+		public int getEventId() {
+			return ADJUST_SPEED;
+		}
+
+		public interface IHandler {
+
+			void eventHandler(AdjustSpeed event);
+		}
 	}
 }
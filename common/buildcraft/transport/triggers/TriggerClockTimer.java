@@ -12,10 +12,12 @@ import java.util.Locale;
 
 import net.minecraft.client.renderer.texture.IIconRegister;
 
+import buildcraft.api.gates.ITriggerDependencies;
+import buildcraft.api.gates.TriggerDependency;
 import buildcraft.core.triggers.BCTrigger;
 import buildcraft.core.utils.StringUtils;
 
-public class TriggerClockTimer extends BCTrigger {
+public class TriggerClockTimer extends BCTrigger implements ITriggerDependencies {
 
 	public enum Time {
 
@@ -40,6 +42,11 @@ public class TriggerClockTimer extends BCTrigger {
 		return String.format(StringUtils.localize("gate.trigger.timer"), time.delay);
 	}
 
+	@Override
+	public TriggerDependency[] getDependencies() {
+		return new TriggerDependency[] {TriggerDependency.EXPANSION};
+	}
+
 	@Override
 	public void registerIcons(IIconRegister iconRegister) {
 		icon = iconRegister.registerIcon("buildcraft:triggers/trigger_timer_" + time.name().toLowerCase(Locale.ENGLISH));
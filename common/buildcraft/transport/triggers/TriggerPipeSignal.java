@@ -11,14 +11,16 @@ package buildcraft.transport.triggers;
 import java.util.Locale;
 
 import buildcraft.api.gates.IGate;
+import buildcraft.api.gates.ITriggerDependencies;
 import buildcraft.api.gates.ITriggerParameter;
+import buildcraft.api.gates.TriggerDependency;
 import buildcraft.api.transport.PipeWire;
 import buildcraft.core.triggers.BCTrigger;
 import buildcraft.core.triggers.StatementIconProvider;
 import buildcraft.core.utils.StringUtils;
 import buildcraft.transport.Pipe;
 
-public class TriggerPipeSignal extends BCTrigger {
+public class TriggerPipeSignal extends BCTrigger implements ITriggerDependencies {
 
 	boolean active;
 	PipeWire color;
@@ -41,6 +43,11 @@ public class TriggerPipeSignal extends BCTrigger {
 		return String.format(StringUtils.localize("gate.trigger.pipe.wire." + (active ? "active" : "inactive")), StringUtils.localize("color." + color.name().toLowerCase(Locale.ENGLISH)));
 	}
 
+	@Override
+	public TriggerDependency[] getDependencies() {
+		return new TriggerDependency[] {TriggerDependency.WIRE};
+	}
+
 	@Override
 	public boolean isTriggerActive(IGate gate, ITriggerParameter[] parameters) {
 		Pipe<?> pipe = (Pipe<?>) gate.getPipe();
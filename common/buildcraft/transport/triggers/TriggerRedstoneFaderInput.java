@@ -14,12 +14,14 @@ import cpw.mods.fml.relauncher.Side;
 import cpw.mods.fml.relauncher.SideOnly;
 
 import buildcraft.api.gates.IGate;
+import buildcraft.api.gates.ITriggerDependencies;
 import buildcraft.api.gates.ITriggerParameter;
+import buildcraft.api.gates.TriggerDependency;
 import buildcraft.core.triggers.BCTrigger;
 import buildcraft.core.utils.StringUtils;
 import buildcraft.transport.TileGenericPipe;
 
-public class TriggerRedstoneFaderInput extends BCTrigger {
+public class TriggerRedstoneFaderInput extends BCTrigger implements ITriggerDependencies {
 
 	public final int level;
 
@@ -34,6 +36,11 @@ public class TriggerRedstoneFaderInput extends BCTrigger {
 		return String.format(StringUtils.localize("gate.trigger.redstone.input.level"), level);
 	}
 
+	@Override
+	public TriggerDependency[] getDependencies() {
+		return new TriggerDependency[] {TriggerDependency.REDSTONE};
+	}
+
 	@Override
 	public boolean isTriggerActive(IGate gate, ITriggerParameter[] parameter) {
 		return ((TileGenericPipe) gate.getPipe().getTile()).redstoneInput == level;
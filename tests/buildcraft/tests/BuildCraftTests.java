@@ -39,7 +39,14 @@ import buildcraft.core.Version;
 import buildcraft.core.proxy.CoreProxy;
 import buildcraft.tests.testcase.BlockTestCase;
 import buildcraft.tests.testcase.Sequence;
+import buildcraft.tests.testcase.SequenceActionBuildPowerNetwork;
+import buildcraft.tests.testcase.SequenceActionBuildWireGrid;
 import buildcraft.tests.testcase.SequenceActionCheckBlockMeta;
+import buildcraft.tests.testcase.SequenceActionCheckMjBattery;
+import buildcraft.tests.testcase.SequenceActionCheckNetworkData;
+import buildcraft.tests.testcase.SequenceActionCheckPathFinding;
+import buildcraft.tests.testcase.SequenceActionCheckPowerConservation;
+import buildcraft.tests.testcase.SequenceActionCheckWireSignal;
 import buildcraft.tests.testcase.SequenceActionUseItem;
 import buildcraft.tests.testcase.TileTestCase;
 
@@ -48,6 +55,7 @@ public class BuildCraftTests extends BuildCraftMod {
 
 	public static Block blockTestPathfinding;
 	public static Block blockTestCase;
+	public static Block blockTestPowerSink;
 
 	public static Item tester;
 
@@ -72,12 +80,24 @@ public class BuildCraftTests extends BuildCraftMod {
 		CoreProxy.proxy.registerBlock(blockTestCase);
 		CoreProxy.proxy.registerTileEntity(TileTestCase.class, "buildcraft.tests.testcase.TileTestCase");
 
+		blockTestPowerSink = new BlockTestPowerSink();
+		blockTestPowerSink.setBlockName("testPowerSink");
+		CoreProxy.proxy.registerBlock(blockTestPowerSink);
+		CoreProxy.proxy.registerTileEntity(TileTestPowerSink.class, "buildcraft.tests.TileTestPowerSink");
+
 		tester = new ItemTester();
 		tester.setUnlocalizedName("tester");
 		CoreProxy.proxy.registerItem(tester);
 
 		Sequence.registerSequenceAction("useItem", SequenceActionUseItem.class);
 		Sequence.registerSequenceAction("checkBlockMeta", SequenceActionCheckBlockMeta.class);
+		Sequence.registerSequenceAction("buildWireGrid", SequenceActionBuildWireGrid.class);
+		Sequence.registerSequenceAction("checkWireSignal", SequenceActionCheckWireSignal.class);
+		Sequence.registerSequenceAction("checkMjBattery", SequenceActionCheckMjBattery.class);
+		Sequence.registerSequenceAction("buildPowerNetwork", SequenceActionBuildPowerNetwork.class);
+		Sequence.registerSequenceAction("checkPowerConservation", SequenceActionCheckPowerConservation.class);
+		Sequence.registerSequenceAction("checkNetworkData", SequenceActionCheckNetworkData.class);
+		Sequence.registerSequenceAction("checkPathFinding", SequenceActionCheckPathFinding.class);
 	}
 
 	@Mod.EventHandler
@@ -0,0 +1,43 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.tests;
+
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.tileentity.TileEntity;
+
+import buildcraft.api.mj.MjBattery;
+
+/**
+ * A machine that only stores the energy it is given. Tests take the energy
+ * out of it themselves.
+ */
+public class TileTestPowerSink extends TileEntity {
+
+	@MjBattery(maxCapacity = 100, maxReceivedPerCycle = 10, minimumConsumption = 0)
+	public double energy;
+
+	@Override
+	public boolean canUpdate() {
+		return false;
+	}
+
+	@Override
+	public void writeToNBT(NBTTagCompound nbt) {
+		super.writeToNBT(nbt);
+
+		nbt.setDouble("energy", energy);
+	}
+
+	@Override
+	public void readFromNBT(NBTTagCompound nbt) {
+		super.readFromNBT(nbt);
+
+		energy = nbt.getDouble("energy");
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.tests.testcase;
+
+import net.minecraft.nbt.NBTTagCompound;
+
+import buildcraft.BuildCraftTransport;
+import buildcraft.api.core.NetworkData;
+import buildcraft.tests.BuildCraftTests;
+import buildcraft.transport.BlockGenericPipe;
+import buildcraft.transport.Pipe;
+
+/**
+ * Builds a cube of golden kinesis pipes of size blocks on each side, starting
+ * at x, y, z, with a power sink above each of the four top corners.
+ */
+public class SequenceActionBuildPowerNetwork extends SequenceAction {
+
+	@NetworkData
+	int x, y, z, size;
+
+	public SequenceActionBuildPowerNetwork() {
+
+	}
+
+	@Override
+	public void execute() {
+		for (int i = 0; i < size; ++i) {
+			for (int j = 0; j < size; ++j) {
+				for (int k = 0; k < size; ++k) {
+					Pipe<?> pipe = BlockGenericPipe.createPipe(BuildCraftTransport.pipePowerGold);
+					BlockGenericPipe.placePipe(pipe, world, x + i, y + j, z + k, BuildCraftTransport.genericPipeBlock, 0);
+				}
+			}
+		}
+
+		world.setBlock(x, y + size, z, BuildCraftTests.blockTestPowerSink);
+		world.setBlock(x + size - 1, y + size, z, BuildCraftTests.blockTestPowerSink);
+		world.setBlock(x, y + size, z + size - 1, BuildCraftTests.blockTestPowerSink);
+		world.setBlock(x + size - 1, y + size, z + size - 1, BuildCraftTests.blockTestPowerSink);
+
+		System.out.println("[TEST " + date + "] [BUILD POWER NETWORK] " + x + ", " + y + ", " + z + ": "
+				+ size * size * size + " pipes");
+	}
+
+	@Override
+	public void writeToNBT(NBTTagCompound nbt) {
+		super.writeToNBT(nbt);
+
+		nbt.setInteger("x", x);
+		nbt.setInteger("y", y);
+		nbt.setInteger("z", z);
+		nbt.setInteger("size", size);
+	}
+
+	@Override
+	public void readFromNBT(NBTTagCompound nbt) {
+		super.readFromNBT(nbt);
+
+		x = nbt.getInteger("x");
+		y = nbt.getInteger("y");
+		z = nbt.getInteger("z");
+		size = nbt.getInteger("size");
+	}
+}
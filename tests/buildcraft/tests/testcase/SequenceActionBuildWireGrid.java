@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.tests.testcase;
+
+import net.minecraft.init.Blocks;
+import net.minecraft.nbt.NBTTagCompound;
+
+import net.minecraftforge.common.util.ForgeDirection;
+
+import buildcraft.BuildCraftCore;
+import buildcraft.BuildCraftTransport;
+import buildcraft.api.core.NetworkData;
+import buildcraft.api.transport.PipeWire;
+import buildcraft.transport.BlockGenericPipe;
+import buildcraft.transport.Gate;
+import buildcraft.transport.Pipe;
+import buildcraft.transport.TileGenericPipe;
+import buildcraft.transport.gates.GateDefinition.GateLogic;
+import buildcraft.transport.gates.GateDefinition.GateMaterial;
+import buildcraft.transport.gates.GateFactory;
+
+/**
+ * Fills a sizeX by sizeZ rectangle with structure pipes carrying a red wire,
+ * from x, y, z. All the wires are connected, so the rectangle is a single
+ * network. The pipe at x, y, z has a gate sending a red signal while it is
+ * powered, and a redstone block under it.
+ */
+public class SequenceActionBuildWireGrid extends SequenceAction {
+
+	@NetworkData
+	int x, y, z, sizeX, sizeZ;
+
+	public SequenceActionBuildWireGrid() {
+
+	}
+
+	@Override
+	public void execute() {
+		for (int i = 0; i < sizeX; ++i) {
+			for (int k = 0; k < sizeZ; ++k) {
+				Pipe<?> pipe = BlockGenericPipe.createPipe(BuildCraftTransport.pipeStructureCobblestone);
+				BlockGenericPipe.placePipe(pipe, world, x + i, y, z + k, BuildCraftTransport.genericPipeBlock, 0);
+
+				pipe.wireSet[PipeWire.RED.ordinal()] = true;
+				pipe.updateSignalState();
+			}
+		}
+
+		TileGenericPipe tile = (TileGenericPipe) world.getTileEntity(x, y, z);
+		tile.addGate(ForgeDirection.UP, GateFactory.makeGate(tile.pipe, GateMaterial.REDSTONE, GateLogic.AND,
+				ForgeDirection.UP));
+
+		Gate gate = tile.pipe.gates[ForgeDirection.UP.ordinal()];
+		gate.setTrigger(0, BuildCraftCore.triggerRedstoneActive);
+		gate.setAction(0, BuildCraftTransport.actionPipeWire[PipeWire.RED.ordinal()]);
+
+		world.setBlock(x, y - 1, z, Blocks.redstone_block);
+	}
+
+	@Override
+	public void writeToNBT(NBTTagCompound nbt) {
+		super.writeToNBT(nbt);
+
+		nbt.setInteger("x", x);
+		nbt.setInteger("y", y);
+		nbt.setInteger("z", z);
+		nbt.setInteger("sizeX", sizeX);
+		nbt.setInteger("sizeZ", sizeZ);
+	}
+
+	@Override
+	public void readFromNBT(NBTTagCompound nbt) {
+		super.readFromNBT(nbt);
+
+		x = nbt.getInteger("x");
+		y = nbt.getInteger("y");
+		z = nbt.getInteger("z");
+		sizeX = nbt.getInteger("sizeX");
+		sizeZ = nbt.getInteger("sizeZ");
+	}
+}
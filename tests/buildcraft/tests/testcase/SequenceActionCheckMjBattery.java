@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.tests.testcase;
+
+import java.lang.reflect.Field;
+
+import net.minecraft.nbt.NBTTagCompound;
+
+import buildcraft.api.core.NetworkData;
+import buildcraft.api.mj.BatteryAccessor;
+import buildcraft.api.mj.IBatteryObject;
+import buildcraft.api.mj.MjAPI;
+import buildcraft.api.mj.MjBattery;
+
+/**
+ * Checks that an MJ battery reads and writes the field it wraps, then
+ * compares the accessor batteries use with plain reflection on that field,
+ * over the given number of reads and writes each.
+ */
+public class SequenceActionCheckMjBattery extends SequenceAction {
+
+	@NetworkData
+	int iterations;
+
+	private static class TestBattery {
+
+		@MjBattery(maxCapacity = 1000, maxReceivedPerCycle = 50, minimumConsumption = 0)
+		private double energy;
+	}
+
+	public SequenceActionCheckMjBattery() {
+
+	}
+
+	@Override
+	public void execute() {
+		TestBattery obj = new TestBattery();
+		IBatteryObject battery = MjAPI.getMjBattery(obj);
+
+		if (battery == null) {
+			System.out.println("[TEST " + date + "] [ERROR] no battery found on the test object.");
+			return;
+		}
+
+		double[] found = new double[] {
+				battery.addEnergy(30), obj.energy,
+				battery.addEnergy(100), battery.getEnergyStored(),
+				battery.addEnergy(2000, true), obj.energy
+		};
+		double[] expected = new double[] {30, 30, 50, 80, 920, 1000};
+
+		for (int i = 0; i < found.length; ++i) {
+			if (found[i] != expected[i]) {
+				System.out.println("[TEST " + date + "] [ERROR] battery step " + i + ": " + expected[i]
+						+ " expected, " + found[i] + " found.");
+				return;
+			}
+		}
+
+		battery.setEnergyStored(12.5);
+
+		if (obj.energy != 12.5 || battery.getEnergyRequested() != 50) {
+			System.out.println("[TEST " + date + "] [ERROR] after setting 12.5 MJ, the field holds " + obj.energy
+					+ " and the battery requests " + battery.getEnergyRequested() + ".");
+			return;
+		}
+
+		Field field;
+
+		try {
+			field = TestBattery.class.getDeclaredField("energy");
+		} catch (NoSuchFieldException e) {
+			throw new RuntimeException(e);
+		}
+
+		BatteryAccessor shared = BatteryAccessor.get(field);
+		BatteryAccessor reflective = BatteryAccessor.reflective(field);
+
+		// Warm both up before timing, alternating to keep the comparison
+		// fair to the one running second.
+
+		time(reflective, obj);
+		time(shared, obj);
+
+		long reflectiveNanos = time(reflective, obj);
+		long sharedNanos = time(shared, obj);
+
+		System.out.println("[TEST " + date + "] [OK] " + iterations + " reads and writes: "
+				+ shared.getClass().getSimpleName() + " " + (double) sharedNanos / Math.max(1, iterations)
+				+ " ns each, reflection " + (double) reflectiveNanos / Math.max(1, iterations) + " ns each");
+	}
+
+	private long time(BatteryAccessor accessor, TestBattery obj) {
+		long start = System.nanoTime();
+		double sum = 0;
+
+		for (int i = 0; i < iterations; ++i) {
+			accessor.setDouble(obj, i);
+			sum += accessor.getDouble(obj);
+		}
+
+		long nanos = System.nanoTime() - start;
+
+		if (sum != (double) iterations * (iterations - 1) / 2) {
+			System.out.println("[TEST " + date + "] [ERROR] " + accessor.getClass().getSimpleName()
+					+ " read back " + sum + ".");
+		}
+
+		return nanos;
+	}
+
+	@Override
+	public void writeToNBT(NBTTagCompound nbt) {
+		super.writeToNBT(nbt);
+
+		nbt.setInteger("iterations", iterations);
+	}
+
+	@Override
+	public void readFromNBT(NBTTagCompound nbt) {
+		super.readFromNBT(nbt);
+
+		iterations = nbt.getInteger("iterations");
+	}
+}
@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.tests.testcase;
+
+import java.util.Arrays;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.tileentity.TileEntity;
+
+import net.minecraftforge.common.util.ForgeDirection;
+
+import buildcraft.api.core.NetworkData;
+import buildcraft.builders.TileBuilder;
+import buildcraft.core.network.PacketPayload;
+import buildcraft.core.network.TilePacketWrapper;
+import buildcraft.core.network.serializers.ClassMapping;
+import buildcraft.core.network.serializers.ClassSerializer;
+import buildcraft.core.network.serializers.SerializationContext;
+import buildcraft.factory.TileQuarry;
+
+/**
+ * Checks that an object with @NetworkData fields of each kind reads back as
+ * it was written. Then, for a quarry and a builder, sends the update payload
+ * of one tile to another through TilePacketWrapper, checks that the second
+ * one sends the same payload back, and times that round trip.
+ */
+public class SequenceActionCheckNetworkData extends SequenceAction {
+
+	@NetworkData
+	int iterations;
+
+	public static class TestData {
+
+		@NetworkData
+		public short shortValue;
+
+		@NetworkData
+		public int intValue;
+
+		@NetworkData
+		public boolean booleanValue;
+
+		@NetworkData
+		public float floatValue;
+
+		@NetworkData
+		public double doubleValue;
+
+		@NetworkData
+		public char charValue;
+
+		@NetworkData
+		public ForgeDirection direction;
+
+		@NetworkData
+		public String name;
+
+		@NetworkData
+		public int[] values;
+
+		@NetworkData
+		private int privateValue;
+	}
+
+	public SequenceActionCheckNetworkData() {
+
+	}
+
+	@Override
+	public void execute() {
+		TestData source = new TestData();
+		source.shortValue = -1234;
+		source.intValue = 123456789;
+		source.booleanValue = true;
+		source.floatValue = 1.5F;
+		source.doubleValue = -2.25;
+		source.charValue = 'b';
+		source.direction = ForgeDirection.WEST;
+		source.name = "network data";
+		source.values = new int[] {1, 2, 3};
+		source.privateValue = 42;
+
+		ClassSerializer mapping = ClassMapping.get(TestData.class);
+		SerializationContext context = new SerializationContext();
+		ByteBuf buf = Unpooled.buffer();
+		TestData target = new TestData();
+
+		try {
+			mapping.write(buf, source, context);
+			mapping.read(buf, target, context);
+		} catch (Exception e) {
+			System.out.println("[TEST " + date + "] [ERROR] round trip failed: " + e);
+			return;
+		}
+
+		String mismatch = null;
+
+		if (target.shortValue != source.shortValue) {
+			mismatch = "short";
+		} else if (target.intValue != source.intValue) {
+			mismatch = "int";
+		} else if (target.booleanValue != source.booleanValue) {
+			mismatch = "boolean";
+		} else if (target.floatValue != source.floatValue) {
+			mismatch = "float";
+		} else if (target.doubleValue != source.doubleValue) {
+			mismatch = "double";
+		} else if (target.charValue != source.charValue) {
+			mismatch = "char";
+		} else if (target.direction != source.direction) {
+			mismatch = "enum";
+		} else if (!source.name.equals(target.name)) {
+			mismatch = "string";
+		} else if (!Arrays.equals(source.values, target.values)) {
+			mismatch = "array";
+		} else if (target.privateValue != source.privateValue) {
+			mismatch = "private";
+		} else if (buf.readableBytes() != 0) {
+			mismatch = "trailing bytes after the";
+		}
+
+		if (mismatch != null) {
+			System.out.println("[TEST " + date + "] [ERROR] " + mismatch + " field not read back.");
+			return;
+		}
+
+		TileQuarry quarry = new TileQuarry();
+		quarry.xCoord = 10;
+		quarry.yCoord = 64;
+		quarry.zCoord = -20;
+
+		TileBuilder builder = new TileBuilder();
+		builder.xCoord = -3;
+		builder.yCoord = 70;
+		builder.zCoord = 8;
+		builder.box.initialize(-3, 70, 8, 12, 80, 30);
+
+		sendTile(quarry, new TileQuarry());
+		sendTile(builder, new TileBuilder());
+	}
+
+	private void sendTile(TileEntity source, TileEntity target) {
+		String name = source.getClass().getSimpleName();
+		TilePacketWrapper wrapper = new TilePacketWrapper(source.getClass());
+		ByteBuf sent = Unpooled.buffer();
+		ByteBuf echoed = Unpooled.buffer();
+		PacketPayload received = new PacketPayload();
+
+		wrapper.toPayload(source).writeData(sent);
+		received.readData(sent.duplicate());
+		wrapper.fromPayload(target, received);
+		wrapper.toPayload(target).writeData(echoed);
+
+		// The coordinates are part of the header, not of the tile fields.
+		if (sent.readableBytes() != echoed.readableBytes()
+				|| !sent.slice(12, sent.readableBytes() - 12).equals(echoed.slice(12, echoed.readableBytes() - 12))) {
+			System.out.println("[TEST " + date + "] [ERROR] " + name + " sent back a different payload.");
+			return;
+		}
+
+		ByteBuf buf = Unpooled.buffer();
+		long start = System.nanoTime();
+
+		for (int i = 0; i < iterations; ++i) {
+			buf.clear();
+			wrapper.toPayload(source).writeData(buf);
+			received.readData(buf);
+			wrapper.fromPayload(target, received);
+		}
+
+		long nanos = System.nanoTime() - start;
+
+		System.out.println("[TEST " + date + "] [OK] " + name + ": " + sent.readableBytes() + " bytes, "
+				+ iterations + " payload round trips, " + (double) nanos / Math.max(1, iterations) + " ns each");
+	}
+
+	@Override
+	public void writeToNBT(NBTTagCompound nbt) {
+		super.writeToNBT(nbt);
+
+		nbt.setInteger("iterations", iterations);
+	}
+
+	@Override
+	public void readFromNBT(NBTTagCompound nbt) {
+		super.readFromNBT(nbt);
+
+		iterations = nbt.getInteger("iterations");
+	}
+}
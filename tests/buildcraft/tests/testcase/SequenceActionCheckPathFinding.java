@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.tests.testcase;
+
+import java.util.LinkedList;
+
+import net.minecraft.init.Blocks;
+import net.minecraft.nbt.NBTTagCompound;
+
+import buildcraft.api.core.BlockIndex;
+import buildcraft.api.core.BuildCraftAPI;
+import buildcraft.api.core.NetworkData;
+import buildcraft.core.utils.PathFinding;
+
+/**
+ * Builds a maze of stone walls of size blocks on each side, starting at x,
+ * y, z, and searches a path across it. The path must lead from one corner to
+ * the other through soft blocks, one step at a time. The search is then
+ * timed over a number of iterations.
+ */
+public class SequenceActionCheckPathFinding extends SequenceAction {
+
+	private static final int WALL_HEIGHT = 6;
+
+	@NetworkData
+	int x, y, z, size, iterations;
+
+	public SequenceActionCheckPathFinding() {
+
+	}
+
+	@Override
+	public void execute() {
+		// Walls across z every four blocks, each open at the other end than
+		// the previous one.
+		for (int i = 2; i < size - 1; i += 4) {
+			int gap = (i / 4) % 2 == 0 ? size - 1 : 0;
+
+			for (int k = 0; k < size; ++k) {
+				if (k == gap) {
+					continue;
+				}
+
+				for (int j = 0; j < WALL_HEIGHT; ++j) {
+					world.setBlock(x + i, y + j, z + k, Blocks.stone);
+				}
+			}
+		}
+
+		BlockIndex start = new BlockIndex(x, y, z);
+		BlockIndex end = new BlockIndex(x + size - 1, y, z + size - 1);
+
+		LinkedList<BlockIndex> path = search(start, end);
+
+		if (path.isEmpty()) {
+			System.out.println("[TEST " + date + "] [ERROR] no path found.");
+			return;
+		}
+
+		if (!same(path.getFirst(), start) || !same(path.getLast(), end)) {
+			System.out.println("[TEST " + date + "] [ERROR] path does not join the corners.");
+			return;
+		}
+
+		BlockIndex previous = null;
+
+		for (BlockIndex b : path) {
+			if (previous != null && (Math.abs(b.x - previous.x) > 1 || Math.abs(b.y - previous.y) > 1
+					|| Math.abs(b.z - previous.z) > 1)) {
+				System.out.println("[TEST " + date + "] [ERROR] path jumps from " + previous + " to " + b);
+				return;
+			}
+
+			if (b != path.getLast() && !BuildCraftAPI.isSoftBlock(world, b.x, b.y, b.z)) {
+				System.out.println("[TEST " + date + "] [ERROR] path goes through " + b);
+				return;
+			}
+
+			previous = b;
+		}
+
+		System.out.println("[TEST " + date + "] [OK] path of " + path.size() + " blocks");
+
+		long time = System.nanoTime();
+
+		for (int i = 0; i < iterations; ++i) {
+			if (search(start, end).size() != path.size()) {
+				System.out.println("[TEST " + date + "] [ERROR] search " + i + " found another path.");
+				return;
+			}
+		}
+
+		long nanos = System.nanoTime() - time;
+
+		System.out.println("[TEST " + date + "] [OK] " + iterations + " searches in " + nanos / 1000000 + " ms, "
+				+ (double) nanos / Math.max(1, iterations) / 1000 + " us each");
+	}
+
+	private LinkedList<BlockIndex> search(BlockIndex start, BlockIndex end) {
+		PathFinding pathFinding = new PathFinding(world, start, end);
+
+		for (int i = 0; i < 1000 && !pathFinding.isDone(); ++i) {
+			pathFinding.iterate();
+		}
+
+		return pathFinding.getResult();
+	}
+
+	private static boolean same(BlockIndex a, BlockIndex b) {
+		return a.x == b.x && a.y == b.y && a.z == b.z;
+	}
+
+	@Override
+	public void writeToNBT(NBTTagCompound nbt) {
+		super.writeToNBT(nbt);
+
+		nbt.setInteger("x", x);
+		nbt.setInteger("y", y);
+		nbt.setInteger("z", z);
+		nbt.setInteger("size", size);
+		nbt.setInteger("iterations", iterations);
+	}
+
+	@Override
+	public void readFromNBT(NBTTagCompound nbt) {
+		super.readFromNBT(nbt);
+
+		x = nbt.getInteger("x");
+		y = nbt.getInteger("y");
+		z = nbt.getInteger("z");
+		size = nbt.getInteger("size");
+		iterations = nbt.getInteger("iterations");
+	}
+}
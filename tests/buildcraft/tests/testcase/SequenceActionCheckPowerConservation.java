@@ -0,0 +1,333 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.tests.testcase;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.World;
+
+import net.minecraftforge.common.util.ForgeDirection;
+
+import buildcraft.BuildCraftTransport;
+import buildcraft.api.core.NetworkData;
+import buildcraft.api.mj.FixedPointEnergy;
+import buildcraft.api.mj.IBatteryObject;
+import buildcraft.api.mj.MjAPI;
+import buildcraft.api.power.IPowerReceptor;
+import buildcraft.api.power.PowerHandler;
+import buildcraft.api.power.PowerHandler.PowerReceiver;
+import buildcraft.api.power.PowerHandler.Type;
+import buildcraft.tests.TileTestPowerSink;
+import buildcraft.transport.PipePowerSolver;
+import buildcraft.transport.PipeTransportPower;
+import buildcraft.transport.TileGenericPipe;
+
+/**
+ * Runs the power network built by buildPowerNetwork for a number of ticks,
+ * with fixed-point accounting. Each tick, the four bottom corners are given
+ * random amounts of energy, the network is solved and the sinks lose random
+ * amounts. The energy given must always be exactly the energy held by the
+ * pipes, the sinks, and what the sinks lost.
+ *
+ * With legacy set, power networks are off. Pipes then drop the energy no
+ * machine asks for, so the network as a whole is not checked. Instead, the
+ * fixed-point paths legacy mode goes through are driven directly, as many
+ * times as there are ticks: pipe input, the sink batteries, and a power
+ * handler. Each must change its stored amount by exactly what it reports,
+ * so that no rounding residue builds up.
+ */
+public class SequenceActionCheckPowerConservation extends SequenceAction {
+
+	@NetworkData
+	int x, y, z, size, ticks;
+
+	@NetworkData
+	boolean legacy;
+
+	public SequenceActionCheckPowerConservation() {
+
+	}
+
+	@Override
+	public void execute() {
+		if (size < 2) {
+			System.out.println("[TEST " + date + "] [ERROR] the network must be at least 2 pipes wide.");
+			return;
+		}
+
+		ArrayList<PipeTransportPower> pipes = new ArrayList<PipeTransportPower>();
+		ArrayList<PipeTransportPower> sources = new ArrayList<PipeTransportPower>();
+		ArrayList<TileTestPowerSink> sinks = new ArrayList<TileTestPowerSink>();
+
+		for (int i = 0; i < size; ++i) {
+			for (int j = 0; j < size; ++j) {
+				for (int k = 0; k < size; ++k) {
+					TileEntity tile = world.getTileEntity(x + i, y + j, z + k);
+
+					if (!(tile instanceof TileGenericPipe)
+							|| !(((TileGenericPipe) tile).pipe.transport instanceof PipeTransportPower)) {
+						System.out.println("[TEST " + date + "] [ERROR] no power pipe at " + (x + i) + ", "
+								+ (y + j) + ", " + (z + k));
+						return;
+					}
+
+					PipeTransportPower transport = (PipeTransportPower) ((TileGenericPipe) tile).pipe.transport;
+					pipes.add(transport);
+
+					if (j == 0 && (i == 0 || i == size - 1) && (k == 0 || k == size - 1)) {
+						sources.add(transport);
+					}
+				}
+			}
+		}
+
+		for (int i = 0; i < size; i += size - 1) {
+			for (int k = 0; k < size; k += size - 1) {
+				TileEntity tile = world.getTileEntity(x + i, y + size, z + k);
+
+				if (!(tile instanceof TileTestPowerSink)) {
+					System.out.println("[TEST " + date + "] [ERROR] no power sink at " + (x + i) + ", "
+							+ (y + size) + ", " + (z + k));
+					return;
+				}
+
+				sinks.add((TileTestPowerSink) tile);
+			}
+		}
+
+		boolean fixedPoint = FixedPointEnergy.enabled;
+		boolean powerNetworks = BuildCraftTransport.powerNetworks;
+
+		FixedPointEnergy.enabled = true;
+		BuildCraftTransport.powerNetworks = !legacy;
+
+		try {
+			if (legacy) {
+				runLegacy(sources, sinks);
+			} else {
+				run(pipes, sources, sinks);
+			}
+		} finally {
+			FixedPointEnergy.enabled = fixedPoint;
+			BuildCraftTransport.powerNetworks = powerNetworks;
+		}
+	}
+
+	private void run(ArrayList<PipeTransportPower> pipes, ArrayList<PipeTransportPower> sources,
+			ArrayList<TileTestPowerSink> sinks) {
+		Random rand = new Random(ticks);
+		long given = 0;
+		long consumed = 0;
+
+		for (PipeTransportPower transport : pipes) {
+			PipePowerSolver.markDirty(transport);
+		}
+
+		PipePowerSolver.tickWorld(world);
+
+		long start = System.nanoTime();
+
+		for (int tick = 0; tick < ticks; ++tick) {
+			for (PipeTransportPower transport : sources) {
+				given += FixedPointEnergy.toMicro(transport.receiveEnergy(ForgeDirection.DOWN, rand.nextDouble() * 20));
+			}
+
+			PipePowerSolver.tickWorld(world);
+
+			long held = 0;
+
+			for (PipeTransportPower transport : pipes) {
+				held += FixedPointEnergy.toMicro(transport.getCurrentPowerAmount());
+			}
+
+			for (TileTestPowerSink sink : sinks) {
+				long stored = FixedPointEnergy.toMicro(sink.energy);
+				long taken = Math.min(stored, FixedPointEnergy.toMicro(rand.nextDouble() * 12));
+
+				sink.energy = FixedPointEnergy.toMj(stored - taken);
+				consumed += taken;
+				held += stored - taken;
+			}
+
+			if (given != held + consumed) {
+				System.out.println("[TEST " + date + "] [ERROR] tick " + tick + ": " + given
+						+ " micro-MJ given, " + held + " held and " + consumed + " consumed.");
+				return;
+			}
+		}
+
+		long nanos = System.nanoTime() - start;
+
+		if (consumed == 0) {
+			System.out.println("[TEST " + date + "] [ERROR] no energy reached the sinks.");
+			return;
+		}
+
+		System.out.println("[TEST " + date + "] [OK] " + pipes.size() + " pipes, " + ticks + " ticks: "
+				+ FixedPointEnergy.toMj(given) + " MJ given, " + FixedPointEnergy.toMj(consumed)
+				+ " MJ consumed, none lost, in " + nanos / 1000000 + " ms");
+	}
+
+	private void runLegacy(ArrayList<PipeTransportPower> sources, ArrayList<TileTestPowerSink> sinks) {
+		Random rand = new Random(ticks);
+		int down = ForgeDirection.DOWN.ordinal();
+
+		double[] pipeSaved = new double[sources.size()];
+		double[] sinkSaved = new double[sinks.size()];
+		long[] sinkExpected = new long[sinks.size()];
+		IBatteryObject[] batteries = new IBatteryObject[sinks.size()];
+
+		for (int i = 0; i < sources.size(); ++i) {
+			// Lets the pipe move on to the current tick first, so that its
+			// buffers do not rotate during the run.
+			sources.get(i).receiveEnergy(ForgeDirection.DOWN, 0);
+			pipeSaved[i] = sources.get(i).internalNextPower[down];
+		}
+
+		for (int i = 0; i < sinks.size(); ++i) {
+			sinkSaved[i] = sinks.get(i).energy;
+			sinkExpected[i] = FixedPointEnergy.toMicro(sinkSaved[i]);
+			batteries[i] = MjAPI.getMjBattery(sinks.get(i));
+		}
+
+		TestReceptor receptor = new TestReceptor();
+		long handlerExpected = 0;
+		String error = null;
+
+		try {
+			for (int tick = 0; tick < ticks && error == null; ++tick) {
+				// Pipe input. The pipes are not ticked in between, so they
+				// fill up and the clamp to maxPower is covered as well.
+
+				for (int i = 0; i < sources.size() && error == null; ++i) {
+					PipeTransportPower transport = sources.get(i);
+
+					if (tick % 100 == 0) {
+						transport.internalNextPower[down] = 0;
+					}
+
+					long before = FixedPointEnergy.toMicro(transport.internalNextPower[down]);
+					double accepted = transport.receiveEnergy(ForgeDirection.DOWN, rand.nextDouble() * 20);
+					double after = transport.internalNextPower[down];
+
+					if (!isExact(after) || FixedPointEnergy.toMicro(after) - before != FixedPointEnergy.toMicro(accepted)) {
+						error = "pipe input of " + accepted + " MJ turned " + FixedPointEnergy.toMj(before)
+								+ " MJ into " + after + " MJ";
+					}
+				}
+
+				// Sink batteries, through BatteryObject.
+
+				for (int i = 0; i < sinks.size() && error == null; ++i) {
+					sinkExpected[i] += FixedPointEnergy.toMicro(batteries[i].addEnergy(rand.nextDouble() * 12));
+					sinkExpected[i] -= FixedPointEnergy.toMicro(batteries[i].extractEnergy(rand.nextDouble() * 12));
+
+					if (sinks.get(i).energy != FixedPointEnergy.toMj(sinkExpected[i])) {
+						error = "sink battery holds " + sinks.get(i).energy + " MJ, "
+								+ FixedPointEnergy.toMj(sinkExpected[i]) + " MJ expected";
+					}
+				}
+
+				// A power handler, through PowerReceiver and useEnergy.
+
+				if (error == null) {
+					handlerExpected += FixedPointEnergy.toMicro(receptor.receiver.receiveEnergy(Type.PIPE,
+							rand.nextDouble() * 20, ForgeDirection.DOWN));
+					handlerExpected -= FixedPointEnergy.toMicro(receptor.handler.useEnergy(rand.nextDouble() * 4,
+							rand.nextDouble() * 16, true));
+
+					if (receptor.handler.getEnergyStored() != FixedPointEnergy.toMj(handlerExpected)) {
+						error = "power handler holds " + receptor.handler.getEnergyStored() + " MJ, "
+								+ FixedPointEnergy.toMj(handlerExpected) + " MJ expected";
+					}
+				}
+
+				if (error != null) {
+					error = "tick " + tick + ": " + error;
+				}
+			}
+		} finally {
+			// The network run expects the pipes and sinks as they were.
+
+			for (int i = 0; i < sources.size(); ++i) {
+				sources.get(i).internalNextPower[down] = pipeSaved[i];
+			}
+
+			for (int i = 0; i < sinks.size(); ++i) {
+				sinks.get(i).energy = sinkSaved[i];
+			}
+		}
+
+		if (error != null) {
+			System.out.println("[TEST " + date + "] [ERROR] legacy mode, " + error + ".");
+		} else {
+			System.out.println("[TEST " + date + "] [OK] legacy mode, " + ticks + " rounds of pipe input, "
+					+ "battery and power handler transfers without drift");
+		}
+	}
+
+	private static boolean isExact(double mj) {
+		return FixedPointEnergy.toMj(FixedPointEnergy.toMicro(mj)) == mj;
+	}
+
+	/**
+	 * A machine holding a power handler without perdition.
+	 */
+	private final class TestReceptor implements IPowerReceptor {
+
+		final PowerHandler handler = new PowerHandler(this, Type.MACHINE);
+		final PowerReceiver receiver = handler.getPowerReceiver();
+
+		TestReceptor() {
+			handler.configure(0, 20, 0, 1000);
+			handler.configurePowerPerdition(0, 0);
+		}
+
+		@Override
+		public PowerReceiver getPowerReceiver(ForgeDirection side) {
+			return receiver;
+		}
+
+		@Override
+		public void doWork(PowerHandler workProvider) {
+		}
+
+		@Override
+		public World getWorld() {
+			return world;
+		}
+	}
+
+	@Override
+	public void writeToNBT(NBTTagCompound nbt) {
+		super.writeToNBT(nbt);
+
+		nbt.setInteger("x", x);
+		nbt.setInteger("y", y);
+		nbt.setInteger("z", z);
+		nbt.setInteger("size", size);
+		nbt.setInteger("ticks", ticks);
+		nbt.setBoolean("legacy", legacy);
+	}
+
+	@Override
+	public void readFromNBT(NBTTagCompound nbt) {
+		super.readFromNBT(nbt);
+
+		x = nbt.getInteger("x");
+		y = nbt.getInteger("y");
+		z = nbt.getInteger("z");
+		size = nbt.getInteger("size");
+		ticks = nbt.getInteger("ticks");
+		legacy = nbt.getBoolean("legacy");
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2011-2014, SpaceToad and the BuildCraft Team
+ * http://www.mod-buildcraft.com
+ *
+ * BuildCraft is distributed under the terms of the Minecraft Mod Public
+ * License 1.0, or MMPL. Please check the contents of the license located in
+ * http://www.mod-buildcraft.com/MMPL-1.0.txt
+ */
+package buildcraft.tests.testcase;
+
+import net.minecraft.nbt.NBTTagCompound;
+
+import buildcraft.api.core.NetworkData;
+import buildcraft.api.transport.PipeWire;
+import buildcraft.transport.BlockGenericPipe;
+import buildcraft.transport.Pipe;
+import buildcraft.transport.PipeWireSolver;
+
+/**
+ * Checks the red signal on a rectangle built by SequenceActionBuildWireGrid.
+ * The signal is full on the broadcasting pipe, and decreases by one per pipe
+ * away from it, so a pipe i, k blocks away along x and z has 255 - i - k.
+ */
+public class SequenceActionCheckWireSignal extends SequenceAction {
+
+	@NetworkData
+	int x, y, z, sizeX, sizeZ;
+
+	public SequenceActionCheckWireSignal() {
+
+	}
+
+	@Override
+	public void execute() {
+		for (int i = 0; i < sizeX; ++i) {
+			for (int k = 0; k < sizeZ; ++k) {
+				Pipe<?> pipe = BlockGenericPipe.getPipe(world, x + i, y, z + k);
+				int expected = Math.max(0, PipeWireSolver.MAX_SIGNAL - i - k);
+
+				if (pipe == null) {
+					System.out.println("[TEST " + date + "] [ERROR] " + (x + i) + ", " + y + ", " + (z + k)
+							+ " no pipe found.");
+					return;
+				} else if (pipe.signalStrength[PipeWire.RED.ordinal()] != expected) {
+					System.out.println("[TEST " + date + "] [ERROR] " + (x + i) + ", " + y + ", " + (z + k)
+							+ " signal " + expected + " expected, " + pipe.signalStrength[PipeWire.RED.ordinal()]
+							+ " found.");
+					return;
+				}
+			}
+		}
+
+		System.out.println("[TEST " + date + "] [OK] " + sizeX * sizeZ + " wired pipes from " + x + ", " + y + ", "
+				+ z + ", largest network " + PipeWireSolver.getLargestNetwork() + " pipes, last solve "
+				+ PipeWireSolver.getLastSolveNanos() / 1000 + " us");
+	}
+
+	@Override
+	public void writeToNBT(NBTTagCompound nbt) {
+		super.writeToNBT(nbt);
+
+		nbt.setInteger("x", x);
+		nbt.setInteger("y", y);
+		nbt.setInteger("z", z);
+		nbt.setInteger("sizeX", sizeX);
+		nbt.setInteger("sizeZ", sizeZ);
+	}
+
+	@Override
+	public void readFromNBT(NBTTagCompound nbt) {
+		super.readFromNBT(nbt);
+
+		x = nbt.getInteger("x");
+		y = nbt.getInteger("y");
+		z = nbt.getInteger("z");
+		sizeX = nbt.getInteger("sizeX");
+		sizeZ = nbt.getInteger("sizeZ");
+	}
+}